@@ -20,15 +20,16 @@ import com.android.jack.library.DumpInLibrary;
 import com.android.jack.library.PrebuiltCompatibility;
 import com.android.sched.item.Description;
 import com.android.sched.item.Feature;
-import com.android.sched.util.codec.WriterFileCodec;
+import com.android.sched.util.codec.EnumName;
+import com.android.sched.util.codec.OutputStreamCodec;
+import com.android.sched.util.codec.VariableName;
 import com.android.sched.util.config.HasKeyId;
 import com.android.sched.util.config.id.BooleanPropertyId;
+import com.android.sched.util.config.id.EnumPropertyId;
+import com.android.sched.util.config.id.OutputStreamFilePropertyId;
 import com.android.sched.util.config.id.PropertyId;
-import com.android.sched.util.config.id.WriterFilePropertyId;
 import com.android.sched.util.file.FileOrDirectory.Existence;
 
-import java.nio.charset.StandardCharsets;
-
 import javax.annotation.Nonnull;
 
 /**
@@ -46,11 +47,32 @@ public class CodeCoverageFeature implements Feature {
       .addCategory(PrebuiltCompatibility.class);
 
   @Nonnull
-  public static final WriterFilePropertyId COVERAGE_METADATA_FILE = WriterFilePropertyId
-      .create("jack.coverage.metadata.file", "File where the coverage metadata will be emitted",
-          new WriterFileCodec(Existence.MAY_EXIST).allowStandardOutputOrError()
-              .withDefaultCharset(StandardCharsets.UTF_8))
-      .requiredIf(CODE_COVERAGE.getValue().isTrue());
+  public static final OutputStreamFilePropertyId COVERAGE_METADATA_FILE =
+      OutputStreamFilePropertyId
+          .create("jack.coverage.metadata.file", "File where the coverage metadata will be emitted",
+              new OutputStreamCodec(Existence.MAY_EXIST).allowStandardOutputOrError())
+          .requiredIf(CODE_COVERAGE.getValue().isTrue());
+
+  /**
+   * Formats of the coverage metadata file
+   */
+  @VariableName("format")
+  public enum MetadataFormat {
+    @EnumName(name = "binary", description = "compact binary format")
+    BINARY,
+    @EnumName(name = "json", description = "JSON format")
+    JSON;
+  }
+
+  @Nonnull
+  public static final EnumPropertyId<MetadataFormat> COVERAGE_METADATA_FORMAT =
+      EnumPropertyId.create(
+              "jack.coverage.metadata.format",
+              "Format of the coverage metadata file",
+              MetadataFormat.class)
+          .addDefaultValue(MetadataFormat.BINARY)
+          .ignoreCase()
+          .requiredIf(CODE_COVERAGE.getValue().isTrue());
 
   @Nonnull
   public static final PropertyId<JacocoPackage> COVERAGE_JACOCO_PACKAGE_NAME =
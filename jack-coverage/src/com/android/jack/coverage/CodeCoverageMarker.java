@@ -65,6 +65,15 @@ public class CodeCoverageMarker implements Marker {
   public static final class Complete implements Tag {
   }
 
+  /**
+   * This tag means that the coverage metadata of the class has been encoded in the
+   * {@link CodeCoverageMarker}, ready to be written to the metadata file.
+   */
+  @Description("The CodeCoverageMarker contains encoded metadata.")
+  @Name("CodeCoverageMarker.Encoded")
+  public static final class Encoded implements Tag {
+  }
+
   public static final long INVALID_CLASS_ID = -1L;
 
   // Access to this list must be thread-safe.
@@ -84,6 +93,12 @@ public class CodeCoverageMarker implements Marker {
   @CheckForNull
   private JMethod initMethod;
 
+  /**
+   * The coverage metadata of the class, encoded in the format of the metadata file.
+   */
+  @CheckForNull
+  private byte[] metadata;
+
   /**
    * Creates a new probe for the given {@link JMethod}.
    *
@@ -136,12 +151,22 @@ public class CodeCoverageMarker implements Marker {
     this.initMethod = initMethod;
   }
 
+  @CheckForNull
+  public byte[] getMetadata() {
+    return metadata;
+  }
+
+  public void setMetadata(@Nonnull byte[] metadata) {
+    this.metadata = metadata;
+  }
+
   @Override
   public Marker cloneIfNeeded() {
     CodeCoverageMarker marker = new CodeCoverageMarker(classId, probes);
     if (initMethod != null) {
       marker.setInitMethod(initMethod);
     }
+    marker.metadata = metadata;
     return marker;
   }
 }
@@ -0,0 +1,385 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.coverage;
+
+import com.android.jack.coverage.CodeCoverageFeature.MetadataFormat;
+import com.android.jack.coverage.ProbeDescription.ProbeLineData;
+import com.android.jack.dx.util.ByteArrayAnnotatedOutput;
+import com.android.jack.ir.ast.JClass;
+import com.android.jack.ir.ast.JDefinedClassOrInterface;
+import com.android.jack.ir.ast.JInterface;
+import com.android.jack.ir.ast.JMethod;
+import com.android.jack.ir.ast.JVisitor;
+import com.android.jack.ir.formatter.BinaryQualifiedNameFormatter;
+import com.android.jack.ir.formatter.BinarySignatureFormatter;
+import com.android.jack.ir.formatter.TypeAndMethodFormatter;
+import com.android.jack.ir.formatter.TypeFormatter;
+import com.android.jack.ir.sourceinfo.SourceInfo;
+import com.android.jack.scheduling.filter.TypeWithoutPrebuiltFilter;
+import com.android.sched.item.Description;
+import com.android.sched.schedulable.Constraint;
+import com.android.sched.schedulable.Filter;
+import com.android.sched.schedulable.RunnableSchedulable;
+import com.android.sched.schedulable.Support;
+import com.android.sched.schedulable.Transform;
+import com.android.sched.util.config.ThreadConfig;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Encodes the coverage metadata of each class, so that types can be encoded in parallel and
+ * {@link CodeCoverageMetadataFileWriter} only has to concatenate them.
+ *
+ * <p>A class encoded in the binary format starts with its own string table, a LEB128 count
+ * followed by LEB128 length prefixed UTF-8 strings, the other strings being LEB128 indexes in this
+ * table. Then come the class id as a little-endian long, the name, super class name and source
+ * file, the interfaces, the methods as name and descriptor pairs, and the probes. A probe is the
+ * signed difference between its id and the id following the previous probe, the index of its
+ * method, and its lines, each line being the signed difference from the previous line followed by
+ * instruction and branch counts. Lists are prefixed by their LEB128 size.
+ */
+@Description("Encodes Jacoco metadata of classes.")
+@Support(CodeCoverageFeature.class)
+@Constraint(need = CodeCoverageMarker.Complete.class)
+@Transform(add = CodeCoverageMarker.Encoded.class)
+@Filter(TypeWithoutPrebuiltFilter.class)
+public class CodeCoverageMetadataEncoder
+    implements RunnableSchedulable<JDefinedClassOrInterface> {
+
+  /**
+   * Formatter used to get the binary name of a type.
+   */
+  @Nonnull
+  private static final TypeFormatter typeFormatter = BinaryQualifiedNameFormatter.getFormatter();
+
+  /**
+   * Formatter used to get the binary signature of a method.
+   */
+  @Nonnull
+  private static final TypeAndMethodFormatter methodFormatter =
+      BinarySignatureFormatter.getFormatter();
+
+  @Nonnull
+  private final MetadataFormat format =
+      ThreadConfig.get(CodeCoverageFeature.COVERAGE_METADATA_FORMAT);
+
+  private static class JsonVisitor extends JVisitor {
+    private static final String ONE_TAB = "  ";
+    private static final int ONE_TAB_LENGTH = ONE_TAB.length();
+
+    @Nonnull
+    private final PrintWriter writer;
+
+    @Nonnull
+    private final CodeCoverageMarker marker;
+
+    @Nonnull
+    private String currentIndent = "";
+
+    public JsonVisitor(@Nonnull PrintWriter writer, @Nonnull CodeCoverageMarker marker) {
+      this.writer = writer;
+      this.marker = marker;
+    }
+
+    private void indent() {
+      currentIndent = ONE_TAB + currentIndent;
+    }
+
+    private void unindent() {
+      if (currentIndent.length() < ONE_TAB_LENGTH) {
+        throw new IllegalStateException("Cannot decrement indentation");
+      }
+      currentIndent = currentIndent.substring(ONE_TAB_LENGTH);
+    }
+
+    private void println(@Nonnull String str) {
+      writer.println(currentIndent + str);
+    }
+
+    @Override
+    public boolean visit(@Nonnull JDefinedClassOrInterface x) {
+      String className = typeFormatter.getName(x);
+      JClass superClass = x.getSuperClass();
+      String superClassName = (superClass != null) ? typeFormatter.getName(superClass) : "";
+      String sourceFilename = getSourceFileNameWithoutPath(x);
+      List<ProbeDescription> probes = marker.getProbes();
+      List<JMethod> methods = getCoveredMethods(x, marker);
+
+      final long classID = marker.getClassId();
+      assert classID != CodeCoverageMarker.INVALID_CLASS_ID;
+
+      indent();
+      println("\"id\": " + classID + ",");
+      println("\"name\": \"" + className + "\",");
+      println("\"superClassName\": \"" + superClassName + "\",");
+      println("\"sourceFile\": \"" + sourceFilename + "\",");
+      println("\"interfaces\": [");
+      indent();
+      List<JInterface> interfaces = x.getImplements();
+      for (int i = 0, e = interfaces.size(); i < e; ++i) {
+        JInterface inf = interfaces.get(i);
+        String commaSuffix = (i < e - 1 ? "," : "");
+        println("\"" + typeFormatter.getName(inf) + "\"" + commaSuffix);
+      }
+      unindent();
+      println("],");
+      println("\"methods\": [");
+
+      indent();
+      for (int i = 0, e = methods.size(); i < e; ++i) {
+        JMethod m = methods.get(i);
+        String methodSignature = methodFormatter.getName(m);
+        int nameEndPos = methodSignature.indexOf('(');
+        assert nameEndPos > 0;
+        String methodName = methodSignature.substring(0, nameEndPos);
+        String methodDesc = methodSignature.substring(nameEndPos);
+        println("{");
+        indent();
+        println("\"id\": " + i + ",");
+        println("\"name\": \"" + methodName + "\",");
+        println("\"desc\": \"" + methodDesc + "\"");
+        unindent();
+        if (i == e - 1) {
+          println("}");
+        } else {
+          println("},");
+        }
+      }
+      unindent();
+      println("],");
+      println("\"probes\": [");
+
+      indent();
+      for (int i = 0, e = probes.size(); i < e; ++i) {
+        ProbeDescription p = probes.get(i);
+        println("{");
+        indent();
+        println("\"id\": " + probes.get(i).getProbeId() + ",");
+        println("\"method\": " + methods.indexOf(p.getMethod()) + ",");
+        println("\"lines\": [");
+
+        indent();
+        Map<Integer, ProbeLineData> linesMap = p.getLineToData();
+        Iterator<Entry<Integer, ProbeLineData>> keyIterator = linesMap.entrySet().iterator();
+        while (keyIterator.hasNext()) {
+          Entry<Integer, ProbeLineData> entry = keyIterator.next();
+          int line = entry.getKey().intValue();
+          ProbeLineData data = entry.getValue();
+          println("{");
+          indent();
+          println("\"line\": " + line + ",");
+          int insnsCount = data.getNodesCount();
+          int branchCount = data.getBranchesCount();
+          println("\"insnCount\": " + insnsCount + ",");
+          println("\"branchCount\": " + branchCount);
+          unindent();
+          if (keyIterator.hasNext()) {
+            println("},");
+          } else {
+            println("}");
+          }
+        }
+
+        unindent();
+        println("]");
+        unindent();
+        if (i == e - 1) {
+          println("}");
+        } else {
+          println("},");
+        }
+      }
+      unindent();
+      println("]");
+
+      unindent();
+      return false;
+    }
+  }
+
+  /**
+   * Strings of a class encoded in the binary format, indexed in their order of appearance.
+   */
+  private static class StringTable {
+    @Nonnull
+    private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+
+    @Nonnull
+    private final List<String> strings = new ArrayList<String>();
+
+    @Nonnegative
+    int getIndex(@Nonnull String string) {
+      Integer index = indexes.get(string);
+      if (index == null) {
+        index = Integer.valueOf(strings.size());
+        indexes.put(string, index);
+        strings.add(string);
+      }
+      return index.intValue();
+    }
+
+    void write(@Nonnull ByteArrayAnnotatedOutput out) {
+      out.writeUleb128(strings.size());
+      for (String string : strings) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeUleb128(bytes.length);
+        out.write(bytes);
+      }
+    }
+  }
+
+  @Override
+  public void run(@Nonnull JDefinedClassOrInterface declaredType) {
+    CodeCoverageMarker marker = declaredType.getMarker(CodeCoverageMarker.class);
+    if (marker == null) {
+      // No code coverage for this class.
+      return;
+    }
+
+    switch (format) {
+      case BINARY:
+        marker.setMetadata(encodeBinary(declaredType, marker));
+        break;
+      case JSON:
+        marker.setMetadata(encodeJson(declaredType, marker));
+        break;
+      default:
+        throw new AssertionError(format);
+    }
+  }
+
+  @Nonnull
+  private static byte[] encodeJson(@Nonnull JDefinedClassOrInterface declaredType,
+      @Nonnull CodeCoverageMarker marker) {
+    StringWriter buffer = new StringWriter();
+    PrintWriter writer = new PrintWriter(buffer);
+    new JsonVisitor(writer, marker).accept(declaredType);
+    writer.flush();
+    return buffer.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Nonnull
+  private static byte[] encodeBinary(@Nonnull JDefinedClassOrInterface declaredType,
+      @Nonnull CodeCoverageMarker marker) {
+    StringTable strings = new StringTable();
+    ByteArrayAnnotatedOutput body = new ByteArrayAnnotatedOutput();
+
+    long classId = marker.getClassId();
+    assert classId != CodeCoverageMarker.INVALID_CLASS_ID;
+    body.writeLong(classId);
+
+    JClass superClass = declaredType.getSuperClass();
+    body.writeUleb128(strings.getIndex(typeFormatter.getName(declaredType)));
+    body.writeUleb128(
+        strings.getIndex((superClass != null) ? typeFormatter.getName(superClass) : ""));
+    body.writeUleb128(strings.getIndex(getSourceFileNameWithoutPath(declaredType)));
+
+    List<JInterface> interfaces = declaredType.getImplements();
+    body.writeUleb128(interfaces.size());
+    for (JInterface inf : interfaces) {
+      body.writeUleb128(strings.getIndex(typeFormatter.getName(inf)));
+    }
+
+    List<JMethod> methods = getCoveredMethods(declaredType, marker);
+    body.writeUleb128(methods.size());
+    for (JMethod m : methods) {
+      String methodSignature = methodFormatter.getName(m);
+      int nameEndPos = methodSignature.indexOf('(');
+      assert nameEndPos > 0;
+      body.writeUleb128(strings.getIndex(methodSignature.substring(0, nameEndPos)));
+      body.writeUleb128(strings.getIndex(methodSignature.substring(nameEndPos)));
+    }
+
+    List<ProbeDescription> probes = marker.getProbes();
+    body.writeUleb128(probes.size());
+    int nextProbeId = 0;
+    for (ProbeDescription p : probes) {
+      // Probes are numbered in sequence, so the difference is usually 0
+      body.writeSleb128(p.getProbeId() - nextProbeId);
+      nextProbeId = p.getProbeId() + 1;
+      body.writeSleb128(methods.indexOf(p.getMethod()));
+
+      Map<Integer, ProbeLineData> linesMap = p.getLineToData();
+      body.writeUleb128(linesMap.size());
+      int previousLine = 0;
+      for (Entry<Integer, ProbeLineData> entry : linesMap.entrySet()) {
+        int line = entry.getKey().intValue();
+        ProbeLineData data = entry.getValue();
+        body.writeSleb128(line - previousLine);
+        previousLine = line;
+        body.writeUleb128(data.getNodesCount());
+        body.writeUleb128(data.getBranchesCount());
+      }
+    }
+
+    ByteArrayAnnotatedOutput out = new ByteArrayAnnotatedOutput(body.getCursor() + 256);
+    strings.write(out);
+    out.write(body.getArray(), 0, body.getCursor());
+    return out.toByteArray();
+  }
+
+  /**
+   * Returns the methods of a class described in the metadata.
+   */
+  @Nonnull
+  private static List<JMethod> getCoveredMethods(@Nonnull JDefinedClassOrInterface x,
+      @Nonnull CodeCoverageMarker marker) {
+    // We do not want to include the added coverage init method in the file (it is not
+    // instrumented). So we create a copy of the methods list that does not contain this method.
+    JMethod coverageInitMethod = marker.getInitMethod();
+    assert coverageInitMethod != null;
+    List<JMethod> methods = new ArrayList<JMethod>(x.getMethods().size());
+    for (JMethod m : x.getMethods()) {
+      if (m.isNative() || m.isAbstract()) {
+        // No coverage for such method.
+        continue;
+      }
+      if (m == coverageInitMethod) {
+        // Skip the method added by instrumentation.
+        continue;
+      }
+      methods.add(m);
+    }
+    return methods;
+  }
+
+  @Nonnull
+  private static String getSourceFileNameWithoutPath(@Nonnull JDefinedClassOrInterface x) {
+    SourceInfo sourceInfo = x.getSourceInfo();
+    String sourceFilename = "";
+    if (sourceInfo != SourceInfo.UNKNOWN) {
+      sourceFilename = sourceInfo.getFileSourceInfo().getFileName();
+      int pos = sourceFilename.lastIndexOf(File.separator);
+      if (pos != -1) {
+        sourceFilename = sourceFilename.substring(pos + 1);
+      }
+    }
+    return sourceFilename;
+  }
+}
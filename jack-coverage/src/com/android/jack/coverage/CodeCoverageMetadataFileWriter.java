@@ -16,18 +16,10 @@
 
 package com.android.jack.coverage;
 
-import com.android.jack.coverage.ProbeDescription.ProbeLineData;
-import com.android.jack.ir.ast.JClass;
+import com.android.jack.coverage.CodeCoverageFeature.MetadataFormat;
+import com.android.jack.dx.util.ByteArrayAnnotatedOutput;
 import com.android.jack.ir.ast.JDefinedClassOrInterface;
-import com.android.jack.ir.ast.JInterface;
-import com.android.jack.ir.ast.JMethod;
 import com.android.jack.ir.ast.JSession;
-import com.android.jack.ir.ast.JVisitor;
-import com.android.jack.ir.formatter.BinaryQualifiedNameFormatter;
-import com.android.jack.ir.formatter.BinarySignatureFormatter;
-import com.android.jack.ir.formatter.TypeAndMethodFormatter;
-import com.android.jack.ir.formatter.TypeFormatter;
-import com.android.jack.ir.sourceinfo.SourceInfo;
 import com.android.jack.reporting.ReportableIOException;
 import com.android.jack.reporting.Reporter.Severity;
 import com.android.sched.item.Description;
@@ -37,31 +29,31 @@ import com.android.sched.schedulable.RunnableSchedulable;
 import com.android.sched.schedulable.Transform;
 import com.android.sched.util.config.ThreadConfig;
 import com.android.sched.util.file.CannotWriteException;
-import com.android.sched.util.file.WriterFile;
-import com.android.sched.util.stream.CustomPrintWriter;
+import com.android.sched.util.file.OutputStreamFile;
 
-import java.io.File;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.ArrayList;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 
 import javax.annotation.Nonnull;
 
 /**
  * Writes Jacoco metadata file.
+ *
+ * <p>The metadata of classes is encoded by {@link CodeCoverageMetadataEncoder}. A binary file
+ * starts with {@link #BINARY_MAGIC} and the LEB128 length prefixed UTF-8 {@link #VERSION}, then
+ * contains each encoded class prefixed by its LEB128 length, and ends with a zero length.
  */
 @Description("Writes Jacoco metadata file.")
-@Constraint(need = CodeCoverageMarker.Complete.class)
+@Constraint(need = CodeCoverageMarker.Encoded.class)
 @Transform(remove = CodeCoverageMarker.class)
 @Produce(CodeCoverageMetadataFile.class)
 public class CodeCoverageMetadataFileWriter implements RunnableSchedulable<JSession> {
 
   /**
-   * The version of emitted JSON coverage information.
+   * The version of emitted coverage information.
    */
   @Nonnull
   public static final String VERSION = "1.0";
@@ -73,208 +65,49 @@ public class CodeCoverageMetadataFileWriter implements RunnableSchedulable<JSess
   public static final String JSON_DATA_ATTRIBUTE = "data";
 
   /**
-   * Formatter used to get the binary name of a type.
+   * The first bytes of a binary coverage metadata file, which can not start a JSON file.
    */
   @Nonnull
-  private static final TypeFormatter typeFormatter = BinaryQualifiedNameFormatter.getFormatter();
+  public static final String BINARY_MAGIC = "\0JCM";
 
-  /**
-   * Formatter used to get the binary signature of a method.
-   */
   @Nonnull
-  private static final TypeAndMethodFormatter methodFormatter =
-      BinarySignatureFormatter.getFormatter();
-
-  private static class Visitor extends JVisitor {
-    private static final String ONE_TAB = "  ";
-    private static final int ONE_TAB_LENGTH = ONE_TAB.length();
+  private static final String LINE_SEPARATOR = System.getProperty("line.separator");
 
-    @Nonnull
-    private final PrintWriter writer;
-
-    @Nonnull
-    private final CodeCoverageMarker marker;
-
-    @Nonnull
-    private String currentIndent = "";
-
-    public Visitor(@Nonnull PrintWriter writer, @Nonnull CodeCoverageMarker marker) {
-      this.writer = writer;
-      this.marker = marker;
-    }
-
-    private void indent() {
-      currentIndent = ONE_TAB + currentIndent;
-    }
-
-    private void unindent() {
-      if (currentIndent.length() < ONE_TAB_LENGTH) {
-        throw new IllegalStateException("Cannot decrement indentation");
-      }
-      currentIndent = currentIndent.substring(ONE_TAB_LENGTH);
-    }
-
-    private void println(@Nonnull String str) {
-      writer.println(currentIndent + str);
-    }
-
-    private static String getSourceFileNameWithoutPath(@Nonnull JDefinedClassOrInterface x) {
-      SourceInfo sourceInfo = x.getSourceInfo();
-      String sourceFilename = "";
-      if (sourceInfo != SourceInfo.UNKNOWN) {
-        sourceFilename = sourceInfo.getFileSourceInfo().getFileName();
-        int pos = sourceFilename.lastIndexOf(File.separator);
-        if (pos != -1) {
-          sourceFilename = sourceFilename.substring(pos + 1);
-        }
-      }
-      return sourceFilename;
-    }
-
-    @Override
-    public boolean visit(@Nonnull JDefinedClassOrInterface x) {
-      String className = typeFormatter.getName(x);
-      JClass superClass = x.getSuperClass();
-      String superClassName = (superClass != null) ? typeFormatter.getName(superClass) : "";
-      String sourceFilename = getSourceFileNameWithoutPath(x);
-      List<ProbeDescription> probes = marker.getProbes();
-
-      // We do not want to include the added coverage init method in the file (it is not
-      // instrumented). So we create a copy of the methods list that does not contain this method.
-      JMethod coverageInitMethod = marker.getInitMethod();
-      assert coverageInitMethod != null;
-      List<JMethod> methods = new ArrayList<JMethod>(x.getMethods().size());
-      for (JMethod m : x.getMethods()) {
-        if (m.isNative() || m.isAbstract()) {
-          // No coverage for such method.
-          continue;
-        }
-        if (m == coverageInitMethod) {
-          // Skip the method added by instrumentation.
-          continue;
-        }
-        methods.add(m);
-      }
-
-      final long classID = marker.getClassId();
-      assert classID != CodeCoverageMarker.INVALID_CLASS_ID;
-
-      indent();
-      println("\"id\": " + classID + ",");
-      println("\"name\": \"" + className + "\",");
-      println("\"superClassName\": \"" + superClassName + "\",");
-      println("\"sourceFile\": \"" + sourceFilename + "\",");
-      println("\"interfaces\": [");
-      indent();
-      List<JInterface> interfaces = x.getImplements();
-      for (int i = 0, e = interfaces.size(); i < e; ++i) {
-        JInterface inf = interfaces.get(i);
-        String commaSuffix = (i < e - 1 ? "," : "");
-        println("\"" + typeFormatter.getName(inf) + "\"" + commaSuffix);
-      }
-      unindent();
-      println("],");
-      println("\"methods\": [");
-
-      indent();
-      for (int i = 0, e = methods.size(); i < e; ++i) {
-        JMethod m = methods.get(i);
-        String methodSignature = methodFormatter.getName(m);
-        int nameEndPos = methodSignature.indexOf('(');
-        assert nameEndPos > 0;
-        String methodName = methodSignature.substring(0, nameEndPos);
-        String methodDesc = methodSignature.substring(nameEndPos);
-        println("{");
-        indent();
-        println("\"id\": " + i + ",");
-        println("\"name\": \"" + methodName + "\",");
-        println("\"desc\": \"" + methodDesc + "\"");
-        unindent();
-        if (i == e - 1) {
-          println("}");
-        } else {
-          println("},");
-        }
-      }
-      unindent();
-      println("],");
-      println("\"probes\": [");
-
-      indent();
-      for (int i = 0, e = probes.size(); i < e; ++i) {
-        ProbeDescription p = probes.get(i);
-        println("{");
-        indent();
-        println("\"id\": " + probes.get(i).getProbeId() + ",");
-        println("\"method\": " + methods.indexOf(p.getMethod()) + ",");
-        println("\"lines\": [");
-
-        indent();
-        Map<Integer, ProbeLineData> linesMap = p.getLineToData();
-        Iterator<Entry<Integer, ProbeLineData>> keyIterator = linesMap.entrySet().iterator();
-        while (keyIterator.hasNext()) {
-          Entry<Integer, ProbeLineData> entry = keyIterator.next();
-          int line = entry.getKey().intValue();
-          ProbeLineData data = entry.getValue();
-          println("{");
-          indent();
-          println("\"line\": " + line + ",");
-          int insnsCount = data.getNodesCount();
-          int branchCount = data.getBranchesCount();
-          println("\"insnCount\": " + insnsCount + ",");
-          println("\"branchCount\": " + branchCount);
-          unindent();
-          if (keyIterator.hasNext()) {
-            println("},");
-          } else {
-            println("}");
-          }
-        }
-
-        unindent();
-        println("]");
-        unindent();
-        if (i == e - 1) {
-          println("}");
-        } else {
-          println("},");
-        }
-      }
-      unindent();
-      println("]");
-
-      unindent();
-      return true;
-    }
-  }
+  @Nonnull
+  private final MetadataFormat format =
+      ThreadConfig.get(CodeCoverageFeature.COVERAGE_METADATA_FORMAT);
 
   @Override
   public void run(@Nonnull JSession session) {
-    WriterFile file = ThreadConfig.get(CodeCoverageFeature.COVERAGE_METADATA_FILE);
-    CustomPrintWriter writer = file.getPrintWriter();
+    OutputStreamFile file = ThreadConfig.get(CodeCoverageFeature.COVERAGE_METADATA_FILE);
 
     try {
-      writeMetadata(session, writer);
-    } finally {
-      writer.close();
+      OutputStream out = new BufferedOutputStream(file.getOutputStream());
       try {
-        writer.throwPendingException();
-      } catch (IOException e) {
-        session.getReporter().report(Severity.FATAL,
-            new ReportableIOException("Coverage metadata", new CannotWriteException(file, e)));
-        session.abortEventually();
+        switch (format) {
+          case BINARY:
+            writeBinaryMetadata(session, out);
+            break;
+          case JSON:
+            writeJsonMetadata(session, out);
+            break;
+          default:
+            throw new AssertionError(format);
+        }
+      } finally {
+        out.close();
       }
+    } catch (IOException e) {
+      session.getReporter().report(Severity.FATAL,
+          new ReportableIOException("Coverage metadata", new CannotWriteException(file, e)));
+      session.abortEventually();
     }
   }
 
-  private void writeMetadata(@Nonnull JSession session, @Nonnull PrintWriter writer) {
-    writer.print("{ \"");
-    writer.print(JSON_VERSION_ATTRIBUTE);
-    writer.print("\":\"");
-    writer.print(VERSION);
-    writer.print("\", \"");
-    writer.print(JSON_DATA_ATTRIBUTE);
-    writer.println("\":[");
+  private void writeJsonMetadata(@Nonnull JSession session, @Nonnull OutputStream out)
+      throws IOException {
+    print(out, "{ \"" + JSON_VERSION_ATTRIBUTE + "\":\"" + VERSION + "\", \""
+        + JSON_DATA_ATTRIBUTE + "\":[" + LINE_SEPARATOR);
     Iterator<JDefinedClassOrInterface> list = session.getTypesToEmit().iterator();
     boolean first = true;
     while (list.hasNext()) {
@@ -285,22 +118,57 @@ public class CodeCoverageMetadataFileWriter implements RunnableSchedulable<JSess
         continue;
       }
       if (first) {
-        writer.println("{");
+        print(out, "{" + LINE_SEPARATOR);
         first = false;
       } else {
-        writer.println(",{");
+        print(out, ",{" + LINE_SEPARATOR);
       }
 
       // Write metadata of the class.
-      new Visitor(writer, marker).accept(c);
+      out.write(getMetadata(marker));
 
-      writer.print('}');
-      if (list.hasNext()) {
-      } else {
-        writer.println();
+      print(out, "}");
+      if (!list.hasNext()) {
+        print(out, LINE_SEPARATOR);
+      }
+    }
+    print(out, "]}" + LINE_SEPARATOR);
+  }
+
+  private void writeBinaryMetadata(@Nonnull JSession session, @Nonnull OutputStream out)
+      throws IOException {
+    ByteArrayAnnotatedOutput header = new ByteArrayAnnotatedOutput();
+    header.write(BINARY_MAGIC.getBytes(StandardCharsets.UTF_8));
+    byte[] version = VERSION.getBytes(StandardCharsets.UTF_8);
+    header.writeUleb128(version.length);
+    header.write(version);
+    out.write(header.getArray(), 0, header.getCursor());
+
+    for (JDefinedClassOrInterface c : session.getTypesToEmit()) {
+      CodeCoverageMarker marker = c.removeMarker(CodeCoverageMarker.class);
+      if (marker == null) {
+        // No code coverage for this class.
+        continue;
       }
+      byte[] metadata = getMetadata(marker);
+      ByteArrayAnnotatedOutput length = new ByteArrayAnnotatedOutput(5);
+      length.writeUleb128(metadata.length);
+      out.write(length.getArray(), 0, length.getCursor());
+      out.write(metadata);
     }
-    writer.println("]}");
-    writer.flush();
+
+    // End of classes
+    out.write(0);
+  }
+
+  @Nonnull
+  private static byte[] getMetadata(@Nonnull CodeCoverageMarker marker) {
+    byte[] metadata = marker.getMetadata();
+    assert metadata != null;
+    return metadata;
+  }
+
+  private static void print(@Nonnull OutputStream out, @Nonnull String str) throws IOException {
+    out.write(str.getBytes(StandardCharsets.UTF_8));
   }
 }
@@ -129,6 +129,7 @@ public class CodeCoveragePlugin extends SchedAnnotationProcessorBasedPlugin {  /
         CodeCoverageSelector.class,
         CodeCoverageAnalyzer.class,
         CodeCoverageTransformer.class,
+        CodeCoverageMetadataEncoder.class,
         CodeCoverageMetadataFileWriter.class,
         CfgMarkerRemover.class,
         CfgBuilder.class);
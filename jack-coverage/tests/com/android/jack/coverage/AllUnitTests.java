@@ -16,12 +16,15 @@
 
 package com.android.jack.coverage;
 
+import com.android.jack.tools.jacoco.MainTest;
+
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
 @SuiteClasses(value = {CoveragePatternTest.class, CoverageFilterSetTest.class,
-    CoveragePatternCodecTest.class, CoverageFilterSetCodecTest.class, CoverageFilterTest.class})
+    CoveragePatternCodecTest.class, CoverageFilterSetCodecTest.class, CoverageFilterTest.class,
+    MainTest.class})
 public class AllUnitTests {
 }
@@ -19,10 +19,6 @@ package com.android.jack.coverage;
 import static org.junit.Assert.assertEquals;
 
 import com.google.common.collect.Sets;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 
 import com.android.jack.test.TestsProperties;
 import com.android.jack.test.junit.KnownIssue;
@@ -34,18 +30,32 @@ import com.android.jack.test.toolchain.JackCliToolchain;
 import com.android.jack.util.NamingTools;
 import com.android.sched.util.file.CannotChangePermissionException;
 import com.android.sched.util.file.CannotCreateFileException;
+import com.android.jack.tools.jacoco.JackCoverageAnalyzer;
 import com.android.sched.util.file.WrongPermissionException;
 
 import junit.framework.Assert;
 
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.ICoverageVisitor;
+import org.jacoco.core.analysis.ILine;
+import org.jacoco.core.analysis.IMethodCoverage;
+import org.jacoco.core.analysis.ISourceNode;
+import org.jacoco.core.data.ExecutionDataStore;
 import org.junit.Test;
 
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -61,19 +71,19 @@ public class CoverageTests {
   @Test
   public void testSingleClass() throws Exception {
     final String testPackageName = getTestPackageName("test001");
-    JsonArray classes = compileAndReadJson(testPackageName);
+    List<IClassCoverage> classes = compileAndReadClasses(testPackageName);
 
     // We expect only one class
     Assert.assertNotNull(classes);
     Assert.assertEquals(1, classes.size());
-    JsonObject testClass = classes.get(0).getAsJsonObject();
+    IClassCoverage testClass = classes.get(0);
     Assert.assertNotNull(testClass);
     Assert.assertEquals(
-        getClassNameForJson(testPackageName + ".AbstractClass"),
-        getClassName(testClass));
+        getClassNameForMetadata(testPackageName + ".AbstractClass"),
+        testClass.getName());
 
     // Check its methods.
-    JsonArray methods = testClass.get("methods").getAsJsonArray();
+    Collection<IMethodCoverage> methods = testClass.getMethods();
     Assert.assertEquals(3, methods.size()); // abstract and native methods are excluded.
 
     class NameAndDesc {
@@ -105,26 +115,15 @@ public class CoverageTests {
     expectedMethods.add(new NameAndDesc(NamingTools.INIT_NAME, "()V"));
     expectedMethods.add(new NameAndDesc("staticMethod", "()V"));
     expectedMethods.add(new NameAndDesc("instanceMethod", "()V"));
-    for (JsonElement methodElt : methods) {
-      String name = methodElt.getAsJsonObject().get("name").getAsString();
-      String desc = methodElt.getAsJsonObject().get("desc").getAsString();
-      Assert.assertTrue(expectedMethods.contains(new NameAndDesc(name, desc)));
+    for (IMethodCoverage method : methods) {
+      Assert.assertTrue(
+          expectedMethods.contains(new NameAndDesc(method.getName(), method.getDesc())));
     }
   }
 
-  @Nonnull
-  private static String getClassName(JsonArray classArray, int index) {
-    return getClassName(classArray.get(index).getAsJsonObject());
-  }
-
-  @Nonnull
-  private static String getClassName(JsonObject classObject) {
-    return classObject.get("name").getAsString();
-  }
-
   @Test
   public void testSingleInterface() throws Exception {
-    JsonArray classes = compileAndReadJson(getTestPackageName("test002"));
+    List<IClassCoverage> classes = compileAndReadClasses(getTestPackageName("test002"));
 
     // Interface must be skipped
     Assert.assertEquals(0, classes.size());
@@ -133,14 +132,14 @@ public class CoverageTests {
   @Test
   public void testIncludeAll() throws Exception {
     String testPackageName = getTestPackageName("test003");
-    JsonArray classes = compileAndReadJson(testPackageName, "*", null);
+    List<IClassCoverage> classes = compileAndReadClasses(testPackageName, "*", null);
 
     // Full coverage: Foo and Bar classes.
     Assert.assertEquals(2, classes.size());
     Collection<? extends String> actualClassNames = collectClassNames(classes);
     Set<String> expectedClassNames = Sets.newHashSet(
-        getClassNameForJson(testPackageName + ".foo.Foo"),
-        getClassNameForJson(testPackageName + ".foo.bar.Bar"));
+        getClassNameForMetadata(testPackageName + ".foo.Foo"),
+        getClassNameForMetadata(testPackageName + ".foo.bar.Bar"));
     Assert.assertTrue(actualClassNames.containsAll(expectedClassNames));
   }
 
@@ -148,13 +147,13 @@ public class CoverageTests {
   public void testIncludeSingle() throws Exception {
     String testPackageName = getTestPackageName("test003");
     String includeFilter = testPackageName + ".foo.bar.Bar";
-    JsonArray classes = compileAndReadJson(testPackageName, includeFilter, null);
+    List<IClassCoverage> classes = compileAndReadClasses(testPackageName, includeFilter, null);
 
     // Partial coverage: only Bar class.
     Assert.assertEquals(1, classes.size());
     Collection<? extends String> actualClassNames = collectClassNames(classes);
     Set<String> expectedClassNames = Sets.newHashSet(
-        getClassNameForJson(testPackageName + ".foo.bar.Bar"));
+        getClassNameForMetadata(testPackageName + ".foo.bar.Bar"));
     Assert.assertTrue(actualClassNames.containsAll(expectedClassNames));
   }
 
@@ -162,19 +161,19 @@ public class CoverageTests {
   public void testIncludeWildcard() throws Exception {
     String testPackageName = getTestPackageName("test003");
     String includeFilter = testPackageName + ".foo.bar.*";
-    JsonArray classes = compileAndReadJson(testPackageName, includeFilter, null);
+    List<IClassCoverage> classes = compileAndReadClasses(testPackageName, includeFilter, null);
 
     // Partial coverage: only Bar class.
     Assert.assertEquals(1, classes.size());
     Collection<? extends String> actualClassNames = collectClassNames(classes);
     Set<String> expectedClassNames = Sets.newHashSet(
-        getClassNameForJson(testPackageName + ".foo.bar.Bar"));
+        getClassNameForMetadata(testPackageName + ".foo.bar.Bar"));
     Assert.assertTrue(actualClassNames.containsAll(expectedClassNames));
   }
 
   @Test
   public void testExcludeAll() throws Exception {
-    JsonArray classes = compileAndReadJson(getTestPackageName("test003"), null, "*");
+    List<IClassCoverage> classes = compileAndReadClasses(getTestPackageName("test003"), null, "*");
 
     // No coverage at all
     Assert.assertEquals(0, classes.size());
@@ -184,13 +183,13 @@ public class CoverageTests {
   public void testExcludeSingle() throws Exception {
     String testPackageName = getTestPackageName("test003");
     String excludeFilter = testPackageName + ".foo.bar.Bar";
-    JsonArray classes = compileAndReadJson(getTestPackageName("test003"), null, excludeFilter);
+    List<IClassCoverage> classes = compileAndReadClasses(getTestPackageName("test003"), null, excludeFilter);
 
     // Partial coverage: only Foo class.
     Assert.assertEquals(1, classes.size());
     Collection<? extends String> actualClassNames = collectClassNames(classes);
     Set<String> expectedClassNames = Sets.newHashSet(
-        getClassNameForJson(testPackageName + ".foo.Foo"));
+        getClassNameForMetadata(testPackageName + ".foo.Foo"));
     Assert.assertTrue(actualClassNames.containsAll(expectedClassNames));
   }
 
@@ -198,13 +197,13 @@ public class CoverageTests {
   public void testExcludeWildcard() throws Exception {
     String testPackageName = getTestPackageName("test003");
     String excludeFilter = testPackageName + ".foo.bar.*";
-    JsonArray classes = compileAndReadJson(testPackageName, null, excludeFilter);
+    List<IClassCoverage> classes = compileAndReadClasses(testPackageName, null, excludeFilter);
 
     // Partial coverage: only Foo class.
     Assert.assertEquals(1, classes.size());
     Collection<? extends String> actualClassNames = collectClassNames(classes);
     Set<String> expectedClassNames = Sets.newHashSet(
-        getClassNameForJson(testPackageName + ".foo.Foo"));
+        getClassNameForMetadata(testPackageName + ".foo.Foo"));
     Assert.assertTrue(actualClassNames.containsAll(expectedClassNames));
   }
 
@@ -213,7 +212,7 @@ public class CoverageTests {
     String testPackageName = getTestPackageName("test003");
     String includeFilter = testPackageName + ".foo.bar.*";
     String excludeFilter = testPackageName + ".foo.*";
-    JsonArray classes = compileAndReadJson(testPackageName, includeFilter, excludeFilter);
+    List<IClassCoverage> classes = compileAndReadClasses(testPackageName, includeFilter, excludeFilter);
 
     // No coverage at all
     Assert.assertEquals(0, classes.size());
@@ -238,12 +237,78 @@ public class CoverageTests {
     toolchain.srcToExe(outDexFolder, false, srcFiles);
 
     // 3 - Check types from the lib are instrumented.
-    JsonArray classes = loadJsonCoverageClasses(coverageMetadataFile);
-    JsonObject testClass =
-        getJsonClass(classes, getClassNameForJson(testPackageName + ".lib.LibClass"));
-    JsonArray probesArray = testClass.get("probes").getAsJsonArray();
-    Assert.assertNotNull(probesArray);
-    Assert.assertTrue(probesArray.size() > 0);
+    List<IClassCoverage> classes = loadCoverageClasses(coverageMetadataFile);
+    IClassCoverage testClass =
+        getClass(classes, getClassNameForMetadata(testPackageName + ".lib.LibClass"));
+    Assert.assertTrue(testClass.getInstructionCounter().getTotalCount() > 0);
+  }
+
+  @Test
+  public void testBinaryMetadata() throws Exception {
+    String testPackageName = getTestPackageName("test003");
+    File[] sourceFiles = new File[] {getTestRootDir(testPackageName)};
+    File binaryMetadataFile = compileDexWithCoverage(sourceFiles, null, null, new File[0]);
+
+    // Binary is the default format.
+    byte[] magic = new byte[4];
+    InputStream is = new FileInputStream(binaryMetadataFile);
+    try {
+      Assert.assertEquals(magic.length, is.read(magic));
+    } finally {
+      is.close();
+    }
+    Assert.assertTrue(Arrays.equals("\0JCM".getBytes(StandardCharsets.UTF_8), magic));
+
+    // The binary metadata must be read as the JSON metadata of the same compilation.
+    File outDexFolder = AbstractTestTools.createTempDir();
+    JackBasedToolchain toolchain = createJackToolchain();
+    File jsonMetadataFile = enableCodeCoverage(toolchain, null, null);
+    toolchain.addProperty("jack.coverage.metadata.format", "json");
+    toolchain.srcToExe(outDexFolder, false, sourceFiles);
+
+    List<IClassCoverage> binaryClasses = loadCoverageClasses(binaryMetadataFile);
+    List<IClassCoverage> jsonClasses = loadCoverageClasses(jsonMetadataFile);
+    Assert.assertEquals(2, binaryClasses.size());
+    Assert.assertEquals(jsonClasses.size(), binaryClasses.size());
+    for (IClassCoverage jsonClass : jsonClasses) {
+      IClassCoverage binaryClass = getClass(binaryClasses, jsonClass.getName());
+      Assert.assertEquals(jsonClass.getId(), binaryClass.getId());
+      Assert.assertEquals(jsonClass.getSuperName(), binaryClass.getSuperName());
+      Assert.assertTrue(
+          Arrays.equals(jsonClass.getInterfaceNames(), binaryClass.getInterfaceNames()));
+      Assert.assertEquals(jsonClass.getSourceFileName(), binaryClass.getSourceFileName());
+      assertSameCounters(jsonClass, binaryClass);
+
+      Assert.assertEquals(jsonClass.getMethods().size(), binaryClass.getMethods().size());
+      Iterator<IMethodCoverage> binaryMethods = binaryClass.getMethods().iterator();
+      for (IMethodCoverage jsonMethod : jsonClass.getMethods()) {
+        IMethodCoverage binaryMethod = binaryMethods.next();
+        Assert.assertEquals(jsonMethod.getName(), binaryMethod.getName());
+        Assert.assertEquals(jsonMethod.getDesc(), binaryMethod.getDesc());
+        assertSameCounters(jsonMethod, binaryMethod);
+      }
+    }
+  }
+
+  private static void assertSameCounters(
+      @Nonnull ISourceNode expected, @Nonnull ISourceNode actual) {
+    for (ICoverageNode.CounterEntity entity : ICoverageNode.CounterEntity.values()) {
+      assertSameCounter(expected.getCounter(entity), actual.getCounter(entity));
+    }
+    Assert.assertEquals(expected.getFirstLine(), actual.getFirstLine());
+    Assert.assertEquals(expected.getLastLine(), actual.getLastLine());
+    for (int line = expected.getFirstLine(); line <= expected.getLastLine(); line++) {
+      ILine expectedLine = expected.getLine(line);
+      ILine actualLine = actual.getLine(line);
+      Assert.assertEquals(expectedLine.getStatus(), actualLine.getStatus());
+      assertSameCounter(expectedLine.getInstructionCounter(), actualLine.getInstructionCounter());
+      assertSameCounter(expectedLine.getBranchCounter(), actualLine.getBranchCounter());
+    }
+  }
+
+  private static void assertSameCounter(@Nonnull ICounter expected, @Nonnull ICounter actual) {
+    Assert.assertEquals(expected.getMissedCount(), actual.getMissedCount());
+    Assert.assertEquals(expected.getCoveredCount(), actual.getCoveredCount());
   }
 
   @Test
@@ -251,7 +316,7 @@ public class CoverageTests {
   public void testClassId_005() throws Exception {
     String testPackageName = getTestPackageName("test005");
     File testRootDir = getTestRootDir(testPackageName);
-    final String className = getClassNameForJson(testPackageName + ".jack.LibClass");
+    final String className = getClassNameForMetadata(testPackageName + ".jack.LibClass");
 
     long classIdOne;
     long classIdTwo;
@@ -302,7 +367,7 @@ public class CoverageTests {
     String testPackageNameV2 = getTestPackageName("test006_v2");
     File testRootDirV2 = getTestRootDir(testPackageNameV2);
 
-    final String className = getClassNameForJson("jack.SrcClass");
+    final String className = getClassNameForMetadata("jack.SrcClass");
     long classIdV1;
     long classIdV2;
     long classIdV2_2;
@@ -354,40 +419,30 @@ public class CoverageTests {
 
   private static long getClassIdOf(@Nonnull File coverageFile, @Nonnull String className)
       throws IOException {
-    JsonArray classesArray = loadJsonCoverageClasses(coverageFile);
-    for (int i = 0, e = classesArray.size(); i < e; ++i) {
-      JsonObject classObject = classesArray.get(i).getAsJsonObject();
-      String jsonClassName = classObject.get("name").getAsString();
-      if (className.equals(jsonClassName)) {
-        long id = classObject.get("id").getAsLong();
-        return id;
-      }
-    }
-    throw new AssertionError("No class " + className + " in coverage file");
+    return getClass(loadCoverageClasses(coverageFile), className).getId();
   }
 
   @Nonnull
-  private static JsonObject getJsonClass(
-      @Nonnull JsonArray jsonClasses, @Nonnull String className) {
-    for (JsonElement jsonElement : jsonClasses) {
-      JsonObject jsonClass = jsonElement.getAsJsonObject();
-      if (jsonClass.get("name").getAsString().equals(className)) {
-        return jsonClass;
+  private static IClassCoverage getClass(
+      @Nonnull List<IClassCoverage> classes, @Nonnull String className) {
+    for (IClassCoverage classCoverage : classes) {
+      if (classCoverage.getName().equals(className)) {
+        return classCoverage;
       }
     }
-    throw new AssertionError("No class " + className);
+    throw new AssertionError("No class " + className + " in coverage file");
   }
 
   @Nonnull
-  private static String getClassNameForJson(@Nonnull String className) {
+  private static String getClassNameForMetadata(@Nonnull String className) {
     return NamingTools.getBinaryName(className);
   }
 
   @Nonnull
-  private Collection<? extends String> collectClassNames(@Nonnull JsonArray classes) {
+  private Collection<? extends String> collectClassNames(@Nonnull List<IClassCoverage> classes) {
     Set<String> classNames = new HashSet<String>();
-    for (JsonElement arrayElt: classes) {
-      classNames.add(getClassName(arrayElt.getAsJsonObject()));
+    for (IClassCoverage classCoverage : classes) {
+      classNames.add(classCoverage.getName());
     }
     return classNames;
   }
@@ -451,10 +506,10 @@ public class CoverageTests {
   }
 
   @Nonnull
-  private JsonArray compileAndReadJson(@Nonnull String testPackageName)
+  private List<IClassCoverage> compileAndReadClasses(@Nonnull String testPackageName)
       throws CannotCreateFileException, CannotChangePermissionException, WrongPermissionException,
           IOException, Exception {
-    return compileAndReadJson(testPackageName, null, null);
+    return compileAndReadClasses(testPackageName, null, null);
   }
 
   @Nonnull
@@ -480,7 +535,7 @@ public class CoverageTests {
   }
 
   @Nonnull
-  private JsonArray compileAndReadJson(
+  private List<IClassCoverage> compileAndReadClasses(
       @Nonnull String testPackageName,
       @CheckForNull String includeFilter,
       @CheckForNull String excludeFilter)
@@ -490,38 +545,29 @@ public class CoverageTests {
     File coverageMetadataFile = compileDexWithCoverage(new File[]{sourceDir},
         includeFilter, excludeFilter, new File[0]);
 
-    return loadJsonCoverageClasses(coverageMetadataFile);
+    return loadCoverageClasses(coverageMetadataFile);
   }
 
+  /**
+   * Reads the classes of a coverage metadata file, in any format, with the reporter.
+   */
   @Nonnull
-  private static JsonArray loadJsonCoverageClasses(@Nonnull File coverageMetadataFile)
+  private static List<IClassCoverage> loadCoverageClasses(@Nonnull File coverageMetadataFile)
       throws IOException {
     Assert.assertTrue(coverageMetadataFile.length() > 0);
 
-    JsonObject root = loadJson(coverageMetadataFile).getAsJsonObject();
-    Assert.assertNotNull(root);
-
-    String version = root.get("version").getAsString();
-    Assert.assertNotNull(version);
-    Assert.assertEquals("1.0", version);
-
-    JsonArray classes =
-        root.get("data").getAsJsonArray();
-    Assert.assertNotNull(classes);
+    final List<IClassCoverage> classes = new ArrayList<IClassCoverage>();
+    JackCoverageAnalyzer analyzer =
+        new JackCoverageAnalyzer(new ExecutionDataStore(), new ICoverageVisitor() {
+          @Override
+          public void visitCoverage(IClassCoverage coverage) {
+            classes.add(coverage);
+          }
+        });
+    analyzer.analyze(coverageMetadataFile);
     return classes;
   }
 
-  @Nonnull
-  private static JsonElement loadJson(@Nonnull File jsonFile) throws IOException {
-    JsonParser parser = new JsonParser();
-    FileReader reader = new FileReader(jsonFile);
-    try {
-      return parser.parse(reader);
-    } finally {
-      reader.close();
-    }
-  }
-
   @Nonnull
   private static File getJacocoAgentLib() {
     return new File(
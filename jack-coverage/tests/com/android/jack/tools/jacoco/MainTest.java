@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.tools.jacoco;
+
+import junit.framework.Assert;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * JUnit test for the loading of execution files by the reporter.
+ */
+public class MainTest {
+  private static final int FILES = 20;
+
+  private static final int CLASSES = 50;
+
+  private static final int PROBES = 30;
+
+  @Test
+  public void testLoadExecutionFiles() throws Exception {
+    Random random = new Random(0);
+    List<File> files = new ArrayList<File>(FILES);
+    for (int i = 0; i < FILES; i++) {
+      files.add(createExecutionFile(random, i));
+    }
+
+    ExecFileLoader expected = new ExecFileLoader();
+    for (File file : files) {
+      expected.load(file);
+    }
+
+    for (int maxPending : new int[] {1, 3, FILES * 2}) {
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      ExecFileLoader actual;
+      try {
+        actual = Main.loadExecutionFiles(files, executor, maxPending);
+      } finally {
+        executor.shutdownNow();
+      }
+      assertSameExecutionData(expected, actual);
+    }
+  }
+
+  @Test
+  public void testLoadNoExecutionFile() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(1);
+    try {
+      ExecFileLoader loader =
+          Main.loadExecutionFiles(new ArrayList<File>(), executor, 1);
+      Assert.assertTrue(loader.getExecutionDataStore().getContents().isEmpty());
+      Assert.assertTrue(loader.getSessionInfoStore().getInfos().isEmpty());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Creates an execution file with a session and some of the classes, a class having the same
+   * probe count in every file.
+   */
+  @Nonnull
+  private static File createExecutionFile(@Nonnull Random random, @Nonnegative int index)
+      throws IOException {
+    File file = File.createTempFile("coverage", ".ec");
+    file.deleteOnExit();
+    OutputStream os = new FileOutputStream(file);
+    try {
+      ExecutionDataWriter writer = new ExecutionDataWriter(os);
+      writer.visitSessionInfo(new SessionInfo("session" + index, index * 10, index * 10 + 5));
+      for (int id = 0; id < CLASSES; id++) {
+        if (random.nextBoolean()) {
+          boolean[] probes = new boolean[PROBES + id];
+          for (int i = 0; i < probes.length; i++) {
+            probes[i] = random.nextInt(4) == 0;
+          }
+          writer.visitClassExecution(new ExecutionData(id, "Class" + id, probes));
+        }
+      }
+      writer.flush();
+    } finally {
+      os.close();
+    }
+    return file;
+  }
+
+  private static void assertSameExecutionData(
+      @Nonnull ExecFileLoader expected, @Nonnull ExecFileLoader actual) {
+    Assert.assertEquals(expected.getExecutionDataStore().getContents().size(),
+        actual.getExecutionDataStore().getContents().size());
+    for (ExecutionData data : expected.getExecutionDataStore().getContents()) {
+      ExecutionData actualData = actual.getExecutionDataStore().get(data.getId());
+      Assert.assertNotNull(actualData);
+      Assert.assertEquals(data.getName(), actualData.getName());
+      Assert.assertTrue(Arrays.equals(data.getProbes(), actualData.getProbes()));
+    }
+
+    List<SessionInfo> expectedInfos = expected.getSessionInfoStore().getInfos();
+    List<SessionInfo> actualInfos = actual.getSessionInfoStore().getInfos();
+    Assert.assertEquals(FILES, actualInfos.size());
+    Assert.assertEquals(expectedInfos.size(), actualInfos.size());
+    for (int i = 0; i < expectedInfos.size(); i++) {
+      Assert.assertEquals(expectedInfos.get(i).getId(), actualInfos.get(i).getId());
+      Assert.assertEquals(expectedInfos.get(i).getStartTimeStamp(),
+          actualInfos.get(i).getStartTimeStamp());
+      Assert.assertEquals(expectedInfos.get(i).getDumpTimeStamp(),
+          actualInfos.get(i).getDumpTimeStamp());
+    }
+  }
+}
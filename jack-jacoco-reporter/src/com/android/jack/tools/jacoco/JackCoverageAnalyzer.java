@@ -29,16 +29,28 @@ import org.jacoco.core.internal.analysis.ClassCoverageImpl;
 import org.jacoco.core.internal.analysis.CounterImpl;
 import org.jacoco.core.internal.analysis.MethodCoverageImpl;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 /**
@@ -51,14 +63,51 @@ public class JackCoverageAnalyzer {
 
   @Nonnull private static final String JSON_DATA_ATTRIBUTE = "data";
 
+  /**
+   * The first bytes of a metadata file in the binary format, which can not start a JSON file.
+   */
+  @Nonnull private static final byte[] BINARY_MAGIC = "\0JCM".getBytes(StandardCharsets.UTF_8);
+
   @Nonnull private final ExecutionDataStore executionDataStore;
 
   @Nonnull private final ICoverageVisitor coverageVisitor;
 
+  /**
+   * Executor analyzing classes of binary metadata files, or null to analyze them while reading.
+   */
+  @CheckForNull private final ExecutorService executor;
+
+  /**
+   * Maximum number of classes being analyzed, to bound the memory used by pending classes.
+   */
+  @Nonnegative private final int maxPending;
+
+  @Nonnull private final Deque<Future<IClassCoverage>> pending =
+      new ArrayDeque<Future<IClassCoverage>>();
+
   public JackCoverageAnalyzer(
       @Nonnull ExecutionDataStore executionDataStore, @Nonnull ICoverageVisitor coverageVisitor) {
     this.executionDataStore = executionDataStore;
     this.coverageVisitor = coverageVisitor;
+    this.executor = null;
+    this.maxPending = 0;
+  }
+
+  /**
+   * Creates an analyzer decoding and analyzing classes on the given executor. Classes are still
+   * reported to the {@link ICoverageVisitor} from the calling thread, in the order of the file.
+   *
+   * @param maxPending the maximum number of classes submitted to the executor at a time
+   */
+  public JackCoverageAnalyzer(
+      @Nonnull ExecutionDataStore executionDataStore,
+      @Nonnull ICoverageVisitor coverageVisitor,
+      @Nonnull ExecutorService executor,
+      @Nonnegative int maxPending) {
+    this.executionDataStore = executionDataStore;
+    this.coverageVisitor = coverageVisitor;
+    this.executor = executor;
+    this.maxPending = maxPending;
   }
 
   /**
@@ -82,8 +131,21 @@ public class JackCoverageAnalyzer {
   }
 
   private void analyze(@Nonnull InputStream coverageDescriptionInputStream) throws IOException {
-    JsonReader jsonReader = new JsonReader(new InputStreamReader(coverageDescriptionInputStream));
-    readMetadata(jsonReader);
+    InputStream in = new BufferedInputStream(coverageDescriptionInputStream);
+    byte[] magic = new byte[BINARY_MAGIC.length];
+    in.mark(magic.length);
+    int length = 0;
+    int read;
+    while (length < magic.length && (read = in.read(magic, length, magic.length - length)) > 0) {
+      length += read;
+    }
+    if (Arrays.equals(magic, BINARY_MAGIC)) {
+      readBinaryMetadata(new DataInputStream(in));
+    } else {
+      in.reset();
+      JsonReader jsonReader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+      readMetadata(jsonReader);
+    }
   }
 
   private void checkVersion(@CheckForNull String version) {
@@ -99,6 +161,169 @@ public class JackCoverageAnalyzer {
     }
   }
 
+  /**
+   * Reads a metadata file in the binary format, one class at a time, after its magic. The version
+   * is a length prefixed string, followed by classes prefixed by their length and a zero length
+   * ending the file. Sizes, lengths and indexes are unsigned LEB128, and differences are signed
+   * LEB128.
+   */
+  private void readBinaryMetadata(@Nonnull DataInputStream in) throws IOException {
+    byte[] version = new byte[readUleb128(in)];
+    in.readFully(version);
+    checkVersion(new String(version, StandardCharsets.UTF_8));
+
+    int length;
+    while ((length = readUleb128(in)) != 0) {
+      final byte[] data = new byte[length];
+      in.readFully(data);
+      if (executor == null) {
+        coverageVisitor.visitCoverage(readBinaryClass(data));
+      } else {
+        if (pending.size() >= maxPending) {
+          visitNext();
+        }
+        pending.add(executor.submit(new Callable<IClassCoverage>() {
+          @Override
+          public IClassCoverage call() throws IOException {
+            return readBinaryClass(data);
+          }
+        }));
+      }
+    }
+
+    while (!pending.isEmpty()) {
+      visitNext();
+    }
+  }
+
+  private void visitNext() throws IOException {
+    IClassCoverage classCoverage;
+    try {
+      classCoverage = pending.remove().get();
+    } catch (InterruptedException e) {
+      cancelPending();
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while analyzing coverage metadata", e);
+    } catch (ExecutionException e) {
+      cancelPending();
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new AssertionError(cause);
+    }
+    coverageVisitor.visitCoverage(classCoverage);
+  }
+
+  private void cancelPending() {
+    for (Future<IClassCoverage> future : pending) {
+      future.cancel(true);
+    }
+    pending.clear();
+  }
+
+  @Nonnull
+  private IClassCoverage readBinaryClass(@Nonnull byte[] data) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+
+    // String table
+    String[] strings = new String[readUleb128(in)];
+    for (int i = 0; i < strings.length; i++) {
+      byte[] string = new byte[readUleb128(in)];
+      in.readFully(string);
+      strings[i] = new String(string, StandardCharsets.UTF_8);
+    }
+
+    // The class id is little-endian
+    long id = Long.reverseBytes(in.readLong());
+    String className = readString(in, strings);
+    String superClassName = readString(in, strings);
+    String sourceFile = readString(in, strings);
+
+    int interfacesCount = readUleb128(in);
+    List<String> interfaces = new ArrayList<String>(interfacesCount);
+    for (int i = 0; i < interfacesCount; i++) {
+      interfaces.add(readString(in, strings));
+    }
+
+    int methodsCount = readUleb128(in);
+    List<IMethodCoverage> methods = new ArrayList<IMethodCoverage>(methodsCount);
+    for (int i = 0; i < methodsCount; i++) {
+      String name = readString(in, strings);
+      String desc = readString(in, strings);
+      methods.add(new JackMethodCoverage(i, name, desc, null));
+    }
+
+    int probesCount = readUleb128(in);
+    List<ProbeDescription> probes = new ArrayList<ProbeDescription>(probesCount);
+    int nextProbeId = 0;
+    for (int i = 0; i < probesCount; i++) {
+      ProbeDescription probe = new ProbeDescription();
+      int probeId = nextProbeId + readSleb128(in);
+      probe.setId(probeId);
+      nextProbeId = probeId + 1;
+      probe.setMethod((MethodCoverageImpl) methods.get(readSleb128(in)));
+      int linesCount = readUleb128(in);
+      int line = 0;
+      for (int j = 0; j < linesCount; j++) {
+        line += readSleb128(in);
+        probe.addLine(line, readUleb128(in), readUleb128(in));
+      }
+      probes.add(probe);
+    }
+
+    return buildClassCoverage(
+        id, className, sourceFile, superClassName, interfaces, methods, probes);
+  }
+
+  @Nonnull
+  private static String readString(@Nonnull DataInputStream in, @Nonnull String[] strings)
+      throws IOException {
+    int index = readUleb128(in);
+    if (index >= strings.length) {
+      throw new IOException("Invalid string index " + index);
+    }
+    return strings[index];
+  }
+
+  private static int readUleb128(@Nonnull DataInputStream in) throws IOException {
+    int result = 0;
+    int shift = 0;
+    int b;
+    do {
+      if (shift > 28) {
+        throw new IOException("Invalid LEB128 value");
+      }
+      b = in.readUnsignedByte();
+      result |= (b & 0x7f) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return result;
+  }
+
+  private static int readSleb128(@Nonnull DataInputStream in) throws IOException {
+    int result = 0;
+    int shift = 0;
+    int b;
+    do {
+      if (shift > 28) {
+        throw new IOException("Invalid LEB128 value");
+      }
+      b = in.readUnsignedByte();
+      result |= (b & 0x7f) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    if (shift < 32 && (b & 0x40) != 0) {
+      // Sign extension
+      result |= -1 << shift;
+    }
+    return result;
+  }
+
   private void readMetadata(@Nonnull JsonReader jsonReader) throws IOException {
     jsonReader.beginObject();
 
@@ -161,6 +386,15 @@ public class JackCoverageAnalyzer {
     }
     jsonReader.endObject();
 
+    return buildClassCoverage(
+        id, className, sourceFile, superClassName, interfaces, methods, probes);
+  }
+
+  @Nonnull
+  private IClassCoverage buildClassCoverage(long id, @CheckForNull String className,
+      @CheckForNull String sourceFile, @CheckForNull String superClassName,
+      @Nonnull List<String> interfaces, @Nonnull List<IMethodCoverage> methods,
+      @Nonnull List<ProbeDescription> probes) {
     final ExecutionData executionData = executionDataStore.get(id);
     boolean noMatch;
     if (executionData != null) {
@@ -20,6 +20,8 @@ import com.android.sched.util.Version;
 
 import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.SessionInfoStore;
 import org.jacoco.core.tools.ExecFileLoader;
 import org.jacoco.report.DirectorySourceFileLocator;
 import org.jacoco.report.FileMultiReportOutput;
@@ -40,8 +42,16 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.text.MessageFormat;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 /**
@@ -143,22 +153,30 @@ public class Main {
       checkCanReadFromFile(sourceFilesDirectory);
     }
 
+    int threads = options.getThreads();
+    if (threads < 0) {
+      printErrorAndExit(ErrorCode.USAGE_ERROR, "Number of threads must not be negative");
+    }
+
     String reportName = options.getReportName();
     ReportType reportType = options.getReportType();
     String outputEncoding = options.getOutputReportEncoding();
 
-    // Load coverage execution files.
-    ExecFileLoader loader = new ExecFileLoader();
-    for (File coverageExecutionDataFile : coverageExecutionDataFiles) {
-      loader.load(coverageExecutionDataFile);
-    }
-
-    // Analyze coverage.
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    ExecFileLoader loader;
     CoverageBuilder coverageBuilder = new CoverageBuilder();
-    JackCoverageAnalyzer analyzer =
-        new JackCoverageAnalyzer(loader.getExecutionDataStore(), coverageBuilder);
-    for (File coverageDescriptionFile : coverageDescriptionFiles) {
-      analyzer.analyze(coverageDescriptionFile);
+    try {
+      // Load coverage execution files.
+      loader = loadExecutionFiles(coverageExecutionDataFiles, executor, threads);
+
+      // Analyze coverage.
+      JackCoverageAnalyzer analyzer = new JackCoverageAnalyzer(
+          loader.getExecutionDataStore(), coverageBuilder, executor, threads * 4);
+      for (File coverageDescriptionFile : coverageDescriptionFiles) {
+        analyzer.analyze(coverageDescriptionFile);
+      }
+    } finally {
+      executor.shutdownNow();
     }
     IBundleCoverage bundleCoverage = coverageBuilder.getBundle(reportName);
 
@@ -218,6 +236,67 @@ public class Main {
     System.out.println("Created report at " + reportOutputFile);
   }
 
+  /**
+   * Loads execution files on the executor, and merges the execution data of each file as soon as
+   * it is loaded. Merging ORs the probes of each class, so the result is the same as loading the
+   * files one by one, in any order. At most {@code maxPending} files are loaded or waiting to be
+   * merged at a time, so that the memory used does not grow with the number of files.
+   */
+  @Nonnull
+  static ExecFileLoader loadExecutionFiles(@Nonnull List<File> coverageExecutionDataFiles,
+      @Nonnull ExecutorService executor, @Nonnegative int maxPending) throws IOException {
+    assert maxPending > 0;
+    CompletionService<ExecFileLoader> completionService =
+        new ExecutorCompletionService<ExecFileLoader>(executor);
+    Iterator<File> files = coverageExecutionDataFiles.iterator();
+    int pending = 0;
+    ExecFileLoader merged = null;
+    while (files.hasNext() || pending > 0) {
+      while (files.hasNext() && pending < maxPending) {
+        final File coverageExecutionDataFile = files.next();
+        completionService.submit(new Callable<ExecFileLoader>() {
+          @Override
+          public ExecFileLoader call() throws IOException {
+            ExecFileLoader loader = new ExecFileLoader();
+            loader.load(coverageExecutionDataFile);
+            return loader;
+          }
+        });
+        pending++;
+      }
+
+      ExecFileLoader loader;
+      try {
+        loader = completionService.take().get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while loading coverage files", e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new AssertionError(cause);
+      }
+      pending--;
+
+      if (merged == null) {
+        merged = loader;
+      } else {
+        ExecutionDataStore executionDataStore = merged.getExecutionDataStore();
+        loader.getExecutionDataStore().accept(executionDataStore);
+        SessionInfoStore sessionInfoStore = merged.getSessionInfoStore();
+        loader.getSessionInfoStore().accept(sessionInfoStore);
+      }
+    }
+
+    return merged != null ? merged : new ExecFileLoader();
+  }
+
   private static void checkFileExists(@Nonnull File file) {
     if (!file.exists()) {
       printErrorAndExit(
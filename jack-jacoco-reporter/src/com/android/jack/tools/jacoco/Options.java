@@ -79,6 +79,10 @@ public class Options {
       usage = "the width of tabs in source code (default is 4)")
   private int tabWidth = 4;
 
+  @Option(name = "--threads", metaVar = "<count>",
+      usage = "number of threads loading and analyzing files, 0 meaning one by core (default: 0)")
+  private int threads = 0;
+
   @Nonnull
   public List<File> getCoverageDescriptionFiles() {
     return coverageDescriptionFiles;
@@ -123,6 +127,13 @@ public class Options {
     return tabWidth;
   }
 
+  /**
+   * Returns the number of threads loading and analyzing files.
+   */
+  public int getThreads() {
+    return threads == 0 ? Runtime.getRuntime().availableProcessors() : threads;
+  }
+
   public boolean askForHelp() {
     return showHelp;
   }
@@ -18,6 +18,7 @@ package com.android.jack.dx;
 
 import com.android.jack.Options;
 import com.android.jack.TestTools;
+import com.android.jack.backend.dex.rop.CodeItemBuilder;
 import com.android.jack.test.category.RuntimeRegressionTest;
 import com.android.jack.test.helper.FileChecker;
 import com.android.jack.test.helper.RuntimeTestHelper;
@@ -46,9 +47,12 @@ import org.junit.experimental.categories.Category;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 public class DxTests extends RuntimeTest {
@@ -223,6 +227,50 @@ public class DxTests extends RuntimeTest {
         AbstractTestTools.getTestRootDir("com.android.jack.dx.jacklibs"));
   }
 
+  /**
+   * Checks that the dex output is the same with the cache of optimized methods disabled, on a cold
+   * cache and on a warm cache.
+   */
+  @Test
+  public void testOptimizedCodeCache() throws Exception {
+    File[] sources = new File[] {
+        AbstractTestTools.getTestRootDir("com.android.jack.dx.compiler.jack"),
+        AbstractTestTools.getTestRootDir("com.android.jack.dx.optimizer.jack"),
+        AbstractTestTools.getTestRootDir("com.android.jack.switchstatement.test001.jack"),
+        AbstractTestTools.getTestRootDir("com.android.jack.trycatch.test002.jack")};
+
+    for (boolean withDebugInfos : new boolean[] {false, true}) {
+      byte[] expected = compileWithOptimizedCodeCache(sources, withDebugInfos, null);
+
+      File cacheDir = AbstractTestTools.createTempDir();
+      byte[] cold = compileWithOptimizedCodeCache(sources, withDebugInfos, cacheDir);
+      String[] entries = cacheDir.list();
+      Assert.assertNotNull(entries);
+      Assert.assertTrue(entries.length > 0);
+      Assert.assertTrue(Arrays.equals(expected, cold));
+
+      byte[] warm = compileWithOptimizedCodeCache(sources, withDebugInfos, cacheDir);
+      Assert.assertTrue(Arrays.equals(expected, warm));
+    }
+  }
+
+  @Nonnull
+  private byte[] compileWithOptimizedCodeCache(@Nonnull File[] sources, boolean withDebugInfos,
+      @CheckForNull File cacheDir) throws Exception {
+    JackApiToolchainBase toolchain =
+        AbstractTestTools.getCandidateToolchain(JackApiToolchainBase.class);
+    if (cacheDir != null) {
+      toolchain.addProperty(CodeItemBuilder.DEX_OPTIMIZE_CACHE.getName(), "true");
+      toolchain.addProperty(CodeItemBuilder.DEX_OPTIMIZE_CACHE_DIR.getName(), cacheDir.getPath());
+    }
+    File dexOutDir = AbstractTestTools.createTempDir();
+    toolchain.setWithDebugInfos(withDebugInfos);
+    toolchain.addToClasspath(toolchain.getDefaultBootClasspath())
+    .srcToExe(dexOutDir, /* zipFile = */ false, sources);
+
+    return Files.readAllBytes(new File(dexOutDir, "classes.dex").toPath());
+  }
+
   private boolean hasOpcode(@Nonnull CodeItem codeItem, @Nonnull Opcode opcode) {
     for (Instruction inst : codeItem.getInstructions()) {
       if (inst.opcode == opcode) {
@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.experimental.incremental;
+
+import com.google.common.io.ByteStreams;
+
+import com.android.jack.JackAbortException;
+import com.android.jack.analysis.dependency.file.FileDependencies;
+import com.android.jack.incremental.IncrementalInputFilter;
+import com.android.jack.library.FileType;
+import com.android.jack.library.InputJackLibrary;
+import com.android.jack.library.LibraryReadingException;
+import com.android.jack.test.helper.IncrementalTestHelper;
+import com.android.jack.test.toolchain.AbstractTestTools;
+import com.android.sched.vfs.InputVFile;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * JUnit test checking incremental support when the content and the API of source files are
+ * digested.
+ */
+public class DependenciesTest018 {
+
+  @Nonnull
+  private static final String A = "package jack.incremental; \n"
+      + "public class A { public static int get() { return 1; } }";
+
+  @Nonnull
+  private static final String B = "package jack.incremental; \n"
+      + "public class B { public int m() { return A.get(); } }";
+
+  @Nonnull
+  private static final String C = "package jack.incremental; \n"
+      + "public class C { }";
+
+  /**
+   * Check that a file touched without API change does not trigger the compilation of the files
+   * depending on it, and that its new modification time is recorded.
+   */
+  @Test
+  public void testTouchWithoutApiChange() throws Exception {
+    IncrementalTestHelper helper = createHelper();
+    File a = helper.addJavaFile("jack.incremental", "A.java", A);
+    helper.addJavaFile("jack.incremental", "B.java", B);
+    helper.addJavaFile("jack.incremental", "C.java", C);
+    helper.incrementalBuildFromFolder();
+
+    // Same content with a new modification time
+    helper.snapshotJackFilesModificationDate();
+    a = helper.addJavaFile("jack.incremental", "A.java", A);
+    helper.incrementalBuildFromFolder();
+    Assert.assertEquals(0, helper.getFQNOfRebuiltTypes().size());
+    Long checkedTime = getCheckedTime(helper, "A.java");
+    Assert.assertNotNull(checkedTime);
+    Assert.assertEquals(Files.getLastModifiedTime(a.toPath()).toMillis(), checkedTime.longValue());
+
+    // The recorded time is kept while the file keeps it
+    helper.snapshotJackFilesModificationDate();
+    helper.incrementalBuildFromFolder();
+    Assert.assertEquals(0, helper.getFQNOfRebuiltTypes().size());
+    Assert.assertEquals(checkedTime, getCheckedTime(helper, "A.java"));
+
+    // A change of a method body only recompiles the file itself
+    helper.snapshotJackFilesModificationDate();
+    helper.addJavaFile("jack.incremental", "A.java", A.replace("return 1;", "return 2;"));
+    helper.incrementalBuildFromFolder();
+    List<String> fqnOfRebuiltTypes = helper.getFQNOfRebuiltTypes();
+    Assert.assertEquals(1, fqnOfRebuiltTypes.size());
+    Assert.assertTrue(fqnOfRebuiltTypes.contains("jack.incremental.A"));
+    Assert.assertNull(getCheckedTime(helper, "A.java"));
+  }
+
+  /**
+   * Check that an API change triggers the compilation of the files depending on it.
+   */
+  @Test
+  public void testApiChange() throws Exception {
+    IncrementalTestHelper helper = createHelper();
+    helper.addJavaFile("jack.incremental", "A.java", A);
+    helper.addJavaFile("jack.incremental", "B.java", B);
+    helper.addJavaFile("jack.incremental", "C.java", C);
+    helper.incrementalBuildFromFolder();
+
+    helper.snapshotJackFilesModificationDate();
+    helper.addJavaFile("jack.incremental", "A.java",
+        A.replace("public static int get()", "public static int get(int... values)"));
+    helper.incrementalBuildFromFolder();
+    List<String> fqnOfRebuiltTypes = helper.getFQNOfRebuiltTypes();
+    Assert.assertEquals(2, fqnOfRebuiltTypes.size());
+    Assert.assertTrue(fqnOfRebuiltTypes.contains("jack.incremental.A"));
+    Assert.assertTrue(fqnOfRebuiltTypes.contains("jack.incremental.B"));
+  }
+
+  /**
+   * Check that corrupted digests are reported as a corrupted incremental state.
+   */
+  @Test
+  public void testCorruptedDigests() throws Exception {
+    IncrementalTestHelper helper = createHelper();
+    helper.addJavaFile("jack.incremental", "A.java", A);
+    helper.addJavaFile("jack.incremental", "B.java", B);
+    helper.addJavaFile("jack.incremental", "C.java", C);
+    helper.incrementalBuildFromFolder();
+
+    // Truncate the dependencies after the file name of the first digest
+    File dependencies = getFileDependenciesFile(helper.getCompilerStateFolder());
+    String content = new String(inflate(dependencies), "UTF-8");
+    int digests = content.indexOf("\n#\n") + 3;
+    int firstDigest = content.indexOf('\n', digests);
+    Assert.assertTrue(firstDigest > digests);
+    OutputStream os = new DeflaterOutputStream(new FileOutputStream(dependencies));
+    try {
+      os.write(content.substring(0, firstDigest + 1).getBytes("UTF-8"));
+    } finally {
+      os.close();
+    }
+
+    checkInvalidState(helper);
+  }
+
+  /**
+   * Check that missing file dependencies are reported as a corrupted incremental state.
+   */
+  @Test
+  public void testMissingDigests() throws Exception {
+    IncrementalTestHelper helper = createHelper();
+    helper.addJavaFile("jack.incremental", "A.java", A);
+    helper.addJavaFile("jack.incremental", "B.java", B);
+    helper.addJavaFile("jack.incremental", "C.java", C);
+    helper.incrementalBuildFromFolder();
+
+    AbstractTestTools.deleteFile(getFileDependenciesFile(helper.getCompilerStateFolder()));
+
+    checkInvalidState(helper);
+  }
+
+  private static void checkInvalidState(@Nonnull IncrementalTestHelper helper) throws Exception {
+    ByteArrayOutputStream err = new ByteArrayOutputStream();
+    helper.setErr(err);
+    helper.setIsApiTest();
+    try {
+      helper.incrementalBuildFromFolder();
+      Assert.fail();
+    } catch (JackAbortException e) {
+      Assert.assertTrue(e.getCause() instanceof LibraryReadingException);
+      Assert.assertTrue(err.toString().contains("is an invalid library"));
+    }
+  }
+
+  @Nonnull
+  private static IncrementalTestHelper createHelper() throws Exception {
+    IncrementalTestHelper helper = new IncrementalTestHelper(AbstractTestTools.createTempDir());
+    helper.addProperty(IncrementalInputFilter.INCREMENTAL_DIGEST.getName(), "true");
+    helper.addProperty(IncrementalInputFilter.INCREMENTAL_API.getName(), "true");
+    return helper;
+  }
+
+  @CheckForNull
+  private static Long getCheckedTime(@Nonnull IncrementalTestHelper helper,
+      @Nonnull String fileName) throws Exception {
+    FileDependencies fileDependencies = readFileDependencies(helper);
+    return fileDependencies.getCheckedTime(getJavaFileName(fileDependencies, fileName));
+  }
+
+  @Nonnull
+  private static String getJavaFileName(@Nonnull FileDependencies fileDependencies,
+      @Nonnull String fileName) {
+    for (String javaFileName : fileDependencies.getCompiledJavaFiles()) {
+      if (new File(javaFileName).getName().equals(fileName)) {
+        return javaFileName;
+      }
+    }
+    throw new AssertionError(fileName);
+  }
+
+  @Nonnull
+  private static FileDependencies readFileDependencies(@Nonnull IncrementalTestHelper helper)
+      throws Exception {
+    InputJackLibrary library =
+        AbstractTestTools.getInputJackLibrary(helper.getCompilerStateFolder());
+    try {
+      InputVFile file = library.getFile(FileType.DEPENDENCIES, FileDependencies.vpath);
+      FileDependencies fileDependencies = new FileDependencies();
+      Reader reader = new InputStreamReader(file.getInputStream());
+      try {
+        fileDependencies.read(reader);
+      } finally {
+        reader.close();
+      }
+      return fileDependencies;
+    } finally {
+      library.close();
+    }
+  }
+
+  /**
+   * Returns the file of the incremental folder storing the file dependencies, whose name depends on
+   * the layout of the folder. Its content is deflated.
+   */
+  @Nonnull
+  private static File getFileDependenciesFile(@Nonnull File dir) throws Exception {
+    byte[] content;
+    InputJackLibrary library = AbstractTestTools.getInputJackLibrary(dir);
+    try {
+      InputStream is =
+          library.getFile(FileType.DEPENDENCIES, FileDependencies.vpath).getInputStream();
+      try {
+        content = ByteStreams.toByteArray(is);
+      } finally {
+        is.close();
+      }
+    } finally {
+      library.close();
+    }
+
+    File file = findFile(dir, content);
+    Assert.assertNotNull(file);
+    return file;
+  }
+
+  @CheckForNull
+  private static File findFile(@Nonnull File dir, @Nonnull byte[] content) throws Exception {
+    File[] files = dir.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (file.isDirectory()) {
+          File found = findFile(file, content);
+          if (found != null) {
+            return found;
+          }
+        } else if (Arrays.equals(content, inflate(file))) {
+          return file;
+        }
+      }
+    }
+    return null;
+  }
+
+  @CheckForNull
+  private static byte[] inflate(@Nonnull File file) throws Exception {
+    InputStream is = new InflaterInputStream(new FileInputStream(file));
+    try {
+      return ByteStreams.toByteArray(is);
+    } catch (IOException e) {
+      // Not deflated
+      return null;
+    } finally {
+      is.close();
+    }
+  }
+}
@@ -16,6 +16,11 @@
 
 package com.android.jack.library;
 
+import com.google.common.io.ByteStreams;
+
+import com.android.jack.Jack;
+import com.android.jack.Options;
+import com.android.jack.jayce.JayceWriterFactory;
 import com.android.jack.test.toolchain.AbstractTestTools;
 import com.android.jack.test.toolchain.AndroidToolchain;
 import com.android.jack.test.toolchain.IToolchain;
@@ -25,6 +30,7 @@ import com.android.sched.util.RunnableHooks;
 import com.android.sched.util.file.FileOrDirectory.ChangePermission;
 import com.android.sched.util.file.FileOrDirectory.Existence;
 import com.android.sched.util.file.InputZipFile;
+import com.android.sched.vfs.InputVFile;
 import com.android.sched.vfs.ReadZipFS;
 import com.android.sched.vfs.VFS;
 
@@ -34,8 +40,14 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nonnull;
 
@@ -97,6 +109,161 @@ public class LibraryTests {
     }
   }
 
+  /**
+   * Imported types are loaded without their method bodies, which are then read alone from the
+   * Jayce files, several methods of a type being read from the same file.
+   */
+  @Test
+  public void testImportMethodsReadAlone() throws Exception {
+    File lib = createJayceLibrary(5,
+        AbstractTestTools.getTestRootDir("com.android.jack.library.test002.jack"));
+
+    JackBasedToolchain toolchain =
+        AbstractTestTools.getCandidateToolchain(JackBasedToolchain.class, getJillExcludeList());
+    toolchain.addStaticLibs(lib);
+    toolchain.addToClasspath(toolchain.getDefaultBootClasspath())
+    .srcToExe(AbstractTestTools.createTempDir(), /* zipFile = */ false,
+        AbstractTestTools.getTestRootDir("com.android.jack.library.test001.jack"));
+  }
+
+  /**
+   * Types read from Jayce 5 files are written back identically, once local symbols have been
+   * numbered by a first copy, and give the same dex as the types they were read from.
+   */
+  @Test
+  public void testJayce5RoundTrip() throws Exception {
+    File lib = createJayceLibrary(5, getJayceTestSources());
+    File copy = copyJayceLibrary(lib);
+    File copyOfCopy = copyJayceLibrary(copy);
+
+    Map<String, byte[]> jayceFiles = readJayceFiles(copy);
+    Assert.assertEquals(readJayceFiles(lib).keySet(), jayceFiles.keySet());
+    Map<String, byte[]> copiedJayceFiles = readJayceFiles(copyOfCopy);
+    Assert.assertEquals(jayceFiles.keySet(), copiedJayceFiles.keySet());
+    for (Map.Entry<String, byte[]> entry : jayceFiles.entrySet()) {
+      Assert.assertTrue(entry.getKey(),
+          Arrays.equals(entry.getValue(), copiedJayceFiles.get(entry.getKey())));
+    }
+
+    Assert.assertTrue(Arrays.equals(importToDex(lib, "full"), importToDex(copy, "full")));
+  }
+
+  /**
+   * The dex generated from Jayce 5 files, with methods read alone or with their type, is identical
+   * to the one generated from Jayce 4 files, whose reader can not read a method alone.
+   */
+  @Test
+  public void testJayce5GivesSameDex() throws Exception {
+    File[] sources = getJayceTestSources();
+    File lib4 = createJayceLibrary(4, sources);
+    File lib5 = createJayceLibrary(5, sources);
+
+    byte[] dexFromJayce4 = importToDex(lib4, "type");
+    byte[] dexFromJayce5ByMethod = importToDex(lib5, "type");
+    byte[] dexFromJayce5ByType = importToDex(lib5, "full");
+
+    Assert.assertTrue(Arrays.equals(dexFromJayce4, dexFromJayce5ByMethod));
+    Assert.assertTrue(Arrays.equals(dexFromJayce4, dexFromJayce5ByType));
+  }
+
+  @Nonnull
+  private static File[] getJayceTestSources() {
+    return new File[] {
+        AbstractTestTools.getTestRootDir("com.android.jack.library.test002.jack"),
+        AbstractTestTools.getTestRootDir("com.android.jack.annotation.test001.jack"),
+        AbstractTestTools.getTestRootDir("com.android.jack.enums.test001.jack"),
+        AbstractTestTools.getTestRootDir("com.android.jack.inner.test001.jack"),
+        AbstractTestTools.getTestRootDir("com.android.jack.switchstatement.test001.jack"),
+        AbstractTestTools.getTestRootDir("com.android.jack.trycatch.test001.jack")};
+  }
+
+  /**
+   * Creates a library containing Jayce files of the given version, and no dex files so that
+   * importing it reads the Jayce files.
+   */
+  @Nonnull
+  private static File createJayceLibrary(int jayceVersion, @Nonnull File... sources)
+      throws Exception {
+    File lib = AbstractTestTools.createTempFile("jayce" + jayceVersion, ".jack");
+    JackBasedToolchain toolchain =
+        AbstractTestTools.getCandidateToolchain(JackBasedToolchain.class, getJillExcludeList());
+    toolchain.addProperty(JayceWriterFactory.MAJOR_VERSION.getName(),
+        String.valueOf(jayceVersion));
+    toolchain.addProperty(Options.GENERATE_DEX_IN_LIBRARY.getName(), "false");
+    toolchain.setWithDebugInfos(true);
+    toolchain.addToClasspath(toolchain.getDefaultBootClasspath())
+    .srcToLib(lib, /* zipFiles = */ true, sources);
+
+    VFS vfs = new ReadZipFS(new InputZipFile(lib.getPath()));
+    try {
+      InputJackLibrary inputJackLibrary = JackLibraryFactory.getInputLibrary(vfs);
+      Assert.assertEquals(jayceVersion, inputJackLibrary.getJayceMajorVersion());
+      Assert.assertFalse(inputJackLibrary.containsFileType(FileType.PREBUILT));
+    } finally {
+      vfs.close();
+    }
+
+    return lib;
+  }
+
+  @Nonnull
+  private static File copyJayceLibrary(@Nonnull File lib) throws Exception {
+    File copy = AbstractTestTools.createTempFile("jayce5copy", ".jack");
+    JackBasedToolchain toolchain =
+        AbstractTestTools.getCandidateToolchain(JackBasedToolchain.class, getJillExcludeList());
+    toolchain.addProperty(JayceWriterFactory.MAJOR_VERSION.getName(), "5");
+    toolchain.addProperty(Options.GENERATE_DEX_IN_LIBRARY.getName(), "false");
+    toolchain.setWithDebugInfos(true);
+    toolchain.addToClasspath(toolchain.getDefaultBootClasspath())
+    .libToLib(lib, copy, /* zipFiles = */ true);
+
+    return copy;
+  }
+
+  @Nonnull
+  private static byte[] importToDex(@Nonnull File lib, @Nonnull String importPolicy)
+      throws Exception {
+    File out = AbstractTestTools.createTempDir();
+    JackBasedToolchain toolchain =
+        AbstractTestTools.getCandidateToolchain(JackBasedToolchain.class, getJillExcludeList());
+    toolchain.addProperty(Jack.IMPORT_POLICY.getName(), importPolicy);
+    toolchain.setWithDebugInfos(true);
+    toolchain.addToClasspath(toolchain.getDefaultBootClasspath())
+    .libToExe(lib, out, /* zipFile = */ false);
+
+    return Files.readAllBytes(new File(out, "classes.dex").toPath());
+  }
+
+  @Nonnull
+  private static Map<String, byte[]> readJayceFiles(@Nonnull File lib) throws Exception {
+    Map<String, byte[]> content = new HashMap<String, byte[]>();
+    VFS vfs = new ReadZipFS(new InputZipFile(lib.getPath()));
+    try {
+      InputJackLibrary inputJackLibrary = JackLibraryFactory.getInputLibrary(vfs);
+      Iterator<InputVFile> files = inputJackLibrary.iterator(FileType.JAYCE);
+      while (files.hasNext()) {
+        InputVFile file = files.next();
+        InputStream is = file.getInputStream();
+        try {
+          content.put(file.getPathFromRoot().getPathAsString('/'), ByteStreams.toByteArray(is));
+        } finally {
+          is.close();
+        }
+      }
+    } finally {
+      vfs.close();
+    }
+
+    return content;
+  }
+
+  @Nonnull
+  private static List<Class<? extends IToolchain>> getJillExcludeList() {
+    List<Class<? extends IToolchain>> excludeList = new ArrayList<Class<? extends IToolchain>>(1);
+    excludeList.add(JillBasedToolchain.class);
+    return excludeList;
+  }
+
   @Nonnull
   private File createEmptyLibrary() throws IOException, Exception {
     AndroidToolchain toolchain = AbstractTestTools.getCandidateToolchain(AndroidToolchain.class);
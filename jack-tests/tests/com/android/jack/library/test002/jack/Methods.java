@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.library.test002.jack;
+
+public class Methods {
+
+  private int count;
+
+  public int sum(int[] values) {
+    int sum = 0;
+    for (int value : values) {
+      if (value > 0) {
+        sum += value;
+      } else {
+        sum -= value;
+      }
+    }
+    count++;
+    return sum;
+  }
+
+  public String describe(int value) {
+    switch (value) {
+      case 0:
+        return "zero";
+      case 1:
+        return "one";
+      case 2:
+        return "two";
+      case 3:
+        return "three";
+      case 4:
+        return "four";
+      default:
+        return "many: " + value + " after " + count + " calls";
+    }
+  }
+
+  public long parse(String text) {
+    try {
+      return Long.parseLong(text);
+    } catch (NumberFormatException e) {
+      return text.length() * 31L + count;
+    } finally {
+      count++;
+    }
+  }
+
+  public double average(double[] values) {
+    if (values.length == 0) {
+      throw new IllegalArgumentException("No value to average after " + count + " calls");
+    }
+    double total = 0;
+    for (int i = 0; i < values.length; i++) {
+      total += values[i] * (i % 2 == 0 ? 1.0 : 1.5);
+    }
+    return total / values.length;
+  }
+
+  public String join(String[] parts, char separator) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < parts.length; i++) {
+      if (i > 0) {
+        builder.append(separator);
+      }
+      builder.append(parts[i] == null ? "<null>" : parts[i].trim());
+    }
+    return builder.toString();
+  }
+
+  public static int[] fibonacci(int length) {
+    int[] result = new int[length];
+    for (int i = 0; i < length; i++) {
+      result[i] = i < 2 ? i : result[i - 1] + result[i - 2];
+    }
+    return result;
+  }
+}
@@ -74,6 +74,7 @@ import com.android.jack.backend.dex.compatibility.CheckAndroidCompatibility;
 import com.android.jack.backend.dex.multidex.legacy.AnnotatedFinder;
 import com.android.jack.backend.dex.multidex.legacy.RuntimeAnnotationFinder;
 import com.android.jack.backend.dex.rop.CodeItemBuilder;
+import com.android.jack.backend.dex.rop.DxInternStatistics;
 import com.android.jack.backend.jayce.JayceFileImporter;
 import com.android.jack.backend.jayce.JayceInLibraryProduct;
 import com.android.jack.backend.jayce.JayceInLibraryWriterAll;
@@ -318,6 +319,7 @@ import com.android.sched.scheduler.PlanBuilder;
 import com.android.sched.scheduler.PlanConstructor;
 import com.android.sched.scheduler.PlanNotFoundException;
 import com.android.sched.scheduler.PlanPrinterFactory;
+import com.android.sched.scheduler.Planner;
 import com.android.sched.scheduler.ProcessException;
 import com.android.sched.scheduler.ProductionSet;
 import com.android.sched.scheduler.Request;
@@ -769,105 +771,26 @@ public abstract class Jack {
             }
           }
 
-          ProductionSet targetProduction = request.getTargetProductions();
-          FeatureSet features = request.getFeatures();
-          PlanBuilder<JSession> planBuilder;
-          try {
-            planBuilder = request.getPlanBuilder(JSession.class);
-          } catch (IllegalRequestException e) {
-            throw new AssertionError(e);
-          }
-
-          if (features.contains(OriginDigestFeature.class)) {
-            SubPlanBuilder<JDefinedClassOrInterface> typePlan =
-                planBuilder.appendSubPlan(JDefinedClassOrInterfaceAdapter.class);
-            typePlan.append(OriginDigestAdder.class);
-          }
-
-          planBuilder.append(PreProcessorApplier.class);
-
-          fillDexPlan(planBuilder);
-          if (targetProduction.contains(DexFileProduct.class)) {
-            planBuilder.append(DexFileWriter.class);
+          // Add features and productions according to plugins, before building the plan, so that
+          // they are part of the key of a cached plan
+          for (Plugin plugin : pluginManager.getPlugins()) {
+            request.addFeatures(plugin.getFeatures(config, scheduler));
+            request.addProductions(plugin.getProductions(config, scheduler));
           }
 
-          if (features.contains(Resources.class)) {
-            if (targetProduction.contains(DexFileProduct.class)) {
-              planBuilder.append(ResourceWriter.class);
-            }
-            if (targetProduction.contains(JayceInLibraryProduct.class)) {
-              planBuilder.append(LibraryResourceWriter.class);
-            }
-          }
+          ProductionSet targetProduction = request.getTargetProductions();
 
-          if (targetProduction.contains(JayceInLibraryProduct.class)) {
-            planBuilder.append(LibraryMetaWriter.class);
-          }
+          // The handcrafted plan is used by the "manual" planner, and is cached by the "cached"
+          // planner when it delegates to the "manual" planner
+          request.setManualPlanner(new HandcraftedPlanner(pluginManager));
 
-          Plan<JSession> plan = null;
+          Plan<JSession> plan;
           try {
-            try {
-              // Try to build an automatic plan ...
-              plan = request.buildPlan(JSession.class);
-            } catch (IllegalRequestException e) {
-              throw new AssertionError(e);
-            } catch (PlanNotFoundException e) {
-              throw new AssertionError(e);
-            }
-          } catch (UnsupportedOperationException e) {
-            // ... but use a manual one if not supported
-            if (pluginManager.hasPlugins()) {
-              // If there are some plugins, amend the handcrafted plan
-
-              // Add features and productions according to plugins
-              for (Plugin plugin : pluginManager.getPlugins()) {
-                request.addFeatures(plugin.getFeatures(config, scheduler));
-                request.addProductions(plugin.getProductions(config, scheduler));
-              }
-
-              PlanConstructor<JSession> ctor =
-                  new PlanConstructor<JSession>(request, JSession.class, planBuilder);
-              EvenSimplerPlanAmender<JSession> amender = new EvenSimplerPlanAmender<JSession>();
-              for (Plugin plugin : pluginManager.getPlugins()) {
-                Collection<Class<? extends RunnableSchedulable<? extends Component>>> classes =
-                    plugin.getSortedRunners();
-                List<ManagedRunnable> runners = new ArrayList<ManagedRunnable>(classes.size());
-                for (Class<? extends RunnableSchedulable<? extends Component>> c : classes) {
-                  runners.add(
-                      (ManagedRunnable) scheduler.getSchedulableManager().getManagedSchedulable(c));
-                }
-
-                if (!amender.amendPlan(request, JSession.class, runners, ctor)) {
-                  throw new JackUserException("Jack cannot insert plugin '"
-                      + plugin.getFriendlyName() + "' (" + plugin.getCanonicalName() + ")");
-                }
-              }
-
-              if (!ctor.isValid()) {
-                String list = Joiner.on(", ")
-                    .appendTo(new StringBuilder(), Iterators.<Plugin, String>transform(
-                        pluginManager.getPlugins().iterator(), new Function<Plugin, String>() {
-                          @Override
-                          public String apply(Plugin plugin) {
-                            return "'" + plugin.getFriendlyName() + "' ("
-                                + plugin.getCanonicalName() + ")";
-                          }
-                        }))
-                    .toString();
-                throw new JackUserException("Jack cannot insert plugin(s) " + list);
-              }
-
-              try {
-                assert ctor != null;
-                plan = ctor.getPlanBuilder().getPlan();
-                logger.log(Level.FINE, "Plan candidate: {0}", plan);
-              } catch (IllegalRequestException ire) {
-                throw new AssertionError(ire);
-              }
-            } else {
-              // ... without plugins, use the handcrafted plan as is
-              plan = planBuilder.getPlan();
-            }
+            plan = request.buildPlan(JSession.class);
+          } catch (IllegalRequestException e) {
+            throw new AssertionError(e);
+          } catch (PlanNotFoundException e) {
+            throw new AssertionError(e);
           }
 
           assert plan != null;
@@ -954,6 +877,96 @@ public abstract class Jack {
         Jack.getEmitterId(), Jack.getVersion().getVerboseVersion());
   }
 
+  /**
+   * {@link Planner} building the handcrafted plan of Jack, amended with the runners of the
+   * plugins.
+   */
+  private static class HandcraftedPlanner implements Planner<JSession> {
+    @Nonnull
+    private final PluginManager pluginManager;
+
+    HandcraftedPlanner(@Nonnull PluginManager pluginManager) {
+      this.pluginManager = pluginManager;
+    }
+
+    @Override
+    @Nonnull
+    public Plan<JSession> buildPlan(@Nonnull Request request, @Nonnull Class<JSession> on)
+        throws IllegalRequestException {
+      ProductionSet targetProduction = request.getTargetProductions();
+      FeatureSet features = request.getFeatures();
+      PlanBuilder<JSession> planBuilder = request.getPlanBuilder(on);
+
+      if (features.contains(OriginDigestFeature.class)) {
+        SubPlanBuilder<JDefinedClassOrInterface> typePlan =
+            planBuilder.appendSubPlan(JDefinedClassOrInterfaceAdapter.class);
+        typePlan.append(OriginDigestAdder.class);
+      }
+
+      planBuilder.append(PreProcessorApplier.class);
+
+      fillDexPlan(planBuilder);
+      if (targetProduction.contains(DexFileProduct.class)) {
+        planBuilder.append(DexFileWriter.class);
+      }
+
+      if (features.contains(Resources.class)) {
+        if (targetProduction.contains(DexFileProduct.class)) {
+          planBuilder.append(ResourceWriter.class);
+        }
+        if (targetProduction.contains(JayceInLibraryProduct.class)) {
+          planBuilder.append(LibraryResourceWriter.class);
+        }
+      }
+
+      if (targetProduction.contains(JayceInLibraryProduct.class)) {
+        planBuilder.append(LibraryMetaWriter.class);
+      }
+
+      if (!pluginManager.hasPlugins()) {
+        // Without plugins, use the handcrafted plan as is
+        return planBuilder.getPlan();
+      }
+
+      // If there are some plugins, amend the handcrafted plan
+      Scheduler scheduler = request.getScheduler();
+      PlanConstructor<JSession> ctor = new PlanConstructor<JSession>(request, on, planBuilder);
+      EvenSimplerPlanAmender<JSession> amender = new EvenSimplerPlanAmender<JSession>();
+      for (Plugin plugin : pluginManager.getPlugins()) {
+        Collection<Class<? extends RunnableSchedulable<? extends Component>>> classes =
+            plugin.getSortedRunners();
+        List<ManagedRunnable> runners = new ArrayList<ManagedRunnable>(classes.size());
+        for (Class<? extends RunnableSchedulable<? extends Component>> c : classes) {
+          runners.add(
+              (ManagedRunnable) scheduler.getSchedulableManager().getManagedSchedulable(c));
+        }
+
+        if (!amender.amendPlan(request, on, runners, ctor)) {
+          throw new JackUserException("Jack cannot insert plugin '"
+              + plugin.getFriendlyName() + "' (" + plugin.getCanonicalName() + ")");
+        }
+      }
+
+      if (!ctor.isValid()) {
+        String list = Joiner.on(", ")
+            .appendTo(new StringBuilder(), Iterators.<Plugin, String>transform(
+                pluginManager.getPlugins().iterator(), new Function<Plugin, String>() {
+                  @Override
+                  public String apply(Plugin plugin) {
+                    return "'" + plugin.getFriendlyName() + "' ("
+                        + plugin.getCanonicalName() + ")";
+                  }
+                }))
+            .toString();
+        throw new JackUserException("Jack cannot insert plugin(s) " + list);
+      }
+
+      Plan<JSession> plan = ctor.getPlanBuilder().getPlan();
+      logger.log(Level.FINE, "Plan candidate: {0}", plan);
+      return plan;
+    }
+  }
+
   @Nonnull
   public static Request createInitialRequest(@Nonnull Scheduler scheduler) {
     Request request = scheduler.createScheduleRequest();
@@ -1735,6 +1748,7 @@ public abstract class Jack {
             methodPlan5.append(MethodBodyRemover.class);
           }
         }
+        typePlan6.append(DxInternStatistics.class);
       }
     }
     {
@@ -45,7 +45,8 @@ public enum JackEventType implements EventType {
   ALL_JACK_SCHEDULABLES("All Jack schedulables"),
   DX_BACKEND("Dx backend"),
   DEX_MERGER("Dex merger"),
-  DEX_MERGER_FINISH("Dex merger finish");
+  DEX_MERGER_FINISH("Dex merger finish"),
+  DEX_MERGER_PARTITION("Dex merger partition");
 
   @Nonnull
   private final String name;
@@ -33,6 +33,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import javax.annotation.CheckForNull;
@@ -57,6 +58,15 @@ public class FileDependencies extends Dependency {
   @Nonnull
   private Map<String, Set<String>> javaFileToTypes = new HashMap<String, Set<String>>();
 
+  @Nonnull
+  private Map<String, String> javaFileToDigest = new HashMap<String, String>();
+
+  @Nonnull
+  private Map<String, String> javaFileToApiDigest = new HashMap<String, String>();
+
+  @Nonnull
+  private Map<String, Long> javaFileToCheckedTime = new HashMap<String, Long>();
+
   public void addMappingBetweenJavaFileAndType(@Nonnull String javaFileName,
       @Nonnull JType type) {
     String typeFqn = BinaryQualifiedNameFormatter.getFormatter().getName(type);
@@ -73,9 +83,15 @@ public class FileDependencies extends Dependency {
   public void update(@Nonnull Set<String> deleteFileNames, @Nonnull Set<String> modifiedFileNames) {
     for (String deletedJavaFileName : deleteFileNames) {
       javaFileToTypes.remove(deletedJavaFileName);
+      javaFileToDigest.remove(deletedJavaFileName);
+      javaFileToApiDigest.remove(deletedJavaFileName);
+      javaFileToCheckedTime.remove(deletedJavaFileName);
     }
     for (String modifiedJavaFileName : modifiedFileNames) {
       javaFileToTypes.remove(modifiedJavaFileName);
+      javaFileToDigest.remove(modifiedJavaFileName);
+      javaFileToApiDigest.remove(modifiedJavaFileName);
+      javaFileToCheckedTime.remove(modifiedJavaFileName);
     }
   }
 
@@ -83,6 +99,69 @@ public class FileDependencies extends Dependency {
     writeMapOne2Many(ps, javaFileToTypes);
     ps.print(Dependency.END_OF_MAP);
     ps.println();
+    writeDigests(ps, javaFileToDigest);
+    writeDigests(ps, javaFileToApiDigest);
+    writeDigests(ps, javaFileToCheckedTime);
+  }
+
+  private static void writeDigests(@Nonnull PrintStream ps, @Nonnull Map<String, ?> digests) {
+    for (Map.Entry<String, ?> entry : digests.entrySet()) {
+      ps.print(entry.getKey());
+      ps.println();
+      ps.print(entry.getValue());
+      ps.println();
+    }
+    ps.print(Dependency.END_OF_MAP);
+    ps.println();
+  }
+
+  /**
+   * Records the digest of the content of a java file, as it was when the file was compiled.
+   */
+  public void setDigest(@Nonnull String javaFileName, @Nonnull String digest) {
+    javaFileToDigest.put(javaFileName, digest);
+  }
+
+  /**
+   * Returns the digest of the content of a java file when it was compiled, or null if it was not
+   * recorded.
+   */
+  @CheckForNull
+  public String getDigest(@Nonnull String javaFileName) {
+    return javaFileToDigest.get(javaFileName);
+  }
+
+  /**
+   * Records the digest of the API of a java file, as it was when the file was compiled.
+   */
+  public void setApiDigest(@Nonnull String javaFileName, @Nonnull String digest) {
+    javaFileToApiDigest.put(javaFileName, digest);
+  }
+
+  /**
+   * Returns the digest of the API of a java file when it was compiled, or null if it was not
+   * recorded.
+   */
+  @CheckForNull
+  public String getApiDigest(@Nonnull String javaFileName) {
+    return javaFileToApiDigest.get(javaFileName);
+  }
+
+  /**
+   * Records the modification time of a java file whose content digest was found unchanged since
+   * the file was compiled, so that the file is not digested again while it keeps this time.
+   */
+  public void setCheckedTime(@Nonnull String javaFileName, long time) {
+    javaFileToCheckedTime.put(javaFileName, Long.valueOf(time));
+  }
+
+  /**
+   * Returns the modification time recorded by {@link #setCheckedTime(String, long)} for a java
+   * file, or null if it was not recorded.
+   */
+  @CheckForNull
+  public Long getCheckedTime(@Nonnull String javaFileName) {
+    return javaFileToCheckedTime.get(javaFileName);
   }
 
   @Nonnull
@@ -113,6 +192,36 @@ public class FileDependencies extends Dependency {
   @Override
   @Nonnull
   public void read(@Nonnull Readable reader) throws IOException {
-    javaFileToTypes = readMapOne2Many(new LineReader(reader));
+    LineReader lineReader = new LineReader(reader);
+    javaFileToTypes = readMapOne2Many(lineReader);
+    javaFileToDigest = readDigests(lineReader);
+    javaFileToApiDigest = readDigests(lineReader);
+    javaFileToCheckedTime = new HashMap<String, Long>();
+    for (Map.Entry<String, String> entry : readDigests(lineReader).entrySet()) {
+      try {
+        javaFileToCheckedTime.put(entry.getKey(), Long.valueOf(entry.getValue()));
+      } catch (NumberFormatException e) {
+        throw new NoSuchElementException(entry.getValue());
+      }
+    }
+  }
+
+  @Nonnull
+  private static Map<String, String> readDigests(@Nonnull LineReader lineReader)
+      throws IOException {
+    Map<String, String> digests = new HashMap<String, String>();
+
+    // Dependencies written without digests end before them
+    String javaFileName;
+    while ((javaFileName = lineReader.readLine()) != null
+        && !javaFileName.equals(Dependency.END_OF_MAP)) {
+      String digest = lineReader.readLine();
+      if (digest == null) {
+        throw new NoSuchElementException();
+      }
+      digests.put(javaFileName, digest);
+    }
+
+    return digests;
   }
 }
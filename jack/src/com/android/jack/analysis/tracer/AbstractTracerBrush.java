@@ -147,6 +147,15 @@ public abstract class AbstractTracerBrush<M extends BaseTracerMarker> implements
     marker.setMustTraceOverridingMethods(true);
   }
 
+  /*
+   * Brushes extending this class only keep their state in markers, so they can be shared.
+   */
+  @Override
+  @Nonnull
+  public TracerBrush fork() {
+    return this;
+  }
+
   @Override
   public boolean startTraceEnclosingMethod() {
     return traceEnclosingMethod;
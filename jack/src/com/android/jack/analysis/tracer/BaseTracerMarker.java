@@ -25,7 +25,12 @@ import javax.annotation.Nonnull;
  */
 public abstract class BaseTracerMarker implements Marker {
 
-  private boolean mustTraceOverridingMethods = false;
+  /*
+   * Volatile since the tracer may run in several threads: a thread setting this flag and then
+   * looking for marked sub types, and a thread marking a sub type and then reading this flag, must
+   * not both miss the other one.
+   */
+  private volatile boolean mustTraceOverridingMethods = false;
 
   public void setMustTraceOverridingMethods(boolean mustTraceOverridingMethods) {
     this.mustTraceOverridingMethods = mustTraceOverridingMethods;
@@ -50,6 +50,21 @@ public class ComposedTracerBrush implements TracerBrush {
     composedStatus.push(initialAllEnabled);
   }
 
+  private ComposedTracerBrush(@Nonnull TracerBrush[] brushes, @Nonnull BitSet initialStatus) {
+    this.brushes = brushes;
+    composedStatus.push(initialStatus);
+  }
+
+  @Override
+  @Nonnull
+  public TracerBrush fork() {
+    TracerBrush[] forkedBrushes = new TracerBrush[brushes.length];
+    for (int i = 0; i < brushes.length; i++) {
+      forkedBrushes[i] = brushes[i].fork();
+    }
+    return new ComposedTracerBrush(forkedBrushes, (BitSet) composedStatus.peek().clone());
+  }
+
   @Override
   public boolean startTrace(@Nonnull JDefinedClassOrInterface type) {
     boolean status = false;
@@ -75,9 +75,23 @@ import com.android.sched.item.Description;
 import com.android.sched.marker.LocalMarkerManager;
 import com.android.sched.schedulable.Access;
 import com.android.sched.schedulable.Constraint;
+import com.android.sched.scheduler.ScheduleInstance;
+import com.android.sched.util.config.HasKeyId;
+import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.config.id.BooleanPropertyId;
+import com.android.sched.util.config.id.IntegerPropertyId;
 import com.android.sched.util.log.LoggerFactory;
+import com.android.sched.util.log.ThreadTracerState;
 import com.android.sched.util.log.TracerFactory;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -86,13 +100,108 @@ import javax.annotation.Nonnull;
 
 /**
  * A visitor that traces dependencies
+ *
+ * <p>Seeds are traced one at a time, since the schedulables running tracers access the session.
+ * When tracing in parallel, the contents of the types and methods that are marked from a seed are
+ * traced later by a pool of workers, each one with its own fork of the {@link TracerBrush}.
+ * Marking being atomic, each content is traced once, and a seed is traced when all contents found
+ * from it are. The pool is shut down at the end of the session.
  */
+@HasKeyId
 @Description("traces dependencies")
 @Constraint(need = {UniqMethodIds.class, SubClassOrInterfaceMarker.class, JMethodBody.class})
 // Visit type hierarchy, access referenced types and depends on isAnonymous
 @Access(JSession.class)
 public class Tracer extends JVisitor {
 
+  @Nonnull
+  public static final BooleanPropertyId PARALLEL = BooleanPropertyId
+      .create("jack.tracer.parallel",
+          "Trace the contents of types and methods reachable from a seed in parallel")
+      .addDefaultValue(Boolean.FALSE);
+
+  @Nonnull
+  public static final IntegerPropertyId PARALLEL_THREADS = IntegerPropertyId
+      .create("jack.tracer.parallel.threads",
+          "Number of threads used to trace dependencies, 0 meaning one by core")
+      .withMin(0).addDefaultValue(0).requiredIf(PARALLEL.getValue().isTrue());
+
+  /**
+   * Contents whose tracing is pending for a seed.
+   */
+  private static class WorkList {
+    @Nonnull
+    private final com.android.sched.util.log.Tracer tracer = TracerFactory.getTracer();
+
+    @Nonnull
+    private final Executor executor;
+
+    @Nonnull
+    private final AtomicInteger pendingCount = new AtomicInteger(0);
+
+    @Nonnull
+    private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+    WorkList(@Nonnull Executor executor) {
+      this.executor = executor;
+    }
+
+    void submit(@Nonnull final Runnable work) {
+      pendingCount.incrementAndGet();
+      final ThreadTracerState state = tracer.getThreadState();
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          tracer.pushThreadState(state);
+          try {
+            if (failure.get() == null) {
+              work.run();
+            }
+          } catch (RuntimeException | Error e) {
+            failure.compareAndSet(null, e);
+          } finally {
+            tracer.popThreadState(state);
+            if (pendingCount.decrementAndGet() == 0) {
+              synchronized (WorkList.this) {
+                WorkList.this.notifyAll();
+              }
+            }
+          }
+        }
+      });
+    }
+
+    /**
+     * Waits for the end of the tracing of all submitted contents, including the ones they submit.
+     */
+    void await() {
+      boolean interrupted = false;
+      try {
+        synchronized (this) {
+          while (pendingCount.get() != 0) {
+            try {
+              wait();
+            } catch (InterruptedException e) {
+              interrupted = true;
+            }
+          }
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+      Throwable cause = failure.get();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      assert cause == null;
+    }
+  }
+
   @Nonnull
   protected final com.android.sched.util.log.Tracer tracer = TracerFactory.getTracer();
 
@@ -102,11 +211,74 @@ public class Tracer extends JVisitor {
   @Nonnull
   private final TracerBrush brush;
 
+  /** Executor of the contents to trace when tracing in parallel, only set on the root tracer */
+  @CheckForNull
+  private final ExecutorService executor;
+
+  /** Contents to trace of the current seed, only set on tracers tracing in parallel */
+  @CheckForNull
+  private final WorkList workList;
+
   public Tracer(@Nonnull TracerBrush brush) {
     this.brush = brush;
+    this.workList = null;
+    if (ThreadConfig.get(PARALLEL).booleanValue()) {
+      final ExecutorService parallelExecutor = createExecutor();
+      Jack.getSession().getHooks().addHook(new Runnable() {
+        @Override
+        public void run() {
+          parallelExecutor.shutdown();
+        }
+      });
+      this.executor = parallelExecutor;
+    } else {
+      this.executor = null;
+    }
+  }
+
+  private Tracer(@Nonnull TracerBrush brush, @CheckForNull WorkList workList) {
+    this.brush = brush;
+    this.executor = null;
+    this.workList = workList;
+  }
+
+  @Nonnull
+  private static ExecutorService createExecutor() {
+    int threadCount = ThreadConfig.get(PARALLEL_THREADS).intValue();
+    if (threadCount == 0) {
+      threadCount = Runtime.getRuntime().availableProcessors();
+    }
+    final String name = ThreadConfig.getConfig().getName() + "-tracer-";
+    final long stackSize = ThreadConfig.get(ScheduleInstance.DEFAULT_STACK_SIZE).longValue();
+
+    return new ThreadPoolExecutor(threadCount, threadCount,
+        0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+        new ThreadFactory() {
+          @Nonnull
+          private final AtomicInteger threadIndex = new AtomicInteger(0);
+
+          @Override
+          @Nonnull
+          public Thread newThread(@Nonnull Runnable runnable) {
+            Thread thread =
+                new Thread(null, runnable, name + threadIndex.getAndIncrement(), stackSize);
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
   }
 
   public void run(@Nonnull JDefinedClassOrInterface type) {
+    if (executor != null) {
+      WorkList seedWorkList = new WorkList(executor);
+      new Tracer(brush, seedWorkList).traceSeed(type);
+      seedWorkList.await();
+    } else {
+      traceSeed(type);
+    }
+  }
+
+  private void traceSeed(@Nonnull JDefinedClassOrInterface type) {
     if (brush.startTraceSeed(type)) {
       trace(type);
       brush.endTraceSeed(type);
@@ -163,74 +335,88 @@ public class Tracer extends JVisitor {
     }
   }
 
-  private void trace(@Nonnull JDefinedClassOrInterface t) {
+  private void trace(@Nonnull final JDefinedClassOrInterface t) {
     if (brush.startTrace(t)) {
-      traceAnnotations(t);
+      if (workList != null) {
+        final Tracer forked = new Tracer(brush.fork(), workList);
+        workList.submit(new Runnable() {
+          @Override
+          public void run() {
+            forked.traceContent(t);
+          }
+        });
+      } else {
+        traceContent(t);
+      }
+      brush.endTrace(t);
+    }
+  }
 
-      if (t instanceof JDefinedClass) {
-        JDefinedClass definedClass = (JDefinedClass) t;
-        JClass superClass = definedClass.getSuperClass();
+  private void traceContent(@Nonnull JDefinedClassOrInterface t) {
+    traceAnnotations(t);
 
-        if (superClass != null) {
-          traceImplementation(definedClass, superClass);
-        }
+    if (t instanceof JDefinedClass) {
+      JDefinedClass definedClass = (JDefinedClass) t;
+      JClass superClass = definedClass.getSuperClass();
 
-        for (JInterface i : definedClass.getImplements()) {
-          traceImplementation(definedClass, i);
-        }
+      if (superClass != null) {
+        traceImplementation(definedClass, superClass);
+      }
 
+      for (JInterface i : definedClass.getImplements()) {
+        traceImplementation(definedClass, i);
+      }
 
-        if (t.isAnonymous()) {
-          if (brush.startTraceEnclosingMethod()) {
-            JMethod enclosingMethod = ((JDefinedClass) t).getEnclosingMethod();
-            if (enclosingMethod != null) {
-              trace(t.getEnclosingType());
-              trace(enclosingMethod);
-            }
-            brush.endTraceEnclosingMethod();
-          }
-        }
 
-        if (t instanceof JDefinedEnum) {
-          // The 'values()' method must be traced if present (for the switches on enum support)
-          try {
-            JMethod values = definedClass.getMethod("values", definedClass.getArray());
-            trace(values);
-          } catch (JMethodLookupException e) {
-            // Ignored since we want to support missing 'values()' method.
+      if (t.isAnonymous()) {
+        if (brush.startTraceEnclosingMethod()) {
+          JMethod enclosingMethod = ((JDefinedClass) t).getEnclosingMethod();
+          if (enclosingMethod != null) {
+            trace(t.getEnclosingType());
+            trace(enclosingMethod);
           }
+          brush.endTraceEnclosingMethod();
         }
       }
 
-      for (JField field : t.getFields()) {
-        if (brush.startTraceSeed(field)) {
-          trace(field);
-          brush.endTraceSeed(field);
+      if (t instanceof JDefinedEnum) {
+        // The 'values()' method must be traced if present (for the switches on enum support)
+        try {
+          JMethod values = definedClass.getMethod("values", definedClass.getArray());
+          trace(values);
+        } catch (JMethodLookupException e) {
+          // Ignored since we want to support missing 'values()' method.
         }
       }
+    }
 
-      PartialTypeHierarchy pth = t.getMarker(PartialTypeHierarchy.class);
-      if (pth != null) {
-        Jack.getSession().getReporter().report(Severity.NON_FATAL, pth);
+    for (JField field : t.getFields()) {
+      if (brush.startTraceSeed(field)) {
+        trace(field);
+        brush.endTraceSeed(field);
       }
-      for (JMethod method : t.getMethods()) {
-        // Clinit and constructor without parameters must always be trace without taking into
-        // account seed.
-        if ((JMethod.isClinit(method) || isNullaryConstructor(method))) {
-          trace(method);
-        } else {
-          // To be safe, Jack is conservative when there is partial type hierarchy.
-          // It considers all methods of the type as seed.
-          if (brush.startTraceSeed(method) || pth != null) {
-            trace(method.getMethodIdWide(), method.getEnclosingType(), method.getType(),
-                true /* mustTraceOverridingMethods */);
-            brush.endTraceSeed(method);
-          }
+    }
+
+    PartialTypeHierarchy pth = t.getMarker(PartialTypeHierarchy.class);
+    if (pth != null) {
+      Jack.getSession().getReporter().report(Severity.NON_FATAL, pth);
+    }
+    for (JMethod method : t.getMethods()) {
+      // Clinit and constructor without parameters must always be trace without taking into
+      // account seed.
+      if ((JMethod.isClinit(method) || isNullaryConstructor(method))) {
+        trace(method);
+      } else {
+        // To be safe, Jack is conservative when there is partial type hierarchy.
+        // It considers all methods of the type as seed.
+        if (brush.startTraceSeed(method) || pth != null) {
+          trace(method.getMethodIdWide(), method.getEnclosingType(), method.getType(),
+              true /* mustTraceOverridingMethods */);
+          brush.endTraceSeed(method);
         }
       }
-
-      brush.endTrace(t);
     }
+
   }
 
   private void trace(@Nonnull JField f) {
@@ -303,27 +489,41 @@ public class Tracer extends JVisitor {
     }
   }
 
-  private void trace(@Nonnull JMethod m) {
+  private void trace(@Nonnull final JMethod m) {
     if (brush.startTrace(m)) {
-      trace(m.getEnclosingType());
-      traceAnnotations(m);
-      for (JParameter arg : m.getParams()) {
-        trace(arg.getType());
+      if (workList != null) {
+        final Tracer forked = new Tracer(brush.fork(), workList);
+        workList.submit(new Runnable() {
+          @Override
+          public void run() {
+            forked.traceContent(m);
+          }
+        });
+      } else {
+        traceContent(m);
       }
-      trace(m.getType());
-      ThrownExceptionMarker marker = m.getMarker(ThrownExceptionMarker.class);
-      if (marker != null) {
-        for (JClass throwException : marker.getThrownExceptions()) {
-          trace(throwException);
-        }
+      brush.endTrace(m);
+    }
+  }
+
+  private void traceContent(@Nonnull JMethod m) {
+    trace(m.getEnclosingType());
+    traceAnnotations(m);
+    for (JParameter arg : m.getParams()) {
+      trace(arg.getType());
+    }
+    trace(m.getType());
+    ThrownExceptionMarker marker = m.getMarker(ThrownExceptionMarker.class);
+    if (marker != null) {
+      for (JClass throwException : marker.getThrownExceptions()) {
+        trace(throwException);
       }
-      if (m.getEnclosingType().isToEmit()) {
-        JAbstractMethodBody body = m.getBody();
-        if (body != null) {
-          accept(body);
-        }
+    }
+    if (m.getEnclosingType().isToEmit()) {
+      JAbstractMethodBody body = m.getBody();
+      if (body != null) {
+        accept(body);
       }
-      brush.endTrace(m);
     }
   }
 
@@ -56,4 +56,10 @@ public interface TracerBrush {
   void endTraceMarked(@Nonnull JNode node);
 
   void setMustTraceOverridingMethods(@Nonnull JMethod method);
+
+  /**
+   * Returns a brush in the current state of this one, to go on tracing from another thread.
+   */
+  @Nonnull
+  TracerBrush fork();
 }
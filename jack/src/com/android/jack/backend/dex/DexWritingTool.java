@@ -33,17 +33,23 @@ import com.android.jack.library.InputJackLibrary;
 import com.android.jack.library.InputLibrary;
 import com.android.jack.library.OutputJackLibrary;
 import com.android.jack.library.TypeInInputLibraryLocation;
+import com.android.jack.tools.merger.ConstantManager;
 import com.android.jack.tools.merger.JackMerger;
 import com.android.jack.tools.merger.MergingOverflowException;
 import com.android.jack.util.AndroidApiLevel;
 import com.android.sched.util.codec.VariableName;
+import com.android.sched.util.config.HasKeyId;
 import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.config.id.BooleanPropertyId;
+import com.android.sched.util.config.id.IntegerPropertyId;
 import com.android.sched.util.file.CannotCreateFileException;
 import com.android.sched.util.file.CannotReadException;
 import com.android.sched.util.file.WrongPermissionException;
 import com.android.sched.util.location.Location;
 import com.android.sched.util.log.Event;
 import com.android.sched.util.log.LoggerFactory;
+import com.android.sched.util.log.ProgressTracer;
+import com.android.sched.util.log.ThreadTracerState;
 import com.android.sched.util.log.Tracer;
 import com.android.sched.util.log.TracerFactory;
 import com.android.sched.vfs.InputVFile;
@@ -52,31 +58,94 @@ import com.android.sched.vfs.OutputVFile;
 import com.android.sched.vfs.VPath;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 /**
  * A helper to write dex files.
  */
+@HasKeyId
 @VariableName("writer")
 public abstract class DexWritingTool {
+  @Nonnull
+  public static final BooleanPropertyId PARALLEL_MERGE = BooleanPropertyId
+      .create("jack.dex.merger.parallel",
+          "Merge and write the output dex files of a multidex application in parallel")
+      .addDefaultValue(Boolean.FALSE);
+
+  @Nonnull
+  public static final IntegerPropertyId PARALLEL_MERGE_THREADS = IntegerPropertyId
+      .create("jack.dex.merger.parallel.threads",
+          "Number of threads used to merge output dex files, 0 meaning one by core")
+      .withMin(0).addDefaultValue(0).requiredIf(PARALLEL_MERGE.getValue().isTrue());
+
   @Nonnull
   protected final Tracer tracer = TracerFactory.getTracer();
 
+  /**
+   * Dex files to merge into one output dex. Constants are accounted for as dex files are added,
+   * exactly as {@link JackMerger} does, so that a partition overflows at the same dex file as the
+   * sequential merge would.
+   */
+  protected class DexPartition {
+    @Nonnull
+    private final List<DexBuffer> dexBuffers = new ArrayList<DexBuffer>();
+
+    @CheckForNull
+    private ConstantManager cstManager = new ConstantManager();
+
+    public void add(@Nonnull DexBuffer dexBuffer) throws MergingOverflowException {
+      assert cstManager != null;
+      cstManager.addDexFile(dexBuffer);
+      dexBuffers.add(dexBuffer);
+    }
+
+    @Nonnull
+    byte[] merge() throws IOException {
+      // Constants are computed again by the merger, release these ones
+      cstManager = null;
+
+      JackMerger merger = new JackMerger(createDexFile());
+      for (DexBuffer dexBuffer : dexBuffers) {
+        try {
+          merger.addDexFile(dexBuffer);
+        } catch (MergingOverflowException e) {
+          // This should not happen, these dex files fitted together when partitioning
+          throw new AssertionError(e);
+        }
+      }
+      dexBuffers.clear();
+
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      merger.finish(os);
+      return os.toByteArray();
+    }
+  }
+
   /**
    * {@link MatchableInputVFile} is used to deduplicate {@link InputVFile}.
    */
@@ -124,6 +193,8 @@ public abstract class DexWritingTool {
   private final boolean usePrebuilts =
       ThreadConfig.get(Options.USE_PREBUILT_FROM_LIBRARY).booleanValue();
 
+  protected final boolean parallelMerge = ThreadConfig.get(PARALLEL_MERGE).booleanValue();
+
   @Nonnull
   protected DexFile createDexFile() {
     DexOptions options = new DexOptions(apiLevel, forceJumbo);
@@ -149,14 +220,26 @@ public abstract class DexWritingTool {
         throw new DexWritingException(e);
       }
     }
+    notifyOutput(out);
   }
 
   protected void mergeDex(@Nonnull JackMerger merger, InputVFile inputDex)
       throws MergingOverflowException, DexWritingException {
+    merger.addDexFile(readDex(inputDex));
+  }
+
+  @Nonnull
+  protected DexBuffer readDex(@Nonnull InputVFile inputDex) throws DexWritingException {
     InputStream inputStream = null;
     try {
+      // Read the dex in place when possible, rather than copying it from a stream
+      ByteBuffer content = inputDex.getVFile().getByteBuffer();
+      if (content != null) {
+        return new DexBuffer(content);
+      }
+
       inputStream = inputDex.getInputStream();
-      merger.addDexFile(new DexBuffer(inputStream));
+      return new DexBuffer(inputStream);
     } catch (IOException | WrongPermissionException e) {
       throw new DexWritingException(new CannotReadException(inputDex, e));
     } finally {
@@ -171,6 +254,197 @@ public abstract class DexWritingTool {
     }
   }
 
+  /**
+   * Merges dex files into partitions which are each merged into their own dex file in parallel, the
+   * first partition being written to the main dex. Partitions are submitted as soon as they are
+   * full, and at most one partition by thread is in flight, so that the dex files to merge are not
+   * all held in memory at once. Dex files are written in parallel too when the output supports it,
+   * otherwise they are written in order.
+   */
+  protected class ParallelMerger implements AutoCloseable {
+    @Nonnull
+    private final OutputVFS outputVDir;
+
+    private final boolean parallelWrite;
+
+    @Nonnegative
+    private final int maxInFlight;
+
+    @Nonnull
+    private final ExecutorService executor;
+
+    /** Merges in flight, in the order of the output dex files */
+    @Nonnull
+    private final Deque<Future<byte[]>> inFlight = new ArrayDeque<Future<byte[]>>();
+
+    @Nonnull
+    private DexPartition partition = new DexPartition();
+
+    private int dexCount = 1;
+
+    public ParallelMerger(@Nonnull OutputVFS outputVDir) {
+      this.outputVDir = outputVDir;
+      parallelWrite = !outputVDir.needsSequentialWriting();
+
+      int threadCount = ThreadConfig.get(PARALLEL_MERGE_THREADS).intValue();
+      if (threadCount == 0) {
+        threadCount = Runtime.getRuntime().availableProcessors();
+      }
+      maxInFlight = threadCount;
+      executor = Executors.newFixedThreadPool(threadCount);
+    }
+
+    /**
+     * Adds a dex file to the current partition.
+     *
+     * @throws MergingOverflowException if it overflows the current partition
+     */
+    public void addToCurrentPartition(@Nonnull InputVFile inputDex)
+        throws MergingOverflowException, DexWritingException {
+      partition.add(readDex(inputDex));
+    }
+
+    /**
+     * Adds a dex file to the current partition, or to a new one if it overflows the current
+     * partition.
+     */
+    public void add(@Nonnull InputVFile inputDex) throws DexWritingException {
+      DexBuffer dexBuffer = readDex(inputDex);
+      try {
+        partition.add(dexBuffer);
+      } catch (MergingOverflowException e) {
+        startNewPartition();
+        try {
+          partition.add(dexBuffer);
+        } catch (MergingOverflowException e1) {
+          // This should not happen, the type is not too big, we've just read it from a dex.
+          throw new AssertionError(e1);
+        }
+      }
+    }
+
+    /**
+     * Submits the current partition to be merged, and starts a new one.
+     */
+    public void startNewPartition() throws DexWritingException {
+      while (inFlight.size() >= maxInFlight) {
+        writeFirstInFlight();
+      }
+
+      final DexPartition partition = this.partition;
+      this.partition = new DexPartition();
+      // Output files are created in order, to keep their names independent of the scheduling
+      final OutputVFile out = parallelWrite ? getOutputDex(outputVDir, dexCount++) : null;
+      final ThreadTracerState state = tracer.getThreadState();
+      inFlight.add(executor.submit(new Callable<byte[]>() {
+        /**
+         * @return the merged dex, or null if it has been written
+         */
+        @Override
+        @CheckForNull
+        public byte[] call() throws IOException, DexWritingException {
+          tracer.pushThreadState(state);
+          try {
+            byte[] dex;
+            try (Event event = tracer.open(JackEventType.DEX_MERGER_PARTITION)) {
+              dex = partition.merge();
+            }
+            if (out != null) {
+              writeDex(out, dex);
+              return null;
+            }
+            return dex;
+          } finally {
+            tracer.popThreadState(state);
+          }
+        }
+      }));
+    }
+
+    /**
+     * Submits the last partition, and waits for all the dex files to be written.
+     */
+    public void finish() throws DexWritingException {
+      startNewPartition();
+      while (!inFlight.isEmpty()) {
+        writeFirstInFlight();
+      }
+    }
+
+    private void writeFirstInFlight() throws DexWritingException {
+      byte[] dex = getUninterruptibly(inFlight.removeFirst());
+      if (dex != null) {
+        writeDex(getOutputDex(outputVDir, dexCount++), dex);
+      }
+    }
+
+    @Override
+    public void close() {
+      executor.shutdownNow();
+    }
+  }
+
+  @CheckForNull
+  private static byte[] getUninterruptibly(@Nonnull Future<byte[]> dex)
+      throws DexWritingException {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return dex.get();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw new DexWritingException(cause);
+      } else if (cause instanceof DexWritingException) {
+        throw (DexWritingException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new AssertionError(cause);
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void writeDex(@Nonnull OutputVFile out, @Nonnull byte[] dex)
+      throws DexWritingException {
+    try (Event event = tracer.open(JackEventType.DEX_MERGER_FINISH)) {
+      OutputStream os = null;
+      try {
+        try {
+          os = out.getOutputStream();
+          os.write(dex);
+        } finally {
+          if (os != null) {
+            os.close();
+          }
+        }
+      } catch (IOException | WrongPermissionException e) {
+        throw new DexWritingException(e);
+      }
+    }
+    notifyOutput(out);
+  }
+
+  /**
+   * Reports a written dex file when the tracer reports progress, so that it can be consumed
+   * before the end of the compilation.
+   */
+  private void notifyOutput(@Nonnull OutputVFile out) {
+    if (tracer instanceof ProgressTracer) {
+      ((ProgressTracer) tracer).notifyOutput(out.getLocation());
+    }
+  }
+
   @Nonnull
   protected OutputVFile getOutputDex(@Nonnull OutputVFS outputVfs, int dexCount)
       throws DexWritingException {
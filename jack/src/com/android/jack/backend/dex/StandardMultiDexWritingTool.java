@@ -46,6 +46,25 @@ public class StandardMultiDexWritingTool extends DexWritingTool implements Multi
     fillDexLists(mainDexList, anyDexList);
 
     try (Event event = tracer.open(JackEventType.DEX_MERGER)) {
+      if (parallelMerge) {
+        try (ParallelMerger merger = new ParallelMerger(outputVDir)) {
+          for (MatchableInputVFile currentDex : mainDexList) {
+            try {
+              merger.addToCurrentPartition(currentDex.getInputVFile());
+            } catch (MergingOverflowException e) {
+              throw new DexWritingException(new MainDexOverflowException(e));
+            }
+          }
+
+          for (MatchableInputVFile currentDex : anyDexList) {
+            merger.add(currentDex.getInputVFile());
+          }
+
+          merger.finish();
+        }
+        return;
+      }
+
       JackMerger merger = new JackMerger(createDexFile());
       OutputVFile outputDex = getOutputDex(outputVDir, dexCount++);
 
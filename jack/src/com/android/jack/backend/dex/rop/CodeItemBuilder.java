@@ -98,9 +98,14 @@ import com.android.sched.schedulable.Filter;
 import com.android.sched.schedulable.RunnableSchedulable;
 import com.android.sched.schedulable.Transform;
 import com.android.sched.schedulable.Use;
+import com.android.sched.util.codec.DirectoryCodec;
 import com.android.sched.util.config.HasKeyId;
 import com.android.sched.util.config.ThreadConfig;
 import com.android.sched.util.config.id.BooleanPropertyId;
+import com.android.sched.util.config.id.PropertyId;
+import com.android.sched.util.file.Directory;
+import com.android.sched.util.file.FileOrDirectory.Existence;
+import com.android.sched.util.file.FileOrDirectory.Permission;
 import com.android.sched.util.log.Event;
 import com.android.sched.util.log.Tracer;
 import com.android.sched.util.log.TracerFactory;
@@ -108,6 +113,7 @@ import com.android.sched.util.log.TracerFactory;
 import java.util.Iterator;
 import java.util.List;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
@@ -179,6 +185,26 @@ public class CodeItemBuilder implements RunnableSchedulable<JMethod> {
       "jack.dex.optimizebranches", "Remove redundant branches in dex")
       .addDefaultValue(Boolean.TRUE).addCategory(DumpInLibrary.class);
 
+  @Nonnull
+  public static final BooleanPropertyId LINEAR_SCAN_REGISTER_ALLOCATION = BooleanPropertyId.create(
+      "jack.dex.optimize.linearscan",
+      "Allocate registers with a faster linear scan, at the cost of bigger dex code")
+      .addDefaultValue(Boolean.FALSE).requiredIf(DEX_OPTIMIZE.getValue().isTrue())
+      .addCategory(DumpInLibrary.class);
+
+  @Nonnull
+  public static final BooleanPropertyId DEX_OPTIMIZE_CACHE = BooleanPropertyId.create(
+      "jack.dex.optimize.cache",
+      "Define if methods optimized for dex are kept in a cache and reused when unchanged")
+      .addDefaultValue(Boolean.FALSE).requiredIf(DEX_OPTIMIZE.getValue().isTrue());
+
+  @Nonnull
+  public static final PropertyId<Directory> DEX_OPTIMIZE_CACHE_DIR = PropertyId.create(
+      "jack.dex.optimize.cache.dir",
+      "The directory where methods optimized for dex are cached, never cleaned up by Jack",
+      new DirectoryCodec(Existence.MUST_EXIST, Permission.READ | Permission.WRITE))
+      .requiredIf(DEX_OPTIMIZE.getValue().isTrue().and(DEX_OPTIMIZE_CACHE.getValue().isTrue()));
+
   @Nonnull
   private final com.android.jack.util.filter.Filter<JMethod> filter =
       ThreadConfig.get(Options.METHOD_FILTER);
@@ -190,10 +216,16 @@ public class CodeItemBuilder implements RunnableSchedulable<JMethod> {
   private final boolean forceJumbo = ThreadConfig.get(FORCE_JUMBO).booleanValue();
   private final boolean removeRedundantConditionalBranch =
       ThreadConfig.get(OPTIMIZE_BRANCHES).booleanValue();
+  private final boolean useLinearScanAllocator = runDxOptimizations
+      && ThreadConfig.get(LINEAR_SCAN_REGISTER_ALLOCATION).booleanValue();
   @Nonnull
   private final AndroidApiLevel apiLevel = ThreadConfig.get(Options.ANDROID_MIN_API_LEVEL);
   private final boolean emitLineNumberTable =
       ThreadConfig.get(Options.EMIT_LINE_NUMBER_DEBUG_INFO).booleanValue();
+  @CheckForNull
+  private final OptimizedCodeCache optimizedCodeCache = runDxOptimizations
+      && ThreadConfig.get(DEX_OPTIMIZE_CACHE).booleanValue()
+      ? OptimizedCodeCache.create(ThreadConfig.get(DEX_OPTIMIZE_CACHE_DIR)) : null;
 
   @Nonnull
   private final  Tracer tracer = TracerFactory.getTracer();
@@ -383,14 +415,34 @@ public class CodeItemBuilder implements RunnableSchedulable<JMethod> {
 
       if (runDxOptimizations) {
         try (Event optEvent = tracer.open(JackEventType.DX_OPTIMIZATION)) {
-          ropMethod =
-              Optimizer.optimize(
-                  ropMethod,
-                  getParameterWordCount(method),
-                  method.isStatic(),
-                  true /* inPreserveLocals */,
-                  removeRedundantConditionalBranch,
-                  DexTranslationAdvice.THE_ONE);
+          int paramWordCount = getParameterWordCount(method);
+          String key = null;
+          RopMethod optimizedMethod = null;
+          if (optimizedCodeCache != null) {
+            key = optimizedCodeCache.getKey(ropMethod, paramWordCount, method.isStatic(),
+                removeRedundantConditionalBranch, useLinearScanAllocator);
+            if (key != null) {
+              optimizedMethod = optimizedCodeCache.get(key);
+            }
+          }
+
+          if (optimizedMethod == null) {
+            optimizedMethod =
+                Optimizer.optimize(
+                    ropMethod,
+                    paramWordCount,
+                    method.isStatic(),
+                    true /* inPreserveLocals */,
+                    removeRedundantConditionalBranch,
+                    useLinearScanAllocator,
+                    DexTranslationAdvice.THE_ONE);
+            if (key != null) {
+              assert optimizedCodeCache != null;
+              optimizedCodeCache.put(key, optimizedMethod);
+            }
+          }
+
+          ropMethod = optimizedMethod;
         }
       }
 
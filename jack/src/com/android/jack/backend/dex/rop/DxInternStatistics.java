@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.backend.dex.rop;
+
+import com.android.jack.dx.rop.code.RegisterSpec;
+import com.android.jack.dx.rop.cst.CstType;
+import com.android.jack.dx.rop.type.Prototype;
+import com.android.jack.dx.rop.type.Type;
+import com.android.jack.dx.util.InternTable;
+import com.android.jack.ir.ast.JDefinedClassOrInterface;
+import com.android.jack.scheduling.filter.TypeWithoutPrebuiltFilter;
+import com.android.sched.item.Description;
+import com.android.sched.schedulable.Filter;
+import com.android.sched.schedulable.RunnableSchedulable;
+import com.android.sched.util.log.Tracer;
+import com.android.sched.util.log.TracerFactory;
+import com.android.sched.util.log.stats.Counter;
+import com.android.sched.util.log.stats.CounterImpl;
+import com.android.sched.util.log.stats.Sample;
+import com.android.sched.util.log.stats.SampleImpl;
+import com.android.sched.util.log.stats.StatisticId;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Reports the hits, misses and sizes of the dx intern tables as statistics, once the code items
+ * of a type are built. Hits and misses are counted per thread, so they are reported by the thread
+ * which built the code items of the type.
+ */
+@Description("Reports the statistics of the dx intern tables")
+@Filter(TypeWithoutPrebuiltFilter.class)
+public class DxInternStatistics implements RunnableSchedulable<JDefinedClassOrInterface> {
+  @Nonnull
+  private static final StatisticId<Counter> REGISTER_SPEC_LOCAL_HIT = new StatisticId<Counter>(
+      "jack.dx.intern.register-spec.local-hit",
+      "Register specs found in the cache of their thread", CounterImpl.class, Counter.class);
+
+  @Nonnull
+  private static final TableStatistics[] TABLES = new TableStatistics[] {
+      new TableStatistics("type", "dx types", Type.getInternTable()),
+      new TableStatistics("prototype", "dx prototypes", Prototype.getInternTable()),
+      new TableStatistics("cst-type", "dx type constants", CstType.getInternTable()),
+      new TableStatistics("register-spec", "dx register specs", RegisterSpec.getInternTable())};
+
+  @Nonnull
+  private final Tracer tracer = TracerFactory.getTracer();
+
+  /**
+   * Adds the counts of the current thread since the previous run to the statistics of the tracer,
+   * and samples the sizes of the tables.
+   */
+  @Override
+  public void run(@Nonnull JDefinedClassOrInterface type) {
+    tracer.getStatistic(REGISTER_SPEC_LOCAL_HIT).incValue(RegisterSpec.takeLocalCacheHitCount());
+    for (TableStatistics table : TABLES) {
+      table.report(tracer);
+    }
+  }
+
+  private static final class TableStatistics {
+    @Nonnull
+    private final InternTable<?, ?> table;
+
+    @Nonnull
+    private final StatisticId<Counter> hit;
+
+    @Nonnull
+    private final StatisticId<Counter> miss;
+
+    @Nonnull
+    private final StatisticId<Sample> size;
+
+    private TableStatistics(@Nonnull String name, @Nonnull String description,
+        @Nonnull InternTable<?, ?> table) {
+      this.table = table;
+      hit = new StatisticId<Counter>("jack.dx.intern." + name + ".hit",
+          "Interned " + description + " found in their table", CounterImpl.class, Counter.class);
+      miss = new StatisticId<Counter>("jack.dx.intern." + name + ".miss",
+          "Interned " + description + " not found in their table", CounterImpl.class,
+          Counter.class);
+      size = new StatisticId<Sample>("jack.dx.intern." + name + ".size",
+          "Number of interned " + description + " still reachable", SampleImpl.class,
+          Sample.class);
+    }
+
+    private void report(@Nonnull Tracer tracer) {
+      tracer.getStatistic(hit).incValue(table.takeHitCount());
+      tracer.getStatistic(miss).incValue(table.takeMissCount());
+      tracer.getStatistic(size).add(table.size());
+    }
+  }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.backend.dex.rop;
+
+import com.android.jack.Jack;
+import com.android.jack.backend.dex.rop.RopMethodSerializer.UnsupportedElementException;
+import com.android.jack.dx.rop.code.RopMethod;
+import com.android.sched.util.file.Directory;
+import com.android.sched.util.log.LoggerFactory;
+import com.android.sched.util.log.Tracer;
+import com.android.sched.util.log.TracerFactory;
+import com.android.sched.util.log.stats.Counter;
+import com.android.sched.util.log.stats.CounterImpl;
+import com.android.sched.util.log.stats.StatisticId;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * A directory of {@link RopMethod}s optimized by the dx {@code Optimizer}, keyed by a digest of
+ * the method before optimization and of the optimizer parameters. A method whose body did not
+ * change since a previous compilation can then skip the SSA optimizations and the register
+ * allocation.
+ *
+ * <p>Keys include a digest of the jar containing Jack, or the build id of Jack when it does not run
+ * from a jar, so that a modified Jack never reads the methods optimized by another one. Without
+ * any of them, the cache is not used.
+ *
+ * <p>Jack never removes entries, so the directory grows with each new method body and each new
+ * Jack build, whose keys differ from those of previous builds. Each entry is a standalone
+ * file written atomically, and a missing entry is just a miss, so the build system can clean up
+ * the directory between compilations, e.g. by deleting it when Jack is updated or by deleting the
+ * entries not modified for a while.
+ */
+final class OptimizedCodeCache {
+  @Nonnull
+  private static final StatisticId<Counter> OPTIMIZED_CODE_CACHE_HIT = new StatisticId<Counter>(
+      "jack.dex.optimize.cache.hit", "Optimized methods read from the cache",
+      CounterImpl.class, Counter.class);
+
+  @Nonnull
+  private static final StatisticId<Counter> OPTIMIZED_CODE_CACHE_MISS = new StatisticId<Counter>(
+      "jack.dex.optimize.cache.miss", "Optimized methods computed and stored in the cache",
+      CounterImpl.class, Counter.class);
+
+  @Nonnull
+  private static final StatisticId<Counter> OPTIMIZED_CODE_CACHE_UNSUPPORTED =
+      new StatisticId<Counter>(
+          "jack.dex.optimize.cache.unsupported", "Optimized methods that cannot be cached",
+          CounterImpl.class, Counter.class);
+
+  /** Version of the binary form, to change with {@link RopMethodSerializer} */
+  private static final int FORMAT_VERSION = 1;
+
+  @Nonnull
+  private static final String ENTRY_EXTENSION = ".rop";
+
+  @Nonnull
+  private static final Logger logger = LoggerFactory.getLogger();
+
+  /**
+   * Identity of the code of Jack, computed once by loaded Jack.
+   */
+  @CheckForNull
+  private static final String codeId = computeCodeId();
+
+  @Nonnull
+  private final Tracer tracer = TracerFactory.getTracer();
+
+  @Nonnull
+  private final Directory cacheDir;
+
+  @Nonnull
+  private final String id;
+
+  private OptimizedCodeCache(@Nonnull Directory cacheDir, @Nonnull String id) {
+    this.cacheDir = cacheDir;
+    this.id = id;
+  }
+
+  /**
+   * Returns the cache stored in the given directory, or {@code null} if the code of Jack cannot be
+   * identified.
+   */
+  @CheckForNull
+  static OptimizedCodeCache create(@Nonnull Directory cacheDir) {
+    return codeId != null ? new OptimizedCodeCache(cacheDir, codeId) : null;
+  }
+
+  @CheckForNull
+  private static String computeCodeId() {
+    CodeSource codeSource = OptimizedCodeCache.class.getProtectionDomain().getCodeSource();
+    URL location = codeSource != null ? codeSource.getLocation() : null;
+    if (location != null) {
+      try {
+        File jar = new File(location.toURI().getPath());
+        if (jar.isFile()) {
+          MessageDigest md = createDigest();
+          byte[] buffer = new byte[64 * 1024];
+          try (InputStream in = new FileInputStream(jar)) {
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+              md.update(buffer, 0, read);
+            }
+          }
+          return "jar " + toHex(md.digest());
+        }
+      } catch (URISyntaxException | IOException e) {
+        logger.log(Level.WARNING, "Cannot compute the digest of '" + location + "'", e);
+      }
+    }
+
+    String buildId = Jack.getVersion().getBuildId();
+    if (buildId != null) {
+      return "build " + buildId;
+    }
+
+    logger.log(Level.WARNING,
+        "The cache of optimized methods is disabled, Jack has neither a jar nor a build id");
+    return null;
+  }
+
+  /**
+   * Returns the key of a method, or {@code null} if the method cannot be cached.
+   */
+  @CheckForNull
+  String getKey(@Nonnull RopMethod method, @Nonnegative int paramWordCount, boolean isStatic,
+      boolean removeRedundantConditionalBranch, boolean useLinearScanAllocator) {
+    MessageDigest md = createDigest();
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(buffer)) {
+      out.writeInt(FORMAT_VERSION);
+      out.writeUTF(id);
+      out.writeInt(paramWordCount);
+      out.writeBoolean(isStatic);
+      out.writeBoolean(removeRedundantConditionalBranch);
+      out.writeBoolean(useLinearScanAllocator);
+      RopMethodSerializer.write(out, method);
+    } catch (UnsupportedElementException e) {
+      tracer.getStatistic(OPTIMIZED_CODE_CACHE_UNSUPPORTED).incValue();
+      logger.log(Level.FINE, "Method cannot be cached, it contains ''{0}''", e.getMessage());
+      return null;
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
+    md.update(buffer.toByteArray());
+
+    return toHex(md.digest());
+  }
+
+  @Nonnull
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  @Nonnull
+  private static String toHex(@Nonnull byte[] digest) {
+    StringBuilder sb = new StringBuilder();
+    for (byte b : digest) {
+      sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+      sb.append(Character.forDigit(b & 0xF, 16));
+    }
+
+    return sb.toString();
+  }
+
+  /**
+   * Returns the optimized method stored with the given key, or {@code null} on a miss.
+   */
+  @CheckForNull
+  RopMethod get(@Nonnull String key) {
+    File entryFile = getEntryFile(key);
+    if (!entryFile.isFile()) {
+      tracer.getStatistic(OPTIMIZED_CODE_CACHE_MISS).incValue();
+      return null;
+    }
+
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(entryFile)))) {
+      if (in.readInt() != FORMAT_VERSION) {
+        throw new IOException("Unknown format version");
+      }
+      RopMethod method = RopMethodSerializer.read(in);
+      if (in.read() != -1) {
+        throw new IOException("Unexpected trailing data");
+      }
+
+      tracer.getStatistic(OPTIMIZED_CODE_CACHE_HIT).incValue();
+      return method;
+    } catch (IOException e) {
+      logger.log(Level.WARNING,
+          "Cannot read optimized method from cache '" + entryFile.getPath() + "'", e);
+    }
+
+    tracer.getStatistic(OPTIMIZED_CODE_CACHE_MISS).incValue();
+    return null;
+  }
+
+  /**
+   * Stores an optimized method with the given key. Failures are logged and otherwise ignored.
+   */
+  void put(@Nonnull String key, @Nonnull RopMethod method) {
+    File entryFile = getEntryFile(key);
+    // Write to a temporary file first, so that concurrent compilations never see a partial entry
+    File tmpFile = null;
+    try {
+      File entryDir = entryFile.getParentFile();
+      if (!entryDir.isDirectory() && !entryDir.mkdir() && !entryDir.isDirectory()) {
+        throw new IOException("Cannot create directory '" + entryDir.getPath() + "'");
+      }
+
+      tmpFile = File.createTempFile("rop-", ".tmp", entryDir);
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+        out.writeInt(FORMAT_VERSION);
+        RopMethodSerializer.write(out, method);
+      }
+
+      if (!tmpFile.renameTo(entryFile)) {
+        throw new IOException(
+            "Cannot rename '" + tmpFile.getPath() + "' to '" + entryFile.getPath() + "'");
+      }
+      tmpFile = null;
+    } catch (UnsupportedElementException e) {
+      tracer.getStatistic(OPTIMIZED_CODE_CACHE_UNSUPPORTED).incValue();
+      logger.log(Level.FINE, "Optimized method cannot be cached, it contains ''{0}''",
+          e.getMessage());
+    } catch (IOException e) {
+      logger.log(Level.WARNING,
+          "Cannot store optimized method in cache '" + entryFile.getPath() + "'", e);
+    } finally {
+      if (tmpFile != null && !tmpFile.delete()) {
+        logger.log(Level.WARNING, "Cannot delete ''{0}''", tmpFile.getPath());
+      }
+    }
+  }
+
+  @Nonnull
+  private File getEntryFile(@Nonnull String key) {
+    // Spread the entries over sub-directories to keep directories small
+    return new File(new File(cacheDir.getFile(), key.substring(0, 2)),
+        key.substring(2) + ENTRY_EXTENSION);
+  }
+}
@@ -0,0 +1,567 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.backend.dex.rop;
+
+import com.android.jack.dx.rop.code.BasicBlock;
+import com.android.jack.dx.rop.code.BasicBlockList;
+import com.android.jack.dx.rop.code.CstInsn;
+import com.android.jack.dx.rop.code.FillArrayDataInsn;
+import com.android.jack.dx.rop.code.Insn;
+import com.android.jack.dx.rop.code.InsnList;
+import com.android.jack.dx.rop.code.LocalItem;
+import com.android.jack.dx.rop.code.PlainCstInsn;
+import com.android.jack.dx.rop.code.PlainInsn;
+import com.android.jack.dx.rop.code.RegisterSpec;
+import com.android.jack.dx.rop.code.RegisterSpecList;
+import com.android.jack.dx.rop.code.Rop;
+import com.android.jack.dx.rop.code.RopMethod;
+import com.android.jack.dx.rop.code.Rops;
+import com.android.jack.dx.rop.code.SourcePosition;
+import com.android.jack.dx.rop.code.SwitchInsn;
+import com.android.jack.dx.rop.code.ThrowingCstInsn;
+import com.android.jack.dx.rop.code.ThrowingInsn;
+import com.android.jack.dx.rop.cst.Constant;
+import com.android.jack.dx.rop.cst.CstBoolean;
+import com.android.jack.dx.rop.cst.CstByte;
+import com.android.jack.dx.rop.cst.CstChar;
+import com.android.jack.dx.rop.cst.CstDouble;
+import com.android.jack.dx.rop.cst.CstFieldRef;
+import com.android.jack.dx.rop.cst.CstFloat;
+import com.android.jack.dx.rop.cst.CstInteger;
+import com.android.jack.dx.rop.cst.CstInterfaceMethodRef;
+import com.android.jack.dx.rop.cst.CstKnownNull;
+import com.android.jack.dx.rop.cst.CstLong;
+import com.android.jack.dx.rop.cst.CstMemberRef;
+import com.android.jack.dx.rop.cst.CstMethodRef;
+import com.android.jack.dx.rop.cst.CstNat;
+import com.android.jack.dx.rop.cst.CstPrototypeRef;
+import com.android.jack.dx.rop.cst.CstShort;
+import com.android.jack.dx.rop.cst.CstString;
+import com.android.jack.dx.rop.cst.CstType;
+import com.android.jack.dx.rop.type.Prototype;
+import com.android.jack.dx.rop.type.StdTypeList;
+import com.android.jack.dx.rop.type.Type;
+import com.android.jack.dx.rop.type.TypeBearer;
+import com.android.jack.dx.rop.type.TypeList;
+import com.android.jack.dx.util.IntList;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Writes a {@link RopMethod} in a binary form, and reads it back.
+ *
+ * <p>Two methods with the same binary form are identical, which makes the form suitable as a key
+ * of the {@link OptimizedCodeCache}. Constants and types are read back interned, and
+ * {@link Rop}s are read back as the instances of {@link Rops} when they are equal.
+ */
+final class RopMethodSerializer {
+  /**
+   * Thrown when a method contains an element that has no binary form.
+   */
+  static class UnsupportedElementException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    UnsupportedElementException(@Nonnull String message) {
+      super(message);
+    }
+  }
+
+  private static final int INSN_PLAIN = 0;
+  private static final int INSN_PLAIN_CST = 1;
+  private static final int INSN_THROWING = 2;
+  private static final int INSN_THROWING_CST = 3;
+  private static final int INSN_SWITCH = 4;
+  private static final int INSN_FILL_ARRAY_DATA = 5;
+
+  private static final int CST_STRING = 0;
+  private static final int CST_TYPE = 1;
+  private static final int CST_FIELD_REF = 2;
+  private static final int CST_METHOD_REF = 3;
+  private static final int CST_INTERFACE_METHOD_REF = 4;
+  private static final int CST_PROTOTYPE_REF = 5;
+  private static final int CST_INTEGER = 6;
+  private static final int CST_LONG = 7;
+  private static final int CST_FLOAT = 8;
+  private static final int CST_DOUBLE = 9;
+  private static final int CST_BOOLEAN = 10;
+  private static final int CST_BYTE = 11;
+  private static final int CST_CHAR = 12;
+  private static final int CST_SHORT = 13;
+  private static final int CST_KNOWN_NULL = 14;
+
+  private static final int TYPE_BEARER_TYPE = 0;
+  private static final int TYPE_BEARER_CONSTANT = 1;
+
+  /** The {@link Rop} constants of {@link Rops}, by themselves */
+  @Nonnull
+  private static final Map<Rop, Rop> STATIC_ROPS = new HashMap<Rop, Rop>();
+
+  static {
+    for (Field field : Rops.class.getFields()) {
+      if (Modifier.isStatic(field.getModifiers()) && field.getType() == Rop.class) {
+        try {
+          Rop rop = (Rop) field.get(null);
+          STATIC_ROPS.put(rop, rop);
+        } catch (IllegalAccessException e) {
+          throw new AssertionError(e);
+        }
+      }
+    }
+  }
+
+  private RopMethodSerializer() {
+    // do not instantiate
+  }
+
+  static void write(@Nonnull DataOutput out, @Nonnull RopMethod method)
+      throws IOException, UnsupportedElementException {
+    BasicBlockList blocks = method.getBlocks();
+    out.writeInt(method.getFirstLabel());
+    out.writeInt(blocks.size());
+    for (int i = 0; i < blocks.size(); i++) {
+      BasicBlock block = blocks.get(i);
+      out.writeInt(block.getLabel());
+      writeIntList(out, block.getSuccessors());
+      out.writeInt(block.getPrimarySuccessor());
+      InsnList insns = block.getInsns();
+      out.writeInt(insns.size());
+      for (int j = 0; j < insns.size(); j++) {
+        writeInsn(out, insns.get(j));
+      }
+    }
+  }
+
+  @Nonnull
+  static RopMethod read(@Nonnull DataInput in) throws IOException {
+    int firstLabel = in.readInt();
+    BasicBlockList blocks = new BasicBlockList(in.readInt());
+    for (int i = 0; i < blocks.size(); i++) {
+      int label = in.readInt();
+      IntList successors = readIntList(in);
+      int primarySuccessor = in.readInt();
+      InsnList insns = new InsnList(in.readInt());
+      for (int j = 0; j < insns.size(); j++) {
+        insns.set(j, readInsn(in));
+      }
+      insns.setImmutable();
+      blocks.set(i, new BasicBlock(label, insns, successors, primarySuccessor));
+    }
+    blocks.setImmutable();
+    return new RopMethod(blocks, firstLabel);
+  }
+
+  private static void writeInsn(@Nonnull DataOutput out, @Nonnull Insn insn)
+      throws IOException, UnsupportedElementException {
+    Class<? extends Insn> insnClass = insn.getClass();
+    if (insnClass == PlainInsn.class) {
+      out.writeByte(INSN_PLAIN);
+    } else if (insnClass == PlainCstInsn.class) {
+      out.writeByte(INSN_PLAIN_CST);
+    } else if (insnClass == ThrowingInsn.class) {
+      out.writeByte(INSN_THROWING);
+    } else if (insnClass == ThrowingCstInsn.class) {
+      out.writeByte(INSN_THROWING_CST);
+    } else if (insnClass == SwitchInsn.class) {
+      out.writeByte(INSN_SWITCH);
+    } else if (insnClass == FillArrayDataInsn.class) {
+      out.writeByte(INSN_FILL_ARRAY_DATA);
+    } else {
+      throw new UnsupportedElementException(insnClass.getName());
+    }
+
+    writeRop(out, insn.getOpcode());
+    writePosition(out, insn.getPosition());
+    writeRegisterSpec(out, insn.getResult());
+    RegisterSpecList sources = insn.getSources();
+    out.writeInt(sources.size());
+    for (int i = 0; i < sources.size(); i++) {
+      writeRegisterSpec(out, sources.get(i));
+    }
+    if (insn instanceof CstInsn) {
+      writeConstant(out, ((CstInsn) insn).getConstant());
+    }
+    if (insnClass == ThrowingInsn.class || insnClass == ThrowingCstInsn.class) {
+      writeTypeList(out, insn.getCatches());
+    } else if (insnClass == SwitchInsn.class) {
+      writeIntList(out, ((SwitchInsn) insn).getCases());
+    } else if (insnClass == FillArrayDataInsn.class) {
+      FillArrayDataInsn fillInsn = (FillArrayDataInsn) insn;
+      out.writeInt(fillInsn.getInitValues().size());
+      for (Constant value : fillInsn.getInitValues()) {
+        writeConstant(out, value);
+      }
+      writeConstant(out, fillInsn.getConstant());
+    }
+  }
+
+  @Nonnull
+  private static Insn readInsn(@Nonnull DataInput in) throws IOException {
+    int kind = in.readByte();
+    Rop opcode = readRop(in);
+    SourcePosition position = readPosition(in);
+    RegisterSpec result = readRegisterSpec(in);
+    int sourceCount = in.readInt();
+    RegisterSpecList sources;
+    if (sourceCount == 0) {
+      sources = RegisterSpecList.EMPTY;
+    } else {
+      sources = new RegisterSpecList(sourceCount);
+      for (int i = 0; i < sourceCount; i++) {
+        RegisterSpec source = readRegisterSpec(in);
+        if (source == null) {
+          throw new IOException("Missing source");
+        }
+        sources.set(i, source);
+      }
+      sources.setImmutable();
+    }
+
+    switch (kind) {
+      case INSN_PLAIN:
+        return new PlainInsn(opcode, position, result, sources);
+      case INSN_PLAIN_CST:
+        return new PlainCstInsn(opcode, position, result, sources, readConstant(in));
+      case INSN_THROWING:
+        return new ThrowingInsn(opcode, position, sources, readTypeList(in));
+      case INSN_THROWING_CST: {
+        Constant cst = readConstant(in);
+        return new ThrowingCstInsn(opcode, position, sources, readTypeList(in), cst);
+      }
+      case INSN_SWITCH:
+        return new SwitchInsn(opcode, position, result, sources, readIntList(in));
+      case INSN_FILL_ARRAY_DATA: {
+        int valueCount = in.readInt();
+        ArrayList<Constant> values = new ArrayList<Constant>(valueCount);
+        for (int i = 0; i < valueCount; i++) {
+          values.add(readConstant(in));
+        }
+        return new FillArrayDataInsn(opcode, position, sources, values, readConstant(in));
+      }
+      default:
+        throw new IOException("Unknown instruction kind " + kind);
+    }
+  }
+
+  private static void writeRop(@Nonnull DataOutput out, @Nonnull Rop rop) throws IOException {
+    out.writeInt(rop.getOpcode());
+    writeType(out, rop.getResult());
+    writeTypeList(out, rop.getSources());
+    writeTypeList(out, rop.getExceptions());
+    out.writeInt(rop.getBranchingness());
+    out.writeBoolean(rop.isCallLike());
+    writeNullableString(out, rop.getNickname());
+  }
+
+  @Nonnull
+  private static Rop readRop(@Nonnull DataInput in) throws IOException {
+    int opcode = in.readInt();
+    Type result = readType(in);
+    TypeList sources = readTypeList(in);
+    TypeList exceptions = readTypeList(in);
+    int branchingness = in.readInt();
+    boolean isCallLike = in.readBoolean();
+    String nickname = readNullableString(in);
+    Rop rop = new Rop(opcode, result, sources, exceptions, branchingness, isCallLike, nickname);
+    Rop staticRop = STATIC_ROPS.get(rop);
+    return staticRop != null ? staticRop : rop;
+  }
+
+  private static void writePosition(@Nonnull DataOutput out, @Nonnull SourcePosition position)
+      throws IOException {
+    CstString sourceFile = position.getSourceFile();
+    writeNullableString(out, sourceFile != null ? sourceFile.getString() : null);
+    out.writeInt(position.getAddress());
+    out.writeInt(position.getLine());
+  }
+
+  @Nonnull
+  private static SourcePosition readPosition(@Nonnull DataInput in) throws IOException {
+    String sourceFile = readNullableString(in);
+    int address = in.readInt();
+    int line = in.readInt();
+    if (sourceFile == null && address == -1 && line == -1) {
+      return SourcePosition.NO_INFO;
+    }
+    return new SourcePosition(sourceFile != null ? new CstString(sourceFile) : null, address,
+        line);
+  }
+
+  private static void writeRegisterSpec(@Nonnull DataOutput out, @CheckForNull RegisterSpec spec)
+      throws IOException, UnsupportedElementException {
+    if (spec == null) {
+      out.writeBoolean(false);
+      return;
+    }
+    out.writeBoolean(true);
+    out.writeInt(spec.getReg());
+    TypeBearer type = spec.getTypeBearer();
+    if (type instanceof Type) {
+      out.writeByte(TYPE_BEARER_TYPE);
+      writeType(out, (Type) type);
+    } else if (type instanceof Constant) {
+      out.writeByte(TYPE_BEARER_CONSTANT);
+      writeConstant(out, (Constant) type);
+    } else {
+      throw new UnsupportedElementException(type.getClass().getName());
+    }
+    LocalItem local = spec.getLocalItem();
+    if (local == null) {
+      out.writeBoolean(false);
+    } else {
+      out.writeBoolean(true);
+      writeNullableString(out, local.getName() != null ? local.getName().getString() : null);
+      CstType localType = local.getType();
+      out.writeBoolean(localType != null);
+      if (localType != null) {
+        writeType(out, localType.getClassType());
+      }
+      writeNullableString(out,
+          local.getSignature() != null ? local.getSignature().getString() : null);
+    }
+  }
+
+  @CheckForNull
+  private static RegisterSpec readRegisterSpec(@Nonnull DataInput in) throws IOException {
+    if (!in.readBoolean()) {
+      return null;
+    }
+    int reg = in.readInt();
+    TypeBearer type;
+    int kind = in.readByte();
+    if (kind == TYPE_BEARER_TYPE) {
+      type = readType(in);
+    } else if (kind == TYPE_BEARER_CONSTANT) {
+      type = (TypeBearer) readConstant(in);
+    } else {
+      throw new IOException("Unknown type kind " + kind);
+    }
+    LocalItem local = null;
+    if (in.readBoolean()) {
+      String name = readNullableString(in);
+      CstType localType = in.readBoolean() ? CstType.intern(readType(in)) : null;
+      String signature = readNullableString(in);
+      local = LocalItem.make(name != null ? new CstString(name) : null, localType,
+          signature != null ? new CstString(signature) : null);
+    }
+    return RegisterSpec.makeLocalOptional(reg, type, local);
+  }
+
+  private static void writeConstant(@Nonnull DataOutput out, @Nonnull Constant cst)
+      throws IOException, UnsupportedElementException {
+    Class<? extends Constant> cstClass = cst.getClass();
+    if (cstClass == CstString.class) {
+      out.writeByte(CST_STRING);
+      writeString(out, ((CstString) cst).getString());
+    } else if (cstClass == CstType.class) {
+      out.writeByte(CST_TYPE);
+      writeType(out, ((CstType) cst).getClassType());
+    } else if (cstClass == CstFieldRef.class || cstClass == CstMethodRef.class
+        || cstClass == CstInterfaceMethodRef.class) {
+      out.writeByte(cstClass == CstFieldRef.class ? CST_FIELD_REF
+          : cstClass == CstMethodRef.class ? CST_METHOD_REF : CST_INTERFACE_METHOD_REF);
+      CstMemberRef ref = (CstMemberRef) cst;
+      writeType(out, ref.getDefiningClass().getClassType());
+      writeString(out, ref.getNat().getName().getString());
+      writeString(out, ref.getNat().getDescriptor().getString());
+    } else if (cstClass == CstPrototypeRef.class) {
+      out.writeByte(CST_PROTOTYPE_REF);
+      writeString(out, ((CstPrototypeRef) cst).getPrototype().getDescriptor());
+    } else if (cstClass == CstInteger.class) {
+      out.writeByte(CST_INTEGER);
+      out.writeInt(((CstInteger) cst).getIntBits());
+    } else if (cstClass == CstLong.class) {
+      out.writeByte(CST_LONG);
+      out.writeLong(((CstLong) cst).getLongBits());
+    } else if (cstClass == CstFloat.class) {
+      out.writeByte(CST_FLOAT);
+      out.writeInt(((CstFloat) cst).getIntBits());
+    } else if (cstClass == CstDouble.class) {
+      out.writeByte(CST_DOUBLE);
+      out.writeLong(((CstDouble) cst).getLongBits());
+    } else if (cstClass == CstBoolean.class) {
+      out.writeByte(CST_BOOLEAN);
+      out.writeInt(((CstBoolean) cst).getIntBits());
+    } else if (cstClass == CstByte.class) {
+      out.writeByte(CST_BYTE);
+      out.writeInt(((CstByte) cst).getIntBits());
+    } else if (cstClass == CstChar.class) {
+      out.writeByte(CST_CHAR);
+      out.writeInt(((CstChar) cst).getIntBits());
+    } else if (cstClass == CstShort.class) {
+      out.writeByte(CST_SHORT);
+      out.writeInt(((CstShort) cst).getIntBits());
+    } else if (cstClass == CstKnownNull.class) {
+      out.writeByte(CST_KNOWN_NULL);
+    } else {
+      throw new UnsupportedElementException(cstClass.getName());
+    }
+  }
+
+  @Nonnull
+  private static Constant readConstant(@Nonnull DataInput in) throws IOException {
+    int kind = in.readByte();
+    switch (kind) {
+      case CST_STRING:
+        return new CstString(readString(in));
+      case CST_TYPE:
+        return CstType.intern(readType(in));
+      case CST_FIELD_REF:
+      case CST_METHOD_REF:
+      case CST_INTERFACE_METHOD_REF: {
+        CstType definingClass = CstType.intern(readType(in));
+        CstNat nat = new CstNat(new CstString(readString(in)), new CstString(readString(in)));
+        if (kind == CST_FIELD_REF) {
+          return new CstFieldRef(definingClass, nat);
+        } else if (kind == CST_METHOD_REF) {
+          return new CstMethodRef(definingClass, nat);
+        } else {
+          return new CstInterfaceMethodRef(definingClass, nat);
+        }
+      }
+      case CST_PROTOTYPE_REF:
+        return new CstPrototypeRef(Prototype.intern(readString(in)));
+      case CST_INTEGER:
+        return CstInteger.make(in.readInt());
+      case CST_LONG:
+        return CstLong.make(in.readLong());
+      case CST_FLOAT:
+        return CstFloat.make(in.readInt());
+      case CST_DOUBLE:
+        return CstDouble.make(in.readLong());
+      case CST_BOOLEAN:
+        return CstBoolean.make(in.readInt());
+      case CST_BYTE:
+        return CstByte.make(in.readInt());
+      case CST_CHAR:
+        return CstChar.make(in.readInt());
+      case CST_SHORT:
+        return CstShort.make(in.readInt());
+      case CST_KNOWN_NULL:
+        return CstKnownNull.THE_ONE;
+      default:
+        throw new IOException("Unknown constant kind " + kind);
+    }
+  }
+
+  private static void writeType(@Nonnull DataOutput out, @Nonnull Type type)
+      throws IOException {
+    writeString(out, type.getDescriptor());
+  }
+
+  @Nonnull
+  private static Type readType(@Nonnull DataInput in) throws IOException {
+    String descriptor = readString(in);
+    if (descriptor.equals(Type.VOID.getDescriptor())) {
+      return Type.VOID;
+    } else if (descriptor.equals(Type.KNOWN_NULL.getDescriptor())) {
+      return Type.KNOWN_NULL;
+    } else if (descriptor.equals(Type.RETURN_ADDRESS.getDescriptor())) {
+      return Type.RETURN_ADDRESS;
+    }
+    try {
+      return Type.intern(descriptor);
+    } catch (IllegalArgumentException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private static void writeTypeList(@Nonnull DataOutput out, @Nonnull TypeList types)
+      throws IOException {
+    out.writeInt(types.size());
+    for (int i = 0; i < types.size(); i++) {
+      writeType(out, types.getType(i));
+    }
+  }
+
+  @Nonnull
+  private static TypeList readTypeList(@Nonnull DataInput in) throws IOException {
+    int size = in.readInt();
+    if (size == 0) {
+      return StdTypeList.EMPTY;
+    }
+    StdTypeList types = new StdTypeList(size);
+    for (int i = 0; i < size; i++) {
+      types.set(i, readType(in));
+    }
+    types.setImmutable();
+    return types;
+  }
+
+  private static void writeIntList(@Nonnull DataOutput out, @Nonnull IntList list)
+      throws IOException {
+    out.writeInt(list.size());
+    for (int i = 0; i < list.size(); i++) {
+      out.writeInt(list.get(i));
+    }
+  }
+
+  @Nonnull
+  private static IntList readIntList(@Nonnull DataInput in) throws IOException {
+    int size = in.readInt();
+    IntList list = new IntList(size);
+    for (int i = 0; i < size; i++) {
+      list.add(in.readInt());
+    }
+    list.setImmutable();
+    return list;
+  }
+
+  /**
+   * Writes a string as UTF-16 code units, to keep unpaired surrogates.
+   */
+  private static void writeString(@Nonnull DataOutput out, @Nonnull String string)
+      throws IOException {
+    out.writeInt(string.length());
+    out.writeChars(string);
+  }
+
+  @Nonnull
+  private static String readString(@Nonnull DataInput in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      throw new IOException("Negative string length");
+    }
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      chars[i] = in.readChar();
+    }
+    return new String(chars);
+  }
+
+  private static void writeNullableString(@Nonnull DataOutput out, @CheckForNull String string)
+      throws IOException {
+    out.writeBoolean(string != null);
+    if (string != null) {
+      writeString(out, string);
+    }
+  }
+
+  @CheckForNull
+  private static String readNullableString(@Nonnull DataInput in) throws IOException {
+    return in.readBoolean() ? readString(in) : null;
+  }
+}
@@ -19,10 +19,7 @@ package com.android.jack.dx.dex.file;
 import com.android.jack.dx.io.Code;
 import com.android.jack.dx.io.Code.CatchHandler;
 import com.android.jack.dx.io.Code.Try;
-import com.android.jack.dx.io.CodeReader;
-import com.android.jack.dx.io.Opcodes;
-import com.android.jack.dx.io.instructions.DecodedInstruction;
-import com.android.jack.dx.io.instructions.ShortArrayCodeOutput;
+import com.android.jack.dx.io.IndexRelocationTable;
 import com.android.jack.dx.rop.cst.Constant;
 import com.android.jack.dx.rop.cst.CstCallSiteRef;
 import com.android.jack.dx.rop.cst.CstIndexMap;
@@ -33,6 +30,7 @@ import com.android.jack.dx.util.DexException;
 import com.android.jack.dx.util.Hex;
 
 import java.io.PrintWriter;
+import java.util.Arrays;
 
 /**
  * Representation of all the parts needed to import methods from a {@code dex} file into another.
@@ -55,12 +53,6 @@ public final class ImportedCodeItem extends OffsettedItem implements
    */
   private final CstIndexMap cstIndexMap;
 
-  /** Array of remapped instructions */
-  private DecodedInstruction[] remappedInstructions;
-
-  /** Index used during instructions remapping.*/
-  private int remappingIndex;
-
   /** Binary representation of catch handlers. */
   private byte[] encodedHandlers;
 
@@ -181,7 +173,7 @@ public final class ImportedCodeItem extends OffsettedItem implements
     out.writeInt(debugOff);
     out.writeInt(insnsSz);
 
-    for (short inst : encodeAndRemapCode(file, code.getInstructions())) {
+    for (short inst : encodeAndRemapCode(file, cstIndexMap, code.getInstructions())) {
       out.writeShort(inst);
     }
 
@@ -255,35 +247,58 @@ public final class ImportedCodeItem extends OffsettedItem implements
   }
 
   /**
-   * Encode and remap code.
+   * Remap code, patching constant indexes in a copy of the instructions.
    * @param file {@link DexFile} which will contains remapped code.
+   * @param cstIndexMap Map of the constant indexes of the code into {@code file}.
    * @param insts Instructions in binary form that must be remap.
    * @return Remapped instructions in binary form.
    */
-  private short[] encodeAndRemapCode(DexFile file, short[] insts) {
-    CodeReader codeReader = new CodeReader();
-    DecodedInstruction[] decodedInstructions = DecodedInstruction.decodeAll(insts);
-    remappedInstructions = new DecodedInstruction[decodedInstructions.length];
-    remappingIndex = 0;
-
-    codeReader.setFallbackVisitor(new GenericVisitor());
-    codeReader.setStringVisitor(new StringRemapper(file));
-    codeReader.setFieldVisitor(new FieldRemapper(file));
-    codeReader.setTypeVisitor(new TypeRemapper(file));
-    codeReader.setMethodVisitor(new MethodRemapper(file));
-    codeReader.setDualConstantVisitor(new DualConstantRemapper(file));
-    codeReader.setCallSiteVisitor(new CallSiteRemapper(file));
-
-    codeReader.visitAll(decodedInstructions);
-
-    ShortArrayCodeOutput outputCode = new ShortArrayCodeOutput(insts.length);
-    for (DecodedInstruction instruction : remappedInstructions) {
-      if (instruction != null) {
-        instruction.encode(outputCode);
+  static short[] encodeAndRemapCode(DexFile file, CstIndexMap cstIndexMap, short[] insts) {
+    IndexRelocationTable relocations = new IndexRelocationTable(insts);
+    short[] remapped = Arrays.copyOf(insts, insts.length);
+
+    for (int entry = 0, size = relocations.size(); entry < size; entry++) {
+      int position = relocations.getPosition(entry);
+      int index = insts[position] & 0xffff;
+      int newIndex;
+
+      switch (relocations.getIndexType(entry)) {
+        case STRING_REF:
+          if (relocations.isWide(entry)) {
+            index |= (insts[position + 1] & 0xffff) << 16;
+            newIndex = cstIndexMap.getRemappedCstStringIndex(file, index);
+            remapped[position + 1] = (short) (newIndex >>> 16);
+          } else {
+            newIndex = cstIndexMap.getRemappedCstStringIndex(file, index);
+            if (newIndex > 0xffff) {
+              throw new DexException(
+                  "Cannot remap new index " + newIndex + " into a non-jumbo instruction!");
+            }
+          }
+          break;
+        case TYPE_REF:
+          newIndex = cstIndexMap.getRemappedCstTypeIndex(file, index);
+          break;
+        case FIELD_REF:
+          newIndex = cstIndexMap.getRemappedCstFieldRefIndex(file, index);
+          break;
+        case METHOD_REF:
+          newIndex = cstIndexMap.getRemappedCstBaseMethodRefIndex(file, index);
+          break;
+        case PROTOTYPE_REF:
+          newIndex = cstIndexMap.getRemappedCstPrototypeRefIndex(file, index);
+          break;
+        case CALLSITE_REF:
+          newIndex = cstIndexMap.getRemappedCstCallSiteRefIndex(file, index);
+          break;
+        default:
+          throw new AssertionError();
       }
+
+      remapped[position] = (short) newIndex;
     }
 
-    return outputCode.getArray();
+    return remapped;
   }
 
   /**
@@ -324,127 +339,4 @@ public final class ImportedCodeItem extends OffsettedItem implements
   public CstIndexMap getCstIndexMap() {
     return cstIndexMap;
   }
-
-  private class GenericVisitor implements CodeReader.Visitor {
-
-    @Override
-    public void visit(DecodedInstruction[] all, DecodedInstruction decodedInst) {
-      remappedInstructions[remappingIndex++] = decodedInst;
-    }
-  }
-
-  /**
-   * {@link com.android.jack.dx.io.CodeReader.Visitor} remapping instructions using string index.
-   */
-  private class StringRemapper implements CodeReader.Visitor {
-
-    private final DexFile file;
-
-    public StringRemapper(DexFile dex) {
-      this.file = dex;
-    }
-
-    @Override
-    public void visit(DecodedInstruction[] all, DecodedInstruction decodedInst) {
-      int newIndex = cstIndexMap.getRemappedCstStringIndex(file, decodedInst.getFirstIndex());
-
-      if (decodedInst.getOpcode() != Opcodes.CONST_STRING_JUMBO && (newIndex > 0xffff)) {
-        throw new DexException(
-            "Cannot remap new index " + newIndex + " into a non-jumbo instruction!");
-      }
-
-      remappedInstructions[remappingIndex++] = decodedInst.withIndex(newIndex);
-    }
-  }
-
-  /**
-   * {@link com.android.jack.dx.io.CodeReader.Visitor} remapping instructions using field index.
-   */
-  private class FieldRemapper implements CodeReader.Visitor {
-
-    private final DexFile file;
-
-    public FieldRemapper(DexFile dex) {
-      this.file = dex;
-    }
-
-    @Override
-    public void visit(DecodedInstruction[] all, DecodedInstruction decodedInst) {
-      remappedInstructions[remappingIndex++] = decodedInst.withIndex(
-          cstIndexMap.getRemappedCstFieldRefIndex(file, decodedInst.getFirstIndex()));
-    }
-  }
-
-  /**
-   * {@link com.android.jack.dx.io.CodeReader.Visitor} remapping instructions using type index.
-   */
-  private class TypeRemapper implements CodeReader.Visitor {
-
-    private final DexFile file;
-
-    public TypeRemapper(DexFile dex) {
-      this.file = dex;
-    }
-
-    @Override
-    public void visit(DecodedInstruction[] all, DecodedInstruction decodedInst) {
-      remappedInstructions[remappingIndex++] = decodedInst
-          .withIndex(cstIndexMap.getRemappedCstTypeIndex(file, decodedInst.getFirstIndex()));
-    }
-  }
-
-  /**
-   * {@link com.android.jack.dx.io.CodeReader.Visitor} remapping instructions using method index.
-   */
-  private class MethodRemapper implements CodeReader.Visitor {
-
-    private final DexFile file;
-
-    public MethodRemapper(DexFile dex) {
-      this.file = dex;
-    }
-
-    @Override
-    public void visit(DecodedInstruction[] all, DecodedInstruction decodedInst) {
-      remappedInstructions[remappingIndex++] = decodedInst.withIndex(
-          cstIndexMap.getRemappedCstBaseMethodRefIndex(file, decodedInst.getFirstIndex()));
-    }
-  }
-
-  /**
-   * {@link com.android.jack.dx.io.CodeReader.Visitor} remapping instructions using two constants.
-   */
-  private class DualConstantRemapper implements CodeReader.Visitor {
-
-    private final DexFile file;
-
-    public DualConstantRemapper(DexFile dex) {
-      this.file = dex;
-    }
-
-    @Override
-    public void visit(DecodedInstruction[] all, DecodedInstruction decodedInst) {
-      remappedInstructions[remappingIndex++] = decodedInst.withIndex(
-          cstIndexMap.getRemappedCstBaseMethodRefIndex(file, decodedInst.getFirstIndex()),
-          cstIndexMap.getRemappedCstPrototypeRefIndex(file, decodedInst.getSecondIndex()));
-    }
-  }
-
-  /**
-   * {@link com.android.jack.dx.io.CodeReader.Visitor} remapping instructions using call site index.
-   */
-  private class CallSiteRemapper implements CodeReader.Visitor {
-
-    private final DexFile file;
-
-    public CallSiteRemapper(DexFile dex) {
-      this.file = dex;
-    }
-
-    @Override
-    public void visit(DecodedInstruction[] all, DecodedInstruction decodedInst) {
-      remappedInstructions[remappingIndex++] = decodedInst
-          .withIndex(cstIndexMap.getRemappedCstCallSiteRefIndex(file, decodedInst.getFirstIndex()));
-    }
-  }
 }
@@ -33,14 +33,16 @@ import com.android.jack.dx.util.Leb128Utils;
 import com.android.jack.dx.util.Mutf8;
 import com.android.jack.tools.merger.MergerTools;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.util.AbstractList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -55,10 +57,16 @@ import javax.annotation.Nonnull;
 
 /**
  * The bytes of a dex file in memory for reading and writing. All int offsets
- * are unsigned.
+ * are unsigned. The bytes are either in an array or in a buffer such as a memory-mapped file,
+ * which is read in place.
  */
 public final class DexBuffer {
-  private byte[] data;
+  /** Offset of the file size in the header */
+  private static final int FILE_SIZE_OFFSET =
+      (8 * SizeOf.UBYTE) + SizeOf.UINT + SizeOf.SIGNATURE;
+
+  @Nonnull
+  private ByteBuffer data;
   private final TableOfContents tableOfContents = new TableOfContents();
   private int length = 0;
 
@@ -97,7 +105,7 @@ public final class DexBuffer {
    * Creates a new dex buffer defining no classes.
    */
   public DexBuffer() {
-    this.data = new byte[0];
+    this.data = ByteBuffer.allocate(0).order(ByteOrder.LITTLE_ENDIAN);
     this.internalSection = new Section(0);
     this.strings = Collections.emptyList();
     this.typeIds = Collections.emptyList();
@@ -113,9 +121,18 @@ public final class DexBuffer {
    * modify {@code data} after using it to create a dex buffer.
    */
   public DexBuffer(byte[] data) {
-    this.data = data;
+    this(ByteBuffer.wrap(data));
+  }
+
+  /**
+   * Creates a new dex buffer that reads from the remaining bytes of {@code data}, without copying
+   * them. {@code data} may be memory-mapped. It is an error to modify the content of {@code data}
+   * after using it to create a dex buffer.
+   */
+  public DexBuffer(@Nonnull ByteBuffer data) {
+    this.data = data.slice().order(ByteOrder.LITTLE_ENDIAN);
     this.internalSection = new Section(0);
-    this.length = data.length;
+    this.length = this.data.limit();
     this.tableOfContents.readFrom(this);
     this.strings = readStrings();
     this.typeIds = readTypeIds();
@@ -130,44 +147,43 @@ public final class DexBuffer {
    * Creates a new dex buffer of the dex in {@code in}, and closes {@code in}.
    */
   public DexBuffer(InputStream in) throws IOException {
-    loadFrom(in);
-    this.internalSection = new Section(0);
-    this.strings = readStrings();
-    this.typeIds = readTypeIds();
-    this.typeNames = readTypeNames(this.strings, this.typeIds);
-    this.fieldIds = readFieldIds();
-    this.methodIds = readMethodIds();
-    this.methodHandleIds = readMethodHandleIds();
-    this.callSiteIds = readCallSiteIds();
+    this(loadFrom(in));
   }
 
   /**
-   * Creates a new dex buffer from the dex file {@code file}.
+   * Creates a new dex buffer from the dex file {@code file}. A .dex file is memory-mapped.
    */
   public DexBuffer(File file) throws IOException {
+    this(loadFrom(file));
+  }
+
+  @Nonnull
+  private static ByteBuffer loadFrom(@Nonnull File file) throws IOException {
     if (FileUtils.hasArchiveSuffix(file.getName())) {
       ZipFile zipFile = new ZipFile(file);
       ZipEntry entry = zipFile.getEntry(DexFormat.DEX_IN_JAR_NAME);
       if (entry != null) {
-        loadFrom(zipFile.getInputStream(entry));
-        zipFile.close();
+        try {
+          return loadFrom(zipFile.getInputStream(entry));
+        } finally {
+          zipFile.close();
+        }
       } else {
         zipFile.close();
         throw new DexException("Expected " + DexFormat.DEX_IN_JAR_NAME + " in " + file);
       }
     } else if (file.getName().endsWith(".dex")) {
-      loadFrom(new FileInputStream(file));
+      RandomAccessFile raf = new RandomAccessFile(file, "r");
+      try {
+        FileChannel channel = raf.getChannel();
+        // The mapping remains valid after the channel is closed
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      } finally {
+        raf.close();
+      }
     } else {
       throw new DexException("unknown output extension: " + file);
     }
-    this.internalSection = new Section(0);
-    this.strings = readStrings();
-    this.typeIds = readTypeIds();
-    this.typeNames = readTypeNames(this.strings, this.typeIds);
-    this.fieldIds = readFieldIds();
-    this.methodIds = readMethodIds();
-    this.methodHandleIds = readMethodHandleIds();
-    this.callSiteIds = readCallSiteIds();
   }
 
   @Nonnull
@@ -252,19 +268,57 @@ public final class DexBuffer {
     return Arrays.asList(result);
   }
 
-  private void loadFrom(InputStream in) throws IOException {
-    ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
-    byte[] buffer = new byte[8192];
+  /**
+   * Reads the dex in {@code in}, and closes {@code in}. The file size of the dex header is used to
+   * read the dex directly into an array of the right size.
+   */
+  @Nonnull
+  private static ByteBuffer loadFrom(@Nonnull InputStream in) throws IOException {
+    try {
+      byte[] bytes = new byte[FILE_SIZE_OFFSET + SizeOf.UINT];
+      int count = readFully(in, bytes, 0);
+      if (count == bytes.length) {
+        int fileSize = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN)
+            .getInt(FILE_SIZE_OFFSET);
+        if (fileSize > count) {
+          bytes = Arrays.copyOf(bytes, fileSize);
+          count = readFully(in, bytes, count);
+        }
+      }
+
+      // Do not trust the header, the dex is checked once its table of contents is read
+      while (count == bytes.length) {
+        int next = in.read();
+        if (next == -1) {
+          break;
+        }
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, 8192));
+        bytes[count++] = (byte) next;
+        count = readFully(in, bytes, count);
+      }
 
-    int count;
-    while ((count = in.read(buffer)) != -1) {
-      bytesOut.write(buffer, 0, count);
+      return ByteBuffer.wrap(bytes, 0, count);
+    } finally {
+      in.close();
     }
-    in.close();
+  }
 
-    this.data = bytesOut.toByteArray();
-    this.length = data.length;
-    this.tableOfContents.readFrom(this);
+  /**
+   * Reads {@code in} into {@code bytes} from {@code offset} until {@code bytes} is full or the end
+   * of {@code in} is reached, and returns the new count of bytes in {@code bytes}.
+   */
+  @Nonnegative
+  private static int readFully(@Nonnull InputStream in, @Nonnull byte[] bytes,
+      @Nonnegative int offset) throws IOException {
+    int count = offset;
+    while (count < bytes.length) {
+      int read = in.read(bytes, count, bytes.length - count);
+      if (read == -1) {
+        break;
+      }
+      count += read;
+    }
+    return count;
   }
 
   private static void checkBounds(int index, int length) {
@@ -274,7 +328,7 @@ public final class DexBuffer {
   }
 
   public void writeTo(OutputStream out) throws IOException {
-    out.write(data);
+    out.write(getBytes());
   }
 
   public void writeTo(File dexOut) throws IOException {
@@ -308,7 +362,7 @@ public final class DexBuffer {
   }
 
   public void noMoreSections() {
-    data = new byte[length];
+    data = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
   }
 
   public int getLength() {
@@ -319,8 +373,23 @@ public final class DexBuffer {
     return (position + 3) & ~3;
   }
 
+  /**
+   * Returns the bytes of this dex, copying them if they are not backed by an array.
+   */
   public byte[] getBytes() {
-    return data;
+    if (data.hasArray() && data.arrayOffset() == 0 && data.array().length == data.limit()) {
+      return data.array();
+    }
+    return copyOfRange(0, data.limit());
+  }
+
+  @Nonnull
+  private byte[] copyOfRange(@Nonnegative int from, @Nonnegative int to) {
+    byte[] result = new byte[to - from];
+    ByteBuffer view = data.duplicate();
+    view.position(from);
+    view.get(result);
+    return result;
   }
 
   @Nonnull
@@ -551,7 +620,7 @@ public final class DexBuffer {
     }
 
     private Section(int position) {
-      this("section", position, data.length);
+      this("section", position, data.limit());
     }
 
     public int getPosition() {
@@ -559,16 +628,15 @@ public final class DexBuffer {
     }
 
     public int readInt() {
-      int result = (data[position] & 0xff) | (data[position + 1] & 0xff) << 8
-          | (data[position + 2] & 0xff) << 16 | (data[position + 3] & 0xff) << 24;
+      int result = data.getInt(position);
       position += 4;
       return result;
     }
 
     public short readShort() {
-      int result = (data[position] & 0xff) | (data[position + 1] & 0xff) << 8;
+      short result = data.getShort(position);
       position += 2;
-      return (short) result;
+      return result;
     }
 
     public int readUnsignedShort() {
@@ -577,11 +645,11 @@ public final class DexBuffer {
 
     @Override
     public byte readByte() {
-      return (byte) (data[position++] & 0xff);
+      return data.get(position++);
     }
 
     public byte[] readByteArray(int length) {
-      byte[] result = Arrays.copyOfRange(data, position, position + length);
+      byte[] result = copyOfRange(position, position + length);
       position += length;
       return result;
     }
@@ -815,14 +883,14 @@ public final class DexBuffer {
       int start = position;
       new EncodedValueReader(DexBuffer.this, this).readValue();
       int end = position;
-      return new EncodedValue(Arrays.copyOfRange(data, start, end));
+      return new EncodedValue(copyOfRange(start, end));
     }
 
     public EncodedValue readEncodedArray() {
       int start = position;
       new EncodedValueReader(DexBuffer.this, this).readArray();
       int end = position;
-      return new EncodedValue(Arrays.copyOfRange(data, start, end));
+      return new EncodedValue(copyOfRange(start, end));
     }
 
     private void ensureCapacity(int size) {
@@ -846,7 +914,7 @@ public final class DexBuffer {
       int unalignedCount = position;
       position = DexBuffer.fourByteAlign(position);
       for (int i = unalignedCount; i < position; i++) {
-        data[i] = 0;
+        data.put(i, (byte) 0);
       }
     }
 
@@ -858,20 +926,21 @@ public final class DexBuffer {
 
     public void write(byte[] bytes) {
       ensureCapacity(bytes.length);
-      System.arraycopy(bytes, 0, data, position, bytes.length);
+      ByteBuffer view = data.duplicate();
+      view.position(position);
+      view.put(bytes);
       position += bytes.length;
     }
 
     @Override
     public void writeByte(int b) {
       ensureCapacity(1);
-      data[position++] = (byte) b;
+      data.put(position++, (byte) b);
     }
 
     public void writeShort(short i) {
       ensureCapacity(2);
-      data[position] = (byte) i;
-      data[position + 1] = (byte) (i >>> 8);
+      data.putShort(position, i);
       position += 2;
     }
 
@@ -891,10 +960,7 @@ public final class DexBuffer {
 
     public void writeInt(int i) {
       ensureCapacity(4);
-      data[position] = (byte) i;
-      data[position + 1] = (byte) (i >>> 8);
-      data[position + 2] = (byte) (i >>> 16);
-      data[position + 3] = (byte) (i >>> 24);
+      data.putInt(position, i);
       position += 4;
     }
 
@@ -902,7 +968,7 @@ public final class DexBuffer {
       try {
         Leb128Utils.writeUnsignedLeb128(this, i);
         ensureCapacity(0);
-      } catch (ArrayIndexOutOfBoundsException e) {
+      } catch (IndexOutOfBoundsException e) {
         throw new DexException("Section limit " + limit + " exceeded by " + name);
       }
     }
@@ -915,7 +981,7 @@ public final class DexBuffer {
       try {
         Leb128Utils.writeSignedLeb128(this, i);
         ensureCapacity(0);
-      } catch (ArrayIndexOutOfBoundsException e) {
+      } catch (IndexOutOfBoundsException e) {
         throw new DexException("Section limit " + limit + " exceeded by " + name);
       }
     }
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.dx.io;
+
+import com.android.jack.dx.io.instructions.InstructionCodec;
+import com.android.jack.dx.util.DexException;
+
+import java.util.Arrays;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Positions of the constant index operands of a block of code, found by scanning its code units
+ * once without decoding instructions. Indexes are remapped by the same rules as the
+ * {@link CodeReader} visitors: string, type, field, method and call site indexes, plus the
+ * prototype index of instructions with two constants.
+ */
+public final class IndexRelocationTable {
+  /** Number of low bits of an entry holding its kind. */
+  private static final int KIND_BITS = 3;
+
+  private static final int KIND_MASK = (1 << KIND_BITS) - 1;
+
+  private static final int KIND_STRING = 0;
+  private static final int KIND_STRING_JUMBO = 1;
+  private static final int KIND_TYPE = 2;
+  private static final int KIND_FIELD = 3;
+  private static final int KIND_METHOD = 4;
+  private static final int KIND_PROTOTYPE = 5;
+  private static final int KIND_CALLSITE = 6;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  /** Entries, each one being the position of an index shifted left by KIND_BITS, and its kind. */
+  @Nonnull
+  private int[] entries = new int[INITIAL_CAPACITY];
+
+  @Nonnegative
+  private int size = 0;
+
+  /**
+   * Constructs an instance by scanning the given code units.
+   * @param insts {@code non-null;} instructions in binary form
+   */
+  public IndexRelocationTable(@Nonnull short[] insts) {
+    int cursor = 0;
+
+    while (cursor < insts.length) {
+      int opcodeUnit = insts[cursor] & 0xffff;
+      int opcode = Opcodes.extractOpcodeFromUnit(opcodeUnit);
+      InstructionCodec format = OpcodeInfo.getFormat(opcode);
+
+      switch (format) {
+        case FORMAT_21C:
+        case FORMAT_22C:
+        case FORMAT_31C:
+        case FORMAT_35C:
+        case FORMAT_3RC:
+        case FORMAT_45CC:
+        case FORMAT_4RCC:
+          addIndexes(opcode, format, cursor);
+          break;
+        default:
+          break;
+      }
+
+      cursor += getCodeUnitCount(insts, cursor, format);
+    }
+
+    if (cursor != insts.length) {
+      throw new DexException("Truncated instruction at the end of the code");
+    }
+  }
+
+  private void addIndexes(int opcode, @Nonnull InstructionCodec format, @Nonnegative int cursor) {
+    if (OpcodeInfo.hasDualConstants(opcode)) {
+      assert OpcodeInfo.getFirstIndexType(opcode) == IndexType.METHOD_REF;
+      assert OpcodeInfo.getSecondIndexType(opcode) == IndexType.PROTOTYPE_REF;
+      add(cursor + 1, KIND_METHOD);
+      add(cursor + 3, KIND_PROTOTYPE);
+      return;
+    }
+
+    switch (OpcodeInfo.getFirstIndexType(opcode)) {
+      case STRING_REF:
+        add(cursor + 1, format == InstructionCodec.FORMAT_31C ? KIND_STRING_JUMBO : KIND_STRING);
+        break;
+      case TYPE_REF:
+        add(cursor + 1, KIND_TYPE);
+        break;
+      case FIELD_REF:
+        add(cursor + 1, KIND_FIELD);
+        break;
+      case METHOD_REF:
+        add(cursor + 1, KIND_METHOD);
+        break;
+      case CALLSITE_REF:
+        add(cursor + 1, KIND_CALLSITE);
+        break;
+      case PROTOTYPE_REF:
+        throw new AssertionError();
+      default:
+        // Left as is, as CodeReader would do
+        break;
+    }
+  }
+
+  private void add(@Nonnegative int position, int kind) {
+    if (size == entries.length) {
+      entries = Arrays.copyOf(entries, size * 2);
+    }
+    entries[size++] = (position << KIND_BITS) | kind;
+  }
+
+  @Nonnegative
+  private static int getCodeUnitCount(@Nonnull short[] insts, @Nonnegative int cursor,
+      @Nonnull InstructionCodec format) {
+    switch (format) {
+      case FORMAT_10X:
+      case FORMAT_12X:
+      case FORMAT_11N:
+      case FORMAT_11X:
+      case FORMAT_10T:
+        return 1;
+      case FORMAT_20T:
+      case FORMAT_20BC:
+      case FORMAT_22X:
+      case FORMAT_21T:
+      case FORMAT_21S:
+      case FORMAT_21H:
+      case FORMAT_21C:
+      case FORMAT_23X:
+      case FORMAT_22B:
+      case FORMAT_22T:
+      case FORMAT_22S:
+      case FORMAT_22C:
+      case FORMAT_22CS:
+        return 2;
+      case FORMAT_30T:
+      case FORMAT_32X:
+      case FORMAT_31I:
+      case FORMAT_31T:
+      case FORMAT_31C:
+      case FORMAT_35C:
+      case FORMAT_35MS:
+      case FORMAT_35MI:
+      case FORMAT_3RC:
+      case FORMAT_3RMS:
+      case FORMAT_3RMI:
+        return 3;
+      case FORMAT_45CC:
+      case FORMAT_4RCC:
+        return 4;
+      case FORMAT_51L:
+        return 5;
+      case FORMAT_PACKED_SWITCH_PAYLOAD:
+        // ident, size, first key, targets
+        return 4 + getUnit(insts, cursor + 1) * 2;
+      case FORMAT_SPARSE_SWITCH_PAYLOAD:
+        // ident, size, keys, targets
+        return 2 + getUnit(insts, cursor + 1) * 4;
+      case FORMAT_FILL_ARRAY_DATA_PAYLOAD: {
+        // ident, element width, size, data
+        long byteCount = (long) getUnit(insts, cursor + 1)
+            * ((getUnit(insts, cursor + 2)) | ((long) getUnit(insts, cursor + 3) << 16));
+        long unitCount = 4 + (byteCount + 1) / 2;
+        if (unitCount > insts.length - cursor) {
+          throw new DexException("Truncated fill-array-data-payload");
+        }
+        return (int) unitCount;
+      }
+      default:
+        throw new DexException("Unexpected instruction format " + format);
+    }
+  }
+
+  private static int getUnit(@Nonnull short[] insts, @Nonnegative int position) {
+    if (position >= insts.length) {
+      throw new DexException("Truncated instruction at the end of the code");
+    }
+    return insts[position] & 0xffff;
+  }
+
+  /**
+   * Gets the number of indexes of the scanned code.
+   * @return the count
+   */
+  @Nonnegative
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Gets the position of an index in the code units.
+   * @param entry the index entry, from 0 to {@code size() - 1}
+   * @return the position of the first code unit of the index
+   */
+  @Nonnegative
+  public int getPosition(@Nonnegative int entry) {
+    assert entry < size;
+    return entries[entry] >>> KIND_BITS;
+  }
+
+  /**
+   * Gets the type of an index.
+   * @param entry the index entry, from 0 to {@code size() - 1}
+   * @return {@code non-null;} the type of the constant referenced by the index
+   */
+  @Nonnull
+  public IndexType getIndexType(@Nonnegative int entry) {
+    assert entry < size;
+    switch (entries[entry] & KIND_MASK) {
+      case KIND_STRING:
+      case KIND_STRING_JUMBO:
+        return IndexType.STRING_REF;
+      case KIND_TYPE:
+        return IndexType.TYPE_REF;
+      case KIND_FIELD:
+        return IndexType.FIELD_REF;
+      case KIND_METHOD:
+        return IndexType.METHOD_REF;
+      case KIND_PROTOTYPE:
+        return IndexType.PROTOTYPE_REF;
+      case KIND_CALLSITE:
+        return IndexType.CALLSITE_REF;
+      default:
+        throw new AssertionError();
+    }
+  }
+
+  /**
+   * Tells whether an index is stored on two code units, low unit first.
+   * @param entry the index entry, from 0 to {@code size() - 1}
+   * @return true for the index of a {@code const-string/jumbo}, false otherwise
+   */
+  public boolean isWide(@Nonnegative int entry) {
+    assert entry < size;
+    return (entries[entry] & KIND_MASK) == KIND_STRING_JUMBO;
+  }
+}
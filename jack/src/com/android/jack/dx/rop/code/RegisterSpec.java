@@ -20,10 +20,9 @@ import com.android.jack.dx.rop.cst.Constant;
 import com.android.jack.dx.rop.cst.CstString;
 import com.android.jack.dx.rop.type.Type;
 import com.android.jack.dx.rop.type.TypeBearer;
+import com.android.jack.dx.util.InternTable;
 import com.android.jack.dx.util.ToHuman;
 
-import java.util.HashMap;
-
 /**
  * Combination of a register number and a type, used as the sources and
  * destinations of register-based operations.
@@ -32,12 +31,23 @@ public final class RegisterSpec implements TypeBearer, ToHuman, Comparable<Regis
   /** {@code non-null;} string to prefix register numbers with */
   public static final String PREFIX = "v";
 
-  /** {@code non-null;} intern table for instances */
-  private static final HashMap<Object, RegisterSpec> theInterns =
-      new HashMap<Object, RegisterSpec>(1000);
+  /** {@code non-null;} intern table for instances, shared by all threads */
+  private static final InternTable<ForComparison, RegisterSpec> theInterns =
+      new InternTable<ForComparison, RegisterSpec>(1000);
 
-  /** {@code non-null;} common comparison instance used while interning */
-  private static final ForComparison theInterningItem = new ForComparison();
+  /** number of instances in each per-thread cache, a power of 2 */
+  private static final int LOCAL_CACHE_SIZE = 512;
+
+  /**
+   * {@code non-null;} per-thread caches of recently interned instances,
+   * looked up before {@link #theInterns}
+   */
+  private static final ThreadLocal<LocalCache> theLocalCaches = new ThreadLocal<LocalCache>() {
+    @Override
+    protected LocalCache initialValue() {
+      return new LocalCache();
+    }
+  };
 
   /** {@code >= 0;} register number */
   private final int reg;
@@ -61,18 +71,52 @@ public final class RegisterSpec implements TypeBearer, ToHuman, Comparable<Regis
    * @return {@code non-null;} an appropriately-constructed instance
    */
   private static RegisterSpec intern(int reg, TypeBearer type, LocalItem local) {
-    synchronized (theInterns) {
-      theInterningItem.set(reg, type, local);
-      RegisterSpec found = theInterns.get(theInterningItem);
-
-      if (found != null) {
-        return found;
-      }
+    LocalCache cache = theLocalCaches.get();
+    int hash = hashCodeOf(reg, type, local);
+    int index = (hash ^ (hash >>> 16)) & (LOCAL_CACHE_SIZE - 1);
+    RegisterSpec found = cache.specs[index];
 
-      found = theInterningItem.toRegisterSpec();
-      theInterns.put(found, found);
+    if (found != null && found.equals(reg, type, local)) {
+      cache.hits++;
       return found;
     }
+
+    ForComparison interningItem = cache.interningItem;
+    interningItem.set(reg, type, local);
+    found = theInterns.get(interningItem);
+    // Do not keep the type and local alive from the cache
+    interningItem.set(0, null, null);
+
+    if (found == null) {
+      ForComparison key = new ForComparison();
+      key.set(reg, type, local);
+      found = theInterns.intern(key, key.toRegisterSpec());
+    }
+
+    cache.specs[index] = found;
+    return found;
+  }
+
+  /**
+   * Gets the intern table of this class, to report its statistics.
+   *
+   * @return {@code non-null;} the intern table
+   */
+  public static InternTable<?, RegisterSpec> getInternTable() {
+    return theInterns;
+  }
+
+  /**
+   * Gets the number of instances found in the cache of the current
+   * thread since the previous call, without looking up the intern table.
+   *
+   * @return {@code >= 0;} the count
+   */
+  public static long takeLocalCacheHitCount() {
+    LocalCache cache = theLocalCaches.get();
+    long hits = cache.hits;
+    cache.hits = 0;
+    return hits;
   }
 
   /**
@@ -641,6 +685,12 @@ public final class RegisterSpec implements TypeBearer, ToHuman, Comparable<Regis
     /** {@inheritDoc} */
     @Override
     public boolean equals(Object other) {
+      if (other instanceof ForComparison) {
+        ForComparison fc = (ForComparison) other;
+        return (reg == fc.reg) && type.equals(fc.type)
+            && ((local == fc.local) || ((local != null) && local.equals(fc.local)));
+      }
+
       if (!(other instanceof RegisterSpec)) {
         return false;
       }
@@ -655,4 +705,21 @@ public final class RegisterSpec implements TypeBearer, ToHuman, Comparable<Regis
       return hashCodeOf(reg, type, local);
     }
   }
+
+  /**
+   * Cache of recently interned instances, used by a single thread.
+   */
+  private static class LocalCache {
+    /**
+     * {@code non-null;} instances indexed by hash code, {@code null} for
+     * an empty slot
+     */
+    private final RegisterSpec[] specs = new RegisterSpec[LOCAL_CACHE_SIZE];
+
+    /** {@code non-null;} comparison instance used while interning */
+    private final ForComparison interningItem = new ForComparison();
+
+    /** {@code >= 0;} number of instances found in this cache */
+    private long hits;
+  }
 }
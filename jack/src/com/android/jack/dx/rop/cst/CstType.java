@@ -18,8 +18,7 @@ package com.android.jack.dx.rop.cst;
 
 import com.android.jack.dx.dex.file.ValueEncoder.ValueType;
 import com.android.jack.dx.rop.type.Type;
-
-import java.util.HashMap;
+import com.android.jack.dx.util.InternTable;
 
 import javax.annotation.Nonnull;
 
@@ -28,7 +27,7 @@ import javax.annotation.Nonnull;
  */
 public final class CstType extends TypedConstant {
   /** {@code non-null;} map of interned types */
-  private static final HashMap<Type, CstType> interns = new HashMap<Type, CstType>(100);
+  private static final InternTable<Type, CstType> interns = new InternTable<Type, CstType>(100);
 
   /** {@code non-null;} instance corresponding to the class {@code Object} */
   public static final CstType OBJECT = intern(Type.OBJECT);
@@ -134,16 +133,22 @@ public final class CstType extends TypedConstant {
    * @return {@code non-null;} an appropriately-constructed instance
    */
   public static CstType intern(Type type) {
-    synchronized (interns) {
-      CstType cst = interns.get(type);
-
-      if (cst == null) {
-        cst = new CstType(type);
-        interns.put(type, cst);
-      }
+    CstType cst = interns.get(type);
 
-      return cst;
+    if (cst == null) {
+      cst = interns.intern(type, new CstType(type));
     }
+
+    return cst;
+  }
+
+  /**
+   * Gets the intern table of this class, to report its statistics.
+   *
+   * @return {@code non-null;} the intern table
+   */
+  public static InternTable<Type, CstType> getInternTable() {
+    return interns;
   }
 
   /**
@@ -16,7 +16,7 @@
 
 package com.android.jack.dx.rop.type;
 
-import java.util.HashMap;
+import com.android.jack.dx.util.InternTable;
 
 /**
  * Representation of a method descriptor. Instances of this class are
@@ -25,7 +25,8 @@ import java.util.HashMap;
  */
 public final class Prototype implements Comparable<Prototype> {
   /** {@code non-null;} intern table mapping string descriptors to instances */
-  private static final HashMap<String, Prototype> internTable = new HashMap<String, Prototype>(500);
+  private static final InternTable<String, Prototype> internTable =
+      new InternTable<String, Prototype>(500);
 
   /** {@code non-null;} method descriptor */
   private final String descriptor;
@@ -54,10 +55,7 @@ public final class Prototype implements Comparable<Prototype> {
       throw new NullPointerException("descriptor == null");
     }
 
-    Prototype result;
-    synchronized (internTable) {
-      result = internTable.get(descriptor);
-    }
+    Prototype result = internTable.get(descriptor);
     if (result != null) {
       return result;
     }
@@ -384,14 +382,15 @@ int result = returnType.compareTo(other.returnType);
    * @return {@code non-null;} the actual interned object
    */
   private static Prototype putIntern(Prototype desc) {
-    synchronized (internTable) {
-      String descriptor = desc.getDescriptor();
-      Prototype already = internTable.get(descriptor);
-      if (already != null) {
-        return already;
-      }
-      internTable.put(descriptor, desc);
-      return desc;
-    }
+    return internTable.intern(desc.getDescriptor(), desc);
+  }
+
+  /**
+   * Gets the intern table of this class, to report its statistics.
+   *
+   * @return {@code non-null;} the intern table
+   */
+  public static InternTable<String, Prototype> getInternTable() {
+    return internTable;
   }
 }
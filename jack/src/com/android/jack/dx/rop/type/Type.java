@@ -17,8 +17,7 @@
 package com.android.jack.dx.rop.type;
 
 import com.android.jack.dx.util.Hex;
-
-import java.util.HashMap;
+import com.android.jack.dx.util.InternTable;
 
 import javax.annotation.Nonnegative;
 
@@ -34,7 +33,7 @@ public final class Type implements TypeBearer, Comparable<Type> {
    * {@code non-null;} intern table mapping string descriptors to
    * instances
    */
-  private static final HashMap<String, Type> internTable = new HashMap<String, Type>(500);
+  private static final InternTable<String, Type> internTable = new InternTable<String, Type>(500);
 
   /** basic type constant for {@code void} */
   public static final int BT_VOID = 0;
@@ -293,10 +292,7 @@ public final class Type implements TypeBearer, Comparable<Type> {
    * invalid syntax
    */
   public static Type intern(String descriptor) {
-    Type result;
-    synchronized (internTable) {
-      result = internTable.get(descriptor);
-    }
+    Type result = internTable.get(descriptor);
     if (result != null) {
       return result;
     }
@@ -843,14 +839,15 @@ public final class Type implements TypeBearer, Comparable<Type> {
    * @return {@code non-null;} the actual interned object
    */
   private static Type putIntern(Type type) {
-    synchronized (internTable) {
-      String descriptor = type.getDescriptor();
-      Type already = internTable.get(descriptor);
-      if (already != null) {
-        return already;
-      }
-      internTable.put(descriptor, type);
-      return type;
-    }
+    return internTable.intern(type.getDescriptor(), type);
+  }
+
+  /**
+   * Gets the intern table of this class, to report its statistics.
+   *
+   * @return {@code non-null;} the intern table
+   */
+  public static InternTable<String, Type> getInternTable() {
+    return internTable;
   }
 }
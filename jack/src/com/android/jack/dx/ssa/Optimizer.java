@@ -63,6 +63,8 @@ public class Optimizer {
    *     registers and insns
    * @param removeRedundantConditionalBranch true if we should optimize unneccesary conditional
    *     branches.
+   * @param useLinearScanAllocator true if registers should be allocated by the faster linear scan
+   *     allocator, at the cost of more registers and moves
    * @param inAdvice {@code non-null;} translation advice
    * @return optimized method
    */
@@ -72,6 +74,7 @@ public class Optimizer {
       boolean isStatic,
       boolean inPreserveLocals,
       boolean removeRedundantConditionalBranch,
+      boolean useLinearScanAllocator,
       TranslationAdvice inAdvice) {
 
     return optimize(rmeth,
@@ -79,6 +82,7 @@ public class Optimizer {
         isStatic,
         inPreserveLocals,
         removeRedundantConditionalBranch,
+        useLinearScanAllocator,
         inAdvice,
         EnumSet.allOf(OptionalStep.class));
   }
@@ -95,6 +99,8 @@ public class Optimizer {
    * at the cost of some registers and insns
    * @param removeRedundantConditionalBranch true if we should optimize unneccesary conditional
    * branches.
+   * @param useLinearScanAllocator true if registers should be allocated by the
+   * faster linear scan allocator, at the cost of more registers and moves
    * @param inAdvice {@code non-null;} translation advice
    * @param steps set of optional optimization steps to run
    * @return optimized method
@@ -104,6 +110,7 @@ public class Optimizer {
       boolean isStatic,
       boolean inPreserveLocals,
       boolean removeRedundantConditionalBranch,
+      boolean useLinearScanAllocator,
       TranslationAdvice inAdvice,
       EnumSet<OptionalStep> steps) {
     SsaMethod ssaMeth = null;
@@ -114,9 +121,12 @@ public class Optimizer {
     ssaMeth = SsaConverter.convertToSsaMethod(rmeth, paramWidth, isStatic);
     runSsaFormSteps(ssaMeth, steps);
 
-    RopMethod resultMeth = SsaToRop.convertToRopMethod(ssaMeth, removeRedundantConditionalBranch);
+    RopMethod resultMeth = SsaToRop.convertToRopMethod(ssaMeth, removeRedundantConditionalBranch,
+        useLinearScanAllocator);
 
-    if (resultMeth.getBlocks().getRegCount() > advice.getMaxOptimalRegisterCount()) {
+    // The linear scan allocator favors compilation time, do not spend it on a second pass
+    if (!useLinearScanAllocator
+        && resultMeth.getBlocks().getRegCount() > advice.getMaxOptimalRegisterCount()) {
       // Try to see if we can squeeze it under the register count bar
       resultMeth =
           optimizeMinimizeRegisters(
@@ -156,7 +166,8 @@ public class Optimizer {
 
     runSsaFormSteps(ssaMeth, newSteps);
 
-    resultMeth = SsaToRop.convertToRopMethod(ssaMeth, removeRedundantConditionalBranch);
+    resultMeth = SsaToRop.convertToRopMethod(ssaMeth, removeRedundantConditionalBranch,
+        /* useLinearScanAllocator = */ false);
     return resultMeth;
   }
 
@@ -0,0 +1,309 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.dx.ssa.back;
+
+import com.android.jack.dx.rop.code.CstInsn;
+import com.android.jack.dx.rop.code.RegisterSpec;
+import com.android.jack.dx.rop.code.RegisterSpecList;
+import com.android.jack.dx.rop.cst.CstInteger;
+import com.android.jack.dx.ssa.BasicRegisterMapper;
+import com.android.jack.dx.ssa.NormalSsaInsn;
+import com.android.jack.dx.ssa.PhiInsn;
+import com.android.jack.dx.ssa.RegisterMapper;
+import com.android.jack.dx.ssa.SsaBasicBlock;
+import com.android.jack.dx.ssa.SsaInsn;
+import com.android.jack.dx.ssa.SsaMethod;
+import com.android.jack.dx.util.IntIterator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Allocates registers with a linear scan over live intervals.
+ *
+ * <p>Instructions are numbered in block order, and the live interval of
+ * an SSA register is the smallest range of instruction numbers covering
+ * all the points where the {@link LivenessAnalyzer} finds it live. SSA
+ * registers whose intervals do not overlap may share a rop register.
+ *
+ * <p>Intervals over-approximate liveness, and this allocator does not try
+ * to co-locate local variables or invoke-range operands, so it uses more
+ * registers and moves than {@link FirstFitLocalCombiningAllocator}. In
+ * return, it does not build an interference graph and runs in
+ * {@code O(n log n)} for {@code n} SSA registers, which bounds time and
+ * memory on huge methods.
+ */
+public class LinearScanAllocator extends RegisterAllocator {
+  /** marker of an SSA register that is never referenced */
+  private static final int NO_POSITION = -1;
+
+  /** {@code >= 0;} width of the parameters, slotted at the bottom of the frame */
+  private final int paramWidth;
+
+  /** indexed by SSA reg; first position of its live interval */
+  private final int[] intervalStarts;
+
+  /** indexed by SSA reg; last position of its live interval */
+  private final int[] intervalEnds;
+
+  /** indexed by rop reg below {@code paramWidth}; interval start of the parameter in it */
+  private final int[] paramStarts;
+
+  /** indexed by rop reg below {@code paramWidth}; interval end of the parameter in it */
+  private final int[] paramEnds;
+
+  public LinearScanAllocator(SsaMethod ssaMeth) {
+    super(ssaMeth, null);
+
+    int regCount = ssaMeth.getRegCount();
+
+    paramWidth = ssaMeth.getParamWidth();
+    intervalStarts = new int[regCount];
+    intervalEnds = new int[regCount];
+    paramStarts = new int[paramWidth];
+    paramEnds = new int[paramWidth];
+    Arrays.fill(intervalStarts, NO_POSITION);
+    Arrays.fill(intervalEnds, NO_POSITION);
+    Arrays.fill(paramStarts, NO_POSITION);
+    Arrays.fill(paramEnds, NO_POSITION);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean wantsParamsMovedHigh() {
+    return true;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public RegisterMapper allocateRegisters() {
+    LivenessAnalyzer.computeLiveness(ssaMeth);
+    computeIntervals();
+
+    int regCount = ssaMeth.getRegCount();
+    BasicRegisterMapper mapper = new BasicRegisterMapper(regCount);
+
+    /*
+     * Sorts the referenced registers by interval start, then register
+     * number, so that the allocation is deterministic.
+     */
+    long[] order = new long[regCount];
+    int orderSize = 0;
+    for (int reg = 0; reg < regCount; reg++) {
+      if (intervalStarts[reg] == NO_POSITION) {
+        // Never referenced, any mapping will do.
+        mapper.addMapping(reg, 0, 1);
+      } else {
+        order[orderSize++] = ((long) intervalStarts[reg] << 32) | reg;
+      }
+    }
+    Arrays.sort(order, 0, orderSize);
+
+    // Parameters first, they are pinned to their slot during their whole interval.
+    int[] mapping = new int[regCount];
+    for (int i = 0; i < orderSize; i++) {
+      int reg = (int) order[i];
+      if (isDefinitionMoveParam(reg)) {
+        int slot = paramNumberFromMoveParam(reg);
+        mapping[reg] = slot;
+        for (int j = 0; j < getCategoryForSsaReg(reg); j++) {
+          paramStarts[slot + j] = intervalStarts[reg];
+          paramEnds[slot + j] = intervalEnds[reg];
+        }
+      }
+    }
+
+    /*
+     * Active intervals, by end position then register. A slot is free
+     * when no active interval uses it.
+     */
+    PriorityQueue<Long> active = new PriorityQueue<Long>();
+    BitSet free = new BitSet();
+    free.set(0, paramWidth);
+    int slotCount = paramWidth;
+
+    for (int i = 0; i < orderSize; i++) {
+      int reg = (int) order[i];
+      int start = intervalStarts[reg];
+      int end = intervalEnds[reg];
+      int category = getCategoryForSsaReg(reg);
+
+      while (!active.isEmpty() && (int) (active.peek().longValue() >>> 32) < start) {
+        int expired = (int) active.poll().longValue();
+        free.set(mapping[expired], mapping[expired] + getCategoryForSsaReg(expired));
+      }
+
+      int slot;
+      if (isDefinitionMoveParam(reg)) {
+        slot = mapping[reg];
+      } else {
+        slot = findFreeSlot(free, start, end, category);
+        if (slot < 0) {
+          slot = slotCount;
+          slotCount += category;
+        }
+      }
+
+      free.clear(slot, slot + category);
+      mapping[reg] = slot;
+      mapper.addMapping(reg, slot, category);
+      active.add(Long.valueOf(((long) end << 32) | reg));
+    }
+
+    return mapper;
+  }
+
+  /**
+   * Finds the lowest free slot able to hold a register during an interval.
+   *
+   * @param free {@code non-null;} set of free slots
+   * @param start start of the interval
+   * @param end end of the interval
+   * @param category {@code 1..2;} width of the register
+   * @return the slot, or {@code -1} if a new one must be added
+   */
+  private int findFreeSlot(BitSet free, int start, int end, int category) {
+    for (int slot = free.nextSetBit(0); slot >= 0; slot = free.nextSetBit(slot + 1)) {
+      if (!isSlotAvailable(slot, start, end)) {
+        continue;
+      }
+
+      if (category == 1) {
+        return slot;
+      }
+
+      /*
+       * A wide register must not straddle the last parameter slot, since
+       * parameter slots are moved to the top of the frame.
+       */
+      if (slot != paramWidth - 1 && free.get(slot + 1) && isSlotAvailable(slot + 1, start, end)) {
+        return slot;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Returns whether a slot is not pinned to a parameter during an interval.
+   *
+   * @param slot {@code >= 0;} the slot
+   * @param start start of the interval
+   * @param end end of the interval
+   */
+  private boolean isSlotAvailable(int slot, int start, int end) {
+    return slot >= paramWidth || paramStarts[slot] == NO_POSITION || paramEnds[slot] < start
+        || end < paramStarts[slot];
+  }
+
+  /**
+   * Computes the live interval of each SSA register from the live in/out
+   * information of the blocks and from the instructions using it.
+   */
+  private void computeIntervals() {
+    ArrayList<SsaBasicBlock> blocks = ssaMeth.getBlocks();
+    int blockCount = blocks.size();
+    int[] blockStarts = new int[blockCount];
+    int[] blockEnds = new int[blockCount];
+
+    int position = 0;
+    for (int i = 0; i < blockCount; i++) {
+      blockStarts[i] = position;
+      position += Math.max(1, blocks.get(i).getInsns().size());
+      blockEnds[i] = position - 1;
+    }
+
+    for (int i = 0; i < blockCount; i++) {
+      SsaBasicBlock block = blocks.get(i);
+      List<SsaInsn> insns = block.getInsns();
+
+      position = blockStarts[i];
+      for (SsaInsn insn : insns) {
+        if (insn instanceof PhiInsn) {
+          /*
+           * All phi results are defined at the start of the block, but
+           * are assigned by moves at the end of the predecessors. Phi
+           * operands are used at the end of their predecessor.
+           */
+          PhiInsn phi = (PhiInsn) insn;
+          int resultReg = phi.getResult().getReg();
+          extendInterval(resultReg, blockStarts[i]);
+          BitSet preds = block.getPredecessors();
+          for (int pred = preds.nextSetBit(0); pred >= 0; pred = preds.nextSetBit(pred + 1)) {
+            extendInterval(resultReg, blockEnds[pred]);
+          }
+
+          RegisterSpecList sources = phi.getSources();
+          for (int j = 0; j < sources.size(); j++) {
+            extendInterval(sources.get(j).getReg(),
+                blockEnds[phi.predBlockIndexForSourcesIndex(j)]);
+          }
+        } else {
+          RegisterSpec result = insn.getResult();
+          if (result != null) {
+            extendInterval(result.getReg(), position);
+          }
+
+          RegisterSpecList sources = insn.getSources();
+          for (int j = 0; j < sources.size(); j++) {
+            extendInterval(sources.get(j).getReg(), position);
+          }
+        }
+        position++;
+      }
+
+      for (IntIterator it = block.getLiveInRegs().iterator(); it.hasNext();) {
+        extendInterval(it.next(), blockStarts[i]);
+      }
+      for (IntIterator it = block.getLiveOutRegs().iterator(); it.hasNext();) {
+        extendInterval(it.next(), blockEnds[i]);
+      }
+    }
+  }
+
+  /**
+   * Extends the interval of a register to contain a position.
+   *
+   * @param reg {@code >= 0;} SSA register
+   * @param position {@code >= 0;} position to include
+   */
+  private void extendInterval(int reg, int position) {
+    if (intervalStarts[reg] == NO_POSITION || position < intervalStarts[reg]) {
+      intervalStarts[reg] = position;
+    }
+    if (position > intervalEnds[reg]) {
+      intervalEnds[reg] = position;
+    }
+  }
+
+  /**
+   * Returns the parameter number that the move-param defining a register
+   * refers to.
+   *
+   * @param reg {@code >= 0;} SSA register defined by a move-param
+   * @return parameter number (offset in the total parameter width)
+   */
+  private int paramNumberFromMoveParam(int reg) {
+    NormalSsaInsn defInsn = (NormalSsaInsn) ssaMeth.getDefinitionForRegister(reg);
+    CstInsn origInsn = (CstInsn) defInsn.getOriginalRopInsn();
+
+    return ((CstInteger) origInsn.getConstant()).getValue();
+  }
+}
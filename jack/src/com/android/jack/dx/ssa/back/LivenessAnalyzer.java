@@ -55,7 +55,7 @@ public class LivenessAnalyzer {
   /** method to process */
   private final SsaMethod ssaMeth;
 
-  /** interference graph being updated */
+  /** {@code null-ok;} interference graph being updated */
   private final InterferenceGraph interference;
 
   /** block "n" in Appel 19.17 */
@@ -94,13 +94,27 @@ public class LivenessAnalyzer {
     return interference;
   }
 
+  /**
+   * Runs register liveness algorithm for a method, only updating the
+   * live in/out information in {@code SsaBasicBlock} instances.
+   *
+   * @param ssaMeth {@code non-null;} method to process
+   */
+  public static void computeLiveness(SsaMethod ssaMeth) {
+    int szRegs = ssaMeth.getRegCount();
+
+    for (int i = 0; i < szRegs; i++) {
+      new LivenessAnalyzer(ssaMeth, i, null).run();
+    }
+  }
+
   /**
    * Makes liveness analyzer instance for specific register.
    *
    * @param ssaMeth {@code non-null;} method to process
    * @param reg register whose liveness to analyze
-   * @param interference {@code non-null;} indexed by SSA reg in
-   * both dimensions; graph to update
+   * @param interference {@code null-ok;} indexed by SSA reg in
+   * both dimensions; graph to update, if any
    *
    */
   private LivenessAnalyzer(SsaMethod ssaMeth, int reg, InterferenceGraph interference) {
@@ -228,7 +242,7 @@ public class LivenessAnalyzer {
     RegisterSpec rs = statement.getResult();
 
     if (!statement.isResultReg(regV)) {
-      if (rs != null) {
+      if (rs != null && interference != null) {
         interference.add(regV, rs.getReg());
       }
       nextFunction = NextFunction.LIVE_IN_AT_STATEMENT;
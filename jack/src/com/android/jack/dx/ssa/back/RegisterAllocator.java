@@ -40,14 +40,17 @@ public abstract class RegisterAllocator {
   /** method being processed */
   protected final SsaMethod ssaMeth;
 
-  /** interference graph, indexed by register in both dimensions */
+  /**
+   * {@code null-ok;} interference graph, indexed by register in both
+   * dimensions, or {@code null} if the allocator does not use one
+   */
   protected final InterferenceGraph interference;
 
   /**
    * Creates an instance. Call {@code allocateRegisters} to run.
    * @param ssaMeth method to process.
    * @param interference Interference graph, indexed by register in both
-   * dimensions.
+   * dimensions, or {@code null} if the allocator does not use one.
    */
   public RegisterAllocator(SsaMethod ssaMeth, InterferenceGraph interference) {
     this.ssaMeth = ssaMeth;
@@ -124,7 +127,7 @@ public abstract class RegisterAllocator {
    * Inserts a move instruction for a specified SSA register before a
    * specified instruction, creating a new SSA register and adjusting the
    * interference graph in the process. The insn currently must be the
-   * last insn in a block.
+   * last insn in a block, and the allocator must use an interference graph.
    *
    * @param insn {@code non-null;} insn to insert move before, must
    * be last insn in block
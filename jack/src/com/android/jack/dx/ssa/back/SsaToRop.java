@@ -51,20 +51,30 @@ public class SsaToRop {
   /** {@code non-null;} method to process */
   private final SsaMethod ssaMeth;
 
-  /** {@code non-null;} interference graph */
+  /**
+   * {@code null-ok;} interference graph, or {@code null} if the register
+   * allocator does not use one
+   */
   private final InterferenceGraph interference;
 
+  /** whether registers are allocated by the {@link LinearScanAllocator} */
+  private final boolean useLinearScanAllocator;
+
   /**
    * Converts a method in SSA form to ROP form.
    *
    * @param ssaMeth {@code non-null;} method to process
    * @param removeRedundantConditionalBranch true if we should optimize unneccesary conditional
    *     branches.
+   * @param useLinearScanAllocator true if registers should be allocated by the faster
+   *     {@link LinearScanAllocator}, at the cost of more registers and moves.
    * @return {@code non-null;} rop-form output
    */
   public static RopMethod convertToRopMethod(
-      SsaMethod ssaMeth, boolean removeRedundantConditionalBranch) {
-    return new SsaToRop(ssaMeth, removeRedundantConditionalBranch).convert();
+      SsaMethod ssaMeth, boolean removeRedundantConditionalBranch,
+      boolean useLinearScanAllocator) {
+    return new SsaToRop(ssaMeth, removeRedundantConditionalBranch, useLinearScanAllocator)
+        .convert();
   }
 
   /**
@@ -74,11 +84,17 @@ public class SsaToRop {
    * attempt to minimize the rop-form register count
    * @param removeRedundantConditionalBranch true if we should optimize unneccesary conditional
    * branches.
+   * @param useLinearScanAllocator true if registers should be allocated by the
+   * {@link LinearScanAllocator}
    */
-  private SsaToRop(SsaMethod ssaMethod, boolean removeRedundantConditionalBranch) {
+  private SsaToRop(SsaMethod ssaMethod, boolean removeRedundantConditionalBranch,
+      boolean useLinearScanAllocator) {
     this.ssaMeth = ssaMethod;
     this.removeRedundantConditionalBranch = removeRedundantConditionalBranch;
-    this.interference = LivenessAnalyzer.constructInterferenceGraph(ssaMethod);
+    this.useLinearScanAllocator = useLinearScanAllocator;
+    // The linear scan allocator computes live intervals instead of an interference graph
+    this.interference =
+        useLinearScanAllocator ? null : LivenessAnalyzer.constructInterferenceGraph(ssaMethod);
   }
 
   /**
@@ -87,7 +103,7 @@ public class SsaToRop {
    * @return {@code non-null;} rop-form output
    */
   private RopMethod convert() {
-    if (DEBUG) {
+    if (DEBUG && interference != null) {
       interference.dumpToStdout();
     }
 
@@ -95,7 +111,12 @@ public class SsaToRop {
     // allocator = new NullRegisterAllocator(ssaMeth, interference);
     // allocator = new FirstFitAllocator(ssaMeth, interference);
 
-    RegisterAllocator allocator = new FirstFitLocalCombiningAllocator(ssaMeth, interference);
+    RegisterAllocator allocator;
+    if (useLinearScanAllocator) {
+      allocator = new LinearScanAllocator(ssaMeth);
+    } else {
+      allocator = new FirstFitLocalCombiningAllocator(ssaMeth, interference);
+    }
 
     RegisterMapper mapper = allocator.allocateRegisters();
 
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.dx.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent table of interned instances, safe to use from several
+ * threads without locking.
+ *
+ * <p>Instances are only weakly held, so that the table does not grow
+ * forever in a long-lived process. An instance stays the unique one for
+ * its key as long as it is reachable, so interned instances may still be
+ * compared with {@code ==}.
+ *
+ * <p>Hits and misses are counted per thread, and are read back with
+ * {@link #takeHitCount} and {@link #takeMissCount} by the same thread.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the interned instances
+ */
+public final class InternTable<K, V> {
+  /** {@code non-null;} map from key to a reference on the interned instance */
+  private final ConcurrentHashMap<K, Entry<K, V>> table;
+
+  /** {@code non-null;} queue of the references whose instance was collected */
+  private final ReferenceQueue<V> collected = new ReferenceQueue<V>();
+
+  /** {@code non-null;} hit and miss counts of the current thread */
+  private final ThreadLocal<Counts> counts = new ThreadLocal<Counts>() {
+    @Override
+    protected Counts initialValue() {
+      return new Counts();
+    }
+  };
+
+  /**
+   * Constructs an instance.
+   *
+   * @param initialCapacity {@code >= 0;} the expected number of instances
+   */
+  public InternTable(int initialCapacity) {
+    table = new ConcurrentHashMap<K, Entry<K, V>>(initialCapacity);
+  }
+
+  /**
+   * Gets the instance interned for the given key.
+   *
+   * @param key {@code non-null;} the key
+   * @return {@code null-ok;} the interned instance, or {@code null} if
+   * there is none
+   */
+  public V get(Object key) {
+    Entry<K, V> entry = table.get(key);
+    V value = (entry == null) ? null : entry.get();
+
+    Counts threadCounts = counts.get();
+    if (value != null) {
+      threadCounts.hits++;
+    } else {
+      threadCounts.misses++;
+    }
+
+    return value;
+  }
+
+  /**
+   * Interns the given instance for the given key if there is no instance
+   * for it yet. If a conflicting instance is already interned, then leave
+   * it. Return the interned instance.
+   *
+   * @param key {@code non-null;} the key, which must not be modified once
+   * interned
+   * @param value {@code non-null;} instance to make interned
+   * @return {@code non-null;} the actual interned instance
+   */
+  public V intern(K key, V value) {
+    expungeCollected();
+
+    Entry<K, V> newEntry = new Entry<K, V>(key, value, collected);
+    for (;;) {
+      Entry<K, V> entry = table.putIfAbsent(key, newEntry);
+      if (entry == null) {
+        return value;
+      }
+
+      V already = entry.get();
+      if (already != null) {
+        return already;
+      }
+
+      // The interned instance was collected, replace it.
+      if (table.replace(key, entry, newEntry)) {
+        return value;
+      }
+    }
+  }
+
+  /**
+   * Gets the number of interned instances that are still reachable.
+   *
+   * @return {@code >= 0;} the size
+   */
+  public int size() {
+    expungeCollected();
+    return table.size();
+  }
+
+  /**
+   * Gets the number of hits of the current thread since the previous call.
+   *
+   * @return {@code >= 0;} the count
+   */
+  public long takeHitCount() {
+    Counts threadCounts = counts.get();
+    long hits = threadCounts.hits;
+    threadCounts.hits = 0;
+    return hits;
+  }
+
+  /**
+   * Gets the number of misses of the current thread since the previous call.
+   *
+   * @return {@code >= 0;} the count
+   */
+  public long takeMissCount() {
+    Counts threadCounts = counts.get();
+    long misses = threadCounts.misses;
+    threadCounts.misses = 0;
+    return misses;
+  }
+
+  /**
+   * Removes the entries whose instance was collected.
+   */
+  private void expungeCollected() {
+    Entry<?, ?> entry;
+    while ((entry = (Entry<?, ?>) collected.poll()) != null) {
+      table.remove(entry.key, entry);
+    }
+  }
+
+  /**
+   * Weak reference on an interned instance, remembering its key to be
+   * removed from the table once the instance is collected.
+   */
+  private static final class Entry<K, V> extends WeakReference<V> {
+    /** {@code non-null;} key of the instance */
+    private final K key;
+
+    private Entry(K key, V value, ReferenceQueue<V> queue) {
+      super(value, queue);
+      this.key = key;
+    }
+  }
+
+  /**
+   * Hit and miss counts of one thread.
+   */
+  private static final class Counts {
+    private long hits;
+
+    private long misses;
+  }
+}
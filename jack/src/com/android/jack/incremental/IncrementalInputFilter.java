@@ -28,6 +28,7 @@ import com.android.jack.analysis.dependency.type.TypeDependencies;
 import com.android.jack.analysis.dependency.type.TypeDependenciesInLibraryWriter;
 import com.android.jack.ir.ast.JSession;
 import com.android.jack.ir.ast.Resource;
+import com.android.jack.jayce.JayceWriterFactory;
 import com.android.jack.library.FileType;
 import com.android.jack.library.FileTypeDoesNotExistException;
 import com.android.jack.library.InputJackLibrary;
@@ -46,8 +47,10 @@ import com.android.jack.reporting.Reporter.Severity;
 import com.android.sched.util.codec.ImplementationName;
 import com.android.sched.util.config.Config;
 import com.android.sched.util.config.HasKeyId;
+import com.android.sched.util.config.MessageDigestFactory;
 import com.android.sched.util.config.ThreadConfig;
 import com.android.sched.util.config.id.BooleanPropertyId;
+import com.android.sched.util.config.id.MessageDigestPropertyId;
 import com.android.sched.util.file.CannotDeleteFileException;
 import com.android.sched.util.file.CannotGetModificationTimeException;
 import com.android.sched.util.file.CannotReadException;
@@ -60,21 +63,32 @@ import com.android.sched.util.log.stats.Counter;
 import com.android.sched.util.log.stats.CounterImpl;
 import com.android.sched.util.log.stats.StatisticId;
 import com.android.sched.vfs.InputVFile;
+import com.android.sched.vfs.MessageDigestFS;
 import com.android.sched.vfs.UnionVFSReadOnlyException;
 import com.android.sched.vfs.VPath;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
@@ -92,6 +106,25 @@ public class IncrementalInputFilter extends CommonFilter implements InputFilter
       .create("jack.incremental.log", "Enable incremental log")
       .addDefaultValue(Boolean.FALSE);
 
+  @Nonnull
+  public static final BooleanPropertyId INCREMENTAL_DIGEST = BooleanPropertyId
+      .create("jack.incremental.digest",
+          "Compare the content digest of source files with a new modification time to the one of"
+          + " the previous compilation before recompiling them")
+      .addDefaultValue(Boolean.FALSE);
+
+  @Nonnull
+  public static final BooleanPropertyId INCREMENTAL_API = BooleanPropertyId
+      .create("jack.incremental.api",
+          "Only recompile the dependencies of modified source files when their API changed")
+      .addDefaultValue(Boolean.FALSE);
+
+  @Nonnull
+  public static final MessageDigestPropertyId INCREMENTAL_DIGEST_ALGO = MessageDigestPropertyId
+      .create("jack.incremental.digest.algo", "Digest algorithm used for source files")
+      .requiredIf(INCREMENTAL_DIGEST.getValue().isTrue().or(INCREMENTAL_API.getValue().isTrue()))
+      .addDefaultValue("SHA");
+
   @Nonnull
   public static final StatisticId<Counter> COMPILED_FILES = new StatisticId<Counter>(
       "jack.incremental.source.compiled", "Source files that will be compile", CounterImpl.class,
@@ -120,6 +153,25 @@ public class IncrementalInputFilter extends CommonFilter implements InputFilter
   "jack.incremental.source", "Source files to compile",
   CounterImpl.class, Counter.class);
 
+  @Nonnull
+  public static final StatisticId<Counter> TOUCHED_FILES = new StatisticId<Counter>(
+  "jack.incremental.source.touched",
+  "Source files with a new modification time but the same content digest",
+  CounterImpl.class, Counter.class);
+
+  @Nonnull
+  public static final StatisticId<Counter> SAME_API_FILES = new StatisticId<Counter>(
+  "jack.incremental.source.same-api",
+  "Modified source files whose API did not change, so that their dependencies are not compiled",
+  CounterImpl.class, Counter.class);
+
+  @Nonnull
+  public static final StatisticId<Counter> DIGESTED_FILES = new StatisticId<Counter>(
+  "jack.incremental.source.digested", "Source files whose content digest was computed",
+  CounterImpl.class, Counter.class);
+
+  private static final int DIGEST_BUFFER_SIZE = 8 * 1024;
+
   @CheckForNull
   private final InputJackLibrary incrementalInputLibrary;
 
@@ -147,6 +199,27 @@ public class IncrementalInputFilter extends CommonFilter implements InputFilter
   @Nonnull
   private final Set<String> modifiedFileNames = new HashSet<String>();
 
+  /**
+   * Digests of the source files computed by this compilation, to be recorded in file
+   * dependencies. Null when source files are not digested.
+   */
+  @CheckForNull
+  private final Map<String, String> sourceDigests;
+
+  /**
+   * API digests of the source files computed by this compilation, to be recorded in file
+   * dependencies. Null when the API of source files is not digested.
+   */
+  @CheckForNull
+  private final Map<String, String> apiDigests;
+
+  /**
+   * Modification times of the source files whose content digest was found unchanged by this
+   * compilation, to be recorded in file dependencies.
+   */
+  @Nonnull
+  private final Map<String, Long> checkedTimes = new HashMap<String, Long>();
+
   @Nonnull
   private final Set<String> filesToRecompiles;
 
@@ -167,6 +240,11 @@ public class IncrementalInputFilter extends CommonFilter implements InputFilter
 
     incrementalInputLibrary = getIncrementalInternalLibrary();
 
+    sourceDigests =
+        config.get(INCREMENTAL_DIGEST).booleanValue() ? new HashMap<String, String>() : null;
+    apiDigests =
+        config.get(INCREMENTAL_API).booleanValue() ? new HashMap<String, String>() : null;
+
     fileNamesOnCmdLine = getJavaFileNamesSpecifiedOnCommandLine(options);
 
     tracer.getStatistic(IncrementalInputFilter.SOURCE_FILES).incValue(fileNamesOnCmdLine.size());
@@ -265,7 +343,19 @@ public class IncrementalInputFilter extends CommonFilter implements InputFilter
     }
 
     if (needFullBuild()) {
-      session.setFileDependencies(new FileDependencies());
+      FileDependencies newFileDependencies = new FileDependencies();
+      if (sourceDigests != null) {
+        List<String> fileNamesToDigest = new ArrayList<String>(fileNamesOnCmdLine);
+        fileNamesToDigest.removeAll(sourceDigests.keySet());
+        computeDigests(fileNamesToDigest, sourceDigests, /* api = */ false);
+      }
+      if (apiDigests != null) {
+        List<String> fileNamesToDigest = new ArrayList<String>(fileNamesOnCmdLine);
+        fileNamesToDigest.removeAll(apiDigests.keySet());
+        computeDigests(fileNamesToDigest, apiDigests, /* api = */ true);
+      }
+      recordDigests(newFileDependencies);
+      session.setFileDependencies(newFileDependencies);
       session.setTypeDependencies(new TypeDependencies());
       importedLibraries = importedLibrariesFromCommandLine;
 
@@ -321,7 +411,7 @@ public class IncrementalInputFilter extends CommonFilter implements InputFilter
     filesToRecompile.addAll(addedFileNames);
     filesToRecompile.addAll(modifiedFileNames);
 
-    addDependencies(filesToRecompile, typeRecompileDependencies, modifiedFileNames);
+    addDependencies(filesToRecompile, typeRecompileDependencies, getApiModifiedFileNames());
     addDependencies(filesToRecompile, typeRecompileDependencies, deletedFileNames);
 
     tracer.getStatistic(IncrementalInputFilter.COMPILED_FILES).incValue(filesToRecompile.size());
@@ -329,6 +419,33 @@ public class IncrementalInputFilter extends CommonFilter implements InputFilter
     return filesToRecompile;
   }
 
+  /*
+   * Modified files whose API may have changed, that is all modified files unless API digests are
+   * enabled. The API digest of added files is also computed so that it can be recorded.
+   */
+  @Nonnull
+  private Set<String> getApiModifiedFileNames() {
+    if (apiDigests == null) {
+      return modifiedFileNames;
+    }
+
+    List<String> fileNamesToDigest = new ArrayList<String>(modifiedFileNames);
+    fileNamesToDigest.addAll(addedFileNames);
+    computeDigests(fileNamesToDigest, apiDigests, /* api = */ true);
+
+    Set<String> apiModifiedFileNames = new HashSet<String>();
+    for (String javaFileName : modifiedFileNames) {
+      String previousDigest = fileDependencies.getApiDigest(javaFileName);
+      if (previousDigest != null && previousDigest.equals(apiDigests.get(javaFileName))) {
+        tracer.getStatistic(IncrementalInputFilter.SAME_API_FILES).incValue();
+      } else {
+        apiModifiedFileNames.add(javaFileName);
+      }
+    }
+
+    return apiModifiedFileNames;
+  }
+
   private void addDependencies(@Nonnull Set<String> filesToRecompile,
       @Nonnull Map<String, Set<String>> typeRecompileDependencies, @Nonnull Set<String> fileNames) {
     for (String fileName : fileNames) {
@@ -352,6 +469,7 @@ public class IncrementalInputFilter extends CommonFilter implements InputFilter
 
       typeDependencies.update(fileDependencies, deletedFileNames, modifiedFileNames);
       fileDependencies.update(deletedFileNames, modifiedFileNames);
+      recordDigests(fileDependencies);
 
       OutputJackLibrary outputLibrary = Jack.getSession().getJackOutputLibrary();
       FileDependenciesInLibraryWriter.write(outputLibrary, fileDependencies);
@@ -406,13 +524,27 @@ public class IncrementalInputFilter extends CommonFilter implements InputFilter
 
   /*
    * A full build is needed when an imported library was modified or when a library from classpath
-   * was modified or that the library representing incremental state does not exists.
+   * was modified or that the library representing incremental state does not exists, or when its
+   * Jayce files do not have the version of the Jayce files to write.
    */
   private boolean needFullBuild() {
     JSession session = Jack.getSession();
     return incrementalInputLibrary == null ||
         !libraryDependencies.hasSameLibraryOnClasspath(session.getLibraryDependencies())
-        || !libraryDependencies.hasSameImportedLibrary(session.getLibraryDependencies());
+        || !libraryDependencies.hasSameImportedLibrary(session.getLibraryDependencies())
+        || !hasWrittenJayceVersion(incrementalInputLibrary);
+  }
+
+  private static boolean hasWrittenJayceVersion(@Nonnull InputJackLibrary library) {
+    if (!library.containsFileType(FileType.JAYCE)) {
+      return true;
+    }
+    try {
+      return library.getJayceMajorVersion()
+          == ThreadConfig.get(JayceWriterFactory.MAJOR_VERSION).intValue();
+    } catch (LibraryFormatException e) {
+      return false;
+    }
   }
 
   @Nonnull
@@ -462,11 +594,20 @@ public class IncrementalInputFilter extends CommonFilter implements InputFilter
     tracer.getStatistic(IncrementalInputFilter.ADDED_FILES).incValue(addedFileNames.size());
   }
 
+  /*
+   * A file is modified when one of its dex files is missing or older than the file. When digests
+   * are enabled, a file only newer than its dex files is still considered as unmodified if the
+   * digest of its content did not change since it was compiled. Its modification time is then
+   * recorded, so that it is not digested again until it is touched again.
+   */
   @Nonnull
   private void fillModifiedFileNames(@Nonnull Set<String> modifiedFileNames) {
     assert fileDependencies != null;
     assert incrementalInputLibrary != null;
 
+    // Modification times of the files newer than their dex files
+    Map<String, Long> touchedFileTimes = new HashMap<String, Long>();
+
     for (String javaFileName : fileDependencies.getCompiledJavaFiles()) {
       if (fileNamesOnCmdLine.contains(javaFileName)) {
         File javaFile = new File(javaFileName);
@@ -479,9 +620,13 @@ public class IncrementalInputFilter extends CommonFilter implements InputFilter
           }
           try {
             try {
-              if (dexFile == null || ((Files.getLastModifiedTime(javaFile.toPath())
-                  .compareTo(dexFile.getLastModified()) > 0))) {
+              if (dexFile == null) {
                 modifiedFileNames.add(javaFileName);
+              } else {
+                FileTime javaFileTime = Files.getLastModifiedTime(javaFile.toPath());
+                if (javaFileTime.compareTo(dexFile.getLastModified()) > 0) {
+                  touchedFileTimes.put(javaFileName, Long.valueOf(javaFileTime.toMillis()));
+                }
               }
             } catch (IOException e) {
               throw new CannotReadException(new FileLocation(javaFile), e);
@@ -496,9 +641,151 @@ public class IncrementalInputFilter extends CommonFilter implements InputFilter
       }
     }
 
+    if (sourceDigests == null) {
+      modifiedFileNames.addAll(touchedFileTimes.keySet());
+    } else {
+      List<String> fileNamesToDigest = new ArrayList<String>(touchedFileTimes.size());
+      for (Map.Entry<String, Long> entry : touchedFileTimes.entrySet()) {
+        String javaFileName = entry.getKey();
+        if (!modifiedFileNames.contains(javaFileName)
+            && !entry.getValue().equals(fileDependencies.getCheckedTime(javaFileName))) {
+          fileNamesToDigest.add(javaFileName);
+        }
+      }
+      fileNamesToDigest.addAll(addedFileNames);
+      computeDigests(fileNamesToDigest, sourceDigests, /* api = */ false);
+
+      for (Map.Entry<String, Long> entry : touchedFileTimes.entrySet()) {
+        String javaFileName = entry.getKey();
+        if (modifiedFileNames.contains(javaFileName)) {
+          continue;
+        }
+        if (entry.getValue().equals(fileDependencies.getCheckedTime(javaFileName))) {
+          // Already found unchanged by a previous compilation
+          tracer.getStatistic(IncrementalInputFilter.TOUCHED_FILES).incValue();
+          continue;
+        }
+        String previousDigest = fileDependencies.getDigest(javaFileName);
+        if (previousDigest != null && previousDigest.equals(sourceDigests.get(javaFileName))) {
+          tracer.getStatistic(IncrementalInputFilter.TOUCHED_FILES).incValue();
+          checkedTimes.put(javaFileName, entry.getValue());
+        } else {
+          modifiedFileNames.add(javaFileName);
+        }
+      }
+    }
+
     tracer.getStatistic(IncrementalInputFilter.MODIFIED_FILES).incValue(modifiedFileNames.size());
   }
 
+  /*
+   * Computes in parallel the content or API digests of files. Files whose API can not be digested
+   * are left out of the digests.
+   */
+  private void computeDigests(@Nonnull List<String> javaFileNames,
+      @Nonnull Map<String, String> digests, final boolean api) {
+    if (javaFileNames.isEmpty()) {
+      return;
+    }
+
+    tracer.getStatistic(IncrementalInputFilter.DIGESTED_FILES).incValue(javaFileNames.size());
+
+    final MessageDigestFactory digestFactory = ThreadConfig.get(INCREMENTAL_DIGEST_ALGO);
+    int threadCount = Math.min(Runtime.getRuntime().availableProcessors(), javaFileNames.size());
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    try {
+      List<Future<String>> futures = new ArrayList<Future<String>>(javaFileNames.size());
+      for (final String javaFileName : javaFileNames) {
+        futures.add(executor.submit(new Callable<String>() {
+          @Override
+          @CheckForNull
+          public String call() throws IOException {
+            File javaFile = new File(javaFileName);
+            return api ? computeApiDigest(digestFactory, javaFile)
+                : computeDigest(digestFactory, javaFile);
+          }
+        }));
+      }
+
+      Iterator<Future<String>> futureIt = futures.iterator();
+      for (String javaFileName : javaFileNames) {
+        String digest = getDigest(new File(javaFileName), futureIt.next());
+        if (digest != null) {
+          digests.put(javaFileName, digest);
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Nonnull
+  private static String computeDigest(@Nonnull MessageDigestFactory digestFactory,
+      @Nonnull File javaFile) throws IOException {
+    MessageDigest md = digestFactory.create();
+    byte[] buffer = new byte[DIGEST_BUFFER_SIZE];
+    try (InputStream is = new FileInputStream(javaFile)) {
+      int count;
+      while ((count = is.read(buffer)) != -1) {
+        md.update(buffer, 0, count);
+      }
+    }
+    return MessageDigestFS.getDigestString(digestFactory, md.digest());
+  }
+
+  @CheckForNull
+  private static String computeApiDigest(@Nonnull MessageDigestFactory digestFactory,
+      @Nonnull File javaFile) throws IOException {
+    return SourceApiDigester.getDigest(digestFactory, Files.readAllBytes(javaFile.toPath()));
+  }
+
+  @CheckForNull
+  private static String getDigest(@Nonnull File javaFile, @Nonnull Future<String> digest) {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return digest.get();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        ReportableIOException reportable = new ReportableIOException("Computing incremental state",
+            new CannotReadException(new FileLocation(javaFile), cause));
+        Jack.getSession().getReporter().report(Severity.FATAL, reportable);
+        throw new JackAbortException(reportable);
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new AssertionError(cause);
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void recordDigests(@Nonnull FileDependencies dependencies) {
+    if (sourceDigests != null) {
+      for (Map.Entry<String, String> entry : sourceDigests.entrySet()) {
+        dependencies.setDigest(entry.getKey(), entry.getValue());
+      }
+    }
+    if (apiDigests != null) {
+      for (Map.Entry<String, String> entry : apiDigests.entrySet()) {
+        dependencies.setApiDigest(entry.getKey(), entry.getValue());
+      }
+    }
+    for (Map.Entry<String, Long> entry : checkedTimes.entrySet()) {
+      dependencies.setCheckedTime(entry.getKey(), entry.getValue().longValue());
+    }
+  }
+
 
   @Nonnull
   private void fillDeletedFileNames(@Nonnull Set<String> deletedFileNames) {
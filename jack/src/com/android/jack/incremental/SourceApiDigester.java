@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.incremental;
+
+import com.android.sched.util.config.MessageDigestFactory;
+import com.android.sched.vfs.MessageDigestFS;
+
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Computes a digest of the API of a java source file, that is of its content without comments,
+ * layout, and bodies of methods, constructors and initializer blocks. Everything that other files
+ * can depend on is kept: imports, type declarations and hierarchy, annotations, member signatures,
+ * field initializers and annotation default values.
+ *
+ * <p>The source is only split into tokens, it is not parsed. When something is not understood,
+ * for instance unbalanced braces or unicode escapes outside of literals, no digest is computed and
+ * the API must be considered as changed.
+ */
+class SourceApiDigester {
+  private enum Kind {
+    /** Compilation unit, before any type */
+    UNIT,
+    /** Body of a type, whose members are kept */
+    TYPE,
+    /** Braces inside of a member header or a field initializer, kept as is */
+    KEPT
+  }
+
+  private static class Frame {
+    @Nonnull
+    private final Kind kind;
+
+    /** For an enum body, whether enum constants are still being declared */
+    private boolean inEnumConstants;
+
+    @Nonnegative
+    private int parenDepth = 0;
+
+    private boolean memberHasAssignment;
+    private boolean memberHasTypeKeyword;
+    private boolean memberIsEnum;
+    private boolean memberHasDefaultValue;
+
+    Frame(@Nonnull Kind kind) {
+      this.kind = kind;
+    }
+
+    void startMember() {
+      memberHasAssignment = false;
+      memberHasTypeKeyword = false;
+      memberIsEnum = false;
+      memberHasDefaultValue = false;
+    }
+  }
+
+  @Nonnull
+  private final MessageDigest md;
+
+  @Nonnull
+  private final MessageDigestFactory factory;
+
+  @Nonnull
+  private final byte[] content;
+
+  /** Position in the content, negative once the content could not be split into tokens */
+  private int position = 0;
+
+  @Nonnull
+  private final Deque<Frame> frames = new ArrayDeque<Frame>();
+
+  @CheckForNull
+  private String previousToken;
+
+  private SourceApiDigester(@Nonnull MessageDigestFactory factory, @Nonnull byte[] content) {
+    this.factory = factory;
+    this.md = factory.create();
+    this.content = content;
+  }
+
+  /**
+   * Returns the API digest of a java source file, or null if the file can not be handled.
+   */
+  @CheckForNull
+  static String getDigest(@Nonnull MessageDigestFactory factory, @Nonnull byte[] content) {
+    return new SourceApiDigester(factory, content).digest();
+  }
+
+  @CheckForNull
+  private String digest() {
+    frames.push(new Frame(Kind.UNIT));
+
+    // Depth of braces of the body being removed
+    int removedDepth = 0;
+
+    String token;
+    while ((token = nextToken()) != null) {
+      if (removedDepth > 0) {
+        if (token.equals("{")) {
+          removedDepth++;
+        } else if (token.equals("}")) {
+          removedDepth--;
+          if (removedDepth == 0) {
+            emit(token);
+          }
+        }
+        continue;
+      }
+
+      Frame frame = frames.peek();
+      if (frame.kind == Kind.KEPT) {
+        if (token.equals("{")) {
+          frames.push(new Frame(Kind.KEPT));
+        } else if (token.equals("}")) {
+          frames.pop();
+        }
+        emit(token);
+        continue;
+      }
+
+      if (token.equals("(")) {
+        frame.parenDepth++;
+      } else if (token.equals(")")) {
+        if (frame.parenDepth == 0) {
+          return null;
+        }
+        frame.parenDepth--;
+      } else if (token.equals("{")) {
+        if (frame.parenDepth > 0) {
+          // Array in an annotation, or anonymous class in an enum constant argument
+          frames.push(new Frame(Kind.KEPT));
+        } else if (frame.kind == Kind.UNIT || frame.memberHasTypeKeyword) {
+          Frame type = new Frame(Kind.TYPE);
+          type.inEnumConstants = frame.memberIsEnum;
+          type.startMember();
+          frames.push(type);
+        } else if (frame.inEnumConstants) {
+          // Body of an enum constant
+          Frame type = new Frame(Kind.TYPE);
+          type.startMember();
+          frames.push(type);
+        } else if (frame.memberHasAssignment || frame.memberHasDefaultValue) {
+          frames.push(new Frame(Kind.KEPT));
+        } else {
+          removedDepth = 1;
+        }
+      } else if (token.equals("}")) {
+        if (frame.parenDepth > 0 || frame.kind == Kind.UNIT) {
+          return null;
+        }
+        frames.pop();
+        frames.peek().startMember();
+      } else if (frame.parenDepth == 0) {
+        if (token.equals(";")) {
+          frame.startMember();
+          frame.inEnumConstants = false;
+        } else if (token.equals("=")) {
+          frame.memberHasAssignment = true;
+        } else if (token.equals("default") && ")".equals(previousToken)) {
+          frame.memberHasDefaultValue = true;
+        } else if ((token.equals("class") || token.equals("interface") || token.equals("enum"))
+            && !".".equals(previousToken)) {
+          frame.memberHasTypeKeyword = true;
+          frame.memberIsEnum = token.equals("enum");
+        }
+      }
+
+      emit(token);
+    }
+
+    if (position < 0 || removedDepth != 0 || frames.size() != 1
+        || frames.peek().parenDepth != 0) {
+      return null;
+    }
+
+    return MessageDigestFS.getDigestString(factory, md.digest());
+  }
+
+  private void emit(@Nonnull String token) {
+    for (int idx = 0; idx < token.length(); idx++) {
+      md.update((byte) token.charAt(idx));
+    }
+    md.update((byte) ' ');
+    previousToken = token;
+  }
+
+  /**
+   * Returns the next token, or null at the end of the content or if the content can not be
+   * split into tokens, in which case {@code position} is negative.
+   */
+  @CheckForNull
+  private String nextToken() {
+    while (position < content.length) {
+      int start = position;
+      char c = charAt(position);
+
+      if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f') {
+        position++;
+      } else if (c == '/' && charAt(position + 1) == '/') {
+        while (position < content.length && charAt(position) != '\n') {
+          position++;
+        }
+      } else if (c == '/' && charAt(position + 1) == '*') {
+        position += 2;
+        while (!(charAt(position) == '*' && charAt(position + 1) == '/')) {
+          if (position >= content.length) {
+            return fail();
+          }
+          position++;
+        }
+        position += 2;
+      } else if (c == '"' || c == '\'') {
+        position++;
+        while (charAt(position) != c) {
+          if (position >= content.length || charAt(position) == '\n') {
+            return fail();
+          }
+          if (charAt(position) == '\\') {
+            position++;
+          }
+          position++;
+        }
+        position++;
+        return getString(start);
+      } else if (c == '\\') {
+        // Unicode escapes could hide anything
+        return fail();
+      } else if (isWordPart(c)) {
+        while (position < content.length && isWordPart(charAt(position))) {
+          position++;
+        }
+        return getString(start);
+      } else {
+        position++;
+        return String.valueOf(c);
+      }
+    }
+
+    return null;
+  }
+
+  @CheckForNull
+  private String fail() {
+    position = -1;
+    return null;
+  }
+
+  private char charAt(@Nonnegative int index) {
+    // Bytes are read as ISO-8859-1, which is enough for the ASCII tokens that are looked for
+    return index < content.length ? (char) (content[index] & 0xFF) : '\0';
+  }
+
+  private static boolean isWordPart(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_'
+        || c == '$' || c >= 0x80;
+  }
+
+  @Nonnull
+  private String getString(@Nonnegative int start) {
+    StringBuilder sb = new StringBuilder(position - start);
+    for (int idx = start; idx < position; idx++) {
+      sb.append(charAt(idx));
+    }
+    return sb.toString();
+  }
+}
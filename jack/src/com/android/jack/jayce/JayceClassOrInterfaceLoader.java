@@ -110,6 +110,11 @@ public class JayceClassOrInterfaceLoader implements ClassOrInterfaceLoader, HasI
       "jack.nnode-to-jnode.structure", "NDeclaredType loaded in a JNode at structure level",
           CounterImpl.class, Counter.class);
 
+  @Nonnull
+  private static final StatisticId<Counter> NNODE_METHOD_READ = new StatisticId<Counter>(
+      "jack.jayce-to-nnode.method", "Method read alone from a jayce file",
+      CounterImpl.class, Counter.class);
+
   private static class NNodeId {
     @CheckForNull
     private final String digest;
@@ -212,6 +217,19 @@ public class JayceClassOrInterfaceLoader implements ClassOrInterfaceLoader, HasI
   @Nonnull
   private final NNodeId id;
 
+  /**
+   * Reader used to read methods alone. It holds the content of the jayce file, so that it is read
+   * only once whatever the count of methods read.
+   */
+  @Nonnull
+  private Reference<RandomAccessJayceInternalReader> methodReader =
+      new SoftReference<RandomAccessJayceInternalReader>(null);
+
+  private boolean methodReaderSupported = true;
+
+  @Nonnull
+  private final Object methodReaderLock = new Object();
+
   @Nonnull
   final Tracer tracer = TracerFactory.getTracer();
 
@@ -398,14 +416,7 @@ public class JayceClassOrInterfaceLoader implements ClassOrInterfaceLoader, HasI
             "Library " + inputJackLibrary.getLocation().getDescription() + " is invalid", e);
         throw new LibraryFormatException(inputJackLibrary.getLocation());
       } finally {
-        try {
-          if (in != null) {
-            in.close();
-          }
-        } catch (IOException e) {
-          logger.log(Level.WARNING,
-              "Failed to close input stream on " + source.getLocation().getDescription(), e);
-        }
+        closeSource(in);
       }
       tracer.getStatistic(NNODE_REREAD).add(nnodeReadCount > 0);
       nnodeReadCount++;
@@ -413,6 +424,76 @@ public class JayceClassOrInterfaceLoader implements ClassOrInterfaceLoader, HasI
     return candidate;
   }
 
+  /**
+   * Get the node of a method. When the type is not already available at the required level and
+   * would not be loaded with the whole type at this level by default, the method is read alone if
+   * the jayce file allows it.
+   */
+  @Nonnull
+  MethodNode getMethodNode(@Nonnull String methodId, @Nonnull NodeLevel minimumLevel)
+      throws LibraryFormatException, LibraryIOException {
+    if (!defaultLoadLevel.keep(minimumLevel)) {
+      DeclaredTypeNode candidate = id.isCachable() ? cache.getIfPresent(id) : nnode.get();
+      if (candidate == null || !candidate.getLevel().keep(minimumLevel)) {
+        MethodNode methodNode = readMethodNode(methodId, minimumLevel);
+        if (methodNode != null) {
+          return methodNode;
+        }
+      }
+    }
+    return getNNode(minimumLevel).getMethodNode(methodId);
+  }
+
+  @CheckForNull
+  private MethodNode readMethodNode(@Nonnull String methodId, @Nonnull NodeLevel minimumLevel)
+      throws LibraryFormatException, LibraryIOException {
+    synchronized (methodReaderLock) {
+      if (!methodReaderSupported) {
+        return null;
+      }
+
+      InputStream in = null;
+      try {
+        RandomAccessJayceInternalReader reader = methodReader.get();
+        if (reader == null) {
+          in = new BufferedInputStream(source.getInputStream());
+          JayceInternalReader jayceReader = JayceReaderFactory.get(inputJackLibrary, in);
+          if (!(jayceReader instanceof RandomAccessJayceInternalReader)) {
+            methodReaderSupported = false;
+            return null;
+          }
+          reader = (RandomAccessJayceInternalReader) jayceReader;
+          methodReader = new SoftReference<RandomAccessJayceInternalReader>(reader);
+        }
+
+        MethodNode methodNode = reader.readMethod(methodId, minimumLevel);
+        if (methodNode != null) {
+          tracer.getStatistic(NNODE_METHOD_READ).incValue();
+        }
+        return methodNode;
+      } catch (IOException | WrongPermissionException e) {
+        throw new LibraryIOException(inputJackLibrary.getLocation(), e);
+      } catch (JayceFormatException e) {
+        logger.log(Level.SEVERE,
+            "Library " + inputJackLibrary.getLocation().getDescription() + " is invalid", e);
+        throw new LibraryFormatException(inputJackLibrary.getLocation());
+      } finally {
+        closeSource(in);
+      }
+    }
+  }
+
+  private void closeSource(@CheckForNull InputStream in) {
+    try {
+      if (in != null) {
+        in.close();
+      }
+    } catch (IOException e) {
+      logger.log(Level.WARNING,
+          "Failed to close input stream on " + source.getLocation().getDescription(), e);
+    }
+  }
+
   private void ensureStructure(@Nonnull JDefinedClassOrInterface loaded) {
     synchronized (this) {
       if (!structureLoaded) {
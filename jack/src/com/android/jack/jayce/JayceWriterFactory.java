@@ -16,9 +16,11 @@
 
 package com.android.jack.jayce;
 
-import com.android.jack.jayce.v0004.io.JayceInternalWriterImpl;
 import com.android.jack.library.FileType;
 import com.android.jack.library.OutputJackLibrary;
+import com.android.sched.util.config.HasKeyId;
+import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.config.id.IntegerPropertyId;
 
 import java.io.OutputStream;
 
@@ -27,20 +29,35 @@ import javax.annotation.Nonnull;
 /**
  * {@link JayceInternalWriter} Factory.
  */
+@HasKeyId
 public abstract class JayceWriterFactory {
 
   public static final int DEFAULT_MAJOR_VERSION = 4;
 
+  @Nonnull
+  public static final IntegerPropertyId MAJOR_VERSION = IntegerPropertyId
+      .create("jack.jayce.version",
+          "Major version of the Jayce files written in libraries. Version 5 adds a constant pool"
+          + " and a method index allowing to read a method alone")
+      .withMin(4).withMax(5).addDefaultValue(DEFAULT_MAJOR_VERSION);
+
   @Nonnull
   public static JayceInternalWriter get(@Nonnull OutputJackLibrary outputJackLibrary,
       @Nonnull OutputStream out) {
-    JayceInternalWriterImpl jayceWriter = new JayceInternalWriterImpl(out);
+    int majorVersion = ThreadConfig.get(MAJOR_VERSION).intValue();
+    JayceInternalWriter jayceWriter;
+    if (majorVersion == 5) {
+      jayceWriter = new com.android.jack.jayce.v0005.io.JayceInternalWriterImpl(out);
+    } else {
+      assert majorVersion == 4;
+      jayceWriter = new com.android.jack.jayce.v0004.io.JayceInternalWriterImpl(out);
+    }
 
     outputJackLibrary.putProperty(
         outputJackLibrary.buildPropertyName(FileType.JAYCE, null /* suffix */),
         String.valueOf(true));
     outputJackLibrary.putProperty(outputJackLibrary.keyJayceMajorVersion,
-        String.valueOf(DEFAULT_MAJOR_VERSION));
+        String.valueOf(majorVersion));
     outputJackLibrary.putProperty(outputJackLibrary.keyJayceMinorVersion,
         String.valueOf(jayceWriter.getCurrentMinor()));
 
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.jayce;
+
+import java.io.IOException;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Jayce internal reader able to read a method without reading the rest of its type.
+ */
+public interface RandomAccessJayceInternalReader extends JayceInternalReader {
+
+  /**
+   * Reads a method of the type. Once this method returned, the reader must no longer need its
+   * input stream, since the stream may be closed while the reader is kept to read other methods.
+   * @param methodId id of the method, as given to the {@link JayceMethodLoader}
+   * @return the method, or null if the method can not be read alone
+   */
+  @CheckForNull
+  MethodNode readMethod(@Nonnull String methodId, @Nonnull NodeLevel nodeLevel)
+      throws IOException, JayceFormatException;
+
+}
@@ -16,70 +16,156 @@
 
 package com.android.jack.jayce.v0004.io;
 
+import com.android.jack.ir.StringInterner;
 import com.android.jack.util.StringUtils;
 
 import java.io.DataInput;
-import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 /**
- * This class extends {@code DataInputStream} to add uleb128 support for int and long.
+ * This class implements {@code DataInput} with uleb128 support for int and long. The stream is
+ * read into a byte buffer as needed and decoded from there. Strings are decoded once per file
+ * thanks to a string table keyed by their UTF-8 bytes, and are interned into
+ * {@link StringInterner}.
  */
 class JayceInputStream implements DataInput {
+  private static final int MIN_BUFFER_SIZE = 1024;
+
+  private static final int INITIAL_STRING_TABLE_SIZE = 256;
+
+  @Nonnull
+  private static final byte[] EMPTY = new byte[0];
+
+  @CheckForNull
+  private InputStream in;
+
+  @Nonnull
+  private byte[] buffer = EMPTY;
+
+  @Nonnegative
+  private int position = 0;
+
+  @Nonnegative
+  private int limit = 0;
+
+  @Nonnull
+  private char[] chars = new char[64];
+
+  /** Open addressing table of strings, keyed by the range of their bytes in the buffer. */
+  @Nonnull
+  private String[] strings = new String[INITIAL_STRING_TABLE_SIZE];
+
+  @Nonnull
+  private int[] stringStarts = new int[INITIAL_STRING_TABLE_SIZE];
 
   @Nonnull
-  private final DataInputStream in;
+  private int[] stringLengths = new int[INITIAL_STRING_TABLE_SIZE];
+
+  @Nonnegative
+  private int stringCount = 0;
 
-  public JayceInputStream(InputStream in) {
-    this.in = new DataInputStream(in);
+  public JayceInputStream(@Nonnull InputStream in) {
+    this.in = in;
+  }
+
+  private void require(@Nonnegative int count) throws IOException {
+    if (limit - position < count) {
+      load(position + count);
+      if (limit - position < count) {
+        throw new EOFException();
+      }
+    }
+  }
+
+  /**
+   * Reads the stream until the given offset, or until its end. Bytes are kept once read, so that
+   * strings can be located by their offset. The stream is read by chunks, so that a reader
+   * stopping early, e.g. for {@link com.android.jack.jayce.NodeLevel#TYPES}, does not read the
+   * rest of it.
+   */
+  private void load(@Nonnegative int end) throws IOException {
+    InputStream stream = in;
+    while (stream != null && limit < end) {
+      if (limit == buffer.length) {
+        buffer = Arrays.copyOf(buffer,
+            Math.max(Math.max(MIN_BUFFER_SIZE, end), buffer.length * 2));
+      }
+      int read = stream.read(buffer, limit, buffer.length - limit);
+      if (read == -1) {
+        in = null;
+        stream = null;
+      } else {
+        limit += read;
+      }
+    }
   }
 
   @Override
   public void readFully(byte[] b) throws IOException {
-    in.readFully(b);
+    readFully(b, 0, b.length);
   }
 
   @Override
   public void readFully(byte[] b, int off, int len) throws IOException {
-    in.readFully(b, off, len);
+    require(len);
+    System.arraycopy(buffer, position, b, off, len);
+    position += len;
   }
 
   @Override
   public int skipBytes(int n) throws IOException {
-    return in.skipBytes(n);
+    if (n <= 0) {
+      return 0;
+    }
+    if (limit - position < n) {
+      load(position + n);
+    }
+    int count = Math.min(n, limit - position);
+    position += count;
+    return count;
   }
 
   @Override
   public boolean readBoolean() throws IOException {
-    return in.readBoolean();
+    return readByte() != 0;
   }
 
   @Override
   public byte readByte() throws IOException {
-    return in.readByte();
+    if (position == limit) {
+      require(1);
+    }
+    return buffer[position++];
   }
 
   @Override
   public int readUnsignedByte() throws IOException {
-    return in.readUnsignedByte();
+    return readByte() & 0xff;
   }
 
   @Override
   public short readShort() throws IOException {
-    return in.readShort();
+    return (short) readUnsignedShort();
   }
 
   @Override
   public int readUnsignedShort() throws IOException {
-    return in.readUnsignedShort();
+    require(2);
+    int value = ((buffer[position] & 0xff) << 8) | (buffer[position + 1] & 0xff);
+    position += 2;
+    return value;
   }
 
   @Override
   public char readChar() throws IOException {
-    return in.readChar();
+    return (char) readUnsignedShort();
   }
 
   @Override
@@ -136,36 +222,149 @@ class JayceInputStream implements DataInput {
 
   @Override
   public float readFloat() throws IOException {
-    return in.readFloat();
+    return Float.intBitsToFloat(readFixedInt());
   }
 
   @Override
   public double readDouble() throws IOException {
-    return in.readDouble();
+    return Double.longBitsToDouble(((long) readFixedInt() << 32) | (readFixedInt() & 0xffffffffL));
+  }
+
+  private int readFixedInt() throws IOException {
+    require(4);
+    int value = ((buffer[position] & 0xff) << 24) | ((buffer[position + 1] & 0xff) << 16)
+        | ((buffer[position + 2] & 0xff) << 8) | (buffer[position + 3] & 0xff);
+    position += 4;
+    return value;
   }
 
+  /**
+   * Reads a line as specified by {@link DataInput#readLine()}, each byte being a character.
+   */
   @Deprecated
   @Override
+  @CheckForNull
   public String readLine() throws IOException {
-    return in.readLine();
+    if (!hasRemaining()) {
+      return null;
+    }
+
+    StringBuilder line = new StringBuilder();
+    while (hasRemaining()) {
+      char c = (char) (buffer[position++] & 0xff);
+      if (c == '\n') {
+        break;
+      }
+      if (c == '\r') {
+        if (hasRemaining() && buffer[position] == '\n') {
+          position++;
+        }
+        break;
+      }
+      line.append(c);
+    }
+    return line.toString();
+  }
+
+  private boolean hasRemaining() throws IOException {
+    if (position == limit) {
+      load(limit + 1);
+    }
+    return position < limit;
   }
 
   @Override
+  @CheckForNull
   public String readUTF() throws IOException {
     int length = readInt();
 
     if (length == -1) {
       return null;
     }
-    byte[] utf8String = new byte[length];
-    in.readFully(utf8String);
+    require(length);
+    int start = position;
+    position += length;
+
+    return getString(start, length);
+  }
+
+  @Nonnull
+  private String getString(@Nonnegative int start, @Nonnegative int length) throws IOException {
+    int mask = strings.length - 1;
+    int slot = hash(start, length) & mask;
+    String string;
+    while ((string = strings[slot]) != null) {
+      if (stringLengths[slot] == length && equalBytes(stringStarts[slot], start, length)) {
+        return string;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    if (chars.length < length) {
+      chars = new char[Math.max(length, chars.length * 2)];
+    }
     try {
-      return StringUtils.utf8BytesToString(utf8String);
+      int count = StringUtils.utf8BytesToChars(buffer, start, length, chars);
+      string = StringInterner.get().intern(new String(chars, 0, count));
     } catch (java.text.ParseException e) {
       throw new ParseException(e);
     }
+
+    strings[slot] = string;
+    stringStarts[slot] = start;
+    stringLengths[slot] = length;
+    if (++stringCount * 2 > strings.length) {
+      growStringTable();
+    }
+
+    return string;
+  }
+
+  private int hash(@Nonnegative int start, @Nonnegative int length) {
+    int hash = length;
+    for (int i = start, end = start + length; i < end; i++) {
+      hash = 31 * hash + buffer[i];
+    }
+    return hash;
+  }
+
+  private boolean equalBytes(@Nonnegative int start1, @Nonnegative int start2,
+      @Nonnegative int length) {
+    for (int i = 0; i < length; i++) {
+      if (buffer[start1 + i] != buffer[start2 + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void growStringTable() {
+    String[] oldStrings = strings;
+    int[] oldStarts = stringStarts;
+    int[] oldLengths = stringLengths;
+
+    int size = oldStrings.length * 2;
+    int mask = size - 1;
+    strings = new String[size];
+    stringStarts = new int[size];
+    stringLengths = new int[size];
+
+    for (int i = 0; i < oldStrings.length; i++) {
+      if (oldStrings[i] != null) {
+        int start = oldStarts[i];
+        int length = oldLengths[i];
+        int slot = hash(start, length) & mask;
+        while (strings[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        strings[slot] = oldStrings[i];
+        stringStarts[slot] = start;
+        stringLengths[slot] = length;
+      }
+    }
   }
 
+  @CheckForNull
   public byte[] readBuffer() throws IOException {
     int length = readInt();
 
@@ -173,7 +372,7 @@ class JayceInputStream implements DataInput {
       return null;
     }
     byte[] b = new byte[length];
-    in.readFully(b);
+    readFully(b);
 
     return b;
   }
@@ -48,6 +48,7 @@ import com.android.sched.util.log.stats.StatisticId;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javax.annotation.CheckForNull;
@@ -85,6 +86,13 @@ public class JayceInternalReaderImpl implements JayceInternalReader {
   @Nonnull
   private final List<String> currentCatchBlockList = new ArrayList<String>();
 
+  /**
+   * Unmodifiable copy of {@link #currentCatchBlockList} shared by nodes, or null if it must be
+   * computed again.
+   */
+  @CheckForNull
+  private List<String> currentCatchBlockIds = Collections.emptyList();
+
   @Nonnull
   private final Tracer tracer = TracerFactory.getTracer();
 
@@ -167,9 +175,14 @@ public class JayceInternalReaderImpl implements JayceInternalReader {
   public List<String> readIds() throws IOException {
     tokenizer.readOpen();
     int length = readInt();
-    List<String> ids = new ArrayList<String>(length);
-    for (int i = 0; i < length; i++) {
-      ids.add(readId());
+    List<String> ids;
+    if (length == 0) {
+      ids = Collections.emptyList();
+    } else {
+      ids = new ArrayList<String>(length);
+      for (int i = 0; i < length; i++) {
+        ids.add(readId());
+      }
     }
     tokenizer.readClose();
     return ids;
@@ -181,6 +194,7 @@ public class JayceInternalReaderImpl implements JayceInternalReader {
       for (int i = 0; i < length; i++) {
         String id = readId();
         currentCatchBlockList.add(id);
+        currentCatchBlockIds = null;
         assert currentCatchBlockList.indexOf(id) == currentCatchBlockList.lastIndexOf(id);
       }
       tokenizer.readCloseCatchBlockId();
@@ -190,6 +204,7 @@ public class JayceInternalReaderImpl implements JayceInternalReader {
       for (int i = 0; i < length; i++) {
         String id = readId();
         currentCatchBlockList.remove(id);
+        currentCatchBlockIds = null;
         assert !currentCatchBlockList.contains(id);
       }
       tokenizer.readCloseCatchBlockId();
@@ -232,7 +247,11 @@ public class JayceInternalReaderImpl implements JayceInternalReader {
     }
 
     if (node instanceof HasCatchBlockIds) {
-      ((HasCatchBlockIds) node).setCatchBlockIds(new ArrayList<String>(currentCatchBlockList));
+      if (currentCatchBlockIds == null) {
+        currentCatchBlockIds = currentCatchBlockList.isEmpty() ? Collections.<String>emptyList()
+            : Collections.unmodifiableList(new ArrayList<String>(currentCatchBlockList));
+      }
+      ((HasCatchBlockIds) node).setCatchBlockIds(currentCatchBlockIds);
     }
     /* readContent can stop in the middle of the node data when nodeLevel is NodeLevel.TYPES
      * meaning we can't read anything after and we have to skip source info.
@@ -0,0 +1,392 @@
+/*
+* Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.jayce.v0005.io;
+
+import com.android.jack.ir.StringInterner;
+import com.android.jack.util.StringUtils;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * This class implements {@code DataInput} with uleb128 support for int and long. The stream is
+ * read into a byte buffer as needed and decoded from there, which also allows to move freely in
+ * the stream. Strings are read from a constant pool, decoded once per file and interned
+ * into {@link StringInterner}.
+ */
+class JayceInputStream implements DataInput {
+  private static final int MIN_BUFFER_SIZE = 1024;
+
+  @Nonnull
+  private static final byte[] EMPTY = new byte[0];
+
+  @CheckForNull
+  private InputStream in;
+
+  @Nonnull
+  private byte[] buffer = EMPTY;
+
+  @Nonnegative
+  private int position = 0;
+
+  @Nonnegative
+  private int limit = 0;
+
+  @Nonnull
+  private char[] chars = new char[64];
+
+  @Nonnull
+  private String[] constants = new String[0];
+
+  @Nonnull
+  private int[] constantStarts = new int[0];
+
+  @Nonnull
+  private int[] constantLengths = new int[0];
+
+  public JayceInputStream(@Nonnull InputStream in) {
+    this.in = in;
+  }
+
+  private void require(@Nonnegative int count) throws IOException {
+    if (limit - position < count) {
+      load(position + count);
+      if (limit - position < count) {
+        throw new EOFException();
+      }
+    }
+  }
+
+  /**
+   * Reads the stream until the given offset, or until its end. Bytes are kept once read, so that
+   * strings can be located by their offset. The stream is read by chunks, so that a reader
+   * stopping early, e.g. for {@link com.android.jack.jayce.NodeLevel#TYPES}, does not read the
+   * rest of it.
+   */
+  private void load(@Nonnegative int end) throws IOException {
+    InputStream stream = in;
+    while (stream != null && limit < end) {
+      if (limit == buffer.length) {
+        buffer = Arrays.copyOf(buffer,
+            Math.max(Math.max(MIN_BUFFER_SIZE, end), buffer.length * 2));
+      }
+      int read = stream.read(buffer, limit, buffer.length - limit);
+      if (read == -1) {
+        in = null;
+        stream = null;
+      } else {
+        limit += read;
+      }
+    }
+  }
+
+  /**
+   * Reads the rest of the stream, so that the stream is no longer needed to read or to seek.
+   */
+  public void loadAll() throws IOException {
+    while (in != null) {
+      load(Math.max(MIN_BUFFER_SIZE, limit * 2));
+    }
+  }
+
+  @Override
+  public void readFully(byte[] b) throws IOException {
+    readFully(b, 0, b.length);
+  }
+
+  @Override
+  public void readFully(byte[] b, int off, int len) throws IOException {
+    require(len);
+    System.arraycopy(buffer, position, b, off, len);
+    position += len;
+  }
+
+  @Override
+  public int skipBytes(int n) throws IOException {
+    if (n <= 0) {
+      return 0;
+    }
+    if (limit - position < n) {
+      load(position + n);
+    }
+    int count = Math.min(n, limit - position);
+    position += count;
+    return count;
+  }
+
+  @Override
+  public boolean readBoolean() throws IOException {
+    return readByte() != 0;
+  }
+
+  @Override
+  public byte readByte() throws IOException {
+    if (position == limit) {
+      require(1);
+    }
+    return buffer[position++];
+  }
+
+  @Override
+  public int readUnsignedByte() throws IOException {
+    return readByte() & 0xff;
+  }
+
+  @Override
+  public short readShort() throws IOException {
+    return (short) readUnsignedShort();
+  }
+
+  @Override
+  public int readUnsignedShort() throws IOException {
+    require(2);
+    int value = ((buffer[position] & 0xff) << 8) | (buffer[position + 1] & 0xff);
+    position += 2;
+    return value;
+  }
+
+  @Override
+  public char readChar() throws IOException {
+    return (char) readUnsignedShort();
+  }
+
+  @Override
+  public int readInt() throws IOException {
+    int result = 0;
+    int cur;
+    int count = 0;
+    int signBits = -1;
+
+    do {
+        cur = readByte();
+        result |= (cur & 0x7f) << (count * 7);
+        signBits <<= 7;
+        count++;
+    } while (((cur & 0x80) == 0x80) && count < 5);
+
+    if ((cur & 0x80) == 0x80) {
+        throw new ParseException("invalid LEB128 sequence");
+    }
+
+    // Sign extend if appropriate
+    if (((signBits >> 1) & result) != 0) {
+        result |= signBits;
+    }
+
+    return result;
+  }
+
+  @Override
+  public long readLong() throws IOException {
+    long result = 0;
+    long cur;
+    int count = 0;
+    long signBits = -1;
+
+    do {
+        cur = readByte();
+        result |= (cur & 0x7f) << (count * 7);
+        signBits <<= 7;
+        count++;
+    } while (((cur & 0x80) == 0x80) && count < 10);
+
+    if ((cur & 0x80) == 0x80) {
+        throw new ParseException("invalid LEB128 sequence");
+    }
+
+    // Sign extend if appropriate
+    if (((signBits >> 1) & result) != 0) {
+        result |= signBits;
+    }
+
+    return result;
+  }
+
+  @Override
+  public float readFloat() throws IOException {
+    return Float.intBitsToFloat(readFixedInt());
+  }
+
+  @Override
+  public double readDouble() throws IOException {
+    return Double.longBitsToDouble(((long) readFixedInt() << 32) | (readFixedInt() & 0xffffffffL));
+  }
+
+  private int readFixedInt() throws IOException {
+    require(4);
+    int value = ((buffer[position] & 0xff) << 24) | ((buffer[position + 1] & 0xff) << 16)
+        | ((buffer[position + 2] & 0xff) << 8) | (buffer[position + 3] & 0xff);
+    position += 4;
+    return value;
+  }
+
+  /**
+   * Reads a line as specified by {@link DataInput#readLine()}, each byte being a character.
+   */
+  @Deprecated
+  @Override
+  @CheckForNull
+  public String readLine() throws IOException {
+    if (!hasRemaining()) {
+      return null;
+    }
+
+    StringBuilder line = new StringBuilder();
+    while (hasRemaining()) {
+      char c = (char) (buffer[position++] & 0xff);
+      if (c == '\n') {
+        break;
+      }
+      if (c == '\r') {
+        if (hasRemaining() && buffer[position] == '\n') {
+          position++;
+        }
+        break;
+      }
+      line.append(c);
+    }
+    return line.toString();
+  }
+
+  private boolean hasRemaining() throws IOException {
+    if (position == limit) {
+      load(limit + 1);
+    }
+    return position < limit;
+  }
+
+  @Override
+  @CheckForNull
+  public String readUTF() throws IOException {
+    int length = readInt();
+
+    if (length == -1) {
+      return null;
+    }
+    require(length);
+    int start = position;
+    position += length;
+
+    return decode(start, length);
+  }
+
+  /**
+   * Reads a string stored as an index in the constant pool.
+   */
+  @CheckForNull
+  public String readConstant() throws IOException {
+    return getConstant(readInt());
+  }
+
+  /**
+   * Reads the constant pool. Its strings are only located, and decoded on first use.
+   */
+  public void readConstantPool() throws IOException {
+    int count = readInt();
+    if (count < 0) {
+      throw new ParseException("Invalid constant pool size " + count);
+    }
+
+    constants = new String[count];
+    constantStarts = new int[count];
+    constantLengths = new int[count];
+    for (int i = 0; i < count; i++) {
+      int length = readInt();
+      if (length < 0) {
+        throw new ParseException("Invalid constant length " + length);
+      }
+      require(length);
+      constantStarts[i] = position;
+      constantLengths[i] = length;
+      position += length;
+    }
+  }
+
+  /**
+   * Returns a string of the constant pool.
+   * @param index index of the string in the constant pool, or -1 for a null string
+   */
+  @CheckForNull
+  public String getConstant(int index) throws IOException {
+    if (index == -1) {
+      return null;
+    }
+    if (index < 0 || index >= constants.length) {
+      throw new ParseException("Invalid constant index " + index);
+    }
+
+    String string = constants[index];
+    if (string == null) {
+      string = decode(constantStarts[index], constantLengths[index]);
+      constants[index] = string;
+    }
+
+    return string;
+  }
+
+  @Nonnull
+  private String decode(@Nonnegative int start, @Nonnegative int length) throws IOException {
+    if (chars.length < length) {
+      chars = new char[Math.max(length, chars.length * 2)];
+    }
+    try {
+      int count = StringUtils.utf8BytesToChars(buffer, start, length, chars);
+      return StringInterner.get().intern(new String(chars, 0, count));
+    } catch (java.text.ParseException e) {
+      throw new ParseException(e);
+    }
+  }
+
+  /**
+   * Returns the offset of the next byte to read from the beginning of the stream.
+   */
+  @Nonnegative
+  public int getPosition() {
+    return position;
+  }
+
+  /**
+   * Moves to the given offset from the beginning of the stream.
+   */
+  public void seek(@Nonnegative int offset) throws IOException {
+    load(offset);
+    if (offset < 0 || offset > limit) {
+      throw new ParseException("Invalid offset " + offset);
+    }
+    position = offset;
+  }
+
+  @CheckForNull
+  public byte[] readBuffer() throws IOException {
+    int length = readInt();
+
+    if (length == -1) {
+      return null;
+    }
+    byte[] b = new byte[length];
+    readFully(b);
+
+    return b;
+  }
+}
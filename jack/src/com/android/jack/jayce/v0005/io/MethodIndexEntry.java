@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.jayce.v0005.io;
+
+import java.io.IOException;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Entry of the method index of a Jayce file. It locates a method and its body in the node stream,
+ * with the source info state of the stream at these locations, so that a method can be read alone
+ * and a body can be skipped without being parsed. Strings are indexes in the constant pool.
+ */
+class MethodIndexEntry {
+  static final int NO_BODY = -1;
+
+  /** Index of the method id in the constant pool. */
+  final int methodId;
+
+  @Nonnegative
+  final int methodStart;
+
+  /** Index of the current file name at method start in the constant pool, or -1 if unknown. */
+  final int methodFileName;
+
+  @Nonnegative
+  final int methodLine;
+
+  /** Offset of the body, or {@link #NO_BODY} if the body can not be skipped. */
+  int bodyStart = NO_BODY;
+
+  @Nonnegative
+  int bodyEnd;
+
+  /** Index of the current file name after the body in the constant pool, or -1 if unknown. */
+  int bodyEndFileName;
+
+  @Nonnegative
+  int bodyEndLine;
+
+  MethodIndexEntry(int methodId, @Nonnegative int methodStart, int methodFileName,
+      @Nonnegative int methodLine) {
+    this.methodId = methodId;
+    this.methodStart = methodStart;
+    this.methodFileName = methodFileName;
+    this.methodLine = methodLine;
+  }
+
+  void setBody(@Nonnegative int bodyStart, @Nonnegative int bodyEnd, int bodyEndFileName,
+      @Nonnegative int bodyEndLine) {
+    this.bodyStart = bodyStart;
+    this.bodyEnd = bodyEnd;
+    this.bodyEndFileName = bodyEndFileName;
+    this.bodyEndLine = bodyEndLine;
+  }
+
+  boolean hasBody() {
+    return bodyStart != NO_BODY;
+  }
+
+  void write(@Nonnull JayceOutputStream out) throws IOException {
+    out.writeInt(methodId);
+    out.writeInt(methodStart);
+    out.writeInt(methodFileName);
+    out.writeInt(methodLine);
+    out.writeInt(bodyStart);
+    if (hasBody()) {
+      out.writeInt(bodyEnd);
+      out.writeInt(bodyEndFileName);
+      out.writeInt(bodyEndLine);
+    }
+  }
+
+  @Nonnull
+  static MethodIndexEntry read(@Nonnull Tokenizer in) throws IOException {
+    MethodIndexEntry entry = new MethodIndexEntry(in.readInt(), in.readInt(), in.readInt(),
+        in.readInt());
+    int bodyStart = in.readInt();
+    if (bodyStart != NO_BODY) {
+      entry.setBody(bodyStart, in.readInt(), in.readInt(), in.readInt());
+    }
+    return entry;
+  }
+}
@@ -0,0 +1,99 @@
+/*
+* Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.jayce.v0005.nodes;
+
+import com.android.jack.ir.ast.JBlock;
+import com.android.jack.ir.ast.JTypeLookupException;
+import com.android.jack.jayce.linker.CatchBlockLinker;
+import com.android.jack.jayce.v0005.io.ExportSession;
+import com.android.jack.jayce.v0005.io.ImportHelper;
+import com.android.jack.jayce.v0005.io.JayceInternalReaderImpl;
+import com.android.jack.jayce.v0005.io.JayceInternalWriterImpl;
+import com.android.jack.jayce.v0005.io.Token;
+import com.android.jack.lookup.JMethodLookupException;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A list of <code>NStatements</code>.
+ */
+public class NBlock extends NStatement {
+
+  @Nonnull
+  public static final Token TOKEN = Token.BLOCK;
+
+  @Nonnull
+  protected List<NStatement> statements = Collections.emptyList();
+
+  @Nonnull
+  public List<String> catchBlockIds = Collections.emptyList();
+
+  @Override
+  public void importFromJast(@Nonnull ImportHelper loader, @Nonnull Object node) {
+    JBlock jBlock = (JBlock) node;
+    statements = loader.load(NStatement.class, jBlock.getStatements());
+    catchBlockIds = loader.getIds(loader.getCatchBlockSymbols(), jBlock.getJCatchBlocks());
+    sourceInfo = jBlock.getSourceInfo();
+  }
+
+  @Override
+  @Nonnull
+  public JBlock exportAsJast(@Nonnull ExportSession exportSession) throws JTypeLookupException,
+      JMethodLookupException {
+    assert sourceInfo != null;
+    JBlock jBlock = new JBlock(sourceInfo);
+    for (NStatement nStatement : statements) {
+      jBlock.addStmt(nStatement.exportAsJast(exportSession));
+    }
+    for (String catchId : catchBlockIds) {
+      exportSession.getCatchBlockResolver().addLink(catchId, new CatchBlockLinker(jBlock));
+    }
+    return jBlock;
+  }
+
+  @Override
+  public void writeContent(@Nonnull JayceInternalWriterImpl out) throws IOException {
+    out.writeNodes(statements);
+  }
+
+  @Override
+  public void readContent(@Nonnull JayceInternalReaderImpl in) throws IOException {
+    statements = in.readNodes(NStatement.class);
+
+  }
+
+  @Override
+  @Nonnull
+  public Token getToken() {
+    return TOKEN;
+  }
+
+  @Override
+  @Nonnull
+  public List<String> getCatchBlockIds() {
+    return catchBlockIds;
+  }
+
+  @Override
+  public void setCatchBlockIds(@Nonnull List<String> catchBlockIds) {
+    this.catchBlockIds = catchBlockIds;
+  }
+}
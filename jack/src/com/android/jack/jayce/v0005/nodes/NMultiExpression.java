@@ -0,0 +1,83 @@
+/*
+* Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.jayce.v0005.nodes;
+
+import com.android.jack.ir.ast.JExpression;
+import com.android.jack.ir.ast.JMultiExpression;
+import com.android.jack.ir.ast.JTypeLookupException;
+import com.android.jack.jayce.v0005.io.ExportSession;
+import com.android.jack.jayce.v0005.io.ImportHelper;
+import com.android.jack.jayce.v0005.io.JayceInternalReaderImpl;
+import com.android.jack.jayce.v0005.io.JayceInternalWriterImpl;
+import com.android.jack.jayce.v0005.io.Token;
+import com.android.jack.lookup.JMethodLookupException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Represents multiple ordered expressions as a single compound expression.
+ */
+public class NMultiExpression extends NExpression {
+
+  @Nonnull
+  public static final Token TOKEN = Token.MULTI_EXPRESSION;
+
+  @Nonnull
+  public List<NExpression> exprs = Collections.emptyList();
+
+  @Override
+  public void importFromJast(@Nonnull ImportHelper loader, @Nonnull Object node) {
+    JMultiExpression jMultiExpression = (JMultiExpression) node;
+    exprs = loader.load(NExpression.class, jMultiExpression.getExprs());
+    sourceInfo = jMultiExpression.getSourceInfo();
+  }
+
+  @Override
+  @Nonnull
+  public JMultiExpression exportAsJast(@Nonnull ExportSession exportSession)
+      throws JMethodLookupException, JTypeLookupException {
+    assert sourceInfo != null;
+    List<JExpression> jExprs = new ArrayList<JExpression>(exprs.size());
+    for (NExpression expr : exprs) {
+      jExprs.add(expr.exportAsJast(exportSession));
+    }
+    JMultiExpression jMultiExpression = new JMultiExpression(sourceInfo, jExprs);
+    return jMultiExpression;
+  }
+
+  @Override
+  public void writeContent(@Nonnull JayceInternalWriterImpl out) throws IOException {
+    out.writeNodes(exprs);
+  }
+
+  @Override
+  public void readContent(@Nonnull JayceInternalReaderImpl in) throws IOException {
+    exprs = in.readNodes(NExpression.class);
+
+  }
+
+  @Override
+  @Nonnull
+  public Token getToken() {
+    return TOKEN;
+  }
+}
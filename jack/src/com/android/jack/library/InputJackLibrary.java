@@ -54,6 +54,8 @@ public abstract class InputJackLibrary extends CommonJackLibrary implements Inpu
   @Nonnull
   private final LibraryLocation location;
 
+  private boolean sharedVFS = false;
+
   public InputJackLibrary(@Nonnull Properties libraryProperties, @Nonnull final VFS vfs)
       throws LibraryFormatException {
     super(libraryProperties, vfs);
@@ -152,6 +154,23 @@ public abstract class InputJackLibrary extends CommonJackLibrary implements Inpu
     }
   }
 
+  /**
+   * Returns whether this library can be built on a {@link VFS} shared with other libraries. The
+   * library holds its own reference on such a {@link VFS}, released when the library is closed.
+   */
+  public boolean supportsSharedVFS() {
+    return false;
+  }
+
+  void setSharedVFS() {
+    assert supportsSharedVFS();
+    sharedVFS = true;
+  }
+
+  protected boolean isSharedVFS() {
+    return sharedVFS;
+  }
+
   @Override
   @Nonnegative
   public final int getMinorVersion() {
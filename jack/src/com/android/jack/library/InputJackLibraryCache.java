@@ -0,0 +1,354 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.library;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.eventbus.Subscribe;
+
+import com.android.jack.Jack;
+import com.android.jack.management.CleanMemoryRequest;
+import com.android.jack.management.Impact;
+import com.android.sched.util.file.CannotChangePermissionException;
+import com.android.sched.util.file.CannotCloseException;
+import com.android.sched.util.file.CannotCreateFileException;
+import com.android.sched.util.file.FileAlreadyExistsException;
+import com.android.sched.util.file.FileOrDirectory.ChangePermission;
+import com.android.sched.util.file.InputFile;
+import com.android.sched.util.file.NoSuchFileException;
+import com.android.sched.util.file.NotFileException;
+import com.android.sched.util.file.WrongPermissionException;
+import com.android.sched.util.file.ZipException;
+import com.android.sched.util.findbugs.SuppressFBWarnings;
+import com.android.sched.util.log.LoggerFactory;
+import com.android.sched.vfs.GenericInputVFS;
+import com.android.sched.vfs.MappedReadZipFS;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Cache of opened Jack library archives, shared by the successive and concurrent compilations of a
+ * long-lived process such as the Jack server.
+ *
+ * <p>Only the mapped archive and the library properties are shared: an {@link InputJackLibrary}
+ * holds per-compilation state, so each compilation still gets its own instance, built on the
+ * shared {@link com.android.sched.vfs.VFS}. Entries are validated against the size, modification
+ * time and identity of the archive, and are evicted by total archive size, by idle time, and on
+ * {@link CleanMemoryRequest}.
+ *
+ * <p>Each cached archive holds one reference on its {@link MappedReadZipFS}, and each library built
+ * on it holds another one, released when the library is closed. An archive is thus unmapped once
+ * it is evicted and all the compilations using it closed their libraries.
+ *
+ * <p>Cached archives stay mapped while they are used, so they must never be modified in place:
+ * the zip writers of Jack write a new archive next to the previous one and rename it into place,
+ * so that a mapped archive keeps its content, and the cache reopens the new archive, whose file
+ * identity differs.
+ *
+ * <p>The cache is disabled unless the {@value #MAX_SIZE_PROPERTY} system property is set to a
+ * positive size in bytes. The idle time in seconds is given by {@value #IDLE_PROPERTY}.
+ */
+final class InputJackLibraryCache {
+  @Nonnull
+  static final String MAX_SIZE_PROPERTY = "jack.library.cache.max-size";
+
+  @Nonnull
+  static final String IDLE_PROPERTY = "jack.library.cache.idle";
+
+  private static final long DEFAULT_IDLE = 15 * 60;
+
+  @Nonnull
+  private static final Logger logger = LoggerFactory.getLogger();
+
+  private static class Key {
+    @Nonnull
+    private final File file;
+    @CheckForNull
+    private final String infoString;
+
+    public Key(@Nonnull File file, @CheckForNull String infoString) {
+      this.file = file;
+      this.infoString = infoString;
+    }
+
+    @Override
+    public final boolean equals(Object obj) {
+      if (obj instanceof Key) {
+        Key key = (Key) obj;
+
+        return file.equals(key.file)
+            && (infoString == null ? key.infoString == null : infoString.equals(key.infoString));
+      }
+
+      return false;
+    }
+
+    @Override
+    public final int hashCode() {
+      return file.hashCode() ^ (infoString != null ? infoString.hashCode() : 0);
+    }
+  }
+
+  private static class Stamp {
+    @Nonnegative
+    private final long size;
+    private final long lastModified;
+    @CheckForNull
+    private final Object fileKey;
+
+    public Stamp(@Nonnull File file) throws IOException {
+      BasicFileAttributes attributes =
+          Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+      size = attributes.size();
+      lastModified = attributes.lastModifiedTime().toMillis();
+      fileKey = attributes.fileKey();
+    }
+
+    @Nonnegative
+    public long getSize() {
+      return size;
+    }
+
+    @Override
+    public final boolean equals(Object obj) {
+      if (obj instanceof Stamp) {
+        Stamp stamp = (Stamp) obj;
+
+        return size == stamp.size && lastModified == stamp.lastModified
+            && (fileKey == null ? stamp.fileKey == null : fileKey.equals(stamp.fileKey));
+      }
+
+      return false;
+    }
+
+    @Override
+    public final int hashCode() {
+      return (int) (size ^ lastModified) ^ (fileKey != null ? fileKey.hashCode() : 0);
+    }
+  }
+
+  private static class Archive {
+    @Nonnull
+    private final Stamp stamp;
+    @Nonnull
+    private final MappedReadZipFS vfs;
+    @Nonnull
+    private final Properties libraryProperties;
+
+    public Archive(@Nonnull Stamp stamp, @Nonnull MappedReadZipFS vfs,
+        @Nonnull Properties libraryProperties) {
+      this.stamp = stamp;
+      this.vfs = vfs;
+      this.libraryProperties = libraryProperties;
+    }
+  }
+
+  @CheckForNull
+  private static final InputJackLibraryCache instance = createInstance();
+
+  @Nonnull
+  private final Cache<Key, Archive> cache;
+
+  InputJackLibraryCache(@Nonnegative long maxSize, @Nonnegative long idle) {
+    cache = CacheBuilder.newBuilder()
+        .maximumWeight(maxSize)
+        .weigher(new Weigher<Key, Archive>() {
+          @Override
+          public int weigh(@Nonnull Key key, @Nonnull Archive archive) {
+            return (int) Math.min(archive.stamp.getSize(), Integer.MAX_VALUE);
+          }
+        })
+        .expireAfterAccess(idle, TimeUnit.SECONDS)
+        .removalListener(new RemovalListener<Key, Archive>() {
+          @Override
+          public void onRemoval(@Nonnull RemovalNotification<Key, Archive> notification) {
+            Key key = notification.getKey();
+            if (key != null) {
+              logger.log(Level.FINE, "Library ''{0}'' removed from cache ({1})",
+                  new Object[] {key.file.getPath(), notification.getCause()});
+            }
+            Archive archive = notification.getValue();
+            if (archive != null) {
+              release(archive.vfs);
+            }
+          }
+        })
+        .build();
+  }
+
+  /**
+   * Returns a new {@link InputJackLibrary} on the cached archive of {@code file}, opening and
+   * caching the archive first if needed.
+   *
+   * @return the library, or null if the cache is disabled or can not handle this archive
+   */
+  @CheckForNull
+  static InputJackLibrary getInputLibrary(@Nonnull File file, @CheckForNull String infoString)
+      throws LibraryVersionException, LibraryFormatException, NotJackLibraryException,
+      FileAlreadyExistsException, CannotCreateFileException, CannotChangePermissionException,
+      WrongPermissionException, NoSuchFileException, NotFileException {
+    if (instance == null) {
+      return null;
+    }
+
+    return instance.getLibrary(file, infoString);
+  }
+
+  /**
+   * Returns a new {@link InputJackLibrary} on the archive of {@code file} cached by this instance.
+   *
+   * @return the library, or null if this cache can not handle this archive
+   */
+  @CheckForNull
+  InputJackLibrary getLibrary(@Nonnull File file, @CheckForNull String infoString)
+      throws LibraryVersionException, LibraryFormatException, NotJackLibraryException,
+      FileAlreadyExistsException, CannotCreateFileException, CannotChangePermissionException,
+      WrongPermissionException, NoSuchFileException, NotFileException {
+    Stamp stamp;
+    try {
+      stamp = new Stamp(file);
+    } catch (IOException e) {
+      logger.log(Level.FINE, "Cannot stat ''{0}'', not using library cache", file.getPath());
+      return null;
+    }
+
+    Key key = new Key(file.getAbsoluteFile(), infoString);
+    Archive archive = cache.getIfPresent(key);
+    if (archive != null && archive.stamp.equals(stamp)) {
+      InputJackLibrary library = createLibrary(archive);
+      // Null when the archive was evicted and unmapped concurrently
+      if (library != null) {
+        logger.log(Level.FINE, "Library ''{0}'' found in cache", file.getPath());
+        return library;
+      }
+    }
+
+    MappedReadZipFS vfs;
+    try {
+      vfs = new MappedReadZipFS(new InputFile(file.getPath(), ChangePermission.NOCHANGE));
+    } catch (ZipException e) {
+      return null;
+    }
+    vfs.setInfoString(infoString);
+
+    // The reference of the opened archive goes to the cache, or is released if it is not cached
+    InputJackLibrary library;
+    try {
+      archive = new Archive(stamp, vfs,
+          JackLibraryFactory.loadLibraryProperties(new GenericInputVFS(vfs)));
+      library = createLibrary(archive);
+      assert library != null;
+    } catch (LibraryVersionException | LibraryFormatException | NotJackLibraryException e) {
+      release(vfs);
+      throw e;
+    }
+    if (library.isSharedVFS()) {
+      cache.put(key, archive);
+      logger.log(Level.FINE, "Library ''{0}'' added to cache", file.getPath());
+    } else {
+      release(vfs);
+    }
+
+    return library;
+  }
+
+  /**
+   * Returns a new library holding its own reference on the archive.
+   *
+   * @return the library, or null if the archive is already closed
+   */
+  @CheckForNull
+  private static InputJackLibrary createLibrary(@Nonnull Archive archive)
+      throws LibraryVersionException, LibraryFormatException {
+    if (!archive.vfs.retain()) {
+      return null;
+    }
+
+    // Properties are mutable, do not share them between libraries
+    Properties libraryProperties = new Properties();
+    libraryProperties.putAll(archive.libraryProperties);
+
+    InputJackLibrary library;
+    try {
+      library = JackLibraryFactory.getInputLibrary(archive.vfs, libraryProperties);
+    } catch (LibraryVersionException | LibraryFormatException e) {
+      release(archive.vfs);
+      throw e;
+    }
+    if (library.supportsSharedVFS()) {
+      library.setSharedVFS();
+    }
+
+    return library;
+  }
+
+  /**
+   * Evicts all the archives, which are unmapped once their libraries are closed.
+   */
+  void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  private static void release(@Nonnull MappedReadZipFS vfs) {
+    try {
+      vfs.close();
+    } catch (CannotCloseException e) {
+      logger.log(Level.WARNING, "Cannot close ''{0}''", vfs.getPath());
+    }
+  }
+
+  @CheckForNull
+  private static InputJackLibraryCache createInstance() {
+    long maxSize = Long.getLong(MAX_SIZE_PROPERTY, 0).longValue();
+    if (maxSize <= 0) {
+      return null;
+    }
+    long idle = Long.getLong(IDLE_PROPERTY, DEFAULT_IDLE).longValue();
+
+    logger.log(Level.INFO, "Library cache enabled, max size: {0} bytes, idle: {1} s",
+        new Object[] {Long.valueOf(maxSize), Long.valueOf(idle)});
+
+    final InputJackLibraryCache libraryCache = new InputJackLibraryCache(maxSize, idle);
+    Jack.getResourceRequestBus().register(new Object() {
+      @SuppressFBWarnings({"UMAC_UNCALLABLE_METHOD_OF_ANONYMOUS_CLASS"})
+      // Call by EventBus framework
+      @Subscribe
+      public void cleanMemory(@Nonnull CleanMemoryRequest event) {
+        if (event.getImpacts().contains(Impact.PERFORMANCE)) {
+          logger.log(Level.INFO, "Clean library cache on event request");
+          libraryCache.invalidateAll();
+        }
+      }
+    });
+
+    return libraryCache;
+  }
+}
@@ -31,6 +31,7 @@ import com.android.sched.util.file.FileOrDirectory;
 import com.android.sched.util.file.FileOrDirectory.ChangePermission;
 import com.android.sched.util.file.FileOrDirectory.Existence;
 import com.android.sched.util.file.FileOrDirectory.Permission;
+import com.android.sched.util.file.InputFile;
 import com.android.sched.util.file.InputZipFile;
 import com.android.sched.util.file.NoSuchFileException;
 import com.android.sched.util.file.NotFileOrDirectoryException;
@@ -39,6 +40,7 @@ import com.android.sched.util.file.ZipException;
 import com.android.sched.vfs.BadVFSFormatException;
 import com.android.sched.vfs.CaseInsensitiveFS;
 import com.android.sched.vfs.DirectFS;
+import com.android.sched.vfs.MappedReadZipFS;
 import com.android.sched.vfs.ReadZipFS;
 import com.android.sched.vfs.VFS;
 
@@ -96,10 +98,25 @@ public class InputJackLibraryCodec implements StringCodec<InputJackLibrary> {
           vfs = directFS;
         }
       } else {
-        @SuppressWarnings("resource")
-        ReadZipFS rzFS = new ReadZipFS(new InputZipFile(workingDirectory, string));
-        rzFS.setInfoString(infoString);
-        vfs = rzFS;
+        InputJackLibrary cachedLibrary =
+            InputJackLibraryCache.getInputLibrary(dirOrZip, infoString);
+        if (cachedLibrary != null) {
+          return cachedLibrary;
+        }
+
+        try {
+          @SuppressWarnings("resource")
+          MappedReadZipFS mzFS =
+              new MappedReadZipFS(new InputFile(dirOrZip.getPath(), ChangePermission.NOCHANGE));
+          mzFS.setInfoString(infoString);
+          vfs = mzFS;
+        } catch (ZipException e) {
+          // Archive layout not supported by the mapped reader, let ZipFile handle or report it
+          @SuppressWarnings("resource")
+          ReadZipFS rzFS = new ReadZipFS(new InputZipFile(workingDirectory, string));
+          rzFS.setInfoString(infoString);
+          vfs = rzFS;
+        }
       }
 
       return JackLibraryFactory.getInputLibrary(vfs);
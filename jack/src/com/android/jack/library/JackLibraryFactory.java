@@ -72,8 +72,14 @@ public abstract class JackLibraryFactory {
   @Nonnull
   public static InputJackLibrary getInputLibrary(@Nonnull VFS vdir)
       throws LibraryVersionException, LibraryFormatException, NotJackLibraryException {
+    return getInputLibrary(vdir, loadLibraryProperties(new GenericInputVFS(vdir)));
+  }
+
+  @Nonnull
+  static InputJackLibrary getInputLibrary(@Nonnull VFS vdir,
+      @Nonnull Properties libraryProperties)
+      throws LibraryVersionException, LibraryFormatException {
     GenericInputVFS giVFS = new GenericInputVFS(vdir);
-    Properties libraryProperties = loadLibraryProperties(giVFS);
     String majorVersion = getVersionString(getMajorVersion(giVFS, libraryProperties));
 
     InputJackLibrary inputJackLibrary = (InputJackLibrary) instantiateConstructorWithParameters(
@@ -103,7 +109,7 @@ public abstract class JackLibraryFactory {
   }
 
   @Nonnull
-  private static Properties loadLibraryProperties(@Nonnull InputVFS vfs)
+  static Properties loadLibraryProperties(@Nonnull InputVFS vfs)
       throws NotJackLibraryException {
     Properties libraryProperties = new Properties();
 
@@ -214,6 +214,7 @@ public class InputJackLibraryImpl extends InputJackLibrary {
           for (InputVFS currentSectionVFS : sectionVFS.values()) {
             currentSectionVFS.close();
           }
+          // A shared VFS only releases the reference of this library
           vfs.close();
         } catch (CannotCloseException e) {
           throw new LibraryIOException(getLocation(), e);
@@ -228,6 +229,11 @@ public class InputJackLibraryImpl extends InputJackLibrary {
     return closed;
   }
 
+  @Override
+  public boolean supportsSharedVFS() {
+    return linkedOutputJackLib == null;
+  }
+
   @Override
   @Nonnegative
   public int getMajorVersion() {
@@ -33,9 +33,16 @@ import com.android.jack.ir.ast.JTypeLookupException;
 import com.android.jack.ir.ast.MissingJTypeLookupException;
 import com.android.jack.lookup.CommonTypes.CommonType;
 import com.android.jack.util.NamingTools;
+import com.android.sched.util.log.Tracer;
+import com.android.sched.util.log.TracerFactory;
+import com.android.sched.util.log.stats.Percent;
+import com.android.sched.util.log.stats.StatisticId;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -50,7 +57,7 @@ public abstract class JLookup {
    */
   protected static interface Adapter<T extends JType> {
     @Nonnull
-    Map<String, T> getCache();
+    ConcurrentMap<String, T> getCache();
 
     @Nonnull
     T getType(@Nonnull JPackage pack, @Nonnull String simpleName)
@@ -78,7 +85,21 @@ public abstract class JLookup {
   protected final JPackage topLevelPackage;
 
   @Nonnull
-  private final Map<String, JPackage> packages = new HashMap<String, JPackage>();
+  private final ConcurrentMap<String, JPackage> packages =
+      new ConcurrentHashMap<String, JPackage>();
+
+  /**
+   * Lock shared by the lookups adding types to the caches, and held exclusively while the caches
+   * are cleared, so that a type found before a clearing is never added back after it.
+   */
+  @Nonnull
+  private final ReadWriteLock cacheLock = new ReentrantReadWriteLock();
+
+  @Nonnull
+  private final StatisticId<Percent> cacheHitId;
+
+  @Nonnull
+  private final Tracer tracer = TracerFactory.getTracer();
 
   /**
    * The character used as package separator.
@@ -89,9 +110,11 @@ public abstract class JLookup {
    * Constructor specifying the top level {@link JPackage} instance
    *
    * @param topLevelPackage the top level package
+   * @param cacheHitId statistic of the type lookups answered by the cache
    */
-  protected JLookup(@Nonnull JPackage topLevelPackage) {
+  protected JLookup(@Nonnull JPackage topLevelPackage, @Nonnull StatisticId<Percent> cacheHitId) {
     this.topLevelPackage = topLevelPackage;
+    this.cacheHitId = cacheHitId;
   }
 
   /**
@@ -201,6 +224,24 @@ public abstract class JLookup {
    */
   public abstract void removeType(@Nonnull JType type);
 
+  /**
+   * Clears the type caches, waiting for the lookups which are adding types to them.
+   */
+  protected final void clearCaches() {
+    Lock lock = cacheLock.writeLock();
+    lock.lock();
+    try {
+      clear();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Removes the types of the caches, only called by {@link #clearCaches()}.
+   */
+  protected abstract void clear();
+
   /**
    * Finds a {@link JClass} for the given common type.
    *
@@ -258,25 +299,43 @@ public abstract class JLookup {
   @Nonnull
   protected <T extends JType> T getType(@Nonnull String signature,
       @Nonnull Adapter<T> adapter) throws MissingJTypeLookupException {
-    Map<String, T> cache = adapter.getCache();
-    T type;
-    synchronized (cache) {
-      type = cache.get(signature);
-
-      if (type == null) {
-        int typeNameLength = signature.length();
-        assert typeNameLength > 1 : "Invalid signature '" + signature + "'";
+    ConcurrentMap<String, T> cache = adapter.getCache();
+    T type = cache.get(signature);
+    tracer.getStatistic(cacheHitId).add(type != null);
+
+    if (type == null) {
+      int typeNameLength = signature.length();
+      assert typeNameLength > 1 : "Invalid signature '" + signature + "'";
+      Lock lock = cacheLock.readLock();
+      lock.lock();
+      try {
         if (signature.charAt(0) == '[') {
           type = (T) findArrayType(signature);
         } else {
           type = findClassOrInterface(signature, adapter);
         }
-        cache.put(signature, type);
-     }
+        type = putIfAbsent(cache, signature, type);
+      } finally {
+        lock.unlock();
+      }
     }
     return type;
   }
 
+  /**
+   * Adds a type to a cache, unless another thread already added it.
+   *
+   * @return the type in the cache
+   */
+  @Nonnull
+  private static <T> T putIfAbsent(@Nonnull ConcurrentMap<String, T> cache,
+      @Nonnull String key, @Nonnull T value) {
+    // Concurrent lookups of a name find the same instance in its package, keeping the first one
+    // also ensures that the cache never changes the instance of a name
+    T previous = cache.putIfAbsent(key, value);
+    return previous != null ? previous : value;
+  }
+
   /**
    * Finds a {@link JArrayType} for the given type name.
    *
@@ -311,14 +370,17 @@ public abstract class JLookup {
   protected <T extends JReferenceType> T getNonArrayType(
       @Nonnull String signature,
       @Nonnull Adapter<T> adapter) throws MissingJTypeLookupException {
-    Map<String, T> cache = adapter.getCache();
-    T type;
-    synchronized (cache) {
-      type = cache.get(signature);
-
-      if (type == null) {
-        type = findClassOrInterface(signature, adapter);
-        cache.put(signature, type);
+    ConcurrentMap<String, T> cache = adapter.getCache();
+    T type = cache.get(signature);
+    tracer.getStatistic(cacheHitId).add(type != null);
+
+    if (type == null) {
+      Lock lock = cacheLock.readLock();
+      lock.lock();
+      try {
+        type = putIfAbsent(cache, signature, findClassOrInterface(signature, adapter));
+      } finally {
+        lock.unlock();
       }
     }
     return type;
@@ -337,25 +399,22 @@ public abstract class JLookup {
       @Nonnull Adapter<? extends JType> adapter)
       throws JPackageLookupException {
 
-    synchronized (packages) {
-      JPackage found = packages.get(packageName);
-      if (found == null) {
-        assert NamingTools.isPackageBinaryName(packageName);
-        int separatorIndex = packageName.lastIndexOf(JLookup.PACKAGE_SEPARATOR);
-        JPackage parent;
-        String simplePackageName;
-        if (separatorIndex == -1) {
-          parent = topLevelPackage;
-          simplePackageName = packageName;
-        } else {
-          parent = getPackage(packageName.substring(0, separatorIndex), adapter);
-          simplePackageName = packageName.substring(separatorIndex + 1);
-        }
-        found = adapter.getPackage(parent, simplePackageName);
-        packages.put(packageName, found);
+    JPackage found = packages.get(packageName);
+    if (found == null) {
+      assert NamingTools.isPackageBinaryName(packageName);
+      int separatorIndex = packageName.lastIndexOf(JLookup.PACKAGE_SEPARATOR);
+      JPackage parent;
+      String simplePackageName;
+      if (separatorIndex == -1) {
+        parent = topLevelPackage;
+        simplePackageName = packageName;
+      } else {
+        parent = getPackage(packageName.substring(0, separatorIndex), adapter);
+        simplePackageName = packageName.substring(separatorIndex + 1);
       }
-      return found;
+      found = putIfAbsent(packages, packageName, adapter.getPackage(parent, simplePackageName));
     }
+    return found;
   }
 
   /**
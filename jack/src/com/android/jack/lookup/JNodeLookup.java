@@ -25,6 +25,7 @@ import com.android.jack.ir.ast.JDefinedInterface;
 import com.android.jack.ir.ast.JNullType;
 import com.android.jack.ir.ast.JPackage;
 import com.android.jack.ir.ast.JPackageLookupException;
+import com.android.jack.ir.ast.JPrimitiveType;
 import com.android.jack.ir.ast.JPrimitiveType.JPrimitiveTypeEnum;
 import com.android.jack.ir.ast.JSession;
 import com.android.jack.ir.ast.JType;
@@ -35,8 +36,9 @@ import com.android.sched.util.log.stats.Percent;
 import com.android.sched.util.log.stats.PercentImpl;
 import com.android.sched.util.log.stats.StatisticId;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.Nonnull;
 
@@ -56,7 +58,12 @@ public class JNodeLookup extends JLookup {
       PercentImpl.class, Percent.class);
 
   @Nonnull
-  private final Map<String, JType> types = new HashMap<String, JType>();
+  public static final StatisticId<Percent> CACHE_HIT = new StatisticId<Percent>(
+      "jack.lookup.cache.hit", "Type lookup requests answered by the lookup cache",
+      PercentImpl.class, Percent.class);
+
+  @Nonnull
+  private final ConcurrentMap<String, JType> types = new ConcurrentHashMap<String, JType>();
 
   @Nonnull
   private final Tracer tracer = TracerFactory.getTracer();
@@ -66,7 +73,7 @@ public class JNodeLookup extends JLookup {
     new Adapter<JType>() {
     @Nonnull
     @Override
-    public Map<String, JType> getCache() {
+    public ConcurrentMap<String, JType> getCache() {
       return types;
     }
 
@@ -89,7 +96,7 @@ public class JNodeLookup extends JLookup {
    * Initialize lookup.
    */
   public JNodeLookup(@Nonnull JPackage topLevelPackage) {
-    super(topLevelPackage);
+    super(topLevelPackage, CACHE_HIT);
     init();
   }
 
@@ -172,16 +179,20 @@ public class JNodeLookup extends JLookup {
     }
   }
 
-  private void clear() {
-    synchronized (types) {
-      types.clear();
-      init();
+  @Override
+  protected void clear() {
+    // Primitive types are kept, so that concurrent lookups always find them
+    for (Iterator<JType> iterator = types.values().iterator(); iterator.hasNext();) {
+      JType type = iterator.next();
+      if (!(type instanceof JPrimitiveType) && type != JNullType.INSTANCE) {
+        iterator.remove();
+      }
     }
   }
 
   @Override
   public void removeType(@Nonnull JType type) {
-    clear();
+    clearCaches();
   }
 
   private void init() {
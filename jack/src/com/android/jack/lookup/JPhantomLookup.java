@@ -31,9 +31,13 @@ import com.android.jack.ir.ast.JTypeLookupException;
 import com.android.jack.ir.ast.MissingJTypeLookupException;
 import com.android.jack.ir.formatter.TypeFormatter;
 import com.android.jack.lookup.CommonTypes.CommonType;
+import com.android.sched.util.log.stats.Percent;
+import com.android.sched.util.log.stats.PercentImpl;
+import com.android.sched.util.log.stats.StatisticId;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
@@ -64,27 +68,32 @@ public class JPhantomLookup extends JLookup {
   }
 
   @Nonnull
-  private final Map<String, JReferenceType> typeCache =
-      new HashMap<String, JReferenceType>();
+  public static final StatisticId<Percent> CACHE_HIT = new StatisticId<Percent>(
+      "jack.lookup.phantom.cache.hit", "Phantom lookup requests answered by the lookup cache",
+      PercentImpl.class, Percent.class);
+
+  @Nonnull
+  private final ConcurrentMap<String, JReferenceType> typeCache =
+      new ConcurrentHashMap<String, JReferenceType>();
   @Nonnull
-  private final Map<String, JClass> classCache =
-      new HashMap<String, JClass>();
+  private final ConcurrentMap<String, JClass> classCache =
+      new ConcurrentHashMap<String, JClass>();
   @Nonnull
-  private final Map<String, JEnum> enumCache =
-      new HashMap<String, JEnum>();
+  private final ConcurrentMap<String, JEnum> enumCache =
+      new ConcurrentHashMap<String, JEnum>();
   @Nonnull
-  private final Map<String, JInterface> interfaceCache =
-      new HashMap<String, JInterface>();
+  private final ConcurrentMap<String, JInterface> interfaceCache =
+      new ConcurrentHashMap<String, JInterface>();
   @Nonnull
-  private final Map<String, JAnnotationType> annotationCache =
-      new HashMap<String, JAnnotationType>();
+  private final ConcurrentMap<String, JAnnotationType> annotationCache =
+      new ConcurrentHashMap<String, JAnnotationType>();
 
   @Nonnull
   private final PhantomAdapter<JReferenceType> coiAdapter =
   new PhantomAdapter<JReferenceType>() {
     @Nonnull
     @Override
-    public Map<String, JReferenceType> getCache() {
+    public ConcurrentMap<String, JReferenceType> getCache() {
       return typeCache;
     }
 
@@ -105,7 +114,7 @@ public class JPhantomLookup extends JLookup {
   private final PhantomAdapter<JClass> classAdapter = new PhantomAdapter<JClass>() {
     @Nonnull
     @Override
-    public Map<String, JClass> getCache() {
+    public ConcurrentMap<String, JClass> getCache() {
       return classCache;
     }
 
@@ -126,7 +135,7 @@ public class JPhantomLookup extends JLookup {
   private final PhantomAdapter<JEnum> enumAdapter = new PhantomAdapter<JEnum>() {
     @Nonnull
     @Override
-    public Map<String, JEnum> getCache() {
+    public ConcurrentMap<String, JEnum> getCache() {
       return enumCache;
     }
 
@@ -147,7 +156,7 @@ public class JPhantomLookup extends JLookup {
   private final PhantomAdapter<JInterface> interfaceAdapter = new PhantomAdapter<JInterface>() {
     @Nonnull
     @Override
-    public Map<String, JInterface> getCache() {
+    public ConcurrentMap<String, JInterface> getCache() {
       return interfaceCache;
     }
 
@@ -169,7 +178,7 @@ public class JPhantomLookup extends JLookup {
       new PhantomAdapter<JAnnotationType>() {
     @Nonnull
     @Override
-    public Map<String, JAnnotationType> getCache() {
+    public ConcurrentMap<String, JAnnotationType> getCache() {
       return annotationCache;
     }
 
@@ -190,7 +199,7 @@ public class JPhantomLookup extends JLookup {
   private final JNodeLookup jackLookup;
 
   public JPhantomLookup(@Nonnull JNodeLookup jackLookup) {
-    super(jackLookup.getTopLevelPackage());
+    super(jackLookup.getTopLevelPackage(), CACHE_HIT);
     this.jackLookup = jackLookup;
   }
 
@@ -207,7 +216,7 @@ public class JPhantomLookup extends JLookup {
     JType type;
     try {
       type = jackLookup.getType(signature);
-      assert !doesCacheContain(typeCache, signature);
+      assert !typeCache.containsKey(signature);
     } catch (JLookupException e) {
       try {
         type = getType(signature, coiAdapter);
@@ -222,11 +231,10 @@ public class JPhantomLookup extends JLookup {
   protected <T extends JReferenceType> T getNonArrayType(
       @Nonnull String signature,
       @Nonnull Adapter<T> adapter) {
-    Map<String, T> cache = adapter.getCache();
     T type;
     try {
       type = ((PhantomAdapter<T>) adapter).getDefined(signature);
-      assert !doesCacheContain(cache, signature);
+      assert !adapter.getCache().containsKey(signature);
     } catch (JLookupException e) {
       try {
         type = super.getNonArrayType(signature, adapter);
@@ -291,34 +299,18 @@ public class JPhantomLookup extends JLookup {
     }
   }
 
-  private void clear() {
-    synchronized (typeCache) {
-      typeCache.clear();
-    }
-    synchronized (classCache) {
+  @Override
+  protected void clear() {
+    typeCache.clear();
     classCache.clear();
-    }
-    synchronized (enumCache) {
-      enumCache.clear();
-    }
-    synchronized (interfaceCache) {
-      interfaceCache.clear();
-    }
-    synchronized (annotationCache) {
-      annotationCache.clear();
-    }
+    enumCache.clear();
+    interfaceCache.clear();
+    annotationCache.clear();
   }
 
   @Override
   public void removeType(@Nonnull JType type) {
-    clear();
-  }
-
-  private boolean doesCacheContain(@Nonnull Map<String, ? extends JReferenceType> cache,
-      @Nonnull String signature) {
-    synchronized (cache) {
-      return cache.containsKey(signature);
-    }
+    clearCaches();
   }
 
   /**
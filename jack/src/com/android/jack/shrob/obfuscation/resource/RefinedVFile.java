@@ -31,6 +31,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.attribute.FileTime;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -326,6 +327,12 @@ public class RefinedVFile implements VFile {
     return null;
   }
 
+  @Override
+  @CheckForNull
+  public ByteBuffer getByteBuffer() throws WrongPermissionException {
+    return refinedEntries.isEmpty() ? file.getByteBuffer() : null;
+  }
+
   @Override
   public void copy(@Nonnull VFile vFile) throws WrongPermissionException,
       CannotCloseException, CannotReadException, CannotWriteException {
@@ -42,6 +42,9 @@ import com.android.sched.util.config.HasKeyId;
 import com.android.sched.util.config.ThreadConfig;
 import com.android.sched.util.config.id.BooleanPropertyId;
 import com.android.sched.util.log.TracerFactory;
+import com.android.sched.util.log.stats.Sample;
+import com.android.sched.util.log.stats.SampleImpl;
+import com.android.sched.util.log.stats.StatisticId;
 
 import java.util.List;
 
@@ -62,6 +65,16 @@ public class SeedFinder implements RunnableSchedulable<JDefinedClassOrInterface>
       .create("jack.shrob.seed.searchinhierarchy", "Search for shrob seeds in hierarchy")
       .addDefaultValue(Boolean.TRUE).addCategory(DumpInLibrary.class);
 
+  @Nonnull
+  public static final StatisticId<Sample> EVALUATED_RULES = new StatisticId<Sample>(
+      "jack.shrob.seed.rule.evaluated", "Keep rules evaluated per type",
+      SampleImpl.class, Sample.class);
+
+  @Nonnull
+  public static final StatisticId<Sample> MATCHED_RULES = new StatisticId<Sample>(
+      "jack.shrob.seed.rule.matched", "Keep rules matching a type",
+      SampleImpl.class, Sample.class);
+
   @Nonnull
   private final Flags flags = ThreadConfig.get(Options.FLAGS);
 
@@ -81,8 +94,18 @@ public class SeedFinder implements RunnableSchedulable<JDefinedClassOrInterface>
 
   @Override
   public void run(@Nonnull JDefinedClassOrInterface type) {
-    for (ClassSpecification classSpec : flags.getKeepClassSpecs()) {
+    List<ClassSpecification> keepClassSpecs = flags.getKeepClassSpecIndex().getCandidates(type);
+    List<ClassSpecification> keepClassMembersSpecs =
+        flags.getKeepClassMembersSpecIndex().getCandidates(type);
+    List<ClassSpecification> keepClassesWithMembersSpecs =
+        flags.getKeepClassesWithMembersSpecIndex().getCandidates(type);
+    tracer.getStatistic(EVALUATED_RULES).add(keepClassSpecs.size() + keepClassMembersSpecs.size()
+        + keepClassesWithMembersSpecs.size());
+    int matchedRules = 0;
+
+    for (ClassSpecification classSpec : keepClassSpecs) {
       if (classSpec.matches(type)) {
+        matchedRules++;
         KeepModifier keepModifier = classSpec.getKeepModifier();
         List<FieldSpecification> fieldSpecs = classSpec.getFieldSpecs();
         List<MethodSpecification> methodSpecs = classSpec.getMethodSpecs();
@@ -100,8 +123,9 @@ public class SeedFinder implements RunnableSchedulable<JDefinedClassOrInterface>
         }
       }
     }
-    for (ClassSpecification classSpec : flags.getKeepClassMembersSpecs()) {
+    for (ClassSpecification classSpec : keepClassMembersSpecs) {
       if (classSpec.matches(type)) {
+        matchedRules++;
         KeepModifier keepModifier = classSpec.getKeepModifier();
         List<FieldSpecification> fieldSpecs = classSpec.getFieldSpecs();
         List<MethodSpecification> methodSpecs = classSpec.getMethodSpecs();
@@ -118,8 +142,9 @@ public class SeedFinder implements RunnableSchedulable<JDefinedClassOrInterface>
         }
       }
     }
-    for (ClassSpecification classSpec : flags.getKeepClassesWithMembersSpecs()) {
+    for (ClassSpecification classSpec : keepClassesWithMembersSpecs) {
       if (classSpec.matches(type)) {
+        matchedRules++;
         NodeFinder<JField> fieldFinder = new NodeFinder<JField>(type.getFields());
         fieldFinder.find(classSpec.getFieldSpecs());
 
@@ -136,6 +161,8 @@ public class SeedFinder implements RunnableSchedulable<JDefinedClassOrInterface>
         }
       }
     }
+
+    tracer.getStatistic(MATCHED_RULES).add(matchedRules);
   }
 
 
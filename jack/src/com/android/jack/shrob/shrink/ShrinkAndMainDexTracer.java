@@ -50,9 +50,12 @@ public class ShrinkAndMainDexTracer implements RunnableSchedulable<JDefinedClass
   private static final TracerBrush[] BRUSHES =
       new TracerBrush[] {new MultiDexLegacyTracerBrush(), new KeeperBrush()};
 
+  @Nonnull
+  private final Tracer tracer = new Tracer(new ComposedTracerBrush(BRUSHES));
+
   @Override
   public void run(@Nonnull JDefinedClassOrInterface type) {
-    new Tracer(new ComposedTracerBrush(BRUSHES)).run(type);
+    tracer.run(type);
   }
 
 }
@@ -76,6 +76,21 @@ public class ClassSpecification implements Specification<JDefinedClassOrInterfac
     return methodSpecs;
   }
 
+  @Nonnull
+  public List<NameSpecification> getNameSpecs() {
+    return nameSpecs;
+  }
+
+  @CheckForNull
+  public AnnotationSpecification getAnnotationType() {
+    return annotationType;
+  }
+
+  @CheckForNull
+  public InheritanceSpecification getInheritance() {
+    return inheritance;
+  }
+
   public void setAnnotationType(@CheckForNull AnnotationSpecification annotationType) {
     this.annotationType = annotationType;
   }
@@ -0,0 +1,328 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.shrob.spec;
+
+import com.android.jack.ir.ast.JAnnotation;
+import com.android.jack.ir.ast.JClass;
+import com.android.jack.ir.ast.JDefinedClassOrInterface;
+import com.android.jack.ir.ast.JInterface;
+import com.android.jack.shrob.proguard.GrammarActions;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Index of a list of {@link ClassSpecification}s, giving for a type the specifications that may
+ * match it, in their original order, without evaluating all of them.
+ *
+ * <p>Specifications are indexed by the literal beginning of their class names, or else by the
+ * literal beginning of the name of their annotation or of their super type, in prefix trees.
+ * Specifications that can not be indexed, such as the ones with a negated name or a name starting
+ * with a wildcard, are always returned. Returned specifications still have to be matched.
+ */
+public class ClassSpecificationIndex {
+  /**
+   * Prefix tree of name patterns, such as produced by {@link GrammarActions}: literal characters,
+   * '.' matching any character, and wildcards ending the indexed part of the pattern.
+   */
+  private static class NameTree {
+    private static class Node {
+      @CheckForNull
+      private Map<Character, Node> children;
+      @CheckForNull
+      private Node anyChild;
+      @CheckForNull
+      private List<Integer> exactEntries;
+      @CheckForNull
+      private List<Integer> prefixEntries;
+
+      @Nonnull
+      private Node getChild(char c) {
+        if (children == null) {
+          children = new HashMap<Character, Node>();
+        }
+        Node child = children.get(Character.valueOf(c));
+        if (child == null) {
+          child = new Node();
+          children.put(Character.valueOf(c), child);
+        }
+        return child;
+      }
+
+      @Nonnull
+      private Node getAnyChild() {
+        if (anyChild == null) {
+          anyChild = new Node();
+        }
+        return anyChild;
+      }
+    }
+
+    @Nonnull
+    private final Node root = new Node();
+
+    private boolean empty = true;
+
+    /** Character standing for '.' in patterns, which matches any character */
+    private static final char ANY = '\0';
+
+    /** Character ending fully literal patterns */
+    private static final char END = '\1';
+
+    /**
+     * Returns the literal beginning of a name pattern, '.' being replaced by {@link #ANY}, and
+     * followed by {@link #END} if the pattern is fully literal. Returns null if the pattern can not be
+     * indexed.
+     */
+    @CheckForNull
+    static String getIndexedPart(@Nonnull NameSpecification name) {
+      if (name.hasNegator()) {
+        return null;
+      }
+
+      String pattern = name.getPattern().pattern();
+      if (!pattern.startsWith("^") || !pattern.endsWith("$")) {
+        return null;
+      }
+
+      StringBuilder sb = new StringBuilder();
+      int end = pattern.length() - 1;
+      int idx = 1;
+      while (idx < end) {
+        char c = pattern.charAt(idx);
+        if (c == '\\' && idx + 1 < end && pattern.charAt(idx + 1) == '$') {
+          sb.append('$');
+          idx += 2;
+        } else if (c == '.' && !(idx + 1 < end && pattern.charAt(idx + 1) == '*')) {
+          sb.append(ANY);
+          idx++;
+        } else if (c == '.' || c == '[') {
+          // Start of a wildcard
+          break;
+        } else if ("\\()[]{}|?*+^$".indexOf(c) != -1) {
+          return null;
+        } else {
+          sb.append(c);
+          idx++;
+        }
+      }
+
+      if (sb.length() == 0) {
+        // Everything would match
+        return null;
+      }
+
+      if (idx == end) {
+        sb.append(END);
+      }
+      return sb.toString();
+    }
+
+    void add(@Nonnull String indexedPart, @Nonnegative int entry) {
+      Node node = root;
+      int length = indexedPart.length();
+      boolean exact = indexedPart.charAt(length - 1) == END;
+      if (exact) {
+        length--;
+      }
+
+      for (int idx = 0; idx < length; idx++) {
+        char c = indexedPart.charAt(idx);
+        node = c == ANY ? node.getAnyChild() : node.getChild(c);
+      }
+
+      if (exact) {
+        node.exactEntries = addEntry(node.exactEntries, entry);
+      } else {
+        node.prefixEntries = addEntry(node.prefixEntries, entry);
+      }
+      empty = false;
+    }
+
+    boolean add(@Nonnull NameSpecification name, @Nonnegative int entry) {
+      String indexedPart = getIndexedPart(name);
+      if (indexedPart == null) {
+        return false;
+      }
+      add(indexedPart, entry);
+      return true;
+    }
+
+    @Nonnull
+    private static List<Integer> addEntry(@CheckForNull List<Integer> entries,
+        @Nonnegative int entry) {
+      if (entries == null) {
+        entries = new ArrayList<Integer>(1);
+      }
+      entries.add(Integer.valueOf(entry));
+      return entries;
+    }
+
+    boolean isEmpty() {
+      return empty;
+    }
+
+    void find(@Nonnull String name, @Nonnull BitSet entries) {
+      find(root, name, 0, entries);
+    }
+
+    private static void find(@Nonnull Node node, @Nonnull String name, @Nonnegative int position,
+        @Nonnull BitSet entries) {
+      set(node.prefixEntries, entries);
+
+      if (position == name.length()) {
+        set(node.exactEntries, entries);
+        return;
+      }
+
+      if (node.children != null) {
+        Node child = node.children.get(Character.valueOf(name.charAt(position)));
+        if (child != null) {
+          find(child, name, position + 1, entries);
+        }
+      }
+      if (node.anyChild != null) {
+        find(node.anyChild, name, position + 1, entries);
+      }
+    }
+
+    private static void set(@CheckForNull List<Integer> entries, @Nonnull BitSet bits) {
+      if (entries != null) {
+        for (Integer entry : entries) {
+          bits.set(entry.intValue());
+        }
+      }
+    }
+  }
+
+  @Nonnull
+  private final List<ClassSpecification> specs;
+
+  @Nonnull
+  private final NameTree classNames = new NameTree();
+
+  @Nonnull
+  private final NameTree annotationNames = new NameTree();
+
+  @Nonnull
+  private final NameTree superNames = new NameTree();
+
+  /** Specifications that can not be indexed */
+  @Nonnull
+  private final BitSet unindexed = new BitSet();
+
+  public ClassSpecificationIndex(@Nonnull List<ClassSpecification> specs) {
+    this.specs = new ArrayList<ClassSpecification>(specs);
+
+    for (int entry = 0; entry < specs.size(); entry++) {
+      ClassSpecification spec = specs.get(entry);
+      if (!addClassNames(spec, entry) && !addAnnotationName(spec, entry)
+          && !addSuperName(spec, entry)) {
+        unindexed.set(entry);
+      }
+    }
+  }
+
+  private boolean addClassNames(@Nonnull ClassSpecification spec, @Nonnegative int entry) {
+    // The specification matches if one of its names matches, so all of them must be indexed
+    List<String> indexedParts = new ArrayList<String>(spec.getNameSpecs().size());
+    for (NameSpecification name : spec.getNameSpecs()) {
+      String indexedPart = NameTree.getIndexedPart(name);
+      if (indexedPart == null) {
+        return false;
+      }
+      indexedParts.add(indexedPart);
+    }
+
+    for (String indexedPart : indexedParts) {
+      classNames.add(indexedPart, entry);
+    }
+    return true;
+  }
+
+  private boolean addAnnotationName(@Nonnull ClassSpecification spec, @Nonnegative int entry) {
+    AnnotationSpecification annotation = spec.getAnnotationType();
+    return annotation != null && annotationNames.add(annotation.getName(), entry);
+  }
+
+  private boolean addSuperName(@Nonnull ClassSpecification spec, @Nonnegative int entry) {
+    InheritanceSpecification inheritance = spec.getInheritance();
+    return inheritance != null && superNames.add(inheritance.getClassName(), entry);
+  }
+
+  /**
+   * Returns the specifications that may match a type, in the order of the indexed list.
+   */
+  @Nonnull
+  public List<ClassSpecification> getCandidates(@Nonnull JDefinedClassOrInterface type) {
+    BitSet entries = (BitSet) unindexed.clone();
+
+    classNames.find(GrammarActions.getSourceFormatter().getName(type), entries);
+
+    if (!annotationNames.isEmpty()) {
+      for (JAnnotation annotation : type.getAnnotations()) {
+        annotationNames.find(GrammarActions.getSourceFormatter().getName(annotation.getType()),
+            entries);
+      }
+    }
+
+    if (!superNames.isEmpty()) {
+      Set<JDefinedClassOrInterface> supers = new HashSet<JDefinedClassOrInterface>();
+      collectSupers(type, supers);
+      for (JDefinedClassOrInterface superType : supers) {
+        superNames.find(GrammarActions.getSourceFormatter().getName(superType), entries);
+      }
+    }
+
+    List<ClassSpecification> candidates = new ArrayList<ClassSpecification>(entries.cardinality());
+    for (int entry = entries.nextSetBit(0); entry >= 0; entry = entries.nextSetBit(entry + 1)) {
+      candidates.add(specs.get(entry));
+    }
+    return candidates;
+  }
+
+  /*
+   * Collects the super types visited by InheritanceSpecification.
+   */
+  private static void collectSupers(@Nonnull JDefinedClassOrInterface type,
+      @Nonnull Set<JDefinedClassOrInterface> supers) {
+    for (JInterface implement : type.getImplements()) {
+      if (implement instanceof JDefinedClassOrInterface) {
+        JDefinedClassOrInterface definedImplement = (JDefinedClassOrInterface) implement;
+        if (supers.add(definedImplement)) {
+          collectSupers(definedImplement, supers);
+        }
+      }
+    }
+    JClass superclass = type.getSuperClass();
+    if (superclass instanceof JDefinedClassOrInterface) {
+      JDefinedClassOrInterface definedSuper = (JDefinedClassOrInterface) superclass;
+      if (supers.add(definedSuper)) {
+        collectSupers(definedSuper, supers);
+      }
+    }
+  }
+}
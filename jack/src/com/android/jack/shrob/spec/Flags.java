@@ -98,6 +98,15 @@ public class Flags {
   private final List<ClassSpecification> keepClassMembersSpecs
   = new ArrayList<ClassSpecification>();
 
+  @CheckForNull
+  private ClassSpecificationIndex keepClassSpecIndex;
+
+  @CheckForNull
+  private ClassSpecificationIndex keepClassesWithMembersSpecIndex;
+
+  @CheckForNull
+  private ClassSpecificationIndex keepClassMembersSpecIndex;
+
   private boolean printSeeds = false;
 
   @CheckForNull
@@ -289,22 +298,49 @@ public class Flags {
     return keepClassMembersSpecs;
   }
 
-  public void addKeepClassSpecification(
+  @Nonnull
+  public synchronized ClassSpecificationIndex getKeepClassSpecIndex() {
+    if (keepClassSpecIndex == null) {
+      keepClassSpecIndex = new ClassSpecificationIndex(keepClassSpecs);
+    }
+    return keepClassSpecIndex;
+  }
+
+  @Nonnull
+  public synchronized ClassSpecificationIndex getKeepClassesWithMembersSpecIndex() {
+    if (keepClassesWithMembersSpecIndex == null) {
+      keepClassesWithMembersSpecIndex = new ClassSpecificationIndex(keepClassesWithMembersSpecs);
+    }
+    return keepClassesWithMembersSpecIndex;
+  }
+
+  @Nonnull
+  public synchronized ClassSpecificationIndex getKeepClassMembersSpecIndex() {
+    if (keepClassMembersSpecIndex == null) {
+      keepClassMembersSpecIndex = new ClassSpecificationIndex(keepClassMembersSpecs);
+    }
+    return keepClassMembersSpecIndex;
+  }
+
+  public synchronized void addKeepClassSpecification(
       @CheckForNull ClassSpecification classSpecification) {
     assert classSpecification != null;
     keepClassSpecs.add(classSpecification);
+    keepClassSpecIndex = null;
   }
 
-  public void addKeepClassesWithMembers(
+  public synchronized void addKeepClassesWithMembers(
       @CheckForNull ClassSpecification classSpecification) {
     assert classSpecification != null;
     keepClassesWithMembersSpecs.add(classSpecification);
+    keepClassesWithMembersSpecIndex = null;
   }
 
-  public void addKeepClassMembers(
+  public synchronized void addKeepClassMembers(
       @CheckForNull ClassSpecification classSpecification) {
     assert classSpecification != null;
     keepClassMembersSpecs.add(classSpecification);
+    keepClassMembersSpecIndex = null;
   }
 
   public void addAllKeepAttribute(@Nonnull List<FilterSpecification> attribute) {
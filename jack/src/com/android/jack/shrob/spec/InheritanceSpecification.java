@@ -49,6 +49,11 @@ public class InheritanceSpecification implements Specification<JDefinedClassOrIn
     this.annotationType = annotationType;
   }
 
+  @Nonnull
+  public NameSpecification getClassName() {
+    return className;
+  }
+
   private boolean checkNameAndAnnotations(@Nonnull JDefinedClassOrInterface type) {
     if (annotationType != null && !annotationType.matches(type.getAnnotations())) {
       return false;
@@ -37,6 +37,11 @@ public class NameSpecification extends SpecificationWithNegator<String> {
     setNegator(negator);
   }
 
+  @Nonnull
+  public Pattern getPattern() {
+    return name;
+  }
+
   @Override
   protected boolean matchesWithoutNegator(@Nonnull String t) {
     Matcher matcher = name.matcher(t);
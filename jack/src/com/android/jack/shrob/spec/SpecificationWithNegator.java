@@ -32,6 +32,10 @@ public abstract class SpecificationWithNegator<T> implements Specification<T> {
     this.hasNegator = negator;
   }
 
+  public boolean hasNegator() {
+    return hasNegator;
+  }
+
   @Override
   public boolean matches(@Nonnull T t) {
     if (hasNegator) {
@@ -34,11 +34,27 @@ public class StringUtils {
    */
   @Nonnull
   public static String utf8BytesToString(@Nonnull byte [] bytes) throws ParseException {
-      int length = bytes.length;
-      char[] chars = new char[length]; // This is sized to avoid a realloc.
+      char[] chars = new char[bytes.length]; // This is sized to avoid a realloc.
+      int count = utf8BytesToChars(bytes, 0, bytes.length, chars);
+
+      return new String(chars, 0, count);
+  }
+
+  /**
+   * Converts a range of an array of UTF-8 bytes into chars.
+   *
+   * @param bytes {@code non-null;} the bytes to convert
+   * @param start the index of the first byte to convert
+   * @param length the number of bytes to convert
+   * @param chars {@code non-null;} where to store the chars, at least {@code length} long
+   * @return the number of chars stored
+   * @throws ParseException
+   */
+  public static int utf8BytesToChars(@Nonnull byte [] bytes, int start, int length,
+      @Nonnull char[] chars) throws ParseException {
       int outAt = 0;
 
-      for (int at = 0; length > 0; /*at*/) {
+      for (int at = start; length > 0; /*at*/) {
           int v0 = 0x000000FF & bytes[at];
           char out;
           switch (v0 >> 4) {
@@ -112,7 +128,7 @@ public class StringUtils {
           outAt++;
       }
 
-      return new String(chars, 0, outAt);
+      return outAt;
   }
 
   /**
@@ -16,11 +16,19 @@
 
 package com.android.jack;
 
+import com.android.jack.backend.dex.ParallelMergeTest;
+import com.android.jack.backend.dex.rop.RopMethodSerializerTest;
 import com.android.jack.backend.dex.rop.RopRegisterManagerTest;
+import com.android.jack.dx.dex.file.ImportedCodeItemTest;
+import com.android.jack.dx.io.IndexRelocationTableTest;
+import com.android.jack.dx.ssa.back.LinearScanAllocatorTest;
+import com.android.jack.dx.util.InternTableTest;
+import com.android.jack.incremental.SourceApiDigesterTest;
 import com.android.jack.ir.ast.JDefinedInterfaceTest;
 import com.android.jack.ir.ast.MarkerCollectorTest;
 import com.android.jack.ir.impl.ReferenceMapperTest;
 import com.android.jack.jayce.v0002.io.EscapeStringTest;
+import com.android.jack.library.InputJackLibraryCacheTest;
 import com.android.jack.optimizations.ExpressionSimplifierTest;
 import com.android.jack.optimizations.tailrecursion.TailRecursionTest;
 import com.android.jack.preprocessor.PreProcessorTest;
@@ -30,6 +38,8 @@ import com.android.jack.shrob.obfuscation.nameprovider.DictionaryNameProviderTes
 import com.android.jack.tracer.TracingTest;
 import com.android.jack.transformations.ast.string.StringSplittingTest;
 import com.android.jack.transformations.cast.UselessCastRemoverTest;
+import com.android.sched.WorkStealingScheduleInstanceTest;
+import com.android.sched.scheduler.CachedPlannerTest;
 
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
@@ -48,30 +58,40 @@ import org.junit.runners.Suite.SuiteClasses;
     com.android.jack.shrob.AllTests.class,
     com.android.jack.transformations.ast.AllTests.class,
     com.android.jack.util.AllTests.class,
+    CachedPlannerTest.class,
     ConditionalTest.class,
     DictionaryNameProviderTest.class,
     EscapeStringTest.class,
     ExpressionSimplifierTest.class,
     FibonacciThreeAddressTest.class,
     FinallyTest.class,
+    ImportedCodeItemTest.class,
+    IndexRelocationTableTest.class,
+    InputJackLibraryCacheTest.class,
+    InternTableTest.class,
     JarjarTest.class,
     JDefinedInterfaceTest.class,
+    LinearScanAllocatorTest.class,
     MainTest.class,
     MarkerCollectorTest.class,
     /* MultiDexOverflowTests.class, */
     /* MultiDexTests.class, */
+    ParallelMergeTest.class,
     PreProcessorTest.class,
     ProblemLevelTest.class,
 //    ReachingDefsTest.class,
     ReferenceMapperTest.class,
     ReporterFormatTest.class,
+    RopMethodSerializerTest.class,
     RopRegisterManagerTest.class,
+    SourceApiDigesterTest.class,
     StaticValuesTest.class,
     StringSplittingTest.class,
     Types.class,
     UnaryTest.class,
     UselessCastRemoverTest.class,
     TracingTest.class,
-    TailRecursionTest.class})
+    TailRecursionTest.class,
+    WorkStealingScheduleInstanceTest.class})
 public class AllUnitTests {
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.backend.dex;
+
+import com.android.jack.Jack;
+import com.android.jack.Options;
+import com.android.jack.Options.MultiDexKind;
+import com.android.jack.TestTools;
+import com.android.jack.api.v04.impl.Api04Feature;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Checks that merging the dex files of a multidex application in parallel writes exactly the same
+ * dex files as merging them sequentially.
+ */
+public class ParallelMergeTest {
+  /** Enough classes and fields to overflow the field ids of two dex files */
+  private static final int CLASS_COUNT = 200;
+
+  private static final int FIELD_COUNT = 700;
+
+  private static File srcFolder;
+
+  @BeforeClass
+  public static void setUpClass() throws Exception {
+    srcFolder = TestTools.createTempDir("src");
+    for (int classIdx = 0; classIdx < CLASS_COUNT; classIdx++) {
+      Writer writer = new OutputStreamWriter(
+          new FileOutputStream(new File(srcFolder, "A" + classIdx + ".java")),
+          StandardCharsets.UTF_8);
+      try {
+        writer.append("package pkg;\npublic class A").append(Integer.toString(classIdx))
+            .append(" {\n");
+        for (int fieldIdx = 0; fieldIdx < FIELD_COUNT; fieldIdx++) {
+          writer.append("  public int f").append(Integer.toString(fieldIdx)).append(";\n");
+        }
+        writer.append("}\n");
+      } finally {
+        writer.close();
+      }
+    }
+  }
+
+  @Test
+  public void standardMultiDex() throws Exception {
+    checkSameOutput("multidex");
+  }
+
+  @Test
+  public void minimalMultiDex() throws Exception {
+    checkSameOutput("minimal-multidex");
+  }
+
+  private static void checkSameOutput(@Nonnull String policy) throws Exception {
+    File sequentialOut = compile(policy, false);
+    File parallelOut = compile(policy, true);
+
+    String[] sequentialDexes = sequentialOut.list();
+    Arrays.sort(sequentialDexes);
+    String[] parallelDexes = parallelOut.list();
+    Arrays.sort(parallelDexes);
+    Assert.assertTrue(sequentialDexes.length >= 3);
+    Assert.assertTrue(Arrays.equals(sequentialDexes, parallelDexes));
+
+    for (String dex : sequentialDexes) {
+      Assert.assertTrue(dex, Arrays.equals(
+          Files.readAllBytes(new File(sequentialOut, dex).toPath()),
+          Files.readAllBytes(new File(parallelOut, dex).toPath())));
+    }
+  }
+
+  @Nonnull
+  private static File compile(@Nonnull String policy, boolean parallel) throws Exception {
+    Options options = TestTools.buildCommandLineArgs(srcFolder);
+    File out = TestTools.createTempDir("out");
+    options.setOutputDir(out);
+    options.addProperty(Options.USE_DEFAULT_LIBRARIES.getName(), "false");
+    options.setMultiDexKind(MultiDexKind.NATIVE);
+    options.addProperty(DexFileWriter.DEX_WRITING_POLICY.getName(), policy);
+    options.addProperty(DexWritingTool.PARALLEL_MERGE.getName(), Boolean.toString(parallel));
+    if (parallel) {
+      // Fewer threads than dex files, so that merges wait for the previous ones to be written
+      options.addProperty(DexWritingTool.PARALLEL_MERGE_THREADS.getName(), "2");
+    }
+    Jack.checkAndRun(Api04Feature.class, options);
+    return out;
+  }
+}
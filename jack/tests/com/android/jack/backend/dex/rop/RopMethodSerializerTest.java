@@ -0,0 +1,360 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.backend.dex.rop;
+
+import com.android.jack.dx.rop.code.BasicBlock;
+import com.android.jack.dx.rop.code.BasicBlockList;
+import com.android.jack.dx.rop.code.CstInsn;
+import com.android.jack.dx.rop.code.DexTranslationAdvice;
+import com.android.jack.dx.rop.code.FillArrayDataInsn;
+import com.android.jack.dx.rop.code.Insn;
+import com.android.jack.dx.rop.code.InsnList;
+import com.android.jack.dx.rop.code.LocalItem;
+import com.android.jack.dx.rop.code.PlainCstInsn;
+import com.android.jack.dx.rop.code.PlainInsn;
+import com.android.jack.dx.rop.code.RegisterSpec;
+import com.android.jack.dx.rop.code.RegisterSpecList;
+import com.android.jack.dx.rop.code.RopMethod;
+import com.android.jack.dx.rop.code.Rops;
+import com.android.jack.dx.rop.code.SourcePosition;
+import com.android.jack.dx.rop.code.SwitchInsn;
+import com.android.jack.dx.rop.code.ThrowingCstInsn;
+import com.android.jack.dx.rop.cst.Constant;
+import com.android.jack.dx.rop.cst.CstDouble;
+import com.android.jack.dx.rop.cst.CstFieldRef;
+import com.android.jack.dx.rop.cst.CstFloat;
+import com.android.jack.dx.rop.cst.CstInteger;
+import com.android.jack.dx.rop.cst.CstKnownNull;
+import com.android.jack.dx.rop.cst.CstLong;
+import com.android.jack.dx.rop.cst.CstMethodRef;
+import com.android.jack.dx.rop.cst.CstNat;
+import com.android.jack.dx.rop.cst.CstString;
+import com.android.jack.dx.rop.cst.CstType;
+import com.android.jack.dx.rop.type.Prototype;
+import com.android.jack.dx.rop.type.StdTypeList;
+import com.android.jack.dx.rop.type.Type;
+import com.android.jack.dx.ssa.Optimizer;
+import com.android.jack.dx.util.IntList;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Tests for {@link RopMethodSerializer}. Methods are written and read back before and after
+ * optimization, and must be read back identical.
+ */
+public class RopMethodSerializerTest {
+  @Nonnull
+  private static final CstString SOURCE_FILE = new CstString("A.java");
+
+  @Nonnull
+  private static final CstType DEFINING_CLASS = CstType.intern(Type.intern("La/A;"));
+
+  @Nonnull
+  private static final Type IO_EXCEPTION = Type.intern("Ljava/io/IOException;");
+
+  /**
+   * <pre>
+   * static int tryCatch(int p) {
+   *   try {
+   *     return get(p);
+   *   } catch (IOException e) {
+   *     return -1;
+   *   }
+   * }
+   * </pre>
+   */
+  @Test
+  public void tryCatch() throws Exception {
+    RegisterSpec p = RegisterSpec.make(0, Type.INT, local("p", Type.INT));
+    RegisterSpec result = RegisterSpec.make(1, Type.INT);
+    RegisterSpec e = RegisterSpec.make(2, IO_EXCEPTION, local("e", IO_EXCEPTION));
+    CstMethodRef get = new CstMethodRef(DEFINING_CLASS,
+        new CstNat(new CstString("get"), new CstString("(I)I")));
+
+    BasicBlockList blocks = new BasicBlockList(4);
+    blocks.set(0, makeBlock(0, IntList.makeImmutable(1), 1,
+        new PlainCstInsn(Rops.opMoveParam(Type.INT), position(1), p, RegisterSpecList.EMPTY,
+            CstInteger.make(0)),
+        new PlainInsn(Rops.GOTO, position(1), null, RegisterSpecList.EMPTY)));
+    // Handlers come first in the successors, in the order of the catches
+    blocks.set(1, makeBlock(1, IntList.makeImmutable(3, 2), 2,
+        new ThrowingCstInsn(Rops.opInvokeStatic(Prototype.intern("(I)I")), position(3),
+            RegisterSpecList.make(p), StdTypeList.make(IO_EXCEPTION), get)));
+    blocks.set(2, makeBlock(2, IntList.EMPTY, -1,
+        new PlainInsn(Rops.opMoveResult(Type.INT), position(3), result, RegisterSpecList.EMPTY),
+        new PlainInsn(Rops.opReturn(Type.INT), position(3), null,
+            RegisterSpecList.make(result))));
+    blocks.set(3, makeBlock(3, IntList.EMPTY, -1,
+        new PlainInsn(Rops.opMoveException(IO_EXCEPTION), position(4), e,
+            RegisterSpecList.EMPTY),
+        new PlainCstInsn(Rops.CONST_INT, position(5), result, RegisterSpecList.EMPTY,
+            CstInteger.make(-1)),
+        new PlainInsn(Rops.opReturn(Type.INT), position(5), null,
+            RegisterSpecList.make(result))));
+    blocks.setImmutable();
+
+    check(new RopMethod(blocks, 0), /* paramWordCount = */ 1);
+  }
+
+  /**
+   * <pre>
+   * static long switchOnWide(int p, long q, double d) {
+   *   switch (p) {
+   *     case 1: return Long.MIN_VALUE;
+   *     case 5: return q + q;
+   *     case 100: return (long) d;
+   *     default: return q;
+   *   }
+   * }
+   * </pre>
+   */
+  @Test
+  public void switchOnWide() throws Exception {
+    RegisterSpec p = RegisterSpec.make(0, Type.INT, local("p", Type.INT));
+    RegisterSpec q = RegisterSpec.make(1, Type.LONG, local("q", Type.LONG));
+    RegisterSpec d = RegisterSpec.make(3, Type.DOUBLE, local("d", Type.DOUBLE));
+    RegisterSpec result = RegisterSpec.make(5, Type.LONG);
+
+    BasicBlockList blocks = new BasicBlockList(6);
+    blocks.set(0, makeBlock(0, IntList.makeImmutable(1), 1,
+        new PlainCstInsn(Rops.opMoveParam(Type.INT), position(1), p, RegisterSpecList.EMPTY,
+            CstInteger.make(0)),
+        new PlainCstInsn(Rops.opMoveParam(Type.LONG), position(1), q, RegisterSpecList.EMPTY,
+            CstInteger.make(1)),
+        new PlainCstInsn(Rops.opMoveParam(Type.DOUBLE), position(1), d, RegisterSpecList.EMPTY,
+            CstInteger.make(3)),
+        new PlainInsn(Rops.GOTO, position(1), null, RegisterSpecList.EMPTY)));
+    // The default case is the last successor
+    blocks.set(1, makeBlock(1, makeIntList(2, 3, 4, 5), 5,
+        new SwitchInsn(Rops.SWITCH, position(2), null, RegisterSpecList.make(p),
+            makeIntList(1, 5, 100))));
+    blocks.set(2, makeBlock(2, IntList.EMPTY, -1,
+        new PlainCstInsn(Rops.CONST_LONG, position(3), result, RegisterSpecList.EMPTY,
+            CstLong.make(Long.MIN_VALUE)),
+        new PlainInsn(Rops.opReturn(Type.LONG), position(3), null,
+            RegisterSpecList.make(result))));
+    blocks.set(3, makeBlock(3, IntList.EMPTY, -1,
+        new PlainInsn(Rops.opAdd(StdTypeList.make(Type.LONG, Type.LONG)), position(4), result,
+            RegisterSpecList.make(q, q)),
+        new PlainInsn(Rops.opReturn(Type.LONG), position(4), null,
+            RegisterSpecList.make(result))));
+    blocks.set(4, makeBlock(4, IntList.EMPTY, -1,
+        new PlainInsn(Rops.opConv(Type.LONG, Type.DOUBLE), position(5), result,
+            RegisterSpecList.make(d)),
+        new PlainInsn(Rops.opReturn(Type.LONG), position(5), null,
+            RegisterSpecList.make(result))));
+    blocks.set(5, makeBlock(5, IntList.EMPTY, -1,
+        new PlainInsn(Rops.opReturn(Type.LONG), position(6), null, RegisterSpecList.make(q))));
+    blocks.setImmutable();
+
+    RopMethod method = new RopMethod(blocks, 0);
+    check(method, /* paramWordCount = */ 5);
+
+    // Shared rops are read back as the shared instances
+    Insn switchInsn = roundTrip(method).getBlocks().labelToBlock(1).getLastInsn();
+    Assert.assertSame(Rops.SWITCH, switchInsn.getOpcode());
+  }
+
+  /**
+   * <pre>
+   * static Object constants() {
+   *   String s = "constant";
+   *   int i = A.f;
+   *   float f = 1.5f;
+   *   double d = -0.0;
+   *   Object o = null;
+   *   int[] a = {1, 2, 3};
+   *   return String.class;
+   * }
+   * </pre>
+   */
+  @Test
+  public void constants() throws Exception {
+    RegisterSpec s = RegisterSpec.make(0, Type.STRING, local("s", Type.STRING));
+    RegisterSpec i = RegisterSpec.make(1, Type.INT, local("i", Type.INT));
+    RegisterSpec f = RegisterSpec.make(2, Type.FLOAT, local("f", Type.FLOAT));
+    RegisterSpec d = RegisterSpec.make(3, Type.DOUBLE, local("d", Type.DOUBLE));
+    RegisterSpec o = RegisterSpec.make(5, Type.OBJECT, local("o", Type.OBJECT));
+    RegisterSpec size = RegisterSpec.make(6, Type.INT);
+    RegisterSpec a = RegisterSpec.make(7, Type.INT_ARRAY, local("a", Type.INT_ARRAY));
+    RegisterSpec c = RegisterSpec.make(8, Type.CLASS);
+    CstFieldRef field = new CstFieldRef(DEFINING_CLASS,
+        new CstNat(new CstString("f"), new CstString("I")));
+    ArrayList<Constant> values = new ArrayList<Constant>(
+        Arrays.<Constant>asList(CstInteger.make(1), CstInteger.make(2), CstInteger.make(3)));
+
+    BasicBlockList blocks = new BasicBlockList(5);
+    blocks.set(0, makeBlock(0, IntList.makeImmutable(1), 1,
+        new ThrowingCstInsn(Rops.CONST_OBJECT, position(1), RegisterSpecList.EMPTY,
+            StdTypeList.EMPTY, new CstString("constant"))));
+    blocks.set(1, makeBlock(1, IntList.makeImmutable(2), 2,
+        new PlainInsn(Rops.opMoveResultPseudo(Type.STRING), position(1), s,
+            RegisterSpecList.EMPTY),
+        new ThrowingCstInsn(Rops.opGetStatic(Type.INT), position(2), RegisterSpecList.EMPTY,
+            StdTypeList.EMPTY, field)));
+    blocks.set(2, makeBlock(2, IntList.makeImmutable(3), 3,
+        new PlainInsn(Rops.opMoveResultPseudo(Type.INT), position(2), i,
+            RegisterSpecList.EMPTY),
+        new PlainCstInsn(Rops.CONST_FLOAT, position(3), f, RegisterSpecList.EMPTY,
+            CstFloat.make(Float.floatToIntBits(1.5f))),
+        new PlainCstInsn(Rops.CONST_DOUBLE, position(4), d, RegisterSpecList.EMPTY,
+            CstDouble.make(Double.doubleToLongBits(-0.0))),
+        new PlainCstInsn(Rops.opConst(Type.KNOWN_NULL), position(5), o,
+            RegisterSpecList.EMPTY, CstKnownNull.THE_ONE),
+        new PlainCstInsn(Rops.CONST_INT, position(6), size, RegisterSpecList.EMPTY,
+            CstInteger.make(3)),
+        new ThrowingCstInsn(Rops.opNewArray(Type.INT_ARRAY), position(6),
+            RegisterSpecList.make(size), StdTypeList.EMPTY, CstType.INT_ARRAY)));
+    blocks.set(3, makeBlock(3, IntList.makeImmutable(4), 4,
+        new PlainInsn(Rops.opMoveResultPseudo(Type.INT_ARRAY), position(6), a,
+            RegisterSpecList.EMPTY),
+        new FillArrayDataInsn(Rops.FILL_ARRAY_DATA, position(6), RegisterSpecList.make(a),
+            values, CstType.INT_ARRAY),
+        new ThrowingCstInsn(Rops.CONST_OBJECT, position(7), RegisterSpecList.EMPTY,
+            StdTypeList.EMPTY, CstType.intern(Type.STRING))));
+    blocks.set(4, makeBlock(4, IntList.EMPTY, -1,
+        new PlainInsn(Rops.opMoveResultPseudo(Type.CLASS), position(7), c,
+            RegisterSpecList.EMPTY),
+        new PlainInsn(Rops.opReturn(Type.OBJECT), position(7), null, RegisterSpecList.make(c))));
+    blocks.setImmutable();
+
+    check(new RopMethod(blocks, 0), /* paramWordCount = */ 0);
+  }
+
+  /**
+   * Checks that a method is read back identical, before and after optimization, and that the
+   * method read back is optimized as the original.
+   */
+  private static void check(@Nonnull RopMethod method, @Nonnegative int paramWordCount)
+      throws Exception {
+    RopMethod readMethod = roundTrip(method);
+    assertSameMethod(method, readMethod);
+
+    RopMethod optimizedMethod = optimize(method, paramWordCount);
+    assertSameMethod(optimizedMethod, roundTrip(optimizedMethod));
+    assertSameMethod(optimizedMethod, optimize(readMethod, paramWordCount));
+  }
+
+  @Nonnull
+  private static RopMethod roundTrip(@Nonnull RopMethod method) throws Exception {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(buffer);
+    RopMethodSerializer.write(out, method);
+    out.close();
+
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+    RopMethod readMethod = RopMethodSerializer.read(in);
+    Assert.assertEquals(-1, in.read());
+    return readMethod;
+  }
+
+  @Nonnull
+  private static RopMethod optimize(@Nonnull RopMethod method, @Nonnegative int paramWordCount) {
+    return Optimizer.optimize(method, paramWordCount, /* isStatic = */ true,
+        /* inPreserveLocals = */ true, /* removeRedundantConditionalBranch = */ true,
+        /* useLinearScanAllocator = */ false, DexTranslationAdvice.THE_ONE);
+  }
+
+  private static void assertSameMethod(@Nonnull RopMethod expected, @Nonnull RopMethod actual) {
+    Assert.assertEquals(expected.getFirstLabel(), actual.getFirstLabel());
+    BasicBlockList expectedBlocks = expected.getBlocks();
+    BasicBlockList actualBlocks = actual.getBlocks();
+    Assert.assertEquals(expectedBlocks.size(), actualBlocks.size());
+    for (int i = 0; i < expectedBlocks.size(); i++) {
+      BasicBlock expectedBlock = expectedBlocks.get(i);
+      BasicBlock actualBlock = actualBlocks.get(i);
+      Assert.assertEquals(expectedBlock.getLabel(), actualBlock.getLabel());
+      Assert.assertEquals(expectedBlock.getSuccessors(), actualBlock.getSuccessors());
+      Assert.assertEquals(expectedBlock.getPrimarySuccessor(), actualBlock.getPrimarySuccessor());
+      InsnList expectedInsns = expectedBlock.getInsns();
+      InsnList actualInsns = actualBlock.getInsns();
+      Assert.assertEquals(expectedInsns.size(), actualInsns.size());
+      for (int j = 0; j < expectedInsns.size(); j++) {
+        assertSameInsn(expectedInsns.get(j), actualInsns.get(j));
+      }
+    }
+  }
+
+  private static void assertSameInsn(@Nonnull Insn expected, @Nonnull Insn actual) {
+    String message = expected.toString();
+    Assert.assertSame(message, expected.getClass(), actual.getClass());
+    Assert.assertEquals(message, expected.getOpcode(), actual.getOpcode());
+    Assert.assertEquals(message, expected.getPosition(), actual.getPosition());
+    Assert.assertEquals(message, expected.getResult(), actual.getResult());
+    Assert.assertEquals(message, expected.getSources(), actual.getSources());
+    Assert.assertTrue(message,
+        StdTypeList.equalContents(expected.getCatches(), actual.getCatches()));
+    if (expected instanceof CstInsn) {
+      Assert.assertEquals(message, ((CstInsn) expected).getConstant(),
+          ((CstInsn) actual).getConstant());
+    }
+    if (expected instanceof SwitchInsn) {
+      Assert.assertEquals(message, ((SwitchInsn) expected).getCases(),
+          ((SwitchInsn) actual).getCases());
+    }
+    if (expected instanceof FillArrayDataInsn) {
+      Assert.assertEquals(message, ((FillArrayDataInsn) expected).getInitValues(),
+          ((FillArrayDataInsn) actual).getInitValues());
+    }
+    Assert.assertEquals(expected.toString(), actual.toString());
+  }
+
+  @Nonnull
+  private static BasicBlock makeBlock(int label, @Nonnull IntList successors,
+      int primarySuccessor, @Nonnull Insn... insns) {
+    InsnList insnList = new InsnList(insns.length);
+    for (int i = 0; i < insns.length; i++) {
+      insnList.set(i, insns[i]);
+    }
+    insnList.setImmutable();
+
+    return new BasicBlock(label, insnList, successors, primarySuccessor);
+  }
+
+  @Nonnull
+  private static IntList makeIntList(@Nonnull int... values) {
+    IntList list = new IntList(values.length);
+    for (int value : values) {
+      list.add(value);
+    }
+    list.setImmutable();
+
+    return list;
+  }
+
+  @Nonnull
+  private static SourcePosition position(int line) {
+    return new SourcePosition(SOURCE_FILE, -1, line);
+  }
+
+  @Nonnull
+  private static LocalItem local(@Nonnull String name, @Nonnull Type type) {
+    return LocalItem.make(new CstString(name), CstType.intern(type), /* signature = */ null);
+  }
+}
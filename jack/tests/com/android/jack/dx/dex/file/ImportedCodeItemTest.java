@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.dx.dex.file;
+
+import com.android.jack.dx.io.DexBuffer;
+import com.android.jack.dx.io.Opcodes;
+import com.android.jack.dx.rop.cst.CstIndexMap;
+import com.android.jack.dx.util.DexException;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Tests the remapping of constant indexes by {@link ImportedCodeItem}.
+ */
+public class ImportedCodeItemTest {
+  /**
+   * Remaps the indexes of each kind of constant by adding a distinct offset, crossing the 0x8000
+   * and 0x10000 boundaries.
+   */
+  private static class ShiftingIndexMap extends CstIndexMap {
+    private final int stringShift;
+
+    public ShiftingIndexMap(int stringShift) {
+      super(new DexBuffer());
+      this.stringShift = stringShift;
+    }
+
+    @Override
+    public int getRemappedCstStringIndex(DexFile file, int index) {
+      return index + stringShift;
+    }
+
+    @Override
+    public int getRemappedCstTypeIndex(DexFile file, int index) {
+      return index + 0x7000;
+    }
+
+    @Override
+    public int getRemappedCstFieldRefIndex(DexFile file, int index) {
+      return index + 0x100;
+    }
+
+    @Override
+    public int getRemappedCstBaseMethodRefIndex(DexFile file, int index) {
+      return index - 0x1000;
+    }
+
+    @Override
+    public int getRemappedCstPrototypeRefIndex(DexFile file, int index) {
+      return index + 1;
+    }
+
+    @Override
+    public int getRemappedCstCallSiteRefIndex(DexFile file, int index) {
+      return index + 2;
+    }
+  }
+
+  @Test
+  public void remapsAllKinds() {
+    short[] insts = new short[] {
+        // const-string v0, string@0x7fff
+        (short) Opcodes.CONST_STRING, 0x7fff,
+        // const-string/jumbo v0, string@0x0ffff
+        (short) Opcodes.CONST_STRING_JUMBO, (short) 0xffff, 0x0000,
+        // const-class v1, type@0x1000
+        (short) (Opcodes.CONST_CLASS | 0x100), 0x1000,
+        // iget v0, v1, field@0xfe00
+        (short) (Opcodes.IGET | 0x1000), (short) 0xfe00,
+        // invoke-static/range {v0 .. v1}, method@0x9000
+        (short) (Opcodes.INVOKE_STATIC_RANGE | 0x200), (short) 0x9000, 0x0000,
+        // invoke-polymorphic {v0}, method@0x1000, proto@0xfffe
+        (short) (Opcodes.INVOKE_POLYMORPHIC | 0x1000), 0x1000, 0x0000, (short) 0xfffe,
+        // invoke-custom {v0}, call_site@0x0003
+        (short) (Opcodes.INVOKE_CUSTOM | 0x1000), 0x0003, 0x0000,
+        // fill-array-data-payload of 2 shorts, looking like a const-string
+        (short) Opcodes.FILL_ARRAY_DATA_PAYLOAD, 2, 2, 0, (short) Opcodes.CONST_STRING, 0x0001};
+    short[] original = Arrays.copyOf(insts, insts.length);
+
+    short[] remapped = ImportedCodeItem.encodeAndRemapCode(null, new ShiftingIndexMap(0x8000),
+        insts);
+
+    short[] expected = new short[] {
+        (short) Opcodes.CONST_STRING, (short) 0xffff,
+        (short) Opcodes.CONST_STRING_JUMBO, 0x7fff, 0x0001,
+        (short) (Opcodes.CONST_CLASS | 0x100), (short) 0x8000,
+        (short) (Opcodes.IGET | 0x1000), (short) 0xff00,
+        (short) (Opcodes.INVOKE_STATIC_RANGE | 0x200), (short) 0x8000, 0x0000,
+        (short) (Opcodes.INVOKE_POLYMORPHIC | 0x1000), 0x0000, 0x0000, (short) 0xffff,
+        (short) (Opcodes.INVOKE_CUSTOM | 0x1000), 0x0005, 0x0000,
+        (short) Opcodes.FILL_ARRAY_DATA_PAYLOAD, 2, 2, 0, (short) Opcodes.CONST_STRING, 0x0001};
+    Assert.assertTrue(Arrays.toString(remapped), Arrays.equals(expected, remapped));
+    // The imported code is left as is
+    Assert.assertTrue(Arrays.equals(original, insts));
+  }
+
+  @Test
+  public void remapsIntoJumbo() {
+    short[] insts = new short[] {
+        // const-string/jumbo v0, string@0x1fffe
+        (short) Opcodes.CONST_STRING_JUMBO, (short) 0xfffe, 0x0001};
+
+    short[] remapped = ImportedCodeItem.encodeAndRemapCode(null, new ShiftingIndexMap(0x10003),
+        insts);
+
+    Assert.assertTrue(Arrays.equals(
+        new short[] {(short) Opcodes.CONST_STRING_JUMBO, 0x0001, 0x0003}, remapped));
+  }
+
+  @Test
+  public void overflowsNonJumbo() {
+    short[] insts = new short[] {
+        // const-string v0, string@0xffff
+        (short) Opcodes.CONST_STRING, (short) 0xffff};
+
+    try {
+      ImportedCodeItem.encodeAndRemapCode(null, new ShiftingIndexMap(1), insts);
+      Assert.fail();
+    } catch (DexException e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.dx.io;
+
+import com.android.jack.dx.util.DexException;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link IndexRelocationTable}.
+ */
+public class IndexRelocationTableTest {
+  @Test
+  public void findsIndexesOfAllKinds() {
+    short[] insts = new short[] {
+        // const-string v0, string@0x8001
+        (short) Opcodes.CONST_STRING, (short) 0x8001,
+        // const-string/jumbo v0, string@0x12345
+        (short) Opcodes.CONST_STRING_JUMBO, 0x2345, 0x0001,
+        // const-class v1, type@0xffff
+        (short) (Opcodes.CONST_CLASS | 0x100), (short) 0xffff,
+        // iget v0, v1, field@0x7fff
+        (short) (Opcodes.IGET | 0x1000), 0x7fff,
+        // sget v0, field@0x8000
+        (short) Opcodes.SGET, (short) 0x8000,
+        // invoke-virtual {v0}, method@0x9000
+        (short) (Opcodes.INVOKE_VIRTUAL | 0x1000), (short) 0x9000, 0x0000,
+        // filled-new-array/range {v0 .. v1}, type@0x0002
+        (short) (Opcodes.FILLED_NEW_ARRAY_RANGE | 0x200), 0x0002, 0x0000,
+        // invoke-polymorphic {v0}, method@0xa000, proto@0xb000
+        (short) (Opcodes.INVOKE_POLYMORPHIC | 0x1000), (short) 0xa000, 0x0000, (short) 0xb000,
+        // invoke-custom {v0}, call_site@0x0003
+        (short) (Opcodes.INVOKE_CUSTOM | 0x1000), 0x0003, 0x0000,
+        // return-void
+        (short) Opcodes.RETURN_VOID};
+
+    IndexRelocationTable table = new IndexRelocationTable(insts);
+
+    Assert.assertEquals(10, table.size());
+    check(table, 0, 1, IndexType.STRING_REF, false);
+    check(table, 1, 3, IndexType.STRING_REF, true);
+    check(table, 2, 6, IndexType.TYPE_REF, false);
+    check(table, 3, 8, IndexType.FIELD_REF, false);
+    check(table, 4, 10, IndexType.FIELD_REF, false);
+    check(table, 5, 12, IndexType.METHOD_REF, false);
+    check(table, 6, 15, IndexType.TYPE_REF, false);
+    check(table, 7, 18, IndexType.METHOD_REF, false);
+    check(table, 8, 20, IndexType.PROTOTYPE_REF, false);
+    check(table, 9, 22, IndexType.CALLSITE_REF, false);
+  }
+
+  @Test
+  public void skipsPayloads() {
+    short[] insts = new short[] {
+        // fill-array-data-payload of 2 shorts, looking like a const-string
+        (short) Opcodes.FILL_ARRAY_DATA_PAYLOAD, 2, 2, 0, (short) Opcodes.CONST_STRING, 0x0001,
+        // packed-switch-payload of 1 target, looking like a const-class
+        (short) Opcodes.PACKED_SWITCH_PAYLOAD, 1, (short) Opcodes.CONST_CLASS, 0x0001, 0, 0,
+        // sparse-switch-payload of 1 key, looking like an sget
+        (short) Opcodes.SPARSE_SWITCH_PAYLOAD, 1, (short) Opcodes.SGET, 0x0001, 0, 0,
+        // const-string v0, string@0x0004
+        (short) Opcodes.CONST_STRING, 0x0004};
+
+    IndexRelocationTable table = new IndexRelocationTable(insts);
+
+    Assert.assertEquals(1, table.size());
+    check(table, 0, 19, IndexType.STRING_REF, false);
+  }
+
+  @Test
+  public void truncatedInstruction() {
+    try {
+      new IndexRelocationTable(new short[] {(short) Opcodes.CONST_STRING_JUMBO, 0x0001});
+      Assert.fail();
+    } catch (DexException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void truncatedPayload() {
+    try {
+      new IndexRelocationTable(
+          new short[] {(short) Opcodes.FILL_ARRAY_DATA_PAYLOAD, 4, 10, 0, 0x0000});
+      Assert.fail();
+    } catch (DexException e) {
+      // expected
+    }
+  }
+
+  private static void check(IndexRelocationTable table, int entry, int position,
+      IndexType indexType, boolean wide) {
+    Assert.assertEquals(position, table.getPosition(entry));
+    Assert.assertEquals(indexType, table.getIndexType(entry));
+    Assert.assertEquals(wide, table.isWide(entry));
+  }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.dx.ssa.back;
+
+import com.android.jack.dx.rop.code.BasicBlock;
+import com.android.jack.dx.rop.code.BasicBlockList;
+import com.android.jack.dx.rop.code.CstInsn;
+import com.android.jack.dx.rop.code.DexTranslationAdvice;
+import com.android.jack.dx.rop.code.Insn;
+import com.android.jack.dx.rop.code.InsnList;
+import com.android.jack.dx.rop.code.PlainCstInsn;
+import com.android.jack.dx.rop.code.PlainInsn;
+import com.android.jack.dx.rop.code.RegOps;
+import com.android.jack.dx.rop.code.RegisterSpec;
+import com.android.jack.dx.rop.code.RegisterSpecList;
+import com.android.jack.dx.rop.code.RopMethod;
+import com.android.jack.dx.rop.code.Rops;
+import com.android.jack.dx.rop.code.SourcePosition;
+import com.android.jack.dx.rop.cst.CstInteger;
+import com.android.jack.dx.rop.cst.CstLiteralBits;
+import com.android.jack.dx.rop.cst.CstLong;
+import com.android.jack.dx.rop.type.StdTypeList;
+import com.android.jack.dx.rop.type.Type;
+import com.android.jack.dx.ssa.Optimizer;
+import com.android.jack.dx.util.IntList;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Checks the code produced with the {@link LinearScanAllocator} by interpreting it, and compares
+ * it with the {@link FirstFitLocalCombiningAllocator} when run as a program.
+ */
+public class LinearScanAllocatorTest {
+
+  private static final int LOOP_COUNT = 5;
+
+  @Test
+  public void intValuesLiveAcrossLoop() {
+    checkAllocators(Type.INT, 300, 7);
+  }
+
+  @Test
+  public void longValuesLiveAcrossLoop() {
+    checkAllocators(Type.LONG, 300, 7);
+  }
+
+  @Test
+  public void fewValues() {
+    checkAllocators(Type.INT, 1, -3);
+    checkAllocators(Type.LONG, 1, -3);
+  }
+
+  private static void checkAllocators(@Nonnull Type type, @Nonnegative int valueCount,
+      long param) {
+    long expected = (LOOP_COUNT + valueCount) * param + ((long) valueCount * (valueCount - 1)) / 2;
+    if (type == Type.INT) {
+      expected = (int) expected;
+    }
+
+    RopMethod method = buildMethod(type, valueCount);
+    Assert.assertEquals(expected, interpret(method, param));
+    Assert.assertEquals(expected, interpret(optimize(method, type, false), param));
+    Assert.assertEquals(expected, interpret(optimize(method, type, true), param));
+  }
+
+  @Nonnull
+  private static RopMethod optimize(@Nonnull RopMethod method, @Nonnull Type type,
+      boolean useLinearScanAllocator) {
+    return Optimizer.optimize(method, type.getCategory(), /* isStatic = */ true,
+        /* inPreserveLocals = */ true, /* removeRedundantConditionalBranch = */ true,
+        useLinearScanAllocator, DexTranslationAdvice.THE_ONE);
+  }
+
+  /**
+   * Builds a static method taking a parameter {@code p} of the given type, which computes
+   * {@code valueCount} values {@code p + k} kept live across a loop adding {@code p} to a sum
+   * {@link #LOOP_COUNT} times, then returns the sum of all of them.
+   */
+  @Nonnull
+  static RopMethod buildMethod(@Nonnull Type type, @Nonnegative int valueCount) {
+    SourcePosition pos = SourcePosition.NO_INFO;
+    StdTypeList operandTypes = StdTypeList.make(type, type);
+    // Register numbers are spaced by 2 so that wide values do not overlap
+    RegisterSpec param = RegisterSpec.make(0, type);
+    RegisterSpec sum = RegisterSpec.make(2, type);
+    RegisterSpec counter = RegisterSpec.make(4, Type.INT);
+    RegisterSpec decrement = RegisterSpec.make(6, Type.INT);
+    RegisterSpec constant = RegisterSpec.make(8, type);
+
+    List<Insn> entry = new ArrayList<Insn>();
+    entry.add(new PlainCstInsn(Rops.opMoveParam(type), pos, param, RegisterSpecList.EMPTY,
+        CstInteger.make(0)));
+    entry.add(new PlainCstInsn(Rops.opConst(type), pos, sum, RegisterSpecList.EMPTY,
+        makeConstant(type, 0)));
+    entry.add(new PlainCstInsn(Rops.CONST_INT, pos, counter, RegisterSpecList.EMPTY,
+        CstInteger.make(LOOP_COUNT)));
+    List<RegisterSpec> values = new ArrayList<RegisterSpec>(valueCount);
+    for (int k = 0; k < valueCount; k++) {
+      RegisterSpec value = RegisterSpec.make(10 + 2 * k, type);
+      values.add(value);
+      entry.add(new PlainCstInsn(Rops.opConst(type), pos, constant, RegisterSpecList.EMPTY,
+          makeConstant(type, k)));
+      entry.add(new PlainInsn(Rops.opAdd(operandTypes), pos, value,
+          RegisterSpecList.make(param, constant)));
+    }
+    entry.add(new PlainInsn(Rops.GOTO, pos, null, RegisterSpecList.EMPTY));
+
+    List<Insn> header = new ArrayList<Insn>();
+    header.add(new PlainInsn(Rops.IF_EQZ_INT, pos, null, RegisterSpecList.make(counter)));
+
+    List<Insn> body = new ArrayList<Insn>();
+    body.add(new PlainInsn(Rops.opAdd(operandTypes), pos, sum,
+        RegisterSpecList.make(sum, param)));
+    body.add(new PlainCstInsn(Rops.CONST_INT, pos, decrement, RegisterSpecList.EMPTY,
+        CstInteger.make(-1)));
+    body.add(new PlainInsn(Rops.ADD_INT, pos, counter,
+        RegisterSpecList.make(counter, decrement)));
+    body.add(new PlainInsn(Rops.GOTO, pos, null, RegisterSpecList.EMPTY));
+
+    List<Insn> exit = new ArrayList<Insn>();
+    for (RegisterSpec value : values) {
+      exit.add(new PlainInsn(Rops.opAdd(operandTypes), pos, sum,
+          RegisterSpecList.make(sum, value)));
+    }
+    exit.add(new PlainInsn(Rops.opReturn(type), pos, null, RegisterSpecList.make(sum)));
+
+    BasicBlockList blocks = new BasicBlockList(4);
+    blocks.set(0, makeBlock(0, entry, IntList.makeImmutable(1), 1));
+    // The primary successor of an "if" is the fall-through, the second one is the target
+    blocks.set(1, makeBlock(1, header, IntList.makeImmutable(2, 3), 2));
+    blocks.set(2, makeBlock(2, body, IntList.makeImmutable(1), 1));
+    blocks.set(3, makeBlock(3, exit, IntList.EMPTY, -1));
+    blocks.setImmutable();
+
+    return new RopMethod(blocks, 0);
+  }
+
+  @Nonnull
+  private static CstLiteralBits makeConstant(@Nonnull Type type, long value) {
+    return type == Type.LONG ? CstLong.make(value) : CstInteger.make((int) value);
+  }
+
+  @Nonnull
+  private static BasicBlock makeBlock(int label, @Nonnull List<Insn> insns,
+      @Nonnull IntList successors, int primarySuccessor) {
+    InsnList insnList = new InsnList(insns.size());
+    for (int i = 0; i < insns.size(); i++) {
+      insnList.set(i, insns.get(i));
+    }
+    insnList.setImmutable();
+
+    return new BasicBlock(label, insnList, successors, primarySuccessor);
+  }
+
+  /**
+   * Runs a method built from the instructions of {@link #buildMethod}, or optimized from it.
+   * Registers are modeled one word at a time, so that a wide value partially overwritten by
+   * another allocation is detected.
+   */
+  private static long interpret(@Nonnull RopMethod method, long param) {
+    BasicBlockList blocks = method.getBlocks();
+    long[] words = new long[blocks.getRegCount() + 1];
+    BasicBlock block = blocks.labelToBlock(method.getFirstLabel());
+
+    while (true) {
+      InsnList insns = block.getInsns();
+      int next = block.getPrimarySuccessor();
+
+      for (int i = 0; i < insns.size(); i++) {
+        Insn insn = insns.get(i);
+        RegisterSpecList sources = insn.getSources();
+        Long constant = insn instanceof CstInsn
+            ? Long.valueOf(((CstLiteralBits) ((CstInsn) insn).getConstant()).getLongBits())
+            : null;
+
+        switch (insn.getOpcode().getOpcode()) {
+          case RegOps.MOVE_PARAM:
+            write(words, insn.getResult(), param);
+            break;
+          case RegOps.CONST:
+            write(words, insn.getResult(), constant.longValue());
+            break;
+          case RegOps.MOVE:
+            write(words, insn.getResult(), read(words, sources.get(0)));
+            break;
+          case RegOps.ADD:
+            write(words, insn.getResult(), read(words, sources.get(0))
+                + (constant != null ? constant.longValue() : read(words, sources.get(1))));
+            break;
+          case RegOps.SUB:
+            Assert.assertNull(constant);
+            write(words, insn.getResult(),
+                read(words, sources.get(0)) - read(words, sources.get(1)));
+            break;
+          case RegOps.IF_EQ:
+          case RegOps.IF_NE: {
+            long right = sources.size() == 2 ? read(words, sources.get(1)) : 0;
+            boolean equal = read(words, sources.get(0)) == right;
+            if (equal == (insn.getOpcode().getOpcode() == RegOps.IF_EQ)) {
+              next = block.getSuccessors().get(1);
+            }
+            break;
+          }
+          case RegOps.GOTO:
+            break;
+          case RegOps.RETURN:
+            return read(words, sources.get(0));
+          default:
+            Assert.fail("Unexpected instruction " + insn.toHuman());
+        }
+      }
+
+      block = blocks.labelToBlock(next);
+    }
+  }
+
+  private static long read(@Nonnull long[] words, @Nonnull RegisterSpec reg) {
+    long value = words[reg.getReg()];
+    if (reg.isCategory2()) {
+      Assert.assertEquals("Overwritten high word of " + reg, ~value, words[reg.getReg() + 1]);
+    }
+    return value;
+  }
+
+  private static void write(@Nonnull long[] words, @Nonnull RegisterSpec reg, long value) {
+    if (reg.isCategory2()) {
+      words[reg.getReg()] = value;
+      words[reg.getReg() + 1] = ~value;
+    } else {
+      words[reg.getReg()] = (int) value;
+    }
+  }
+}
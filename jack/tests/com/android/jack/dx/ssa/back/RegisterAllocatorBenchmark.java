@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.dx.ssa.back;
+
+import com.android.jack.dx.rop.code.DexTranslationAdvice;
+import com.android.jack.dx.rop.code.RopMethod;
+import com.android.jack.dx.rop.type.Type;
+import com.android.jack.dx.ssa.Optimizer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Compares the optimization time and the register count of methods of growing size, when
+ * registers are allocated by the {@link FirstFitLocalCombiningAllocator} and by the
+ * {@link LinearScanAllocator}.
+ *
+ * <p>Run with the method sizes as arguments, e.g. {@code 1000 5000 10000}. Sizes above a few
+ * thousands need a bigger thread stack, e.g. {@code -Xss256m}, for the SSA optimizations.
+ */
+public class RegisterAllocatorBenchmark {
+
+  private static final int WARMUP_ITERATIONS = 3;
+
+  public static void main(@Nonnull String[] args) {
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      run(LinearScanAllocatorTest.buildMethod(Type.INT, 1000), Type.INT, false);
+      run(LinearScanAllocatorTest.buildMethod(Type.INT, 1000), Type.INT, true);
+    }
+
+    System.out.println("values\tallocator\ttime (ms)\tregisters");
+    for (String arg : args) {
+      int valueCount = Integer.parseInt(arg);
+      for (Type type : new Type[] {Type.INT, Type.LONG}) {
+        RopMethod method = LinearScanAllocatorTest.buildMethod(type, valueCount);
+        report(valueCount, type, "first-fit", method, false);
+        report(valueCount, type, "linear-scan", method, true);
+      }
+    }
+  }
+
+  private static void report(@Nonnegative int valueCount, @Nonnull Type type,
+      @Nonnull String allocator, @Nonnull RopMethod method, boolean useLinearScanAllocator) {
+    long start = System.nanoTime();
+    RopMethod optimized = run(method, type, useLinearScanAllocator);
+    long time = (System.nanoTime() - start) / 1000000;
+
+    System.out.println(valueCount + " " + type.toHuman() + "\t" + allocator + "\t" + time + "\t"
+        + optimized.getBlocks().getRegCount());
+  }
+
+  @Nonnull
+  private static RopMethod run(@Nonnull RopMethod method, @Nonnull Type type,
+      boolean useLinearScanAllocator) {
+    return Optimizer.optimize(method, type.getCategory(), /* isStatic = */ true,
+        /* inPreserveLocals = */ true,
+        /* removeRedundantConditionalBranch = */ true, useLinearScanAllocator,
+        DexTranslationAdvice.THE_ONE);
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.dx.util;
+
+import junit.framework.Assert;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Tests for {@link InternTable}.
+ */
+public class InternTableTest {
+  private static final int THREADS = 8;
+
+  private static final int KEYS = 10000;
+
+  /**
+   * Interned instance, only equal to itself.
+   */
+  private static class Value {
+    private final int key;
+
+    Value(int key) {
+      this.key = key;
+    }
+  }
+
+  @Test
+  public void testConcurrentIntern() throws Exception {
+    final InternTable<Integer, Value> table = new InternTable<Integer, Value>(0);
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Future<Value[]>> futures = new ArrayList<Future<Value[]>>(THREADS);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      for (int thread = 0; thread < THREADS; thread++) {
+        final Random random = new Random(thread);
+        futures.add(executor.submit(new Callable<Value[]>() {
+          @Override
+          public Value[] call() throws Exception {
+            List<Integer> keys = new ArrayList<Integer>(KEYS);
+            for (int key = 0; key < KEYS; key++) {
+              keys.add(Integer.valueOf(key));
+            }
+            Collections.shuffle(keys, random);
+
+            start.await();
+            Value[] interned = new Value[KEYS];
+            for (Integer key : keys) {
+              Value value = table.intern(key, new Value(key.intValue()));
+              Assert.assertEquals(key.intValue(), value.key);
+              interned[key.intValue()] = value;
+            }
+
+            // Each key is interned, so the thread only has hits
+            table.takeHitCount();
+            table.takeMissCount();
+            for (Integer key : keys) {
+              Assert.assertSame(interned[key.intValue()], table.get(key));
+            }
+            Assert.assertEquals(KEYS, table.takeHitCount());
+            Assert.assertEquals(0, table.takeMissCount());
+            return interned;
+          }
+        }));
+      }
+      start.countDown();
+
+      List<Value[]> results = new ArrayList<Value[]>(THREADS);
+      for (Future<Value[]> future : futures) {
+        results.add(future.get());
+      }
+
+      // All threads got the same instance for a key
+      for (int key = 0; key < KEYS; key++) {
+        Value value = results.get(0)[key];
+        for (Value[] interned : results) {
+          Assert.assertSame(value, interned[key]);
+        }
+        Assert.assertSame(value, table.get(Integer.valueOf(key)));
+      }
+      Assert.assertEquals(KEYS, table.size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testIntern() {
+    InternTable<String, Value> table = new InternTable<String, Value>(0);
+    Value value = new Value(1);
+    Assert.assertNull(table.get("a"));
+    Assert.assertSame(value, table.intern("a", value));
+    Assert.assertSame(value, table.intern("a", new Value(1)));
+    Assert.assertSame(value, table.get(new String("a")));
+    Assert.assertEquals(1, table.takeHitCount());
+    Assert.assertEquals(1, table.takeMissCount());
+    Assert.assertEquals(0, table.takeHitCount());
+    Assert.assertEquals(0, table.takeMissCount());
+    Assert.assertEquals(1, table.size());
+  }
+
+  @Test
+  public void testCollectedInstance() {
+    InternTable<String, Value> table = new InternTable<String, Value>(0);
+    WeakReference<Value> reference = internAndForget(table, "a");
+    for (int i = 0; i < 50 && reference.get() != null; i++) {
+      System.gc();
+    }
+    // Collection can not be forced
+    Assume.assumeTrue(reference.get() == null);
+
+    Assert.assertNull(table.get("a"));
+    Value value = new Value(2);
+    Assert.assertSame(value, table.intern("a", value));
+    Assert.assertSame(value, table.get("a"));
+    Assert.assertEquals(1, table.size());
+  }
+
+  @Nonnull
+  private static WeakReference<Value> internAndForget(@Nonnull InternTable<String, Value> table,
+      @Nonnull String key) {
+    Value value = new Value(1);
+    Assert.assertSame(value, table.intern(key, value));
+    return new WeakReference<Value>(value);
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.incremental;
+
+import com.android.sched.util.config.MessageDigestFactory;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Provider;
+import java.security.Security;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Tests for {@link SourceApiDigester}.
+ */
+public class SourceApiDigesterTest {
+  @Nonnull
+  private static final String CLASS =
+      "package p;\n"
+      + "import java.util.List;\n"
+      + "/** Doc */\n"
+      + "@Deprecated\n"
+      + "public class A extends B implements C {\n"
+      + "  public static final int CONSTANT = 1;\n"
+      + "  private final List<String> list;\n"
+      + "  static { System.out.println(\"static\"); }\n"
+      + "  { System.out.println(\"instance\"); }\n"
+      + "  public A(List<String> list) { this.list = list; }\n"
+      + "  @Override\n"
+      + "  public int size() throws Exception { return list.size(); }\n"
+      + "  class Inner { void inner() { int i = 0; } }\n"
+      + "}\n";
+
+  @Nonnull
+  private static final String ANNOTATION =
+      "package p;\n"
+      + "public @interface Annotation {\n"
+      + "  int value() default 1;\n"
+      + "  String[] names() default {\"a\", \"b\"};\n"
+      + "}\n";
+
+  @Nonnull
+  private static final String ENUM =
+      "package p;\n"
+      + "public enum E {\n"
+      + "  A(1),\n"
+      + "  B(2) {\n"
+      + "    @Override\n"
+      + "    int get() { return 3; }\n"
+      + "  },\n"
+      + "  C(new Object() { int i = 4; });\n"
+      + "  private final int value;\n"
+      + "  E(int value) { this.value = value; }\n"
+      + "  E(Object o) { this(0); }\n"
+      + "  int get() { return value; }\n"
+      + "}\n";
+
+  @Nonnull
+  private static final String ANONYMOUS =
+      "package p;\n"
+      + "public class Anonymous {\n"
+      + "  private final Runnable runnable = new Runnable() {\n"
+      + "    @Override\n"
+      + "    public void run() { System.out.println(\"run\"); }\n"
+      + "  };\n"
+      + "  private final int[] values = {1, 2};\n"
+      + "  void method() { System.out.println(\"method\"); }\n"
+      + "}\n";
+
+  @CheckForNull
+  private static MessageDigestFactory factory;
+
+  @BeforeClass
+  public static void setUpClass() {
+    Provider.Service sha1 = null;
+    for (Provider provider : Security.getProviders()) {
+      for (Provider.Service service : provider.getServices()) {
+        if (service.getType().equals("MessageDigest") && service.getAlgorithm().equals("SHA")) {
+          sha1 = service;
+        }
+      }
+    }
+    Assert.assertNotNull(sha1);
+    factory = new MessageDigestFactory(sha1);
+  }
+
+  @Test
+  public void sameDigestForBodyChanges() {
+    assertSameApi(CLASS, CLASS.replace("println(\"static\")", "println(\"other\")"));
+    assertSameApi(CLASS, CLASS.replace("println(\"instance\")", "println(\"other\")"));
+    assertSameApi(CLASS, CLASS.replace("this.list = list;", "this.list = list; list.clear();"));
+    assertSameApi(CLASS, CLASS.replace("return list.size();", "return 0;"));
+    assertSameApi(CLASS, CLASS.replace("int i = 0;", "int i = 1; { i++; }"));
+    assertSameApi(ENUM, ENUM.replace("return value;", "return -value;"));
+    assertSameApi(ENUM, ENUM.replace("this(0);", "this(1);"));
+  }
+
+  @Test
+  public void sameDigestForLayoutAndComments() {
+    assertSameApi(CLASS, CLASS.replace("/** Doc */", "/** Other doc */ // comment"));
+    assertSameApi(CLASS, CLASS.replace("\n  ", "\n\t\t").replace(" {\n", "\n{\n"));
+  }
+
+  @Test
+  public void differentDigestForApiChanges() {
+    // signatures
+    assertDifferentApi(CLASS, CLASS.replace("public int size()", "public long size()"));
+    assertDifferentApi(CLASS, CLASS.replace("throws Exception ", ""));
+    assertDifferentApi(CLASS, CLASS.replace("public A(List<String> list)", "public A()"));
+    assertDifferentApi(CLASS, CLASS.replace("private final List", "protected final List"));
+    assertDifferentApi(CLASS, CLASS.replace("void inner()", "void inner(int i)"));
+    // constant initializer
+    assertDifferentApi(CLASS, CLASS.replace("CONSTANT = 1", "CONSTANT = 2"));
+    // annotations and their values
+    assertDifferentApi(CLASS, CLASS.replace("@Deprecated\n", ""));
+    assertDifferentApi(CLASS, CLASS.replace("@Override\n", ""));
+    assertDifferentApi("@SuppressWarnings(\"a\") class A {}", "@SuppressWarnings(\"b\") class A {}");
+    // annotation default values
+    assertDifferentApi(ANNOTATION, ANNOTATION.replace("default 1", "default 2"));
+    assertDifferentApi(ANNOTATION, ANNOTATION.replace("\"b\"", "\"c\""));
+    // enum constants
+    assertDifferentApi(ENUM, ENUM.replace("A(1),", "A(1), D(5),"));
+    assertDifferentApi(ENUM, ENUM.replace("A(1)", "A(0)"));
+    // type hierarchy
+    assertDifferentApi(CLASS, CLASS.replace("extends B", "extends D"));
+    assertDifferentApi(CLASS, CLASS.replace("implements C", "implements C, D"));
+    // imports
+    assertDifferentApi(CLASS, CLASS.replace("java.util.List", "java.awt.List"));
+  }
+
+  @Test
+  public void anonymousClassInFieldInitializer() {
+    Assert.assertNotNull(digest(ANONYMOUS));
+    // The body of the method following the anonymous class is still removed
+    assertSameApi(ANONYMOUS, ANONYMOUS.replace("println(\"method\")", "println(\"other\")"));
+    // Field initializers are kept with their anonymous classes
+    assertDifferentApi(ANONYMOUS, ANONYMOUS.replace("println(\"run\")", "println(\"other\")"));
+    assertDifferentApi(ANONYMOUS, ANONYMOUS.replace("{1, 2}", "{1, 3}"));
+    assertDifferentApi(ANONYMOUS, ANONYMOUS.replace("void method()", "int method()"));
+  }
+
+  @Test
+  public void enumConstantBody() {
+    Assert.assertNotNull(digest(ENUM));
+    // Methods of an enum constant body are members, whose bodies are removed
+    assertSameApi(ENUM, ENUM.replace("return 3;", "return 4;"));
+    assertDifferentApi(ENUM, ENUM.replace("int get() { return 3; }", "long get() { return 3; }"));
+    // Anonymous classes in enum constant arguments are kept
+    assertDifferentApi(ENUM, ENUM.replace("int i = 4;", "int i = 5;"));
+    // Members after the enum constants are still recognized
+    assertDifferentApi(ENUM, ENUM.replace("private final int value;", "final int value;"));
+  }
+
+  @Test
+  public void literals() {
+    String source = "class A { String s = \"{(\\\"\"; char c = '}'; char d = '\\''; }";
+    Assert.assertNotNull(digest(source));
+    assertDifferentApi(source, source.replace("'}'", "')'"));
+    // Unicode escapes are kept as is in literals
+    Assert.assertNotNull(digest("class A { String s = \"\\u0041\"; }"));
+  }
+
+  @Test
+  public void notHandled() {
+    // unicode escapes
+    Assert.assertNull(digest("class A { void f() { int \\u0061 = 0; } }"));
+    Assert.assertNull(digest("class A \\u007b }"));
+    // unterminated comments or strings
+    Assert.assertNull(digest("class A { } /* comment"));
+    Assert.assertNull(digest("class A { String s = \"string; }"));
+    Assert.assertNull(digest("class A { String s = \"string\n\"; }"));
+    Assert.assertNull(digest("class A { char c = 'c; }"));
+    // unbalanced braces
+    Assert.assertNull(digest("class A { void f() { }"));
+    Assert.assertNull(digest("class A { void f() { } } }"));
+    Assert.assertNull(digest("class A { int[] a = { 1; }"));
+    Assert.assertNull(digest("class A {"));
+    // unbalanced parens
+    Assert.assertNull(digest("class A { void f( { } }"));
+    Assert.assertNull(digest("class A { void f()) { } }"));
+    Assert.assertNull(digest("@A(1 class A { }"));
+  }
+
+  private static void assertSameApi(@Nonnull String source1, @Nonnull String source2) {
+    Assert.assertFalse(source1.equals(source2));
+    String digest1 = digest(source1);
+    Assert.assertNotNull(digest1);
+    Assert.assertEquals(digest1, digest(source2));
+  }
+
+  private static void assertDifferentApi(@Nonnull String source1, @Nonnull String source2) {
+    Assert.assertFalse(source1.equals(source2));
+    String digest1 = digest(source1);
+    String digest2 = digest(source2);
+    Assert.assertNotNull(digest1);
+    Assert.assertNotNull(digest2);
+    Assert.assertFalse(digest1.equals(digest2));
+  }
+
+  @CheckForNull
+  private static String digest(@Nonnull String source) {
+    assert factory != null;
+    return SourceApiDigester.getDigest(factory, source.getBytes(StandardCharsets.UTF_8));
+  }
+}
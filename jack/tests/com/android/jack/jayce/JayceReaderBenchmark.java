@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.jayce;
+
+import com.google.common.io.CountingInputStream;
+
+import com.android.jack.Options;
+import com.android.jack.library.FileType;
+import com.android.jack.library.InputJackLibrary;
+import com.android.jack.library.JackLibraryFactory;
+import com.android.sched.util.RunnableHooks;
+import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.file.InputZipFile;
+import com.android.sched.vfs.InputVFile;
+import com.android.sched.vfs.ReadZipFS;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.util.Iterator;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Measures the time to read all the types of Jack libraries at each {@link NodeLevel}, and the
+ * number of bytes read from their Jayce files.
+ *
+ * <p>Run with the paths of the libraries as arguments, e.g.
+ * {@code jack-tests/prebuilts/junit4-lib.jack}.
+ */
+public class JayceReaderBenchmark {
+
+  private static final int WARMUP_ITERATIONS = 3;
+
+  private static final int ITERATIONS = 10;
+
+  public static void main(@Nonnull String[] args) throws Exception {
+    Options options = new Options();
+    RunnableHooks hooks = new RunnableHooks();
+    options.checkValidity(hooks);
+    ThreadConfig.setConfig(options.getConfig());
+    try {
+      System.out.println("library\tlevel\ttime (ms)\tbytes read");
+      for (String arg : args) {
+        InputJackLibrary library =
+            JackLibraryFactory.getInputLibrary(new ReadZipFS(new InputZipFile(arg)));
+        try {
+          for (NodeLevel level : NodeLevel.values()) {
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+              readAll(library, level);
+            }
+
+            long start = System.nanoTime();
+            long byteCount = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+              byteCount = readAll(library, level);
+            }
+            long time = (System.nanoTime() - start) / 1000000 / ITERATIONS;
+
+            System.out.println(arg + "\t" + level + "\t" + time + "\t" + byteCount);
+          }
+        } finally {
+          library.close();
+        }
+      }
+    } finally {
+      ThreadConfig.unsetConfig();
+      hooks.runHooks();
+    }
+  }
+
+  /**
+   * Reads all the types of a library.
+   *
+   * @return the number of bytes read from the Jayce files
+   */
+  private static long readAll(@Nonnull InputJackLibrary library, @Nonnull NodeLevel level)
+      throws Exception {
+    long byteCount = 0;
+    Iterator<InputVFile> files = library.iterator(FileType.JAYCE);
+    while (files.hasNext()) {
+      CountingInputStream in =
+          new CountingInputStream(new BufferedInputStream(files.next().getInputStream()));
+      try {
+        JayceReaderFactory.get(library, in).readType(level);
+      } finally {
+        in.close();
+      }
+      byteCount += in.getCount();
+    }
+
+    return byteCount;
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.library;
+
+import com.google.common.io.ByteStreams;
+
+import com.android.jack.Options;
+import com.android.jack.TestTools;
+import com.android.jack.test.TestsProperties;
+import com.android.sched.util.RunnableHooks;
+import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.file.FileOrDirectory.ChangePermission;
+import com.android.sched.util.file.FileOrDirectory.Existence;
+import com.android.sched.util.file.OutputZipFile;
+import com.android.sched.util.file.OutputZipFile.Compression;
+import com.android.sched.vfs.InputVFile;
+import com.android.sched.vfs.MappedReadZipFS;
+
+import junit.framework.Assert;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Tests for {@link InputJackLibraryCache}.
+ */
+public class InputJackLibraryCacheTest {
+  @CheckForNull
+  private static RunnableHooks hooks;
+
+  @BeforeClass
+  public static void setUpClass() throws Exception {
+    Options options = new Options();
+    hooks = new RunnableHooks();
+    options.checkValidity(hooks);
+    ThreadConfig.setConfig(options.getConfig());
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    ThreadConfig.unsetConfig();
+    if (hooks != null) {
+      hooks.runHooks();
+    }
+  }
+
+  @Test
+  public void rewriteCachedLibrary() throws Exception {
+    File coreStubs = new File(TestsProperties.getJackRootDir(),
+        "jack-tests/prebuilts/core-stubs-mini.jack");
+    File junit = new File(TestsProperties.getJackRootDir(), "jack-tests/prebuilts/junit4-lib.jack");
+    File file = TestTools.createTempFile("library", ".jack");
+    Files.copy(coreStubs.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+    InputJackLibraryCache cache = new InputJackLibraryCache(Long.MAX_VALUE, 60);
+    InputJackLibrary library = cache.getLibrary(file, null);
+    Assert.assertNotNull(library);
+    Map<String, byte[]> content = read(library);
+    Assert.assertTrue(contains(content, "java/lang/Object"));
+
+    InputJackLibrary sameLibrary = cache.getLibrary(file, null);
+    Assert.assertNotNull(sameLibrary);
+    Assert.assertNotSame(library, sameLibrary);
+    Assert.assertEquals(library.getDigest(), sameLibrary.getDigest());
+
+    // Rewrite the library while the cache and the first library still map it
+    OutputZipFile outputZipFile = new OutputZipFile(file.getPath(), null, Existence.MUST_EXIST,
+        ChangePermission.NOCHANGE, Compression.COMPRESSED);
+    ZipOutputStream zos = outputZipFile.getOutputStream();
+    try {
+      ZipFile junitZip = new ZipFile(junit);
+      try {
+        for (Enumeration<? extends ZipEntry> entries = junitZip.entries();
+            entries.hasMoreElements();) {
+          ZipEntry entry = entries.nextElement();
+          zos.putNextEntry(new ZipEntry(entry.getName()));
+          InputStream is = junitZip.getInputStream(entry);
+          try {
+            ByteStreams.copy(is, zos);
+          } finally {
+            is.close();
+          }
+          zos.closeEntry();
+        }
+      } finally {
+        junitZip.close();
+      }
+    } finally {
+      zos.close();
+    }
+
+    // The first library still reads the previous content
+    Map<String, byte[]> previousContent = read(library);
+    Assert.assertEquals(content.keySet(), previousContent.keySet());
+    for (Map.Entry<String, byte[]> entry : content.entrySet()) {
+      Assert.assertTrue(entry.getKey(),
+          Arrays.equals(entry.getValue(), previousContent.get(entry.getKey())));
+    }
+
+    // The cache notices the new archive
+    InputJackLibrary newLibrary = cache.getLibrary(file, null);
+    Assert.assertNotNull(newLibrary);
+    Map<String, byte[]> newContent = read(newLibrary);
+    Assert.assertTrue(contains(newContent, "junit/framework/TestCase"));
+    Assert.assertFalse(contains(newContent, "java/lang/Object"));
+    Assert.assertFalse(library.getDigest().equals(newLibrary.getDigest()));
+  }
+
+  @Test
+  public void releaseEvictedLibrary() throws Exception {
+    File coreStubs = new File(TestsProperties.getJackRootDir(),
+        "jack-tests/prebuilts/core-stubs-mini.jack");
+
+    InputJackLibraryCache cache = new InputJackLibraryCache(Long.MAX_VALUE, 60);
+    InputJackLibrary library = cache.getLibrary(coreStubs, null);
+    Assert.assertNotNull(library);
+    InputJackLibrary sameLibrary = cache.getLibrary(coreStubs, null);
+    Assert.assertNotNull(sameLibrary);
+    MappedReadZipFS vfs = (MappedReadZipFS) library.getVfs();
+    Assert.assertSame(vfs, sameLibrary.getVfs());
+
+    library.close();
+    Assert.assertFalse(vfs.isClosed());
+    cache.invalidateAll();
+    Assert.assertFalse(vfs.isClosed());
+    Assert.assertTrue(contains(read(sameLibrary), "java/lang/Object"));
+
+    // The archive is unmapped once evicted and no longer used by any library
+    sameLibrary.close();
+    Assert.assertTrue(vfs.isClosed());
+
+    InputJackLibrary newLibrary = cache.getLibrary(coreStubs, null);
+    Assert.assertNotNull(newLibrary);
+    Assert.assertNotSame(vfs, newLibrary.getVfs());
+    newLibrary.close();
+  }
+
+  /**
+   * Reads the files of all types of a library, keyed by type and path.
+   */
+  @Nonnull
+  private static Map<String, byte[]> read(@Nonnull InputJackLibrary library) throws Exception {
+    Map<String, byte[]> content = new HashMap<String, byte[]>();
+    for (FileType type : library.getFileTypes()) {
+      Iterator<InputVFile> files = library.iterator(type);
+      while (files.hasNext()) {
+        InputVFile file = files.next();
+        InputStream is = file.getInputStream();
+        try {
+          content.put(type + ":" + file.getPathFromRoot().getPathAsString('/'),
+              ByteStreams.toByteArray(is));
+        } finally {
+          is.close();
+        }
+      }
+    }
+
+    return content;
+  }
+
+  private static boolean contains(@Nonnull Map<String, byte[]> content, @Nonnull String path) {
+    for (String key : content.keySet()) {
+      if (key.contains(path)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+}
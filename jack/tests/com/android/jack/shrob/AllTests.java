@@ -23,7 +23,8 @@ import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
 @SuiteClasses(value = {
-    TreeTest.class
+    TreeTest.class,
+    com.android.jack.shrob.spec.ClassSpecificationIndexTest.class
     })
 public class AllTests {
 }
@@ -0,0 +1,319 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.shrob.spec;
+
+import com.android.jack.IllegalOptionsException;
+import com.android.jack.Options;
+import com.android.jack.ir.ast.JAnnotation;
+import com.android.jack.ir.ast.JAnnotationType;
+import com.android.jack.ir.ast.JDefinedAnnotationType;
+import com.android.jack.ir.ast.JDefinedClass;
+import com.android.jack.ir.ast.JDefinedClassOrInterface;
+import com.android.jack.ir.ast.JDefinedInterface;
+import com.android.jack.ir.ast.JModifier;
+import com.android.jack.ir.ast.JPackage;
+import com.android.jack.ir.ast.JRetentionPolicy;
+import com.android.jack.ir.sourceinfo.SourceInfo;
+import com.android.jack.load.NopClassOrInterfaceLoader;
+import com.android.jack.shrob.proguard.GrammarActions;
+import com.android.sched.util.RunnableHooks;
+import com.android.sched.util.config.ConfigurationException;
+import com.android.sched.util.config.ThreadConfig;
+
+import junit.framework.Assert;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Tests for {@link ClassSpecificationIndex}, checking that the specifications matching a type
+ * among the candidates of the index are the ones found by matching all specifications.
+ */
+public class ClassSpecificationIndexTest {
+
+  @Nonnull
+  private static final String[] FIXED_RULES = new String[] {
+      "-keep class a.b.C",
+      "-keep class a.b.*",
+      "-keep class a.**",
+      "-keep class a.?.C",
+      "-keep class a.b.C*",
+      "-keep class a.b.C$*",
+      "-keep class a.b.C$Inner",
+      "-keep class a.b.?",
+      "-keep class **C",
+      "-keep class *",
+      "-keep class **",
+      "-keep class !a.b.**",
+      "-keep class a.b.C, a.c.*",
+      "-keep class !a.b.C, a.**",
+      "-keep interface a.**",
+      "-keep @a.Annot class *",
+      "-keep @a.Ann* class **",
+      "-keep @!a.Annot class a.**",
+      "-keep class * extends a.b.Base",
+      "-keep class * implements a.I*",
+      "-keep class ** implements !a.I",
+      "-keep class * extends @a.Annot **",
+      "-keep @a.Other class com.** extends java.lang.Object",
+  };
+
+  @Nonnull
+  private static final String[] NAME_SEGMENTS = new String[] {
+      "a", "b", "c", "C", "Base", "com", "example", "Main", "I", "*", "**", "?", "C*", "*C", "I?",
+      "C$*", "C$Inner", "?ase", "Ann*"};
+
+  private static final int RANDOM_RULES = 500;
+
+  @CheckForNull
+  private static RunnableHooks hooks;
+
+  @BeforeClass
+  public static void setUp() throws ConfigurationException, IllegalOptionsException {
+    Options options = new Options();
+    hooks = new RunnableHooks();
+    options.checkValidity(hooks);
+    options.getConfigBuilder(hooks).getCodecContext().setDebug();
+    ThreadConfig.setConfig(options.getConfig());
+  }
+
+  @AfterClass
+  public static void tearDown() throws Exception {
+    assert hooks != null;
+    hooks.runHooks();
+    ThreadConfig.unsetConfig();
+  }
+
+  @Test
+  public void testFixedRules() throws Exception {
+    List<String> rules = new ArrayList<String>();
+    for (String rule : FIXED_RULES) {
+      rules.add(rule);
+    }
+    checkIndex(rules);
+  }
+
+  @Test
+  public void testRandomRules() throws Exception {
+    Random random = new Random(0);
+    List<String> rules = new ArrayList<String>(RANDOM_RULES);
+    for (int i = 0; i < RANDOM_RULES; i++) {
+      rules.add(createRule(random));
+    }
+    checkIndex(rules);
+  }
+
+  private static void checkIndex(@Nonnull List<String> rules) throws Exception {
+    List<ClassSpecification> specs = parse(rules);
+    Assert.assertEquals(rules.size(), specs.size());
+    ClassSpecificationIndex index = new ClassSpecificationIndex(specs);
+
+    boolean filtered = false;
+    boolean matched = false;
+    for (JDefinedClassOrInterface type : createTypes()) {
+      List<ClassSpecification> candidates = index.getCandidates(type);
+      filtered |= candidates.size() < specs.size();
+
+      // Candidates keep the order of the list
+      int previous = -1;
+      for (ClassSpecification candidate : candidates) {
+        int position = indexOf(specs, candidate);
+        Assert.assertTrue(position > previous);
+        previous = position;
+      }
+
+      List<ClassSpecification> matching = getMatching(specs, type);
+      matched |= !matching.isEmpty();
+      Assert.assertEquals(GrammarActions.getSourceFormatter().getName(type),
+          matching, getMatching(candidates, type));
+    }
+    Assert.assertTrue(filtered);
+    Assert.assertTrue(matched);
+  }
+
+  @Nonnull
+  private static List<ClassSpecification> getMatching(@Nonnull List<ClassSpecification> specs,
+      @Nonnull JDefinedClassOrInterface type) {
+    List<ClassSpecification> matching = new ArrayList<ClassSpecification>();
+    for (ClassSpecification spec : specs) {
+      if (spec.matches(type)) {
+        matching.add(spec);
+      }
+    }
+    return matching;
+  }
+
+  private static int indexOf(@Nonnull List<ClassSpecification> specs,
+      @Nonnull ClassSpecification spec) {
+    for (int i = 0; i < specs.size(); i++) {
+      if (specs.get(i) == spec) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Nonnull
+  private static String createRule(@Nonnull Random random) {
+    StringBuilder rule = new StringBuilder("-keep ");
+    if (random.nextInt(4) == 0) {
+      rule.append('@').append(createName(random)).append(' ');
+    }
+    rule.append(random.nextInt(5) == 0 ? "interface " : "class ");
+    rule.append(createName(random));
+    if (random.nextInt(4) == 0) {
+      rule.append(", ").append(createName(random));
+    }
+    if (random.nextInt(4) == 0) {
+      rule.append(random.nextBoolean() ? " extends " : " implements ");
+      if (random.nextInt(4) == 0) {
+        rule.append('@').append(createName(random)).append(' ');
+      }
+      rule.append(createName(random));
+    }
+    return rule.toString();
+  }
+
+  @Nonnull
+  private static String createName(@Nonnull Random random) {
+    StringBuilder name = new StringBuilder();
+    if (random.nextInt(5) == 0) {
+      name.append('!');
+    }
+    int segments = 1 + random.nextInt(3);
+    for (int i = 0; i < segments; i++) {
+      if (i > 0) {
+        name.append('.');
+      }
+      name.append(NAME_SEGMENTS[random.nextInt(NAME_SEGMENTS.length)]);
+    }
+    return name.toString();
+  }
+
+  @Nonnull
+  private static List<ClassSpecification> parse(@Nonnull List<String> rules) throws Exception {
+    File file = File.createTempFile("rules", ".flags");
+    file.deleteOnExit();
+    Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+    try {
+      for (String rule : rules) {
+        writer.write(rule);
+        writer.write('\n');
+      }
+    } finally {
+      writer.close();
+    }
+
+    Flags flags = new Flags();
+    GrammarActions.parse(file.getAbsolutePath(), ".", flags);
+    return flags.getKeepClassSpecs();
+  }
+
+  /**
+   * Creates types with various names, annotations and super types.
+   */
+  @Nonnull
+  private static List<JDefinedClassOrInterface> createTypes() {
+    List<JDefinedClassOrInterface> types = new ArrayList<JDefinedClassOrInterface>();
+    JPackage root = new JPackage("", null);
+    JPackage java = new JPackage("java", root);
+    JPackage javaLang = new JPackage("lang", java);
+    JPackage a = new JPackage("a", root);
+    JPackage ab = new JPackage("b", a);
+    JPackage ac = new JPackage("c", a);
+    JPackage com = new JPackage("com", root);
+    JPackage comExample = new JPackage("example", com);
+    JPackage b = new JPackage("b", root);
+    JPackage ba = new JPackage("a", b);
+
+    JDefinedClass object = createClass("Object", javaLang, null, types);
+    JDefinedAnnotationType annot = new JDefinedAnnotationType(SourceInfo.UNKNOWN, "Annot",
+        JModifier.PUBLIC | JModifier.INTERFACE | JModifier.ABSTRACT | JModifier.ANNOTATION, a,
+        NopClassOrInterfaceLoader.INSTANCE);
+    a.addType(annot);
+    types.add(annot);
+    JDefinedAnnotationType other = new JDefinedAnnotationType(SourceInfo.UNKNOWN, "Other",
+        JModifier.PUBLIC | JModifier.INTERFACE | JModifier.ABSTRACT | JModifier.ANNOTATION, a,
+        NopClassOrInterfaceLoader.INSTANCE);
+    a.addType(other);
+    types.add(other);
+
+    JDefinedInterface i = createInterface("I", a, types);
+    JDefinedInterface iFoo = createInterface("IFoo", a, types);
+    JDefinedInterface j = createInterface("J", a, types);
+    j.addImplements(i);
+    addAnnotation(j, other);
+
+    JDefinedClass base = createClass("Base", ab, object, types);
+    addAnnotation(base, annot);
+    JDefinedClass c = createClass("C", ab, base, types);
+    c.addImplements(iFoo);
+    addAnnotation(c, annot);
+    createClass("C$Inner", ab, object, types);
+    createClass("CD", ab, c, types);
+    JDefinedClass d = createClass("D", ab, c, types);
+    d.addImplements(j);
+    createClass("C", ac, object, types);
+    createClass("Cx", a, base, types);
+    JDefinedClass main = createClass("Main", comExample, object, types);
+    addAnnotation(main, other);
+    createClass("X", ba, object, types).addImplements(j);
+    createClass("Top", root, null, types);
+    return types;
+  }
+
+  @Nonnull
+  private static JDefinedClass createClass(@Nonnull String name, @Nonnull JPackage enclosingPackage,
+      @CheckForNull JDefinedClass superClass, @Nonnull List<JDefinedClassOrInterface> types) {
+    JDefinedClass type = new JDefinedClass(SourceInfo.UNKNOWN, name, JModifier.PUBLIC,
+        enclosingPackage, NopClassOrInterfaceLoader.INSTANCE);
+    type.setSuperClass(superClass);
+    enclosingPackage.addType(type);
+    types.add(type);
+    return type;
+  }
+
+  @Nonnull
+  private static JDefinedInterface createInterface(@Nonnull String name,
+      @Nonnull JPackage enclosingPackage, @Nonnull List<JDefinedClassOrInterface> types) {
+    JDefinedInterface type = new JDefinedInterface(SourceInfo.UNKNOWN, name,
+        JModifier.PUBLIC | JModifier.INTERFACE | JModifier.ABSTRACT, enclosingPackage,
+        NopClassOrInterfaceLoader.INSTANCE);
+    enclosingPackage.addType(type);
+    types.add(type);
+    return type;
+  }
+
+  private static void addAnnotation(@Nonnull JDefinedClassOrInterface type,
+      @Nonnull JAnnotationType annotationType) {
+    type.addAnnotation(
+        new JAnnotation(SourceInfo.UNKNOWN, JRetentionPolicy.RUNTIME, annotationType));
+  }
+}
@@ -206,4 +206,9 @@ public class MultiTracerBrush implements TracerBrush {
   public void endTraceEnclosingMethod() {
   }
 
+  @Override
+  @Nonnull
+  public TracerBrush fork() {
+    return this;
+  }
 }
@@ -67,6 +67,16 @@ public class TracingTest {
     doTest(TestTools.getJackTestsWithJackFolder("flow/loop"));
   }
 
+  @Test
+  public void testWithShrob016InParallel() throws Exception {
+    doParallelTest(TestTools.getJackTestsWithJackFolder("shrob/test016"));
+  }
+
+  @Test
+  public void testWithAnnotation001InParallel() throws Exception {
+    doParallelTest(TestTools.getJackTestsWithJackFolder("annotation/test001"));
+  }
+
   @Nonnull
   private Iterator<JPackage> process(@Nonnull JPackage pack)
       throws Exception {
@@ -83,9 +93,33 @@ public class TracingTest {
   }
 
   public void doTest(File fileOrSourceList) throws Exception {
+    doTest(fileOrSourceList, false);
+  }
+
+  /**
+   * Checks that tracing in parallel marks the same nodes as tracing sequentially.
+   */
+  public void doParallelTest(File fileOrSourceList) throws Exception {
+    List<String> sequentialOuts = doTest(fileOrSourceList, false);
+    List<String> parallelOuts = doTest(fileOrSourceList, true);
+    Assert.assertEquals(sequentialOuts, parallelOuts);
+  }
+
+  /**
+   * Checks that composed tracers mark the same nodes as single tracers.
+   *
+   * @return the nodes marked by each composed tracer
+   */
+  @Nonnull
+  public List<String> doTest(File fileOrSourceList, boolean parallel) throws Exception {
     Options options =
         TestTools.buildCommandLineArgs(fileOrSourceList);
+    if (parallel) {
+      options.addProperty(Tracer.PARALLEL.getName(), "true");
+      options.addProperty(Tracer.PARALLEL_THREADS.getName(), "4");
+    }
 
+    List<String> outs = new ArrayList<String>(NB_TRACE);
     RunnableHooks hooks = new RunnableHooks();
     try {
       JSession session = TestTools.buildSession(options, hooks);
@@ -125,11 +159,14 @@ public class TracingTest {
         mdPrinter.accept(session);
 
         Assert.assertEquals(refOut.toString(), compOut.toString());
+        outs.add(compOut.toString());
       }
     } finally {
       hooks.runHooks();
       ThreadConfig.unsetConfig();
     }
 
+    return outs;
+
   }
 }
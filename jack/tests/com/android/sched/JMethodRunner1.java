@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched;
+
+import com.android.jack.ir.ast.JMethod;
+import com.android.sched.item.Description;
+import com.android.sched.item.Name;
+import com.android.sched.item.onlyfor.OnlyFor;
+import com.android.sched.item.onlyfor.SchedTest;
+import com.android.sched.schedulable.RunnableSchedulable;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Records that step 1 of the test plan ran on a method.
+ */
+@Description("Test method step 1")
+@Name("JMethodRunner1")
+@OnlyFor(SchedTest.class)
+public class JMethodRunner1 implements RunnableSchedulable<JMethod> {
+  @Override
+  public void run(@Nonnull JMethod method) {
+    WorkStealingScheduleInstanceTest.methodStepDone(method, 1);
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched;
+
+import com.android.jack.Options;
+import com.android.jack.TestTools;
+import com.android.jack.ir.JavaSourceIr;
+import com.android.jack.ir.ast.JDefinedClassOrInterface;
+import com.android.jack.ir.ast.JMethod;
+import com.android.jack.ir.ast.JSession;
+import com.android.jack.scheduling.adapter.JDefinedClassOrInterfaceAdapter;
+import com.android.jack.scheduling.adapter.JMethodAdapter;
+import com.android.sched.scheduler.PlanBuilder;
+import com.android.sched.scheduler.Request;
+import com.android.sched.scheduler.Scheduler;
+import com.android.sched.scheduler.SubPlanBuilder;
+import com.android.sched.util.config.ThreadConfig;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Runs a plan on a session, its types and their methods with the work-stealing schedule instance.
+ */
+public class WorkStealingScheduleInstanceTest {
+  @Nonnull
+  private static final Map<JMethod, AtomicInteger> methodSteps =
+      new ConcurrentHashMap<JMethod, AtomicInteger>();
+
+  @Nonnull
+  private static final Set<JDefinedClassOrInterface> doneTypes =
+      Collections.newSetFromMap(new ConcurrentHashMap<JDefinedClassOrInterface, Boolean>());
+
+  @Nonnull
+  private static final List<String> errors = new CopyOnWriteArrayList<String>();
+
+  @Nonnull
+  private static final AtomicInteger sessionCount = new AtomicInteger();
+
+  @Nonnull
+  private static CountDownLatch blockingLatch = new CountDownLatch(1);
+
+  @Before
+  public void setUp() {
+    methodSteps.clear();
+    doneTypes.clear();
+    errors.clear();
+    sessionCount.set(0);
+    blockingLatch = new CountDownLatch(1);
+  }
+
+  @After
+  public void tearDown() {
+    blockingLatch.countDown();
+    ThreadConfig.unsetConfig();
+  }
+
+  @Test
+  public void runsStepsInOrder() throws Exception {
+    JSession session = buildSession(/* blocking = */ false);
+
+    Scheduler scheduler = new Scheduler();
+    Request request = createRequest(scheduler);
+    PlanBuilder<JSession> planBuilder = request.getPlanBuilder(JSession.class);
+    SubPlanBuilder<JDefinedClassOrInterface> typePlan =
+        planBuilder.appendSubPlan(JDefinedClassOrInterfaceAdapter.class);
+    SubPlanBuilder<JMethod> methodPlan = typePlan.appendSubPlan(JMethodAdapter.class);
+    methodPlan.append(JMethodRunner1.class);
+    methodPlan.append(JMethodRunner2.class);
+    typePlan.append(JTypeRunner.class);
+    planBuilder.append(JSessionRunner.class);
+
+    planBuilder.getPlan().getScheduleInstance().process(session);
+
+    Assert.assertEquals(errors.toString(), 0, errors.size());
+    Assert.assertEquals(1, sessionCount.get());
+    Assert.assertEquals(session.getTypesToEmit().size(), doneTypes.size());
+    int methodCount = 0;
+    for (JDefinedClassOrInterface type : session.getTypesToEmit()) {
+      methodCount += type.getMethods().size();
+    }
+    Assert.assertTrue(methodCount > 0);
+    Assert.assertEquals(methodCount, methodSteps.size());
+  }
+
+  @Test
+  public void detectsBlockedWorker() throws Exception {
+    JSession session = buildSession(/* blocking = */ true);
+
+    Scheduler scheduler = new Scheduler();
+    Request request = createRequest(scheduler);
+    PlanBuilder<JSession> planBuilder = request.getPlanBuilder(JSession.class);
+    SubPlanBuilder<JDefinedClassOrInterface> typePlan =
+        planBuilder.appendSubPlan(JDefinedClassOrInterfaceAdapter.class);
+    SubPlanBuilder<JMethod> methodPlan = typePlan.appendSubPlan(JMethodAdapter.class);
+    methodPlan.append(JMethodBlockingRunner.class);
+
+    boolean detected = false;
+    try {
+      planBuilder.getPlan().getScheduleInstance().process(session);
+    } catch (AssertionError e) {
+      // Expected, blocked workers are reported as an error
+      detected = true;
+    }
+    Assert.assertTrue(detected);
+  }
+
+  @Nonnull
+  private static JSession buildSession(boolean blocking) throws Exception {
+    Options options = TestTools.buildCommandLineArgs(
+        TestTools.getJackTestsWithJackFolder("shrob/test001"));
+    options.addProperty("sched.runner", "work-stealing");
+    options.addProperty("sched.runner.thread.kind", "fixed");
+    options.addProperty("sched.runner.thread.fixed.count", "4");
+    options.addProperty("sched.onlyfor", "schedtest");
+    if (blocking) {
+      options.addProperty("sched.runner.thread.detectors", "long-running");
+      options.addProperty("sched.runner.thread.detector.frequency", "100");
+      options.addProperty("sched.runner.thread.detector.long-running.timeout", "200");
+    }
+
+    return TestTools.buildJAst(options);
+  }
+
+  @Nonnull
+  private static Request createRequest(@Nonnull Scheduler scheduler) {
+    Request request = scheduler.createScheduleRequest();
+    request.addSchedulables(scheduler.getAllSchedulable());
+    request.addInitialTagOrMarker(JavaSourceIr.class);
+    return request;
+  }
+
+  static void methodStepDone(@Nonnull JMethod method, @Nonnegative int step) {
+    AtomicInteger steps = new AtomicInteger();
+    AtomicInteger previous = ((ConcurrentHashMap<JMethod, AtomicInteger>) methodSteps)
+        .putIfAbsent(method, steps);
+    if (previous != null) {
+      steps = previous;
+    }
+
+    if (!steps.compareAndSet(step - 1, step)) {
+      errors.add("Step " + step + " on " + method + " after step " + steps.get());
+    }
+  }
+
+  static void typeDone(@Nonnull JDefinedClassOrInterface type) {
+    for (JMethod method : type.getMethods()) {
+      AtomicInteger steps = methodSteps.get(method);
+      if (steps == null || steps.get() != 2) {
+        errors.add("Type " + type + " done before its method " + method);
+      }
+    }
+
+    if (!doneTypes.add(type)) {
+      errors.add("Type " + type + " done twice");
+    }
+  }
+
+  static void sessionDone(@Nonnull JSession session) {
+    for (JDefinedClassOrInterface type : session.getTypesToEmit()) {
+      if (!doneTypes.contains(type)) {
+        errors.add("Session done before type " + type);
+      }
+    }
+
+    sessionCount.incrementAndGet();
+  }
+
+  static void block() {
+    try {
+      blockingLatch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
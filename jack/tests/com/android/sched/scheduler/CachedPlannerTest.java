@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.scheduler;
+
+import com.android.jack.Options;
+import com.android.jack.TestTools;
+import com.android.jack.ir.JavaSourceIr;
+import com.android.jack.ir.ast.JSession;
+import com.android.jack.scheduling.adapter.JDefinedClassOrInterfaceAdapter;
+import com.android.jack.scheduling.adapter.JMethodAdapter;
+import com.android.sched.JMethodRunner1;
+import com.android.sched.JMethodRunner2;
+import com.android.sched.JSessionRunner;
+import com.android.sched.JTypeRunner;
+import com.android.sched.util.RunnableHooks;
+import com.android.sched.util.config.ThreadConfig;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Checks that plans which cannot be read back from the plan cache are computed again, and that
+ * handcrafted plans are cached.
+ */
+public class CachedPlannerTest {
+  @Nonnull
+  private File cacheDir;
+
+  @Nonnull
+  private File planFile;
+
+  @Nonnull
+  private String expectedPlan;
+
+  @Before
+  public void setUp() throws Exception {
+    cacheDir = TestTools.createTempDir("plan-cache");
+    planFile = TestTools.createTempFile("plan", ".txt");
+    Writer writer = new FileWriter(planFile);
+    try {
+      writer.write(JDefinedClassOrInterfaceAdapter.class.getName() + "\n{\n"
+          + JMethodAdapter.class.getName() + "\n{\n"
+          + JMethodRunner1.class.getName() + "\n"
+          + JMethodRunner2.class.getName() + "\n}\n"
+          + JTypeRunner.class.getName() + "\n}\n"
+          + JSessionRunner.class.getName() + "\n");
+    } finally {
+      writer.close();
+    }
+
+    expectedPlan = print(buildPlan());
+  }
+
+  @After
+  public void tearDown() {
+    ThreadConfig.unsetConfig();
+  }
+
+  @Test
+  public void readsCachedPlan() throws Exception {
+    File cachedPlan = getCachedPlanFile();
+    String content = read(cachedPlan);
+    Assert.assertTrue(cachedPlan.setLastModified(0));
+
+    Assert.assertEquals(expectedPlan, print(buildPlan()));
+    Assert.assertEquals(content, read(cachedPlan));
+    Assert.assertEquals(0, cachedPlan.lastModified());
+  }
+
+  @Test
+  public void rebuildsStalePlan() throws Exception {
+    checkRebuilt("com.android.sched.NoSuchRunner\nend\n");
+    checkRebuilt(String.class.getName() + "\nend\n");
+    checkRebuilt(JSessionRunner.class.getName() + "\n}\nend\n");
+    checkRebuilt(JMethodAdapter.class.getName() + "\n{\n"
+        + JMethodRunner1.class.getName() + "\n}\nend\n");
+    checkRebuilt(JSessionRunner.class.getName() + "\n{\n}\nend\n");
+  }
+
+  @Test
+  public void rebuildsTruncatedPlan() throws Exception {
+    String content = read(getCachedPlanFile());
+    checkRebuilt(content.substring(0, content.lastIndexOf("end")));
+    checkRebuilt(content.substring(0, content.indexOf(JMethodRunner2.class.getName())));
+    checkRebuilt(content.substring(0, content.indexOf(JSessionRunner.class.getName())));
+    checkRebuilt("");
+  }
+
+  @Test
+  public void cachesManualPlan() throws Exception {
+    ManualPlanner planner = new ManualPlanner();
+    Assert.assertEquals(expectedPlan, print(buildPlan(planner)));
+    Assert.assertEquals(0, planner.count);
+
+    // Same request, but the delegate planner is the handcrafted one
+    Assert.assertTrue(getCachedPlanFile().delete());
+    Assert.assertEquals(expectedPlan, print(buildPlan(planner)));
+    Assert.assertEquals(1, planner.count);
+    Assert.assertEquals(expectedPlan, print(buildPlan(planner)));
+    Assert.assertEquals(1, planner.count);
+  }
+
+  private void checkRebuilt(@Nonnull String corruptedContent) throws Exception {
+    File cachedPlan = getCachedPlanFile();
+    String content = read(cachedPlan);
+    write(cachedPlan, corruptedContent);
+
+    Assert.assertEquals(expectedPlan, print(buildPlan()));
+    Assert.assertEquals(content, read(getCachedPlanFile()));
+  }
+
+  /**
+   * Builds the plan with a new configuration, since the plan file of the delegate planner can be
+   * read only once by configuration.
+   */
+  @Nonnull
+  private Plan<JSession> buildPlan() throws Exception {
+    return buildPlan(null);
+  }
+
+  /**
+   * Builds the plan with the given handcrafted planner, which is also the delegate of the cache
+   * when given.
+   */
+  @Nonnull
+  private Plan<JSession> buildPlan(@CheckForNull ManualPlanner manualPlanner) throws Exception {
+    Options options = TestTools.buildCommandLineArgs(
+        TestTools.getJackTestsWithJackFolder("shrob/test001"));
+    options.addProperty("sched.onlyfor", "schedtest");
+    options.addProperty("sched.planner", "cached");
+    options.addProperty("sched.planner.cache.dir", cacheDir.getPath());
+    if (manualPlanner == null) {
+      options.addProperty("sched.planner.cache.planner", "deserializer");
+    }
+    options.addProperty("sched.planner.file", planFile.getPath());
+    RunnableHooks hooks = new RunnableHooks();
+    try {
+      options.checkValidity(hooks);
+    } finally {
+      hooks.runHooks();
+    }
+    ThreadConfig.setConfig(options.getConfig());
+
+    Scheduler scheduler = new Scheduler();
+    Request request = scheduler.createScheduleRequest();
+    request.addSchedulables(scheduler.getAllSchedulable());
+    request.addInitialTagOrMarker(JavaSourceIr.class);
+    if (manualPlanner != null) {
+      request.setManualPlanner(manualPlanner);
+    }
+    return request.buildPlan(JSession.class);
+  }
+
+  /**
+   * Handcrafted planner reading the plan file, and counting the plans it builds.
+   */
+  private class ManualPlanner implements Planner<JSession> {
+    private int count = 0;
+
+    @Override
+    @Nonnull
+    public Plan<JSession> buildPlan(@Nonnull Request request, @Nonnull Class<JSession> on)
+        throws IllegalRequestException {
+      count++;
+      PlanBuilder<JSession> builder = request.getPlanBuilder(on);
+      try {
+        DeserializerPlanner.readPlan(new BufferedReader(new FileReader(planFile)), builder);
+      } catch (IOException | ClassNotFoundException e) {
+        throw new AssertionError(e);
+      }
+      return builder.getPlan();
+    }
+  }
+
+  @Nonnull
+  private File getCachedPlanFile() {
+    File[] files = cacheDir.listFiles();
+    Assert.assertNotNull(files);
+    Assert.assertEquals(1, files.length);
+    return files[0];
+  }
+
+  @Nonnull
+  private static String print(@Nonnull Plan<?> plan) {
+    StringWriter content = new StringWriter();
+    PrintWriter writer = new PrintWriter(content);
+    PlanSerializer.printSubPlan(plan, writer);
+    writer.flush();
+    return content.toString();
+  }
+
+  @Nonnull
+  private static String read(@Nonnull File file) throws IOException {
+    return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+  }
+
+  private static void write(@Nonnull File file, @Nonnull String content) throws IOException {
+    Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+    try {
+      writer.write(content);
+    } finally {
+      writer.close();
+    }
+  }
+}
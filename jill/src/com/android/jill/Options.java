@@ -28,6 +28,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 /**
@@ -60,6 +61,11 @@ public class Options {
   @Option(name = "--no-debug", usage = "disable debug info emission")
   protected boolean disableEmitDebugInfo = false;
 
+  @Option(name = "--threads",
+      usage = "number of threads translating class files, 0 meaning one by core (default: 1)",
+      metaVar = "N")
+  protected int threads = 1;
+
   @CheckForNull
   private PrintStream err;
   @CheckForNull
@@ -70,6 +76,10 @@ public class Options {
       return;
     }
 
+    if (threads < 0) {
+      throw new IllegalOptionsException("Number of threads must not be negative");
+    }
+
     if (binaryFile != null) {
       checkBinaryFileValidity();
     } else {
@@ -145,6 +155,18 @@ public class Options {
     disableEmitDebugInfo = !emitDebugInfo;
   }
 
+  public void setThreads(@Nonnegative int threads) {
+    this.threads = threads;
+  }
+
+  /**
+   * Returns the number of threads translating class files.
+   */
+  @Nonnegative
+  public int getThreads() {
+    return threads == 0 ? Runtime.getRuntime().availableProcessors() : threads;
+  }
+
   @Nonnull
   public ContainerType getOutputContainer() {
     return outputContainer;
@@ -16,6 +16,9 @@
 
 package com.android.jill.frontend.java;
 
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Uninterruptibles;
+
 import com.android.jill.JillException;
 import com.android.jill.Options;
 import com.android.jill.backend.jayce.JayceWriter;
@@ -39,6 +42,7 @@ import com.android.sched.util.file.OutputZipFile;
 import com.android.sched.util.file.OutputZipFile.Compression;
 import com.android.sched.util.file.WrongPermissionException;
 import com.android.sched.util.location.Location;
+import com.android.sched.util.location.NoLocation;
 import com.android.sched.vfs.BadVFSFormatException;
 import com.android.sched.vfs.DeflateFS;
 import com.android.sched.vfs.DirectFS;
@@ -54,18 +58,27 @@ import com.android.sched.vfs.WriteZipFS;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.tree.ClassNode;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.security.Provider.Service;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 /**
@@ -142,9 +155,23 @@ public class JavaTransformer {
     try (VFS baseVFS = getBaseOutputVFS()) {
       try (OutputVFS outputVFS = wrapOutputVFS(baseVFS)) {
 
-        for (File fileToTransform : javaBinaryFiles) {
-          try (FileInputStream fis = new FileInputStream(fileToTransform)) {
-            transformToVFS(fis, outputVFS);
+        if (options.getThreads() > 1) {
+          ParallelTransformer transformer = new ParallelTransformer(outputVFS);
+          try {
+            for (File fileToTransform : javaBinaryFiles) {
+              try (FileInputStream fis = new FileInputStream(fileToTransform)) {
+                transformer.submit(ByteStreams.toByteArray(fis));
+              }
+            }
+            transformer.finish();
+          } finally {
+            transformer.shutdown();
+          }
+        } else {
+          for (File fileToTransform : javaBinaryFiles) {
+            try (FileInputStream fis = new FileInputStream(fileToTransform)) {
+              transformToVFS(fis, outputVFS);
+            }
           }
         }
         dumpJackLibraryProperties(baseVFS);
@@ -225,23 +252,42 @@ public class JavaTransformer {
 
   private void transformJavaFiles(@Nonnull JarFile jarFile, @Nonnull OutputVFS outputVFS)
       throws IOException {
-    final Enumeration<JarEntry> entries = jarFile.entries();
-    while (entries.hasMoreElements()) {
-      final JarEntry entry = entries.nextElement();
-      String name = entry.getName();
-      if (FileUtils.isJavaBinaryFile(name)) {
-        JarEntry fileEntry = jarFile.getJarEntry(name);
-        if (!fileEntry.isDirectory()) {
-          InputStream is = jarFile.getInputStream(fileEntry);
-          transformToVFS(is, outputVFS);
+    ParallelTransformer transformer =
+        options.getThreads() > 1 ? new ParallelTransformer(outputVFS) : null;
+    try {
+      final Enumeration<JarEntry> entries = jarFile.entries();
+      while (entries.hasMoreElements()) {
+        final JarEntry entry = entries.nextElement();
+        String name = entry.getName();
+        if (FileUtils.isJavaBinaryFile(name)) {
+          JarEntry fileEntry = jarFile.getJarEntry(name);
+          if (!fileEntry.isDirectory()) {
+            InputStream is = jarFile.getInputStream(fileEntry);
+            if (transformer != null) {
+              try {
+                transformer.submit(ByteStreams.toByteArray(is));
+              } finally {
+                is.close();
+              }
+            } else {
+              transformToVFS(is, outputVFS);
+            }
+          }
         }
       }
+      if (transformer != null) {
+        transformer.finish();
+      }
+    } finally {
+      if (transformer != null) {
+        transformer.shutdown();
+      }
     }
   }
 
   private void transformToVFS(@Nonnull InputStream is, @Nonnull OutputVFS outputVFS)
       throws IOException {
-    ClassNode cn = getClassNode(is);
+    ClassNode cn = getClassNode(ByteStreams.toByteArray(is));
     VPath outputPath = getVPath(cn.name);
     try {
       OutputVFile vFile = outputVFS.getRootOutputVDir().createOutputVFile(outputPath);
@@ -256,6 +302,109 @@ public class JavaTransformer {
     }
   }
 
+  /**
+   * Translates class files on a pool of threads. Translated classes are kept in memory and written
+   * one at a time, in the order of the class files, so that the output does not depend on the
+   * number of threads.
+   */
+  private class ParallelTransformer {
+    @Nonnull
+    private final OutputVFS outputVFS;
+
+    @Nonnull
+    private final ExecutorService executor;
+
+    @Nonnull
+    private final Deque<Future<TranslatedClass>> pending =
+        new ArrayDeque<Future<TranslatedClass>>();
+
+    /** Maximum number of translations pending, to bound the memory used by translated classes */
+    @Nonnegative
+    private final int maxPending;
+
+    ParallelTransformer(@Nonnull OutputVFS outputVFS) {
+      this.outputVFS = outputVFS;
+      int threads = options.getThreads();
+      executor = Executors.newFixedThreadPool(threads);
+      maxPending = threads * 4;
+    }
+
+    void submit(@Nonnull final byte[] classFile) {
+      if (pending.size() >= maxPending) {
+        writeNext();
+      }
+      pending.add(executor.submit(new Callable<TranslatedClass>() {
+        @Override
+        public TranslatedClass call() {
+          return translate(classFile);
+        }
+      }));
+    }
+
+    void finish() {
+      while (!pending.isEmpty()) {
+        writeNext();
+      }
+    }
+
+    void shutdown() {
+      executor.shutdownNow();
+    }
+
+    private void writeNext() {
+      TranslatedClass translated;
+      try {
+        translated = Uninterruptibles.getUninterruptibly(pending.remove());
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new AssertionError(cause);
+      }
+
+      try {
+        OutputVFile vFile =
+            outputVFS.getRootOutputVDir().createOutputVFile(getVPath(translated.name));
+        try (OutputStream os = vFile.getOutputStream()) {
+          os.write(translated.jayce);
+        } catch (IOException e) {
+          throw new CannotWriteException(vFile.getLocation(), e);
+        }
+      } catch (CannotCreateFileException | WrongPermissionException | CannotWriteException e) {
+        throw new JillException(e);
+      }
+    }
+  }
+
+  private static class TranslatedClass {
+    @Nonnull
+    private final String name;
+
+    @Nonnull
+    private final byte[] jayce;
+
+    TranslatedClass(@Nonnull String name, @Nonnull byte[] jayce) {
+      this.name = name;
+      this.jayce = jayce;
+    }
+  }
+
+  @Nonnull
+  private TranslatedClass translate(@Nonnull byte[] classFile) {
+    ClassNode cn = getClassNode(classFile);
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    try {
+      transform(cn, os, NoLocation.getInstance());
+    } catch (CannotWriteException e) {
+      // Writing to memory does not fail
+      throw new AssertionError(e);
+    }
+    return new TranslatedClass(cn.name, os.toByteArray());
+  }
+
   private void transform(@Nonnull ClassNode cn, @Nonnull OutputStream os,
       @Nonnull Location location) throws CannotWriteException {
 
@@ -285,9 +434,9 @@ public class JavaTransformer {
   }
 
   @Nonnull
-  private ClassNode getClassNode(@Nonnull InputStream is) throws IOException {
+  private ClassNode getClassNode(@Nonnull byte[] classFile) {
     try {
-      ClassReader cr = new ClassReader(is);
+      ClassReader cr = new ClassReader(classFile);
       ClassNode cn = new ClassNode();
       cr.accept(cn,
           ClassReader.SKIP_FRAMES | (options.isEmitDebugInfo() ? 0 : ClassReader.SKIP_DEBUG));
@@ -18,9 +18,11 @@ package com.android.sched.marker;
 
 import com.android.sched.item.Items;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
@@ -28,16 +30,27 @@ import javax.annotation.Nonnull;
 
 /**
  * Provides {@link Marker}-managing abilities to its subclasses.
+ *
+ * <p>Most objects hold no or few markers, so markers are stored in a small array, replaced
+ * atomically on each modification. Past {@link #MAX_ARRAY_SIZE} markers, they are moved to a
+ * {@link ConcurrentHashMap}.
  */
 public class LocalMarkerManager extends AbstractMarkerManager {
   @Nonnull
   private static final Collection<Marker> EMPTY_MARKER = Collections.emptyList();
 
-  @CheckForNull
-  private ConcurrentHashMap<Class<? extends Marker>, Marker> markers;
+  private static final int MAX_ARRAY_SIZE = 8;
 
   @Nonnull
-  private final Object lock = new Object();
+  private static final AtomicReferenceFieldUpdater<LocalMarkerManager, Object> updater =
+      AtomicReferenceFieldUpdater.newUpdater(LocalMarkerManager.class, Object.class, "markers");
+
+  /**
+   * Markers, either null, a {@code Marker[]} never modified once published, or a
+   * {@code ConcurrentHashMap<Class<? extends Marker>, Marker>}.
+   */
+  @CheckForNull
+  private volatile Object markers;
 
   @SuppressWarnings("unchecked")
   @Override
@@ -46,53 +59,46 @@ public class LocalMarkerManager extends AbstractMarkerManager {
     assert isValidMarker(marker) : "Marker '" + Items.getName(marker.getClass())
         + "' is not supported for class '" + this.getClass().getName() + "'";
 
-    ensureMap();
-    assert markers != null;
-
-    return (T) markers.put(marker.getClass(), marker);
+    return (T) put(marker, /* onlyIfAbsent= */ false);
   }
 
   @Override
   public void addAllMarkers(@Nonnull Collection<Marker> collection) {
-    ensureMap();
-
     for (Marker marker : collection) {
       assert isValidMarker(marker) : "Marker '" + Items.getName(marker.getClass())
           + "' is not supported for class '" + this.getClass().getName() + "'";
-      assert markers != null;
 
-      markers.put(marker.getClass(), marker);
+      put(marker, /* onlyIfAbsent= */ false);
     }
   }
 
   @Override
   @Nonnull
   public Collection<Marker> getAllMarkers() {
-    synchronized (lock) {
-      if (markers == null) {
-        return EMPTY_MARKER;
-      }
+    Object current = markers;
+    if (current == null) {
+      return EMPTY_MARKER;
+    }
+
+    Collection<Marker> all;
+    if (current instanceof Marker[]) {
+      all = Collections.unmodifiableList(Arrays.asList((Marker[]) current));
+    } else {
+      all = asMap(current).values();
     }
 
-    for (Marker marker : markers.values()) {
+    for (Marker marker : all) {
       assert checkGetAccess(marker.getClass());
     }
 
-    assert markers != null;
-    return markers.values();
+    return all;
   }
 
   @Override
   @CheckForNull
   @SuppressWarnings(value = "unchecked")
   public <T extends Marker> T getMarker(@Nonnull Class<T> cls) {
-    synchronized (lock) {
-      if (markers == null) {
-        return null;
-      }
-    }
-
-    return (T) markers.get(cls);
+    return (T) get(cls);
   }
 
   @Override
@@ -100,13 +106,7 @@ public class LocalMarkerManager extends AbstractMarkerManager {
     assert isValidMarker(cls) : "Marker '" + Items.getName(cls) + "' is not supported for class '"
         + this.getClass().getName() + "'";
 
-    synchronized (lock) {
-      if (markers == null) {
-        return false;
-      }
-    }
-
-    return markers.containsKey(cls);
+    return get(cls) != null;
   }
 
   @Override
@@ -116,14 +116,8 @@ public class LocalMarkerManager extends AbstractMarkerManager {
         + Items.getName(defaultMarker.getClass()) + "' is not supported for class '"
         + this.getClass().getName() + "'";
 
-    synchronized (lock) {
-      if (markers == null) {
-        return defaultMarker;
-      }
-    }
-
     @SuppressWarnings("unchecked")
-    T marker = (T) markers.get(defaultMarker.getClass());
+    T marker = (T) get(defaultMarker.getClass());
     if (marker == null) {
       return defaultMarker;
     } else {
@@ -138,30 +132,118 @@ public class LocalMarkerManager extends AbstractMarkerManager {
     assert isValidMarker(newMarker) : "Marker '" + Items.getName(newMarker.getClass())
         + "' is not supported for class '" + this.getClass().getName() + "'";
 
-    ensureMap();
-    assert markers != null;
-
-    return (T) markers.putIfAbsent(newMarker.getClass(), newMarker);
+    return (T) put(newMarker, /* onlyIfAbsent= */ true);
   }
 
   @Override
   @SuppressWarnings(value = "unchecked")
   @CheckForNull
   public <T extends Marker> T removeMarker(@Nonnull Class<T> cls) {
-    synchronized (lock) {
-      if (markers == null) {
+    while (true) {
+      Object current = markers;
+      if (current == null) {
         return null;
       }
+      if (!(current instanceof Marker[])) {
+        return (T) asMap(current).remove(cls);
+      }
+
+      Marker[] array = (Marker[]) current;
+      int index = indexOf(array, cls);
+      if (index == -1) {
+        return null;
+      }
+
+      Marker[] newArray;
+      if (array.length == 1) {
+        newArray = null;
+      } else {
+        newArray = new Marker[array.length - 1];
+        System.arraycopy(array, 0, newArray, 0, index);
+        System.arraycopy(array, index + 1, newArray, index, array.length - index - 1);
+      }
+      if (updater.compareAndSet(this, current, newArray)) {
+        return (T) array[index];
+      }
     }
+  }
+
+  @CheckForNull
+  private Marker get(@Nonnull Class<? extends Marker> cls) {
+    Object current = markers;
+    if (current == null) {
+      return null;
+    }
+    if (current instanceof Marker[]) {
+      Marker[] array = (Marker[]) current;
+      int index = indexOf(array, cls);
+      return index == -1 ? null : array[index];
+    }
+    return asMap(current).get(cls);
+  }
 
-    return (T) markers.remove(cls);
+  @CheckForNull
+  private Marker put(@Nonnull Marker marker, boolean onlyIfAbsent) {
+    Class<? extends Marker> cls = marker.getClass();
+
+    while (true) {
+      Object current = markers;
+      if (current != null && !(current instanceof Marker[])) {
+        ConcurrentHashMap<Class<? extends Marker>, Marker> map = asMap(current);
+        return onlyIfAbsent ? map.putIfAbsent(cls, marker) : map.put(cls, marker);
+      }
+
+      Marker[] array = (Marker[]) current;
+      Object newMarkers;
+      Marker previous;
+      if (array == null) {
+        previous = null;
+        newMarkers = new Marker[] {marker};
+      } else {
+        int index = indexOf(array, cls);
+        if (index != -1) {
+          previous = array[index];
+          if (onlyIfAbsent) {
+            return previous;
+          }
+          Marker[] newArray = array.clone();
+          newArray[index] = marker;
+          newMarkers = newArray;
+        } else if (array.length < MAX_ARRAY_SIZE) {
+          previous = null;
+          Marker[] newArray = Arrays.copyOf(array, array.length + 1);
+          newArray[array.length] = marker;
+          newMarkers = newArray;
+        } else {
+          previous = null;
+          ConcurrentHashMap<Class<? extends Marker>, Marker> map =
+              new ConcurrentHashMap<Class<? extends Marker>, Marker>();
+          for (Marker m : array) {
+            map.put(m.getClass(), m);
+          }
+          map.put(cls, marker);
+          newMarkers = map;
+        }
+      }
+
+      if (updater.compareAndSet(this, current, newMarkers)) {
+        return previous;
+      }
+    }
   }
 
-  private void ensureMap() {
-    synchronized (lock) {
-      if (markers == null) {
-        markers = new ConcurrentHashMap<Class<? extends Marker>, Marker>();
+  private static int indexOf(@Nonnull Marker[] array, @Nonnull Class<? extends Marker> cls) {
+    for (int i = 0; i < array.length; i++) {
+      if (array[i].getClass() == cls) {
+        return i;
       }
     }
+    return -1;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Nonnull
+  private static ConcurrentHashMap<Class<? extends Marker>, Marker> asMap(@Nonnull Object markers) {
+    return (ConcurrentHashMap<Class<? extends Marker>, Marker>) markers;
   }
 }
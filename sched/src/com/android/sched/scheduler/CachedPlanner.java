@@ -0,0 +1,271 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.scheduler;
+
+import com.android.sched.item.Component;
+import com.android.sched.item.Item;
+import com.android.sched.item.ItemSet;
+import com.android.sched.util.codec.ImplementationName;
+import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.file.Directory;
+import com.android.sched.util.log.Event;
+import com.android.sched.util.log.LoggerFactory;
+import com.android.sched.util.log.SchedEventType;
+import com.android.sched.util.log.Tracer;
+import com.android.sched.util.log.TracerFactory;
+import com.android.sched.util.log.stats.Counter;
+import com.android.sched.util.log.stats.CounterImpl;
+import com.android.sched.util.log.stats.StatisticId;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Implementation of a {@link Planner} which keeps the computed plans in a directory. Plans are
+ * keyed by a digest of the {@link Request} and of the constraints of its {@code Schedulable}s. On
+ * a miss, the plan is computed by another {@link Planner} and stored with the
+ * {@link PlanSerializer} format, followed by an end marker. A stored plan which is truncated,
+ * stale or not valid for the request is handled as a miss.
+ *
+ * @param <T> the root <i>data</i> type
+ */
+@ImplementationName(iface = Planner.class, name = "cached")
+public class CachedPlanner<T extends Component> implements Planner<T> {
+  @Nonnull
+  private static final StatisticId<Counter> PLAN_CACHE_HIT = new StatisticId<Counter>(
+      "sched.planner.cache.hit", "Plans read from the plan cache",
+      CounterImpl.class, Counter.class);
+
+  @Nonnull
+  private static final StatisticId<Counter> PLAN_CACHE_MISS = new StatisticId<Counter>(
+      "sched.planner.cache.miss", "Plans computed and stored in the plan cache",
+      CounterImpl.class, Counter.class);
+
+  @Nonnull
+  private static final String PLAN_EXTENSION = ".plan";
+
+  /**
+   * Last line of a stored plan, used to detect plans which were not completely written.
+   */
+  @Nonnull
+  private static final String END_OF_PLAN = "end";
+
+  @Nonnull
+  private static final Logger logger = LoggerFactory.getLogger();
+
+  @Nonnull
+  private final Tracer tracer = TracerFactory.getTracer();
+
+  @Nonnull
+  private final Directory cacheDir = ThreadConfig.get(PlannerFactory.PLANNER_CACHE_DIR);
+
+  @Override
+  @Nonnull
+  public Plan<T> buildPlan(@Nonnull Request request, @Nonnull Class<T> rootRunOn)
+      throws PlanNotFoundException, IllegalRequestException {
+    File planFile = new File(cacheDir.getFile(), getKey(request, rootRunOn) + PLAN_EXTENSION);
+
+    Plan<T> plan = readPlan(planFile, request, rootRunOn);
+    if (plan != null) {
+      tracer.getStatistic(PLAN_CACHE_HIT).incValue();
+      return plan;
+    }
+
+    tracer.getStatistic(PLAN_CACHE_MISS).incValue();
+
+    @SuppressWarnings("unchecked")
+    Planner<T> delegate = (Planner<T>) PlannerFactory.createCacheDelegatePlanner();
+    plan = delegate.buildPlan(request, rootRunOn);
+    writePlan(planFile, plan);
+
+    return plan;
+  }
+
+  @CheckForNull
+  private Plan<T> readPlan(@Nonnull File planFile, @Nonnull Request request,
+      @Nonnull Class<T> rootRunOn) {
+    if (!planFile.isFile()) {
+      return null;
+    }
+
+    // Any plan which cannot be read back and verified against the request is handled as a miss,
+    // and overwritten by the plan computed by the delegate planner
+    try (Event event = tracer.open(SchedEventType.PLANBUILDER)) {
+      PlanBuilder<T> builder = request.getPlanBuilder(rootRunOn);
+      DeserializerPlanner.readPlan(new BufferedReader(new StringReader(readContent(planFile))),
+          builder);
+
+      Plan<T> plan = builder.getPlan();
+      logger.log(Level.FINE, "Plan read from cache ''{0}''", planFile.getPath());
+      return plan;
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Cannot read plan from cache '" + planFile.getPath() + "'", e);
+    } catch (ClassNotFoundException | LinkageError e) {
+      logger.log(Level.WARNING, "Stale plan in cache '" + planFile.getPath() + "'", e);
+    } catch (IllegalRequestException | SchedulableNotRegisteredError | PlanError
+        | RuntimeException e) {
+      logger.log(Level.WARNING, "Invalid plan in cache '" + planFile.getPath() + "'", e);
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns the plan stored in the given file, without its end marker.
+   *
+   * @throws IOException if the file cannot be read or is truncated
+   */
+  @Nonnull
+  private static String readContent(@Nonnull File planFile) throws IOException {
+    StringBuilder content = new StringBuilder();
+    BufferedReader reader = new BufferedReader(
+        new InputStreamReader(new FileInputStream(planFile), StandardCharsets.UTF_8));
+    try {
+      String previous = null;
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        if (previous != null) {
+          content.append(previous).append('\n');
+        }
+        previous = line;
+      }
+
+      if (!END_OF_PLAN.equals(previous)) {
+        throw new IOException("Truncated plan");
+      }
+    } finally {
+      reader.close();
+    }
+
+    return content.toString();
+  }
+
+  private void writePlan(@Nonnull File planFile, @Nonnull Plan<T> plan) {
+    // Write to a temporary file first, so that concurrent compilations never see a partial plan
+    File tmpFile = null;
+    try {
+      tmpFile = File.createTempFile("plan-", ".tmp", planFile.getParentFile());
+      PrintWriter writer = new PrintWriter(
+          new OutputStreamWriter(new FileOutputStream(tmpFile), StandardCharsets.UTF_8));
+      try {
+        PlanSerializer.printSubPlan(plan, writer);
+        writer.println(END_OF_PLAN);
+      } finally {
+        writer.close();
+      }
+
+      if (writer.checkError()) {
+        throw new IOException("Error while writing '" + tmpFile.getPath() + "'");
+      }
+
+      if (!tmpFile.renameTo(planFile)) {
+        throw new IOException(
+            "Cannot rename '" + tmpFile.getPath() + "' to '" + planFile.getPath() + "'");
+      }
+      tmpFile = null;
+
+      logger.log(Level.FINE, "Plan stored in cache ''{0}''", planFile.getPath());
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Cannot store plan in cache '" + planFile.getPath() + "'", e);
+    } finally {
+      if (tmpFile != null && !tmpFile.delete()) {
+        logger.log(Level.WARNING, "Cannot delete ''{0}''", tmpFile.getPath());
+      }
+    }
+  }
+
+  @Nonnull
+  private String getKey(@Nonnull Request request, @Nonnull Class<T> rootRunOn) {
+    MessageDigest md = ThreadConfig.get(PlannerFactory.PLANNER_CACHE_DIGEST_ALGO).create();
+    FeatureSet features = request.getFeatures();
+
+    update(md, "on", Collections.singletonList(rootRunOn.getName()));
+    update(md, "features", names(features));
+    update(md, "productions", names(request.getTargetProductions()));
+    update(md, "initial", names(request.getInitialTags()));
+    update(md, "include", names(request.getTargetIncludeTags()));
+    update(md, "exclude", names(request.getTargetExcludeTags()));
+
+    List<String> runners = new ArrayList<String>();
+    for (ManagedRunnable runner : request.getRunners()) {
+      runners.add(runner.getSchedulable().getName()
+          + " on " + runner.getRunOn().getName()
+          + " needs " + names(runner.getNeededTags(features))
+          + " unsupports " + names(runner.getUnsupportedTags(features))
+          + " adds " + names(runner.getAddedTags())
+          + " removes " + names(runner.getRemovedTags())
+          + " produces " + names(runner.getProductions()));
+    }
+    Collections.sort(runners);
+    update(md, "runners", runners);
+
+    List<String> adapters = new ArrayList<String>();
+    for (ManagedVisitor adapter : request.getVisitors()) {
+      adapters.add(adapter.getSchedulable().getName()
+          + " from " + adapter.getRunOn().getName()
+          + " to " + adapter.getRunOnAfter().getName());
+    }
+    Collections.sort(adapters);
+    update(md, "adapters", adapters);
+
+    StringBuilder sb = new StringBuilder();
+    for (byte b : md.digest()) {
+      sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+      sb.append(Character.forDigit(b & 0xF, 16));
+    }
+
+    return sb.toString();
+  }
+
+  @Nonnull
+  private static <U extends Item> List<String> names(@Nonnull ItemSet<U> set) {
+    List<String> names = new ArrayList<String>(set.getSize());
+    for (Class<? extends U> item : set) {
+      names.add(item.getName());
+    }
+    Collections.sort(names);
+
+    return names;
+  }
+
+  private static void update(@Nonnull MessageDigest md, @Nonnull String section,
+      @Nonnull List<String> values) {
+    md.update(section.getBytes(StandardCharsets.UTF_8));
+    md.update((byte) '{');
+    for (String value : values) {
+      md.update(value.getBytes(StandardCharsets.UTF_8));
+      md.update((byte) '\n');
+    }
+    md.update((byte) '}');
+  }
+}
@@ -19,6 +19,7 @@ package com.android.sched.scheduler;
 import com.android.sched.item.Component;
 import com.android.sched.schedulable.AdapterSchedulable;
 import com.android.sched.schedulable.ProcessorSchedulable;
+import com.android.sched.schedulable.Schedulable;
 import com.android.sched.util.codec.ImplementationName;
 import com.android.sched.util.config.ThreadConfig;
 import com.android.sched.util.file.ReaderFile;
@@ -38,7 +39,6 @@ public class DeserializerPlanner<T extends Component> implements Planner<T> {
   @Nonnull
   private final ReaderFile planFile = ThreadConfig.get(PlannerFactory.PLANNER_FILE);
 
-  @SuppressWarnings("unchecked")
   @Nonnull
   @Override
   public Plan<T> buildPlan(@Nonnull Request request, @Nonnull Class<T> rootRunOn)
@@ -48,27 +48,7 @@ public class DeserializerPlanner<T extends Component> implements Planner<T> {
     try {
       try {
         reader = new BufferedReader(planFile.getBufferedReader());
-        Stack<SubPlanBuilder<T>> subPlanStack = new Stack<SubPlanBuilder<T>>();
-        subPlanStack.add(builder);
-        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
-          line = line.trim();
-          if (line.equals("}")) {
-            subPlanStack.pop();
-          } else if (line.equals("{")) {
-            // nothing to do
-          } else {
-            Class<?> runnableClass = this.getClass().getClassLoader().loadClass(line);
-            if (AdapterSchedulable.class.isAssignableFrom(runnableClass)) {
-              SubPlanBuilder<T> subPlanBuilder = subPlanStack.peek();
-              SubPlanBuilder<T> newSubPlanBuilder = subPlanBuilder.appendSubPlan(
-                  (Class<? extends AdapterSchedulable<T, T>>) runnableClass);
-              subPlanStack.push(newSubPlanBuilder);
-            } else {
-              SubPlanBuilder<T> subPlanBuilder = subPlanStack.peek();
-              subPlanBuilder.append((Class<? extends ProcessorSchedulable<T>>) runnableClass);
-            }
-          }
-        }
+        readPlan(reader, builder);
       } finally {
         if (reader != null) {
           reader.close();
@@ -85,4 +65,42 @@ public class DeserializerPlanner<T extends Component> implements Planner<T> {
     return plan;
   }
 
+  /**
+   * Fills a {@link PlanBuilder} with a plan in the format written by {@link PlanSerializer}.
+   */
+  @SuppressWarnings("unchecked")
+  static <T extends Component> void readPlan(@Nonnull BufferedReader reader,
+      @Nonnull PlanBuilder<T> builder) throws IOException, ClassNotFoundException {
+    Stack<SubPlanBuilder<T>> subPlanStack = new Stack<SubPlanBuilder<T>>();
+    subPlanStack.add(builder);
+    for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+      line = line.trim();
+      if (line.equals("}")) {
+        if (subPlanStack.size() == 1) {
+          throw new IOException("Unexpected '}'");
+        }
+        subPlanStack.pop();
+      } else if (line.equals("{")) {
+        // nothing to do
+      } else {
+        Class<?> runnableClass = DeserializerPlanner.class.getClassLoader().loadClass(line);
+        if (!Schedulable.class.isAssignableFrom(runnableClass)) {
+          throw new IOException("'" + line + "' is not a schedulable");
+        }
+        if (AdapterSchedulable.class.isAssignableFrom(runnableClass)) {
+          SubPlanBuilder<T> subPlanBuilder = subPlanStack.peek();
+          SubPlanBuilder<T> newSubPlanBuilder = subPlanBuilder.appendSubPlan(
+              (Class<? extends AdapterSchedulable<T, T>>) runnableClass);
+          subPlanStack.push(newSubPlanBuilder);
+        } else {
+          SubPlanBuilder<T> subPlanBuilder = subPlanStack.peek();
+          subPlanBuilder.append((Class<? extends ProcessorSchedulable<T>>) runnableClass);
+        }
+      }
+    }
+
+    if (subPlanStack.size() != 1) {
+      throw new IOException("Missing '}'");
+    }
+  }
 }
@@ -34,7 +34,6 @@ import com.android.sched.util.config.id.BooleanPropertyId;
 import com.android.sched.util.config.id.IntegerPropertyId;
 import com.android.sched.util.config.id.ListPropertyId;
 import com.android.sched.util.config.id.LongPropertyId;
-import com.android.sched.util.findbugs.SuppressFBWarnings;
 import com.android.sched.util.log.Event;
 import com.android.sched.util.log.LoggerFactory;
 import com.android.sched.util.log.SchedEventType;
@@ -72,18 +71,22 @@ import javax.annotation.Nonnull;
 public class MultiWorkersScheduleInstance<T extends Component>
     extends MultipleScheduleInstance<T> {
   @Nonnull
-  private static final BooleanPropertyId MANAGED_SYNC = BooleanPropertyId.create(
+  static final BooleanPropertyId MANAGED_SYNC = BooleanPropertyId.create(
       "sched.runner.thread.synchronized",
       "If scheduler manages synchronized schedulable by itself").requiredIf(
-      ScheduleInstance.DEFAULT_RUNNER.getClazz().isSubClassOf(MultiWorkersScheduleInstance.class))
+      ScheduleInstance.DEFAULT_RUNNER.getClazz().isSubClassOf(MultiWorkersScheduleInstance.class)
+          .or(ScheduleInstance.DEFAULT_RUNNER.getClazz()
+              .isSubClassOf(WorkStealingScheduleInstance.class)))
       .addDefaultValue(Boolean.TRUE);
 
   @Nonnull
-  private static final IntegerPropertyId CHECK_FREQUENCY = IntegerPropertyId.create(
+  static final IntegerPropertyId CHECK_FREQUENCY = IntegerPropertyId.create(
       "sched.runner.thread.detector.frequency",
       "Define at which frequency the detector is triggered (in ms)")
       .withMin(100).requiredIf(ScheduleInstance.DEFAULT_RUNNER.getClazz()
-          .isSubClassOf(MultiWorkersScheduleInstance.class)).addDefaultValue("30000");
+          .isSubClassOf(MultiWorkersScheduleInstance.class)
+          .or(ScheduleInstance.DEFAULT_RUNNER.getClazz()
+              .isSubClassOf(WorkStealingScheduleInstance.class))).addDefaultValue("30000");
 
   @Nonnegative
   private final int checkEvery = ThreadConfig.get(CHECK_FREQUENCY).intValue();
@@ -107,15 +110,40 @@ public class MultiWorkersScheduleInstance<T extends Component>
     }
   }
 
-  private static class Worker extends Thread implements Runnable {
-    @Nonnull
-    BlockingDeque<Task> queue;
-
+  /**
+   * A worker thread whose current task is watched by the {@link Detector}s.
+   */
+  abstract static class MonitoredWorker extends Thread {
     @CheckForNull
-    private Task currentTask = null;
+    private Object currentTask = null;
 
     @Nonnegative
-    private long currentTaskStartOn;
+    private long currentTaskStartOn = System.currentTimeMillis();
+
+    protected MonitoredWorker(@Nonnull String name, @Nonnegative long stackSize) {
+      super(null, null, name, stackSize);
+      this.setDaemon(true);
+    }
+
+    /*
+     * Synchronized to maintain atomicity when writing currentTask and currentTaskStartOn fields.
+     * By this way, the synchronized getStatus() method retrieves a coherent view.
+     */
+    protected synchronized void setCurrentTask(@CheckForNull Object task) {
+      currentTask = task;
+      currentTaskStartOn = System.currentTimeMillis();
+    }
+
+    @Nonnull
+    public synchronized WorkerStatus getStatus() {
+      return new WorkerStatus(currentTask, currentTaskStartOn);
+    }
+  }
+
+  private static class Worker extends MonitoredWorker {
+    @Nonnull
+    BlockingDeque<Task> queue;
+
     @CheckForNull
     private ThreadTracerState state;
     @Nonnull
@@ -123,18 +151,11 @@ public class MultiWorkersScheduleInstance<T extends Component>
 
     public Worker(@Nonnull String name, @Nonnull BlockingDeque<Task> queue,
         @Nonnegative long stackSize) {
-      super(null, null, name, stackSize);
+      super(name, stackSize);
       this.queue = queue;
       this.tracer = TracerFactory.getTracer();
-      this.setDaemon(true);
     }
 
-    /*
-     * Synchronized blocks are to maintain atomicity when writing currentTask and currentTaskStartOn
-     * fields. By this way, the synchronized getStatus() method retrieves a coherent view. No other
-     * concurrent access to currentTask and currentTaskStartOn fields are allowed.
-     */
-    @SuppressFBWarnings("IS2_INCONSISTENT_SYNC")
     @Override
     public void run() {
       assert state != null;
@@ -143,26 +164,16 @@ public class MultiWorkersScheduleInstance<T extends Component>
            Event workerEvent = tracer.open("Worker " + getName())) {
         while (true) {
           try {
-            synchronized (this) {
-              currentTask = null;
-              currentTaskStartOn = System.currentTimeMillis();
-            }
+            setCurrentTask(null);
 
             Task task = queue.take();
 
-            synchronized (this) {
-              currentTask = task;
-              currentTaskStartOn = System.currentTimeMillis();
-            }
+            setCurrentTask(task);
 
-            assert currentTask != null;
-            assert currentTask.assertProcessable();
+            assert task.assertProcessable();
 
-            if (currentTask.process()) {
-              synchronized (this) {
-                currentTask = null;
-                currentTaskStartOn = System.currentTimeMillis();
-              }
+            if (task.process()) {
+              setCurrentTask(null);
 
               return;
             }
@@ -184,27 +195,22 @@ public class MultiWorkersScheduleInstance<T extends Component>
       state = tracer.getThreadState();
       super.start();
     }
-
-    @Nonnull
-    public synchronized WorkerStatus getStatus() {
-      return new WorkerStatus(currentTask, currentTaskStartOn);
-    }
   }
 
   private static class WorkerStatus {
     @CheckForNull
-    private final Task currentTask;
+    private final Object currentTask;
 
     @Nonnegative
     private final long currentTaskStartOn;
 
-    public WorkerStatus(@CheckForNull Task currentTask, @Nonnegative long currentTaskStartOn) {
+    public WorkerStatus(@CheckForNull Object currentTask, @Nonnegative long currentTaskStartOn) {
       this.currentTask = currentTask;
       this.currentTaskStartOn = currentTaskStartOn;
     }
 
     @CheckForNull
-    public Task getCurrentTask() {
+    public Object getCurrentTask() {
       return currentTask;
     }
 
@@ -562,7 +568,7 @@ public class MultiWorkersScheduleInstance<T extends Component>
 
   @HasKeyId
   @VariableName("detector")
-  private abstract static class Detector {
+  abstract static class Detector {
     @Nonnull
     public static final ListPropertyId<ReflectFactory<Detector>> DETECTORS =
         new ListPropertyId<ReflectFactory<Detector>>("sched.runner.thread.detectors",
@@ -571,13 +577,16 @@ public class MultiWorkersScheduleInstance<T extends Component>
             .minElements(1)
             .requiredIf(
                 ScheduleInstance.DEFAULT_RUNNER.getClazz().isSubClassOf(
-                    MultiWorkersScheduleInstance.class)).addDefaultValue("deadlock,long-running")
+                    MultiWorkersScheduleInstance.class)
+                .or(ScheduleInstance.DEFAULT_RUNNER.getClazz().isSubClassOf(
+                    WorkStealingScheduleInstance.class)))
+            .addDefaultValue("deadlock,long-running")
             .addDefaultValue("long-running");
 
     protected Detector(@Nonnegative int size) {
     }
 
-    public abstract boolean check(@Nonnull List<Worker> activeWorkers);
+    public abstract boolean check(@Nonnull List<? extends MonitoredWorker> activeWorkers);
   }
 
   //
@@ -591,7 +600,7 @@ public class MultiWorkersScheduleInstance<T extends Component>
     }
 
     @Override
-    public boolean check(@Nonnull List<Worker> activeWorkers) {
+    public boolean check(@Nonnull List<? extends MonitoredWorker> activeWorkers) {
       return true;
     }
   }
@@ -617,21 +626,21 @@ public class MultiWorkersScheduleInstance<T extends Component>
     private final long timeout = ThreadConfig.get(TIMEOUT).longValue();
 
     @Nonnull
-    private final List<Worker> blockedWorkers;
+    private final List<MonitoredWorker> blockedWorkers;
 
     protected LongRunning(@Nonnegative  int size) {
       super(size);
-      blockedWorkers = new ArrayList<Worker>(size);
+      blockedWorkers = new ArrayList<MonitoredWorker>(size);
     }
 
     @Override
-    public boolean check(@Nonnull List<Worker> activeWorkers) {
+    public boolean check(@Nonnull List<? extends MonitoredWorker> activeWorkers) {
       // Check for blocked threads
       long time = System.currentTimeMillis();
-      Iterator<Worker> iter = activeWorkers.iterator();
+      Iterator<? extends MonitoredWorker> iter = activeWorkers.iterator();
 
       while (iter.hasNext()) {
-        Worker worker = iter.next();
+        MonitoredWorker worker = iter.next();
         WorkerStatus status = worker.getStatus();
 
         int duration = (int) (time - status.getCurrentTaskStartOn());
@@ -652,13 +661,13 @@ public class MultiWorkersScheduleInstance<T extends Component>
       return true;
     }
 
-    private void dump(@Nonnull List<Worker> workers) {
+    private void dump(@Nonnull List<MonitoredWorker> workers) {
       Map<Thread, StackTraceElement[]> stackTraces = Thread.getAllStackTraces();
 
       logger.log(Level.SEVERE, "Timeout detected during run:");
 
       boolean atLeastOne = false;
-      for (Worker worker : workers) {
+      for (MonitoredWorker worker : workers) {
         if (worker.isAlive()) {
           WorkerStatus status = worker.getStatus();
 
@@ -715,23 +724,23 @@ public class MultiWorkersScheduleInstance<T extends Component>
     ThreadMXBean threadManager = ManagementFactory.getThreadMXBean();
 
     @Nonnull
-    private final List<Worker> blockedWorkers;
+    private final List<MonitoredWorker> blockedWorkers;
 
     protected DeadLock(@Nonnegative int size) {
       super(size);
-      blockedWorkers = new ArrayList<Worker>(size);
+      blockedWorkers = new ArrayList<MonitoredWorker>(size);
     }
 
     @Override
-    public boolean check(@Nonnull List<Worker> activeWorkers) {
+    public boolean check(@Nonnull List<? extends MonitoredWorker> activeWorkers) {
       long[] deadlockedThreadIds = threadManager.findDeadlockedThreads();
 
       if (deadlockedThreadIds != null && deadlockedThreadIds.length > 0) {
         if (activeWorkers.size() > 0) {
           // Browse active workers ...
-          Iterator<Worker> iter = activeWorkers.iterator();
+          Iterator<? extends MonitoredWorker> iter = activeWorkers.iterator();
           while (iter.hasNext()) {
-            Worker worker = iter.next();
+            MonitoredWorker worker = iter.next();
 
             for (long id : deadlockedThreadIds) {
               // ... to remove deadlocked threads from active workers
@@ -763,14 +772,15 @@ public class MultiWorkersScheduleInstance<T extends Component>
       return true;
     }
 
-    private void dump(@Nonnull long[] deadlockedThreadIds, @Nonnull List<Worker> activeWorkers) {
+    private void dump(@Nonnull long[] deadlockedThreadIds,
+        @Nonnull List<? extends MonitoredWorker> activeWorkers) {
       logger.log(Level.SEVERE, "Deadlock detected during run:");
 
       for (ThreadInfo thread : threadManager.getThreadInfo(deadlockedThreadIds, true, true)) {
         if (thread != null) {
           boolean found = false;
 
-          for (Worker worker : blockedWorkers) {
+          for (MonitoredWorker worker : blockedWorkers) {
             if (worker.getId() == thread.getThreadId()) {
               found = true;
               dump(thread, worker);
@@ -785,7 +795,7 @@ public class MultiWorkersScheduleInstance<T extends Component>
       }
     }
 
-    private void dump(@Nonnull ThreadInfo thread, @CheckForNull Worker worker) {
+    private void dump(@Nonnull ThreadInfo thread, @CheckForNull MonitoredWorker worker) {
       logger.log(Level.SEVERE, "  Thread ''{0}'' ({1}) {2} {3}", new Object[] {
           thread.getThreadName(), Long.valueOf(thread.getThreadId()), thread.getThreadState(),
           (thread.isInNative() ? "(in native)" : "")});
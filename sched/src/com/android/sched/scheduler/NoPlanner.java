@@ -25,7 +25,8 @@ import java.util.logging.Level;
 import javax.annotation.Nonnull;
 
 /**
- * Implementation of a {@code Planner} which throws an exception.
+ * Implementation of a {@code Planner} which uses the handcrafted {@code Planner} of the
+ * {@link Request}, and throws an exception when there is none.
  *
  * @param <T> the root <i>data</i> type
  */
@@ -36,7 +37,14 @@ public class NoPlanner<T extends Component> implements Planner<T> {
 
   @Nonnull
   @Override
-  public Plan<T> buildPlan(@Nonnull Request request, @Nonnull Class<T> on) {
+  @SuppressWarnings("unchecked")
+  public Plan<T> buildPlan(@Nonnull Request request, @Nonnull Class<T> on)
+      throws PlanNotFoundException, IllegalRequestException {
+    Planner<T> manualPlanner = (Planner<T>) request.getManualPlanner();
+    if (manualPlanner != null) {
+      return manualPlanner.buildPlan(request, on);
+    }
+
     LoggerFactory.getLogger().log(Level.FINE, "No automatic planner");
     throw new UnsupportedOperationException();
   }
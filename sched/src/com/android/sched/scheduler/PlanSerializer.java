@@ -60,12 +60,12 @@ public class PlanSerializer implements PlanPrinter {
     }
   }
 
-  private void printSubPlan(@Nonnull Plan<?> plan, @Nonnull PrintWriter writer) {
+  static void printSubPlan(@Nonnull Plan<?> plan, @Nonnull PrintWriter writer) {
     Iterator<PlanStep> iter = plan.iterator();
     while (iter.hasNext()) {
       PlanStep step = iter.next();
       ManagedSchedulable schedulable = step.getManagedSchedulable();
-      writer.println(schedulable.getSchedulable().getCanonicalName());
+      writer.println(schedulable.getSchedulable().getName());
       if (step.isVisitor()) {
         writer.println("{");
         printSubPlan(step.getSubPlan(), writer);
@@ -17,11 +17,17 @@
 package com.android.sched.scheduler;
 
 import com.android.sched.item.Component;
+import com.android.sched.util.codec.DirectoryCodec;
 import com.android.sched.util.codec.ReaderFileCodec;
 import com.android.sched.util.config.HasKeyId;
 import com.android.sched.util.config.ThreadConfig;
 import com.android.sched.util.config.id.DefaultFactoryPropertyId;
+import com.android.sched.util.config.id.MessageDigestPropertyId;
+import com.android.sched.util.config.id.PropertyId;
 import com.android.sched.util.config.id.ReaderFilePropertyId;
+import com.android.sched.util.file.Directory;
+import com.android.sched.util.file.FileOrDirectory.Existence;
+import com.android.sched.util.file.FileOrDirectory.Permission;
 
 import javax.annotation.Nonnull;
 
@@ -39,17 +45,51 @@ public class PlannerFactory {
           "sched.planner", "Define which planner to use to compute plan", Planner.class)
           .bypassAccessibility().addDefaultValue("manual");
 
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  @Nonnull
+  public static final PropertyId<Directory> PLANNER_CACHE_DIR = PropertyId.create(
+      "sched.planner.cache.dir", "The directory where computed plans are cached",
+      new DirectoryCodec(Existence.MUST_EXIST, Permission.READ | Permission.WRITE)).
+      requiredIf(((DefaultFactoryPropertyId<Planner>) (Object) PLANNER_PROVIDER).
+          getClazz().isImplementedBy(CachedPlanner.class));
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  @Nonnull
+  private static final DefaultFactoryPropertyId<Planner<? extends Component>>
+      PLANNER_CACHE_DELEGATE = (DefaultFactoryPropertyId<
+          Planner<? extends Component>>) (Object) DefaultFactoryPropertyId.create(
+          "sched.planner.cache.planner",
+          "Define which planner computes the plan when it is not in the cache", Planner.class)
+          .bypassAccessibility().addDefaultValue("manual").
+      requiredIf(((DefaultFactoryPropertyId<Planner>) (Object) PLANNER_PROVIDER).
+          getClazz().isImplementedBy(CachedPlanner.class));
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  @Nonnull
+  public static final MessageDigestPropertyId PLANNER_CACHE_DIGEST_ALGO = MessageDigestPropertyId
+      .create("sched.planner.cache.digest.algo", "Message digest algorithm used to key the plans")
+      .addDefaultValue("SHA").
+      requiredIf(((DefaultFactoryPropertyId<Planner>) (Object) PLANNER_PROVIDER).
+          getClazz().isImplementedBy(CachedPlanner.class));
+
   @SuppressWarnings({"unchecked", "rawtypes"})
   @Nonnull
   public static final ReaderFilePropertyId PLANNER_FILE = ReaderFilePropertyId.create(
       "sched.planner.file", "The file to read the plan from",
       new ReaderFileCodec().allowCharset()).
       requiredIf(((DefaultFactoryPropertyId<Planner>) (Object) PLANNER_PROVIDER).
-          getClazz().isImplementedBy(DeserializerPlanner.class));
+          getClazz().isImplementedBy(DeserializerPlanner.class).or(
+          ((DefaultFactoryPropertyId<Planner>) (Object) PLANNER_CACHE_DELEGATE).
+          getClazz().isImplementedBy(DeserializerPlanner.class)));
 
   public static Planner<? extends Component> createPlanner() {
     return ThreadConfig.get(PLANNER_PROVIDER).create();
   }
 
+  @Nonnull
+  static Planner<? extends Component> createCacheDelegatePlanner() {
+    return ThreadConfig.get(PLANNER_CACHE_DELEGATE).create();
+  }
+
   private PlannerFactory() {}
 }
@@ -52,6 +52,9 @@ public class Request {
   @Nonnull
   protected AdapterSet visitors = new AdapterSet();
 
+  @CheckForNull
+  private Planner<? extends Component> manualPlanner = null;
+
   Request(@Nonnull Scheduler scheduler) {
     this.scheduler = scheduler;
 
@@ -394,6 +397,23 @@ public class Request {
     return ((Planner<T>) (PlannerFactory.createPlanner())).buildPlan(this, on);
   }
 
+  /**
+   * Sets the {@link Planner} used by the "manual" planner to build a handcrafted {@link Plan}.
+   *
+   * @return this {@code Request}
+   */
+  @Nonnull
+  public Request setManualPlanner(@Nonnull Planner<? extends Component> planner) {
+    manualPlanner = planner;
+
+    return this;
+  }
+
+  @CheckForNull
+  public Planner<? extends Component> getManualPlanner() {
+    return manualPlanner;
+  }
+
   /**
    * Returns a {@link PlanBuilder}.
    *
@@ -0,0 +1,640 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.scheduler;
+
+import com.android.sched.filter.NoFilter;
+import com.android.sched.item.Component;
+import com.android.sched.item.Items;
+import com.android.sched.schedulable.AdapterSchedulable;
+import com.android.sched.schedulable.RunnableSchedulable;
+import com.android.sched.schedulable.Schedulable;
+import com.android.sched.schedulable.VisitorSchedulable;
+import com.android.sched.scheduler.MultiWorkersScheduleInstance.Detector;
+import com.android.sched.scheduler.MultiWorkersScheduleInstance.MonitoredWorker;
+import com.android.sched.util.codec.ImplementationName;
+import com.android.sched.util.config.ReflectFactory;
+import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.log.Event;
+import com.android.sched.util.log.LoggerFactory;
+import com.android.sched.util.log.SchedEventType;
+import com.android.sched.util.log.ThreadTracerState;
+import com.android.sched.util.log.Tracer;
+import com.android.sched.util.log.TracerFactory;
+import com.android.sched.util.log.stats.Counter;
+import com.android.sched.util.log.stats.CounterImpl;
+import com.android.sched.util.log.stats.StatisticId;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Allows to run a {@link Plan} using a pool of worker threads, each one owning its own deque of
+ * tasks. An idle worker steals tasks from the tail of the deques of the other workers, so that
+ * there is no single queue shared by all threads. Blocked workers are detected as in
+ * {@link MultiWorkersScheduleInstance}.
+ *
+ * @param <T> the root <i>data</i> type
+ */
+@ImplementationName(iface = ScheduleInstance.class, name = "work-stealing")
+public class WorkStealingScheduleInstance<T extends Component>
+    extends MultipleScheduleInstance<T> {
+  @Nonnull
+  private static final StatisticId<Counter> TASK_STOLEN = new StatisticId<Counter>(
+      "sched.runner.work-stealing.stolen", "Tasks stolen from another worker",
+      CounterImpl.class, Counter.class);
+
+  @Nonnull
+  private static final StatisticId<Counter> WORKER_PARKED = new StatisticId<Counter>(
+      "sched.runner.work-stealing.parked", "Times a worker was parked without any task",
+      CounterImpl.class, Counter.class);
+
+  @Nonnegative
+  private final int checkEvery =
+      ThreadConfig.get(MultiWorkersScheduleInstance.CHECK_FREQUENCY).intValue();
+
+  @Nonnull
+  private final Synchronized[] syncs;
+
+  protected WorkStealingScheduleInstance(@Nonnull Plan<T> plan) throws Exception {
+    super(plan);
+
+    boolean isSynchronizedManaged =
+        ThreadConfig.get(MultiWorkersScheduleInstance.MANAGED_SYNC).booleanValue();
+    syncs = new Synchronized[plan.size()];
+    if (isSynchronizedManaged) {
+      int idx = 0;
+      for (PlanStep step : plan) {
+        if (step.getManagedSchedulable().isSynchronized(steps[idx].getInstance())) {
+          syncs[idx] = new Synchronized();
+        }
+        ++idx;
+      }
+    }
+  }
+
+  /**
+   * The set of workers and their deques. Tasks committed by a worker are pushed on the head of its
+   * own deque, other tasks go through a shared injection queue.
+   */
+  private static class Pool {
+    @Nonnull
+    private final Worker[] workers;
+
+    @Nonnull
+    private final Queue<Task> injected = new ConcurrentLinkedQueue<Task>();
+
+    @Nonnull
+    private final AtomicReference<ShutdownTask> shutdown = new AtomicReference<ShutdownTask>();
+
+    @Nonnull
+    private final AtomicLong signals = new AtomicLong();
+
+    @Nonnull
+    private final AtomicInteger idles = new AtomicInteger();
+
+    @Nonnull
+    private final Object idleLock = new Object();
+
+    public Pool(@Nonnegative int size) {
+      workers = new Worker[size];
+    }
+
+    public void submit(@Nonnull Task task) {
+      Thread current = Thread.currentThread();
+      if (current instanceof Worker && ((Worker) current).pool == this) {
+        ((Worker) current).deque.addFirst(task);
+      } else {
+        injected.add(task);
+      }
+
+      signals.incrementAndGet();
+      if (idles.get() > 0) {
+        synchronized (idleLock) {
+          idleLock.notify();
+        }
+      }
+    }
+
+    public void terminate(@Nonnull ShutdownTask task) {
+      while (true) {
+        ShutdownTask pending = shutdown.get();
+        // An exception or an error takes precedence over a regular shutdown
+        if (pending != null && (task.isRegular() || !pending.isRegular())) {
+          break;
+        }
+        if (shutdown.compareAndSet(pending, task)) {
+          break;
+        }
+      }
+
+      signals.incrementAndGet();
+      synchronized (idleLock) {
+        idleLock.notifyAll();
+      }
+    }
+
+    public boolean isTerminated() {
+      return shutdown.get() != null;
+    }
+
+    @CheckForNull
+    public Task take(@Nonnull Worker worker, @Nonnull Tracer tracer) {
+      while (!isTerminated()) {
+        Task task = find(worker, tracer);
+        if (task != null) {
+          return task;
+        }
+
+        idles.incrementAndGet();
+        try {
+          long signal = signals.get();
+          // Look again since a submit may have happened before this worker was seen as idle
+          task = find(worker, tracer);
+          if (task != null) {
+            return task;
+          }
+
+          tracer.getStatistic(WORKER_PARKED).incValue();
+          synchronized (idleLock) {
+            while (signals.get() == signal) {
+              try {
+                idleLock.wait();
+              } catch (InterruptedException e) {
+                // Nothing to do
+              }
+            }
+          }
+        } finally {
+          idles.decrementAndGet();
+        }
+      }
+
+      return null;
+    }
+
+    @CheckForNull
+    private Task find(@Nonnull Worker worker, @Nonnull Tracer tracer) {
+      Task task = worker.deque.pollFirst();
+      if (task != null) {
+        return task;
+      }
+
+      task = injected.poll();
+      if (task != null) {
+        return task;
+      }
+
+      int start = worker.index + 1;
+      for (int i = 0; i < workers.length - 1; i++) {
+        Worker victim = workers[(start + i) % workers.length];
+        task = victim.deque.pollLast();
+        if (task != null) {
+          tracer.getStatistic(TASK_STOLEN).incValue();
+          return task;
+        }
+      }
+
+      return null;
+    }
+
+    @CheckForNull
+    public ShutdownTask getShutdown() {
+      return shutdown.get();
+    }
+  }
+
+  private static class Worker extends MonitoredWorker {
+    @Nonnull
+    private final Pool pool;
+
+    @Nonnegative
+    private final int index;
+
+    @Nonnull
+    private final ConcurrentLinkedDeque<Task> deque = new ConcurrentLinkedDeque<Task>();
+
+    @CheckForNull
+    private ThreadTracerState state;
+    @Nonnull
+    private final Tracer tracer;
+
+    public Worker(@Nonnull String name, @Nonnull Pool pool, @Nonnegative int index,
+        @Nonnegative long stackSize) {
+      super(name, stackSize);
+      this.pool = pool;
+      this.index = index;
+      this.tracer = TracerFactory.getTracer();
+    }
+
+    @Override
+    public void run() {
+      assert state != null;
+      tracer.pushThreadState(state);
+      try (Event workersEvent = tracer.open(SchedEventType.WORKERS);
+           Event workerEvent = tracer.open("Worker " + getName())) {
+        while (true) {
+          Task task = pool.take(this, tracer);
+          if (task == null) {
+            return;
+          }
+
+          setCurrentTask(task);
+          assert task.assertProcessable();
+          task.process();
+          setCurrentTask(null);
+        }
+      } catch (Throwable e) {
+        new AssertionErrorTask(pool,
+            new AssertionError("Uncaught exception in thread '" + getName() + "'", e)).commit();
+      } finally {
+        assert state != null;
+        tracer.popThreadState(state);
+      }
+    }
+
+    @Override
+    public void start() {
+      state = tracer.getThreadState();
+      super.start();
+    }
+  }
+
+  private static class Synchronized {
+    @Nonnull
+    private final List<Task> queue = new LinkedList<Task>();
+
+    private boolean taken = false;
+
+    public synchronized boolean tryLock(@Nonnull Task task) {
+      if (!taken) {
+        taken = true;
+        return true;
+      } else {
+        queue.add(task);
+        return false;
+      }
+    }
+
+    public void unlock() {
+      Task next = null;
+
+      synchronized (this) {
+        taken = false;
+
+        if (!queue.isEmpty()) {
+          next = queue.remove(0);
+        }
+      }
+
+      if (next != null) {
+        next.enqueue();
+      }
+    }
+  }
+
+  /**
+   * A task is runnable when it is committed and when all the tasks it is blocking on are done.
+   * The {@code pending} counter starts at 1 for the commit, and is incremented for each task
+   * blocking on it. The thread which brings it to 0 enqueues the task.
+   */
+  private abstract static class Task {
+    @CheckForNull
+    private final Task  blocking;
+    @Nonnull
+    protected final Pool pool;
+
+    @Nonnull
+    private final AtomicInteger pending = new AtomicInteger(1);
+
+    public Task(@Nonnull Pool pool) {
+      this.pool = pool;
+      blocking = null;
+    }
+
+    public Task(@Nonnull Pool pool, @Nonnull Task blocking) {
+      this.pool     = pool;
+      this.blocking = blocking;
+
+      int value = blocking.pending.incrementAndGet();
+      assert value > 1 : "pending = " + value;
+    }
+
+    public void commit() {
+      int value = pending.decrementAndGet();
+      assert value >= 0 : "pending = " + value;
+
+      if (value == 0) {
+        enqueue();
+      }
+    }
+
+    public void prepare() {
+      boolean done = pending.compareAndSet(0, 1);
+      assert done : "pending = " + pending.get();
+    }
+
+    public void notifyEnd() {
+      if (blocking != null) {
+        int value = blocking.pending.decrementAndGet();
+        assert value >= 0 : "pending = " + value;
+
+        if (value == 0) {
+          blocking.enqueue();
+        }
+      }
+    }
+
+    protected void enqueue() {
+      assert assertProcessable();
+
+      pool.submit(this);
+    }
+
+    public boolean assertProcessable() {
+      assert pending.get() == 0 : "pending = " + pending.get();
+
+      return true;
+    }
+
+    abstract void process();
+  }
+
+  private static class ShutdownTask extends Task {
+    public ShutdownTask(@Nonnull Pool pool) {
+      super(pool);
+    }
+
+    @SuppressWarnings("unused")
+    public void throwPending() throws ProcessException, AssertionError {
+    }
+
+    public boolean isRegular() {
+      return true;
+    }
+
+    @Override
+    protected void enqueue() {
+      pool.terminate(this);
+    }
+
+    @Override
+    public void process() {
+      throw new AssertionError();
+    }
+
+    @Override
+    @Nonnull
+    public String toString() {
+      return "a shutdown task";
+    }
+  }
+
+  private static class ProcessExceptionTask extends ShutdownTask {
+    @Nonnull
+    private final ProcessException exception;
+
+    public ProcessExceptionTask(@Nonnull Pool pool, @Nonnull ProcessException exception) {
+      super(pool);
+
+      this.exception = exception;
+    }
+
+    @Override
+    public void throwPending() throws ProcessException {
+      throw exception;
+    }
+
+    @Override
+    public boolean isRegular() {
+      return false;
+    }
+
+    @Override
+    @Nonnull
+    public String toString() {
+      return "an exception task (" + exception.getClass().getCanonicalName() + ": "
+          + exception.getMessage();
+    }
+  }
+
+  private static class AssertionErrorTask extends ShutdownTask {
+    @Nonnull
+    private final AssertionError error;
+
+    public AssertionErrorTask(@Nonnull Pool pool, @Nonnull AssertionError error) {
+      super(pool);
+
+      this.error = error;
+    }
+
+    @Override
+    public void throwPending() throws AssertionError {
+      throw error;
+    }
+
+    @Override
+    public boolean isRegular() {
+      return false;
+    }
+
+    @Override
+    @Nonnull
+    public String toString() {
+      return "an error task (" + error.getClass().getCanonicalName() + ": "
+          + error.getMessage();
+    }
+  }
+
+  private static class SequentialTask<U extends Component> extends Task {
+    @Nonnull
+    private static final Logger logger = LoggerFactory.getLogger();
+
+    @Nonnull
+    private final U component;
+    private int next = 0;
+    @Nonnull
+    private final WorkStealingScheduleInstance<U> schedule;
+    @Nonnull
+    private final ComponentFilterSet currentFilters;
+
+    public SequentialTask(@Nonnull Pool pool,
+        @Nonnull WorkStealingScheduleInstance<U> schedule, @Nonnull U component,
+        @Nonnull ComponentFilterSet parentFilters, @Nonnull Task blocking) {
+      super(pool, blocking);
+
+      this.component = component;
+      this.schedule = schedule;
+      this.currentFilters = schedule.applyFilters(parentFilters, component);
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    @Override
+    public void process() {
+      while (true) {
+        if (next < schedule.steps.length) {
+          ScheduleInstance<U>.SchedStep<U> step = schedule.steps[next];
+          Synchronized sync = schedule.syncs[next];
+          Schedulable instance = step.getInstance();
+
+          if (step.isSkippable(currentFilters)) {
+            if (logger.isLoggable(Level.FINER)) {
+              logger.log(Level.FINER,
+                  "Skipping {0} ''{1}'' on ''{2}'' because requiring {3} but having {4}",
+                  new Object[] {
+                      (step instanceof ScheduleInstance.RunnableSchedStep) ? "runner" : "adapter",
+                      step.getName(),
+                      component,
+                      step.getRequiredFilters(),
+                      currentFilters});
+            }
+
+            next++;
+            continue;
+          }
+
+          if (sync != null && !sync.tryLock(this)) {
+            break;
+          }
+
+          next++;
+          try {
+            if (instance instanceof AdapterSchedulable) {
+              Iterator<U> dataIter =
+                  schedule.adaptWithLog((AdapterSchedulable) instance, component);
+              if (dataIter.hasNext()) {
+                WorkStealingScheduleInstance<?> subSchedInstance =
+                    (WorkStealingScheduleInstance<?>) ((ScheduleInstance.AdapterSchedStep) step)
+                        .getSubSchedInstance();
+                assert subSchedInstance != null;
+
+                prepare();
+                do {
+                  new SequentialTask(pool, subSchedInstance, dataIter.next(), currentFilters, this)
+                      .commit();
+                } while (dataIter.hasNext());
+                commit();
+                break;
+              }
+
+              // No data, next in SequentialTask.
+            } else if (instance instanceof RunnableSchedulable) {
+              schedule.runWithLog((RunnableSchedulable) instance, component);
+            } else if (instance instanceof VisitorSchedulable) {
+              schedule.visitWithLog((VisitorSchedulable) instance, component);
+            } else {
+              throw new AssertionError();
+            }
+          } catch (ProcessException e) {
+            new ProcessExceptionTask(pool, e).commit();
+            break;
+          } finally {
+            if (sync != null) {
+              sync.unlock();
+            }
+          }
+        } else {
+          notifyEnd();
+          break;
+        }
+      }
+    }
+
+    @Override
+    @Nonnull
+    public String toString() {
+      return "a sequential task running " + Items.getName(
+          schedule.steps[next - 1].getInstance().getClass()) + " on '" + component.toString() + "'";
+    }
+  }
+
+  @Override
+  public <X extends VisitorSchedulable<T>, U extends Component> void process(@Nonnull T data)
+      throws ProcessException {
+    int threadPoolSize = getThreadPoolSize();
+    Pool pool = new Pool(threadPoolSize);
+
+    // Initialize the pool with the initial plan, and block a shutdown Task on it
+    ShutdownTask shutdown = new ShutdownTask(pool);
+    ComponentFilterSet filters = scheduler.createComponentFilterSet();
+    filters.add(NoFilter.class);
+    new SequentialTask<T>(pool, this, data, filters, shutdown).commit();
+    shutdown.commit();
+
+    // Create threads
+    String name = ThreadConfig.getConfig().getName() + "-worker-";
+    long stackSize = ThreadConfig.get(ScheduleInstance.DEFAULT_STACK_SIZE).longValue();
+    List<Worker> activeWorkers = new ArrayList<Worker>(threadPoolSize);
+    for (int i = 0; i < threadPoolSize; i++) {
+      pool.workers[i] = new Worker(name + i, pool, i, stackSize);
+    }
+    for (Worker worker : pool.workers) {
+      worker.start();
+      activeWorkers.add(worker);
+    }
+
+    List<Detector> detectors;
+    {
+      List<ReflectFactory<Detector>> factories = ThreadConfig.get(Detector.DETECTORS);
+      detectors = new ArrayList<Detector>(factories.size());
+      for (ReflectFactory<Detector> factory : factories) {
+        detectors.add(factory.create(Integer.valueOf(activeWorkers.size())));
+      }
+    }
+
+    // Wait for threads termination
+    boolean shutdownInProgress = false;
+    while (activeWorkers.size() > 0) {
+      Thread thread = activeWorkers.get(0);
+
+      try {
+        thread.join(checkEvery);
+      } catch (InterruptedException e) {
+        // Nothing to do
+      }
+      if (!thread.isAlive()) {
+        activeWorkers.remove(0);
+      }
+
+      for (Detector detector : detectors) {
+        if (!detector.check(activeWorkers) && !shutdownInProgress) {
+          // If there is a blocked thread detected, shutdown all tasks
+          shutdownInProgress = true;
+          new AssertionErrorTask(pool, new AssertionError()).commit();
+        }
+      }
+    }
+
+    // Process the termination
+    ShutdownTask pending = pool.getShutdown();
+    assert pending != null;
+    pending.throwPending();
+  }
+}
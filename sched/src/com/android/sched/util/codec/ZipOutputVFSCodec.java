@@ -27,9 +27,8 @@ import com.android.sched.util.file.OutputZipFile;
 import com.android.sched.util.file.OutputZipFile.Compression;
 import com.android.sched.util.file.WrongPermissionException;
 import com.android.sched.util.log.LoggerFactory;
-import com.android.sched.vfs.GenericOutputVFS;
 import com.android.sched.vfs.OutputVFS;
-import com.android.sched.vfs.WriteZipFS;
+import com.android.sched.vfs.ZipOutputVFS;
 
 import java.util.logging.Logger;
 
@@ -70,10 +69,8 @@ public class ZipOutputVFSCodec extends OutputVFSCodec {
       @Nonnull final String string) throws ParsingException {
     RunnableHooks hooks = context.getRunnableHooks();
     try {
-      WriteZipFS vfs = new WriteZipFS(new OutputZipFile(context.getWorkingDirectory(), string,
-          hooks, existence, change, Compression.COMPRESSED));
-      vfs.setInfoString(infoString);
-      return new GenericOutputVFS(vfs);
+      return new ZipOutputVFS(new OutputZipFile(context.getWorkingDirectory(), string, hooks,
+          existence, change, Compression.COMPRESSED), infoString);
     } catch (CannotCreateFileException | NotFileException | WrongPermissionException
         | CannotChangePermissionException | NoSuchFileException | FileAlreadyExistsException e) {
       throw new ParsingException(e.getMessage(), e);
@@ -19,14 +19,20 @@ package com.android.sched.util.file;
 import com.android.sched.util.ConcurrentIOException;
 import com.android.sched.util.RunnableHooks;
 import com.android.sched.util.location.FileLocation;
+import com.android.sched.util.log.LoggerFactory;
 import com.android.sched.util.stream.QueryableStream;
 
 import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
@@ -46,6 +52,9 @@ public class OutputZipFile extends OutputStreamFile {
     COMPRESSED, UNCOMPRESSED
   }
 
+  @Nonnull
+  private static final Logger logger = LoggerFactory.getLogger();
+
   @Nonnull
   private final Compression compression;
 
@@ -95,25 +104,91 @@ public class OutputZipFile extends OutputStreamFile {
     this.compression = compression;
   }
 
+  /**
+   * Returns a stream writing the zip file. When the zip file already has content, the archive is
+   * written to another file, which replaces the zip file when the stream is closed, so that
+   * readers which have mapped the previous zip file are not affected.
+   */
   @Override
   @Nonnull
   public synchronized ZipOutputStream getOutputStream() {
     assert file != null;
 
-    wasUsed = true;
     if (stream == null) {
-      clearRemover();
       try {
-        stream = new CustomZipOutputStream(new BufferedOutputStream(new FileOutputStream(file)),
-            compression);
-      } catch (FileNotFoundException e) {
+        if (file.length() > 0) {
+          File updateFile = createUpdateFile();
+          stream = new CustomZipOutputStream(
+              new BufferedOutputStream(new FileOutputStream(updateFile)), compression, updateFile);
+        } else {
+          clearRemover();
+          stream = new CustomZipOutputStream(
+              new BufferedOutputStream(new FileOutputStream(file)), compression, null);
+        }
+      } catch (IOException e) {
         throw new ConcurrentIOException(e);
       }
     }
+    wasUsed = true;
 
     return (ZipOutputStream) stream;
   }
 
+  /**
+   * Returns a channel to update the zip file in place, instead of writing it with
+   * {@link #getOutputStream()}.
+   */
+  @Nonnull
+  public synchronized FileChannel getUpdateChannel() throws IOException {
+    assert file != null;
+    assert stream == null;
+
+    clearRemover();
+    return new RandomAccessFile(file, "rw").getChannel();
+  }
+
+  /**
+   * Returns a new file next to the zip file, where an updated archive can be written instead of
+   * writing the zip file with {@link #getOutputStream()}. The updated archive then replaces the
+   * zip file with {@link #replaceWith(File)}, so that the previous content of the zip file is
+   * never modified.
+   */
+  @Nonnull
+  public synchronized File createUpdateFile() throws IOException {
+    assert file != null;
+    assert stream == null;
+
+    clearRemover();
+    return File.createTempFile(file.getName() + "-", ".tmp",
+        file.getAbsoluteFile().getParentFile());
+  }
+
+  /**
+   * Replaces the zip file with an updated archive returned by {@link #createUpdateFile()}.
+   */
+  public synchronized void replaceWith(@Nonnull File updateFile) throws IOException {
+    assert file != null;
+
+    Files.move(updateFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Sets the modification time of the zip file to now, when its content is kept as is.
+   */
+  public synchronized void touch() throws IOException {
+    assert file != null;
+
+    if (!file.setLastModified(System.currentTimeMillis())) {
+      throw new IOException("Cannot set the modification time of '" + file.getPath() + "'");
+    }
+  }
+
+  @Nonnull
+  public Compression getCompression() {
+    return compression;
+  }
+
   @Nonnull
   public String getName() {
     assert file != null;
@@ -122,15 +197,20 @@ public class OutputZipFile extends OutputStreamFile {
 
   /**
    * A {@link ZipOutputStream} that is not directly closed to avoid getting a {@link ZipException}
-   * when the zip has no entry (with a JRE 6) and implements {@link QueryableStream}.
+   * when the zip has no entry (with a JRE 6) and implements {@link QueryableStream}. The update
+   * file written, if any, replaces the zip file when closed.
    */
-  private static class CustomZipOutputStream extends ZipOutputStream implements QueryableStream {
+  private class CustomZipOutputStream extends ZipOutputStream implements QueryableStream {
 
+    @CheckForNull
+    private final File updateFile;
     private boolean hasEntries = false;
     private boolean isClosed = false;
 
-    public CustomZipOutputStream(@Nonnull OutputStream out, @Nonnull Compression compression) {
+    public CustomZipOutputStream(@Nonnull OutputStream out, @Nonnull Compression compression,
+        @CheckForNull File updateFile) {
       super(out);
+      this.updateFile = updateFile;
       switch (compression) {
         case COMPRESSED:
           setMethod(ZipOutputStream.DEFLATED);
@@ -152,12 +232,35 @@ public class OutputZipFile extends OutputStreamFile {
 
     @Override
     public synchronized void close() throws IOException {
+      if (isClosed) {
+        return;
+      }
+      isClosed = true;
+
+      if (updateFile == null) {
+        closeStream();
+        return;
+      }
+
+      boolean replaced = false;
+      try {
+        closeStream();
+        replaceWith(updateFile);
+        replaced = true;
+      } finally {
+        // Leave the zip file as it was
+        if (!replaced && !updateFile.delete()) {
+          logger.log(Level.WARNING, "Cannot delete ''{0}''", updateFile.getPath());
+        }
+      }
+    }
+
+    private void closeStream() throws IOException {
       if (hasEntries) {
         super.close();
       } else {
         out.close();
       }
-      isClosed = true;
     }
 
     @Override
@@ -33,8 +33,12 @@ public class ZipLocation implements Location {
   private final String entryName;
 
   public ZipLocation(@Nonnull Location archive, @Nonnull ZipEntry entry) {
+    this(archive, entry.getName());
+  }
+
+  public ZipLocation(@Nonnull Location archive, @Nonnull String entryName) {
     this.archive = archive;
-    this.entryName = entry.getName();
+    this.entryName = entryName;
   }
 
   @Override
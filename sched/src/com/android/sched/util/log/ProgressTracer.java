@@ -0,0 +1,400 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.util.log;
+
+import com.android.sched.util.codec.ImplementationName;
+import com.android.sched.util.codec.WriterFileCodec;
+import com.android.sched.util.config.Config;
+import com.android.sched.util.config.ConfigurationError;
+import com.android.sched.util.config.HasKeyId;
+import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.config.id.ImplementationPropertyId;
+import com.android.sched.util.config.id.IntegerPropertyId;
+import com.android.sched.util.config.id.WriterFilePropertyId;
+import com.android.sched.util.file.FileOrDirectory.Existence;
+import com.android.sched.util.location.FileOrDirLocation;
+import com.android.sched.util.location.Location;
+import com.android.sched.util.log.stats.Statistic;
+import com.android.sched.util.log.stats.StatisticId;
+import com.android.sched.util.log.tracer.TracerEventType;
+import com.android.sched.util.log.tracer.probe.Probe;
+import com.android.sched.util.log.tracer.watcher.ObjectWatcher;
+
+import java.io.PrintWriter;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Tracer implementation which reports, while running, the phases being entered and left, and the
+ * output files being completed.
+ *
+ * <p>Only events of a known {@link EventType} opened at a low nesting level are reported, as
+ * phases. The nesting level is carried to other threads with the {@link ThreadTracerState}, and
+ * events of threads not started that way, such as the threads of the Java compiler, are not
+ * reported. The same phase running concurrently on several threads is reported once, from the
+ * first opening to the last closing. Each report is a line starting with {@link #LINE_PREFIX}:
+ * <pre>
+ * sched-progress|start|&lt;phase&gt;
+ * sched-progress|end|&lt;phase&gt;|&lt;elapsed ms&gt;
+ * sched-progress|output|&lt;file path&gt;
+ * </pre>
+ *
+ * <p>Events are also given to the tracer defined by {@link #TRACER}, so that reporting progress
+ * does not prevent collecting statistics.
+ */
+@ImplementationName(iface = Tracer.class, name = "progress",
+    description = "report phases and completed output files while running")
+@HasKeyId
+public final class ProgressTracer implements Tracer {
+  @Nonnull
+  public static final WriterFilePropertyId STREAM = WriterFilePropertyId
+      .create("sched.tracer.progress.file", "The file where to report progress",
+          new WriterFileCodec(Existence.MAY_EXIST).allowStandardOutputOrError().allowCharset())
+      .addDefaultValue("--").withAutoClose()
+      .requiredIf(TracerFactory.TRACER.getClazz().isSubClassOf(ProgressTracer.class));
+
+  @Nonnull
+  public static final IntegerPropertyId DEPTH = IntegerPropertyId
+      .create("sched.tracer.progress.depth",
+          "Nesting level of events under which they are reported as phases")
+      .withMin(1).addDefaultValue(3)
+      .requiredIf(TracerFactory.TRACER.getClazz().isSubClassOf(ProgressTracer.class));
+
+  @Nonnull
+  public static final ImplementationPropertyId<Tracer> TRACER = ImplementationPropertyId
+      .create("sched.tracer.progress.tracer",
+          "Define which tracer receives the events in addition to the progress tracer",
+          Tracer.class)
+      .addDefaultValue("none")
+      .requiredIf(TracerFactory.TRACER.getClazz().isSubClassOf(ProgressTracer.class));
+
+  @Nonnull
+  public static final String LINE_PREFIX = "sched-progress|";
+
+  @Nonnull
+  private static final String NAME = "progress";
+
+  @Nonnull
+  private final Config config;
+
+  @Nonnull
+  private final PrintWriter writer;
+
+  @Nonnull
+  private final Tracer tracer;
+
+  @Nonnegative
+  private final int maxDepth;
+
+  /** Running phases, with the number of threads running them. Guarded by {@link #writer} */
+  @Nonnull
+  private final Map<EventType, Phase> phases = new HashMap<EventType, Phase>();
+
+  @Nonnull
+  private final ThreadLocal<Depth> depth = new ThreadLocal<Depth>();
+
+  /**
+   * Nesting level of the events of a thread.
+   */
+  private static class Depth {
+    @Nonnegative
+    private int value;
+
+    /** Depth to restore when the thread state is popped */
+    @CheckForNull
+    private final Depth previous;
+
+    Depth(@Nonnegative int value, @CheckForNull Depth previous) {
+      this.value = value;
+      this.previous = previous;
+    }
+  }
+
+  private static class Phase {
+    private final long start = System.currentTimeMillis();
+    @Nonnegative
+    private int count = 0;
+  }
+
+  /**
+   * Event of the delegate tracer, with the phase it reports if any.
+   */
+  private static class ProgressEvent implements Event {
+    @Nonnull
+    private final ProgressTracer tracer;
+
+    @Nonnull
+    private final Event event;
+
+    /** Depth incremented by this event, null if the thread is not traced */
+    @CheckForNull
+    private final Depth depth;
+
+    /** Phase reported by this event, null if it is not reported */
+    @CheckForNull
+    private final EventType phase;
+
+    ProgressEvent(@Nonnull ProgressTracer tracer, @Nonnull Event event, @CheckForNull Depth depth,
+        @CheckForNull EventType phase) {
+      this.tracer = tracer;
+      this.event = event;
+      this.depth = depth;
+      this.phase = phase;
+    }
+
+    @Override
+    @Nonnegative
+    public long getElapsedValue(@Nonnull Probe probe) {
+      return event.getElapsedValue(probe);
+    }
+
+    @Override
+    @Nonnegative
+    public long getStartValue(@Nonnull Probe probe) {
+      return event.getStartValue(probe);
+    }
+
+    @Override
+    @Nonnull
+    public EventType getType() {
+      return event.getType();
+    }
+
+    @Override
+    @Nonnull
+    public String toString() {
+      return event.toString();
+    }
+
+    @Override
+    @Nonnull
+    public Collection<Event> getChildren() {
+      return event.getChildren();
+    }
+
+    @Override
+    public void adjustElapsedValue(@Nonnull Probe probe, long elapsedValue) {
+      event.adjustElapsedValue(probe, elapsedValue);
+    }
+
+    @Override
+    @Nonnull
+    public Collection<Statistic> getStatistics() {
+      return event.getStatistics();
+    }
+
+    @Override
+    @Nonnull
+    public <T extends Statistic> T getStatistic(@Nonnull StatisticId<T> id) {
+      return event.getStatistic(id);
+    }
+
+    @Override
+    public void close() {
+      event.close();
+      tracer.close(this);
+    }
+  }
+
+  public ProgressTracer() {
+    config = ThreadConfig.getConfig();
+    if (config.getAsString(TRACER).equals(NAME)) {
+      throw new ConfigurationError(
+          "Property '" + TRACER.getName() + "' cannot be '" + NAME + "'");
+    }
+    tracer = ThreadConfig.get(TRACER);
+    writer = ThreadConfig.get(STREAM).getPrintWriter();
+    maxDepth = ThreadConfig.get(DEPTH).intValue();
+    depth.set(new Depth(0, null));
+  }
+
+  @Override
+  @Nonnull
+  public Event open(@Nonnull EventType type) {
+    assert config == ThreadConfig.getConfig();
+
+    Event event = tracer.open(type);
+    Depth current = depth.get();
+    if (current == null) {
+      return new ProgressEvent(this, event, null, null);
+    }
+    if (current.value++ >= maxDepth || type == TracerEventType.NOTYPE) {
+      return new ProgressEvent(this, event, current, null);
+    }
+
+    synchronized (writer) {
+      Phase phase = phases.get(type);
+      if (phase == null) {
+        phase = new Phase();
+        phases.put(type, phase);
+        report("start|" + type.getName());
+      }
+      phase.count++;
+    }
+
+    return new ProgressEvent(this, event, current, type);
+  }
+
+  @Override
+  @Nonnull
+  public Event open(@Nonnull String name) {
+    assert config == ThreadConfig.getConfig();
+
+    Event event = tracer.open(name);
+    Depth current = depth.get();
+    if (current != null) {
+      current.value++;
+    }
+    return new ProgressEvent(this, event, current, null);
+  }
+
+  private void close(@Nonnull ProgressEvent event) {
+    if (event.depth != null) {
+      event.depth.value--;
+    }
+
+    EventType type = event.phase;
+    if (type != null) {
+      synchronized (writer) {
+        Phase phase = phases.get(type);
+        assert phase != null;
+        if (--phase.count == 0) {
+          phases.remove(type);
+          report("end|" + type.getName() + '|' + (System.currentTimeMillis() - phase.start));
+        }
+      }
+    }
+  }
+
+  /**
+   * Reports an output file as complete, so that it can be consumed before the end of the run.
+   * Only files of the file system are reported.
+   */
+  public void notifyOutput(@Nonnull Location location) {
+    if (location instanceof FileOrDirLocation) {
+      synchronized (writer) {
+        report("output|" + ((FileOrDirLocation) location).getPath());
+      }
+    }
+  }
+
+  private void report(@Nonnull String line) {
+    assert Thread.holdsLock(writer);
+
+    writer.println(LINE_PREFIX + line);
+    writer.flush();
+  }
+
+  private static class ThreadTracerStateImpl implements ThreadTracerState {
+    /** Depth of the thread, or -1 if the thread is not traced */
+    private final int depth;
+
+    @Nonnull
+    private final ThreadTracerState state;
+
+    private ThreadTracerStateImpl(int depth, @Nonnull ThreadTracerState state) {
+      this.depth = depth;
+      this.state = state;
+    }
+  }
+
+  @Override
+  @Nonnull
+  public ThreadTracerState getThreadState() {
+    assert config == ThreadConfig.getConfig();
+
+    Depth current = depth.get();
+    return new ThreadTracerStateImpl(current != null ? current.value : -1,
+        tracer.getThreadState());
+  }
+
+  @Override
+  public void pushThreadState(@Nonnull ThreadTracerState state) {
+    assert config == ThreadConfig.getConfig();
+
+    ThreadTracerStateImpl progressState = (ThreadTracerStateImpl) state;
+    tracer.pushThreadState(progressState.state);
+    if (progressState.depth >= 0) {
+      depth.set(new Depth(progressState.depth, depth.get()));
+    }
+  }
+
+  @Override
+  public void popThreadState(@Nonnull ThreadTracerState state) {
+    assert config == ThreadConfig.getConfig();
+
+    ThreadTracerStateImpl progressState = (ThreadTracerStateImpl) state;
+    if (progressState.depth >= 0) {
+      Depth current = depth.get();
+      assert current != null;
+      depth.set(current.previous);
+    }
+    tracer.popThreadState(progressState.state);
+  }
+
+  @Override
+  public boolean isTracing() {
+    assert config == ThreadConfig.getConfig();
+
+    return tracer.isTracing();
+  }
+
+  @Override
+  @Nonnull
+  public EventType getCurrentEventType() {
+    assert config == ThreadConfig.getConfig();
+
+    return tracer.getCurrentEventType();
+  }
+
+  @Override
+  @Nonnull
+  public <T extends Statistic> T getStatistic(@Nonnull StatisticId<T> id) {
+    assert config == ThreadConfig.getConfig();
+
+    return tracer.getStatistic(id);
+  }
+
+  @Override
+  @Nonnull
+  public EventType getDynamicEventType(@Nonnull String name) {
+    assert config == ThreadConfig.getConfig();
+
+    return tracer.getDynamicEventType(name);
+  }
+
+  @Override
+  public <T> void registerWatcher(@Nonnull Class<T> objectClass,
+      @Nonnull Class<? extends ObjectWatcher<? extends T>> watcherClass) {
+    assert config == ThreadConfig.getConfig();
+
+    tracer.registerWatcher(objectClass, watcherClass);
+  }
+
+  @Override
+  public void registerObject(@Nonnull Object object, @Nonnegative long size, int count,
+      @CheckForNull StackTraceElement site) {
+    assert config == ThreadConfig.getConfig();
+
+    tracer.registerObject(object, size, count, site);
+  }
+}
@@ -22,6 +22,7 @@ import com.android.sched.util.codec.ImplementationName;
 import com.android.sched.util.codec.WriterFileCodec;
 import com.android.sched.util.config.HasKeyId;
 import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.config.expression.BooleanExpression;
 import com.android.sched.util.config.id.ReflectFactoryPropertyId;
 import com.android.sched.util.config.id.WriterFilePropertyId;
 import com.android.sched.util.file.FileOrDirectory.Existence;
@@ -70,18 +71,24 @@ import javax.annotation.Nonnull;
     description = "collect statistics without event information")
 @HasKeyId
 public final class StatisticOnlyTracer implements Tracer {
+  /** Whether this tracer is used, directly or through the {@link ProgressTracer} */
+  @Nonnull
+  private static final BooleanExpression ENABLED = TracerFactory.TRACER.getClazz()
+      .isSubClassOf(StatisticOnlyTracer.class)
+      .or(TracerFactory.TRACER.getClazz().isSubClassOf(ProgressTracer.class)
+          .and(ProgressTracer.TRACER.getClazz().isSubClassOf(StatisticOnlyTracer.class)));
+
   @Nonnull
   private static final ReflectFactoryPropertyId<Printer> PRINTER = ReflectFactoryPropertyId
       .create("sched.tracer.format", "Define which format to use", Printer.class)
       .addArgType(PrintWriter.class).addDefaultValue("text")
-      .requiredIf(TracerFactory.TRACER.getClazz().isSubClassOf(StatisticOnlyTracer.class));
+      .requiredIf(ENABLED);
 
   @Nonnull
   public static final WriterFilePropertyId STREAM = WriterFilePropertyId
       .create("sched.tracer.file", "The file where to print statistics",
           new WriterFileCodec(Existence.MAY_EXIST).allowStandardOutputOrError().allowCharset())
-      .addDefaultValue("-").requiredIf(TracerFactory.TRACER.getClazz()
-          .isSubClassOf(StatisticOnlyTracer.class));
+      .addDefaultValue("-").requiredIf(ENABLED);
 
   @Nonnull
   private final Logger logger = LoggerFactory.getLogger();
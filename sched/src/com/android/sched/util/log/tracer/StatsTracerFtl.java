@@ -24,6 +24,7 @@ import com.android.sched.util.codec.ImplementationName;
 import com.android.sched.util.config.Config;
 import com.android.sched.util.config.HasKeyId;
 import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.config.expression.BooleanExpression;
 import com.android.sched.util.config.id.BooleanPropertyId;
 import com.android.sched.util.config.id.PropertyId;
 import com.android.sched.util.file.CannotChangePermissionException;
@@ -39,6 +40,7 @@ import com.android.sched.util.file.WrongPermissionException;
 import com.android.sched.util.log.Event;
 import com.android.sched.util.log.EventType;
 import com.android.sched.util.log.LoggerFactory;
+import com.android.sched.util.log.ProgressTracer;
 import com.android.sched.util.log.Tracer;
 import com.android.sched.util.log.TracerFactory;
 import com.android.sched.util.log.stats.Statistic;
@@ -87,18 +89,25 @@ import javax.annotation.Nonnull;
 @ImplementationName(iface = Tracer.class, name = "html")
 @HasKeyId
 public class StatsTracerFtl extends AbstractTracer {
+  /** Whether this tracer is used, directly or through the {@link ProgressTracer} */
+  @Nonnull
+  private static final BooleanExpression ENABLED = TracerFactory.TRACER.getClazz()
+      .isImplementedBy(StatsTracerFtl.class)
+      .or(TracerFactory.TRACER.getClazz().isSubClassOf(ProgressTracer.class)
+          .and(ProgressTracer.TRACER.getClazz().isImplementedBy(StatsTracerFtl.class)));
+
   @Nonnull
   public static final PropertyId<Directory> TRACER_DIR = PropertyId.create(
       "sched.tracer.dir", "Define in which directory the tracer generates files",
       new DirectoryCodec(Existence.MUST_EXIST, Permission.READ | Permission.WRITE))
-      .requiredIf(TracerFactory.TRACER.getClazz().isImplementedBy(StatsTracerFtl.class));
+      .requiredIf(ENABLED);
 
   @Nonnull
   public static final BooleanPropertyId TRACER_DIR_WITH_CONFIG =
       BooleanPropertyId
           .create("sched.tracer.dir.add-config-name",
               "Generate tracer files in an additional sub-directory named after the configuration")
-          .requiredIf(TracerFactory.TRACER.getClazz().isImplementedBy(StatsTracerFtl.class))
+          .requiredIf(ENABLED)
           .addDefaultValue(Boolean.FALSE);
 
   @Nonnull
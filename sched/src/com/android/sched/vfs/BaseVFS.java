@@ -35,6 +35,7 @@ import com.android.sched.util.stream.LocationByteStreamSucker;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.attribute.FileTime;
 import java.util.Collection;
 
@@ -69,6 +70,11 @@ abstract class BaseVFS<DIR extends BaseVDir, FILE extends BaseVFile> implements
   abstract OutputStream openWrite(@Nonnull FILE file, boolean append)
       throws WrongPermissionException;
 
+  @CheckForNull
+  ByteBuffer getByteBuffer(@Nonnull FILE file) throws WrongPermissionException {
+    return null;
+  }
+
   //
   // VElement related
   //
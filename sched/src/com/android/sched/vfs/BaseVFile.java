@@ -26,6 +26,7 @@ import com.android.sched.util.location.Location;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.attribute.FileTime;
 
 import javax.annotation.CheckForNull;
@@ -46,6 +47,12 @@ abstract class BaseVFile extends BaseVElement implements VFile {
     return vfs.openRead(this);
   }
 
+  @Override
+  @CheckForNull
+  public ByteBuffer getByteBuffer() throws WrongPermissionException {
+    return vfs.getByteBuffer(this);
+  }
+
   @Override
   public boolean isVDir() {
     return false;
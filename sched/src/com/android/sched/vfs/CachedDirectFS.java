@@ -47,6 +47,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.attribute.FileTime;
 import java.util.Collection;
@@ -278,6 +279,17 @@ public class CachedDirectFS extends BaseVFS<CachedParentVDir, CachedParentVFile>
     }
   }
 
+  @Override
+  @CheckForNull
+  ByteBuffer getByteBuffer(@Nonnull CachedParentVFile file) throws WrongPermissionException {
+    assert !isClosed();
+    assert capabilities.contains(Capabilities.READ);
+
+    VFSStatCategory.DIR_READ.getCounterStat(getTracer(), infoString).incValue();
+
+    return DirectFS.getNativeContent(getNativeFile(file.getPath()), file.getLocation());
+  }
+
   @Nonnull
   @Override
   OutputStream openWrite(@Nonnull CachedParentVFile file) throws WrongPermissionException {
@@ -43,6 +43,7 @@ import java.io.InputStreamReader;
 import java.io.LineNumberReader;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
 import java.nio.file.attribute.FileTime;
 import java.util.Collection;
 import java.util.Collections;
@@ -392,6 +393,14 @@ public class CaseInsensitiveFS extends BaseVFS<CaseInsensitiveVDir, CaseInsensit
     return file.getEncodedFile().getInputStream();
   }
 
+  @Override
+  @CheckForNull
+  ByteBuffer getByteBuffer(@Nonnull CaseInsensitiveVFile file) throws WrongPermissionException {
+    assert !isClosed();
+
+    return file.getEncodedFile().getByteBuffer();
+  }
+
   @Override
   @Nonnull
   OutputStream openWrite(@Nonnull CaseInsensitiveVFile file) throws WrongPermissionException {
@@ -41,6 +41,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
@@ -56,6 +59,8 @@ import javax.annotation.Nonnull;
  * A {@link VFS} implementation backed by a real file system.
  */
 public class DirectFS extends BaseVFS<ParentVDir, ParentVFile> implements VFS {
+  /** Size under which a file is read rather than memory-mapped, mapping it would cost more */
+  private static final long MIN_MAPPED_SIZE = 64 * 1024;
 
   @Nonnull
   private final Directory  dir;
@@ -133,6 +138,51 @@ public class DirectFS extends BaseVFS<ParentVDir, ParentVFile> implements VFS {
     }
   }
 
+  @Override
+  @CheckForNull
+  ByteBuffer getByteBuffer(@Nonnull ParentVFile file) throws WrongPermissionException {
+    assert !isClosed();
+    assert capabilities.contains(Capabilities.READ);
+
+    VFSStatCategory.DIR_READ.getCounterStat(getTracer(), infoString).incValue();
+
+    return getNativeContent(getNativeFile(file.getPath()), file.getLocation());
+  }
+
+  /**
+   * Returns the content of a native file, memory-mapped unless it is small.
+   *
+   * @return the content, or null if it could not be read and must be streamed
+   */
+  @CheckForNull
+  static ByteBuffer getNativeContent(@Nonnull File path, @Nonnull Location location)
+      throws WrongPermissionException {
+    try (RandomAccessFile raf = new RandomAccessFile(path, "r")) {
+      FileChannel channel = raf.getChannel();
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        return null;
+      }
+      if (size >= MIN_MAPPED_SIZE) {
+        // The mapping remains valid once the channel is closed
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
+
+      ByteBuffer content = ByteBuffer.allocate((int) size);
+      while (content.hasRemaining() && channel.read(content) != -1) {
+        // Read until the end of the file
+      }
+      content.flip();
+      return content.asReadOnlyBuffer();
+    } catch (FileNotFoundException e) {
+      FileOrDirectory.checkPermissions(path, location, Permission.READ);
+      throw new ConcurrentIOException(e);
+    } catch (IOException e) {
+      // The stream will report the error
+      return null;
+    }
+  }
+
   @Nonnull
   @Override
   OutputStream openWrite(@Nonnull ParentVFile file) throws WrongPermissionException {
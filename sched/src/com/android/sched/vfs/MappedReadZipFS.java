@@ -0,0 +1,914 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.vfs;
+
+import com.android.sched.util.config.ConfigurationError;
+import com.android.sched.util.file.CannotCloseException;
+import com.android.sched.util.file.CannotCreateFileException;
+import com.android.sched.util.file.CannotDeleteFileException;
+import com.android.sched.util.file.CannotGetModificationTimeException;
+import com.android.sched.util.file.InputFile;
+import com.android.sched.util.file.NoSuchFileException;
+import com.android.sched.util.file.NotDirectoryException;
+import com.android.sched.util.file.NotFileException;
+import com.android.sched.util.file.ZipException;
+import com.android.sched.util.location.Location;
+import com.android.sched.util.location.ZipLocation;
+import com.android.sched.util.log.LoggerFactory;
+import com.android.sched.util.log.Tracer;
+import com.android.sched.util.log.TracerFactory;
+import com.android.sched.util.stream.ByteBufferInputStream;
+import com.android.sched.vfs.MappedReadZipFS.MappedZipVDir;
+import com.android.sched.vfs.MappedReadZipFS.MappedZipVFile;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link VFS} implementation backed by a memory-mapped zip archive that only supports reading.
+ *
+ * <p>Unlike {@link ReadZipFS}, no {@link java.util.zip.ZipFile} nor {@link ZipEntry} is created:
+ * the central directory is read directly from the mapping and each file only records the offset of
+ * its central directory header. {@link ZipEntry#STORED} entries are served as slices of the
+ * mapping, without any copy.
+ *
+ * <p>The central directory headers are indexed by entry name when the archive is opened, and the
+ * elements of a directory are only created from this index when the directory is first accessed.
+ *
+ * <p>The archive is reference counted, so that it can be shared by several users: it is opened
+ * with one reference, {@link #retain()} takes another one, and {@link #close()} releases one. The
+ * mapping is unmapped when the last reference is released.
+ *
+ * <p>Zip64 archives, archives larger than 2GB, encrypted entries and compression methods other than
+ * {@link ZipEntry#STORED} and {@link ZipEntry#DEFLATED} are not supported, a {@link ZipException}
+ * is thrown at creation so that the caller can fall back to {@link ReadZipFS}. Headers are also
+ * checked at creation, so that a corrupt archive is reported by a {@link ZipException} rather than
+ * when an entry is read.
+ */
+public class MappedReadZipFS extends BaseVFS<MappedZipVDir, MappedZipVFile> implements VFS {
+
+  static class MappedZipVDir extends BaseVDir {
+    // 'vfs' may be changed by wrappers, keep the archive the index range belongs to
+    @Nonnull
+    private final MappedReadZipFS zipFS;
+    @Nonnull
+    private final String entryName;
+    // Range of the index holding the files below this directory
+    @Nonnegative
+    private final int start;
+    @Nonnegative
+    private final int end;
+    // Created from the index on first access
+    @CheckForNull
+    private Map<String, BaseVElement> elements;
+
+    MappedZipVDir(@Nonnull MappedReadZipFS vfs, @Nonnull String entryName,
+        @Nonnull String name, @Nonnegative int start, @Nonnegative int end) {
+      super(vfs, name);
+      this.zipFS = vfs;
+      this.entryName = entryName;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Nonnull
+    synchronized Map<String, BaseVElement> getElements() {
+      if (elements == null) {
+        elements = zipFS.loadElements(this);
+      }
+
+      return elements;
+    }
+
+    @Nonnull
+    public String getEntryName() {
+      return entryName;
+    }
+
+    @Override
+    @Nonnull
+    public VPath getPath() {
+      return new VPath(entryName, '/');
+    }
+
+    @Override
+    @Nonnull
+    public BaseVFile getVFile(@Nonnull String name) throws NoSuchFileException,
+        NotFileException {
+      return vfs.getVFile(this, name);
+    }
+
+    @Override
+    @Nonnull
+    public BaseVDir getVDir(@Nonnull String name) throws NotDirectoryException,
+        NoSuchFileException {
+      return vfs.getVDir(this, name);
+    }
+
+    @Override
+    @Nonnull
+    public BaseVFile createVFile(@Nonnull String name) throws CannotCreateFileException {
+      return vfs.createVFile(this, name);
+    }
+
+    @Override
+    @Nonnull
+    public BaseVDir createVDir(@Nonnull String name) throws CannotCreateFileException {
+      return vfs.createVDir(this, name);
+    }
+
+    @Override
+    @Nonnull
+    public Collection<? extends BaseVElement> list() {
+      return vfs.list(this);
+    }
+  }
+
+  static class MappedZipVFile extends BaseVFile {
+    // 'vfs' may be changed by wrappers, keep the archive the header offset belongs to
+    @Nonnull
+    private final MappedReadZipFS zipFS;
+    @Nonnegative
+    private final int headerOffset;
+    // Offset of the data, computed from the local header on first access, -1 until then
+    private int dataOffset = -1;
+
+    MappedZipVFile(@Nonnull MappedReadZipFS vfs, @Nonnegative int headerOffset,
+        @Nonnull String name) {
+      super(vfs, name);
+      this.zipFS = vfs;
+      this.headerOffset = headerOffset;
+    }
+
+    @Nonnull
+    public String getEntryName() {
+      return zipFS.getEntryName(headerOffset);
+    }
+
+    @Override
+    @Nonnull
+    public VPath getPath() {
+      return new VPath(getEntryName(), '/');
+    }
+  }
+
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  private static final int LOCAL_HEADER_SIZE = 30;
+  private static final int LOCAL_HEADER_NAME_LENGTH = 26;
+  private static final int LOCAL_HEADER_EXTRA_LENGTH = 28;
+
+  private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+  private static final int CENTRAL_HEADER_SIZE = 46;
+  private static final int CENTRAL_HEADER_FLAGS = 8;
+  private static final int CENTRAL_HEADER_METHOD = 10;
+  private static final int CENTRAL_HEADER_COMPRESSED_SIZE = 20;
+  private static final int CENTRAL_HEADER_SIZE_OFFSET = 24;
+  private static final int CENTRAL_HEADER_NAME_LENGTH = 28;
+  private static final int CENTRAL_HEADER_EXTRA_LENGTH = 30;
+  private static final int CENTRAL_HEADER_COMMENT_LENGTH = 32;
+  private static final int CENTRAL_HEADER_LOCAL_OFFSET = 42;
+
+  private static final int END_SIGNATURE = 0x06054b50;
+  private static final int END_SIZE = 22;
+  private static final int END_ENTRY_COUNT = 10;
+  private static final int END_CENTRAL_SIZE = 12;
+  private static final int END_CENTRAL_OFFSET = 16;
+  private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+  private static final int ENCRYPTED_FLAG = 1;
+  private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+  private static final long ZIP64_MAGIC_VALUE = 0xFFFFFFFFL;
+
+  @Nonnull
+  private static final Set<Capabilities> CAPABILITIES = Collections.unmodifiableSet(
+      EnumSet.of(Capabilities.READ, Capabilities.PARALLEL_READ, Capabilities.CASE_SENSITIVE));
+
+  @Nonnull
+  private static final Logger logger = LoggerFactory.getLogger();
+
+  @Nonnull
+  private final MappedZipVDir root;
+  @Nonnull
+  private final InputFile inputFile;
+  @Nonnull
+  private final MappedByteBuffer buffer;
+  @Nonnegative
+  private int centralOffset;
+  // Offsets of the central directory headers of the files, sorted by entry name
+  @Nonnull
+  private final int[] index;
+  @Nonnegative
+  private int references = 1;
+  @CheckForNull
+  private String infoString;
+
+  public MappedReadZipFS(@Nonnull InputFile inputFile) throws ZipException {
+    this.inputFile = inputFile;
+
+    File file = inputFile.getFile();
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+      FileChannel channel = raf.getChannel();
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new ZipException(inputFile,
+            new java.util.zip.ZipException("Archive larger than 2GB are not supported"));
+      }
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+    } catch (IOException e) {
+      java.util.zip.ZipException ze = new java.util.zip.ZipException(e.getMessage());
+      ze.initCause(e);
+      throw new ZipException(inputFile, ze);
+    }
+
+    try {
+      index = loadIndex();
+    } catch (ZipException e) {
+      unmap(buffer);
+      throw e;
+    }
+    root = new MappedZipVDir(this, "", "", 0, index.length);
+  }
+
+  @Override
+  @Nonnull
+  public String getDescription() {
+    return "memory-mapped zip archive reader";
+  }
+
+  @Override
+  @Nonnull
+  public Location getLocation() {
+    return inputFile.getLocation();
+  }
+
+  @Override
+  @Nonnull
+  public String getPath() {
+    return inputFile.getPath();
+  }
+
+  @Override
+  @Nonnull
+  public MappedZipVDir getRootDir() {
+    return root;
+  }
+
+  /**
+   * Takes a reference on this archive, to be released by {@link #close()}.
+   *
+   * @return false if the archive is already closed, in which case no reference is taken
+   */
+  public synchronized boolean retain() {
+    if (closed) {
+      return false;
+    }
+
+    references++;
+    return true;
+  }
+
+  /**
+   * Releases a reference on this archive, and unmaps it when it was the last one. The slices
+   * returned by {@link #getByteBuffer} must not be used once their user released its reference:
+   * accessing an unmapped region crashes the VM instead of throwing.
+   */
+  @Override
+  public synchronized void close() throws CannotCloseException {
+    if (!closed && --references == 0) {
+      closed = true;
+      unmap(buffer);
+    }
+  }
+
+  //
+  // Stream
+  //
+
+  @Override
+  @Nonnull
+  InputStream openRead(@Nonnull MappedZipVFile file) {
+    VFSStatCategory.ZIP_READ.getCounterStat(getTracer(), infoString).incValue();
+
+    ByteBuffer data;
+    try {
+      data = getData(file);
+    } catch (java.util.zip.ZipException e) {
+      return new InvalidEntryInputStream(e);
+    }
+    int method = getUnsignedShort(file.headerOffset + CENTRAL_HEADER_METHOD);
+    if (method == ZipEntry.STORED) {
+      return new ByteBufferInputStream(data);
+    } else {
+      assert method == ZipEntry.DEFLATED;
+      int size = getInt(file.headerOffset + CENTRAL_HEADER_SIZE_OFFSET);
+      return new EntryInflaterInputStream(new ByteBufferInputStream(data),
+          Math.max(512, Math.min(size, 8 * 1024)));
+    }
+  }
+
+  /**
+   * Returns the content of a {@link ZipEntry#STORED} entry as a read-only slice of the mapping.
+   *
+   * @return the content, or null if the entry is compressed or invalid, in which case its stream
+   *     reports the error
+   */
+  @Override
+  @CheckForNull
+  ByteBuffer getByteBuffer(@Nonnull MappedZipVFile file) {
+    if (getUnsignedShort(file.headerOffset + CENTRAL_HEADER_METHOD) != ZipEntry.STORED) {
+      return null;
+    }
+
+    VFSStatCategory.ZIP_READ.getCounterStat(getTracer(), infoString).incValue();
+
+    try {
+      return getData(file);
+    } catch (java.util.zip.ZipException e) {
+      return null;
+    }
+  }
+
+  @Override
+  @Nonnull
+  OutputStream openWrite(@Nonnull MappedZipVFile file) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  @Nonnull
+  OutputStream openWrite(@Nonnull MappedZipVFile file, boolean append) {
+    throw new UnsupportedOperationException();
+  }
+
+  //
+  // VElement
+  //
+
+  @Override
+  @Nonnull
+  MappedZipVDir getVDir(@Nonnull MappedZipVDir parent, @Nonnull String name)
+      throws NotDirectoryException, NoSuchFileException {
+    assert !isClosed();
+    BaseVElement element = parent.getElements().get(name);
+    if (element != null) {
+      if (element.isVDir()) {
+        return (MappedZipVDir) element;
+      } else {
+        throw new NotDirectoryException(getVDirLocation(parent, name));
+      }
+    } else {
+      throw new NoSuchFileException(getVDirLocation(parent, name));
+    }
+  }
+
+  @Override
+  @Nonnull
+  MappedZipVFile getVFile(@Nonnull MappedZipVDir parent, @Nonnull String name)
+      throws NotFileException, NoSuchFileException {
+    assert !isClosed();
+    BaseVElement element = parent.getElements().get(name);
+    if (element != null) {
+      if (!element.isVDir()) {
+        return (MappedZipVFile) element;
+      } else {
+        throw new NotFileException(getVFileLocation(parent, name));
+      }
+    } else {
+      throw new NoSuchFileException(getVFileLocation(parent, name));
+    }
+  }
+
+  @Override
+  @Nonnull
+  MappedZipVDir createVDir(@Nonnull MappedZipVDir parent, @Nonnull String name) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  @Nonnull
+  MappedZipVFile createVFile(@Nonnull MappedZipVDir parent, @Nonnull String name) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  @Nonnull
+  void delete(@Nonnull MappedZipVFile file) throws CannotDeleteFileException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  @Nonnull
+  Collection<? extends BaseVElement> list(@Nonnull MappedZipVDir dir) {
+    assert !isClosed();
+    return Collections.unmodifiableCollection(dir.getElements().values());
+  }
+
+  @Override
+  boolean isEmpty(@Nonnull MappedZipVDir dir) {
+    // A directory only exists when it holds at least one file
+    return dir.start == dir.end;
+  }
+
+  @Override
+  @Nonnull
+  FileTime getLastModified(@Nonnull MappedZipVFile file)
+      throws CannotGetModificationTimeException {
+    try {
+      return Files.getLastModifiedTime(inputFile.getFile().toPath());
+    } catch (IOException e) {
+      throw new CannotGetModificationTimeException(inputFile, e);
+    }
+  }
+
+  //
+  // Location
+  //
+
+  @Override
+  @Nonnull
+  Location getVFileLocation(@Nonnull MappedZipVFile file) {
+    return new ZipLocation(inputFile.getLocation(), file.getEntryName());
+  }
+
+  @Override
+  @Nonnull
+  Location getVFileLocation(@Nonnull MappedZipVDir parent, @Nonnull String name) {
+    return new ZipLocation(inputFile.getLocation(), parent.getEntryName() + name);
+  }
+
+  @Override
+  @Nonnull
+  Location getVDirLocation(@Nonnull MappedZipVDir dir) {
+    return new ZipLocation(inputFile.getLocation(), dir.getEntryName());
+  }
+
+  @Override
+  @Nonnull
+  Location getVDirLocation(@Nonnull MappedZipVDir parent, @Nonnull String name) {
+    return new ZipLocation(inputFile.getLocation(), parent.getEntryName() + name + '/');
+  }
+
+  @Override
+  @Nonnull
+  Location getVFileLocation(@Nonnull MappedZipVDir parent, @Nonnull VPath path) {
+    return new ZipLocation(inputFile.getLocation(),
+        parent.getEntryName() + path.getPathAsString('/'));
+  }
+
+  @Override
+  @Nonnull
+  Location getVDirLocation(@Nonnull MappedZipVDir parent, @Nonnull VPath path) {
+    return new ZipLocation(inputFile.getLocation(),
+        parent.getEntryName() + path.getPathAsString('/') + '/');
+  }
+
+  //
+  // Misc
+  //
+
+  @Override
+  public boolean needsSequentialWriting() {
+    return false;
+  }
+
+  @Override
+  @Nonnull
+  public Set<Capabilities> getCapabilities() {
+    return CAPABILITIES;
+  }
+
+  @Override
+  @Nonnull
+  VPath getPathFromDir(@Nonnull MappedZipVDir parent, @Nonnull MappedZipVFile file) {
+    String fileEntryPath = file.getEntryName();
+    String parentEntryPath = parent.getEntryName();
+    assert fileEntryPath.startsWith(parentEntryPath);
+    String newPath = fileEntryPath.substring(parentEntryPath.length());
+    return new VPath(newPath, '/');
+  }
+
+  @Override
+  @Nonnull
+  VPath getPathFromRoot(@Nonnull MappedZipVFile file) {
+    return getPathFromDir(root, file);
+  }
+
+  @Override
+  @CheckForNull
+  protected Tracer getTracer() {
+    // The archive may be shared by successive compilations, do not keep the tracer of the first one
+    try {
+      return TracerFactory.getTracer();
+    } catch (ConfigurationError e) {
+      return null;
+    }
+  }
+
+  public void setInfoString(@CheckForNull String infoString) {
+    this.infoString = infoString;
+  }
+
+  @Override
+  public String getInfoString() {
+    return infoString;
+  }
+
+  @Override
+  public String toString() {
+    return "mZipFS: " + getLocation().getDescription();
+  }
+
+  //
+  // Zip format
+  //
+
+  /**
+   * Checks the central directory, and returns the offsets of the headers of its files sorted by
+   * entry name, so that the files below a directory are a range of the index.
+   */
+  @Nonnull
+  private int[] loadIndex() throws ZipException {
+    int end = findEndOfCentralDirectory();
+    int count = getUnsignedShort(end + END_ENTRY_COUNT);
+    long centralSize = getUnsignedInt(end + END_CENTRAL_SIZE);
+    long centralOffset = getUnsignedInt(end + END_CENTRAL_OFFSET);
+
+    if (count == ZIP64_MAGIC_COUNT || centralSize == ZIP64_MAGIC_VALUE
+        || centralOffset == ZIP64_MAGIC_VALUE) {
+      throw error("Zip64 archives are not supported");
+    }
+    if (centralOffset + centralSize > end) {
+      throw error("Invalid central directory");
+    }
+    this.centralOffset = (int) centralOffset;
+
+    Integer[] files = new Integer[count];
+    int fileCount = 0;
+    int offset = (int) centralOffset;
+    for (int i = 0; i < count; i++) {
+      if (offset + CENTRAL_HEADER_SIZE > end || getInt(offset) != CENTRAL_HEADER_SIGNATURE) {
+        throw error("Invalid central directory header");
+      }
+
+      int flags = getUnsignedShort(offset + CENTRAL_HEADER_FLAGS);
+      int method = getUnsignedShort(offset + CENTRAL_HEADER_METHOD);
+      int nameLength = getUnsignedShort(offset + CENTRAL_HEADER_NAME_LENGTH);
+      int headerSize = CENTRAL_HEADER_SIZE + nameLength
+          + getUnsignedShort(offset + CENTRAL_HEADER_EXTRA_LENGTH)
+          + getUnsignedShort(offset + CENTRAL_HEADER_COMMENT_LENGTH);
+
+      if (offset + headerSize > end) {
+        throw error("Invalid central directory header");
+      }
+      if ((flags & ENCRYPTED_FLAG) != 0) {
+        throw error("Encrypted entries are not supported");
+      }
+      if (method != ZipEntry.STORED && method != ZipEntry.DEFLATED) {
+        throw error("Compression method " + method + " is not supported");
+      }
+      if (getUnsignedInt(offset + CENTRAL_HEADER_COMPRESSED_SIZE) == ZIP64_MAGIC_VALUE
+          || getUnsignedInt(offset + CENTRAL_HEADER_LOCAL_OFFSET) == ZIP64_MAGIC_VALUE) {
+        throw error("Zip64 entries are not supported");
+      }
+
+      // Directory entries are skipped, directories only exist through their files
+      if (nameLength == 0 || buffer.get(offset + CENTRAL_HEADER_SIZE + nameLength - 1)
+          != ZipUtils.ZIP_SEPARATOR) {
+        files[fileCount++] = Integer.valueOf(offset);
+      }
+
+      offset += headerSize;
+    }
+
+    // Stable sort, the last of duplicated entries wins as in the central directory
+    Arrays.sort(files, 0, fileCount, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer header1, Integer header2) {
+        return compareEntryNames(header1.intValue(), header2.intValue());
+      }
+    });
+    int[] index = new int[fileCount];
+    for (int i = 0; i < fileCount; i++) {
+      index[i] = files[i].intValue();
+    }
+
+    return index;
+  }
+
+  /**
+   * Creates the elements of a directory from its range of the index.
+   */
+  @Nonnull
+  private Map<String, BaseVElement> loadElements(@Nonnull MappedZipVDir dir) {
+    Map<String, BaseVElement> elements = new HashMap<String, BaseVElement>();
+    int prefixLength = getEncodedLength(dir.getEntryName());
+    int i = dir.start;
+    while (i < dir.end) {
+      int header = index[i];
+      int nameOffset = header + CENTRAL_HEADER_SIZE;
+      int nameEnd = nameOffset + getUnsignedShort(header + CENTRAL_HEADER_NAME_LENGTH);
+      int simpleNameOffset = nameOffset + prefixLength;
+      int separator = simpleNameOffset;
+      while (separator < nameEnd && buffer.get(separator) != ZipUtils.ZIP_SEPARATOR) {
+        separator++;
+      }
+
+      if (separator == nameEnd) {
+        String simpleName = decode(simpleNameOffset, nameEnd - simpleNameOffset);
+        assert !simpleName.isEmpty();
+        elements.put(simpleName, new MappedZipVFile(this, header, simpleName));
+        i++;
+      } else {
+        // The files of the sub-directory follow, up to the first name without its prefix
+        int subPrefixLength = separator + 1 - nameOffset;
+        int low = i + 1;
+        int high = dir.end;
+        while (low < high) {
+          int middle = (low + high) >>> 1;
+          if (hasSameNamePrefix(index[middle], header, subPrefixLength)) {
+            low = middle + 1;
+          } else {
+            high = middle;
+          }
+        }
+
+        String simpleName = decode(simpleNameOffset, separator - simpleNameOffset);
+        assert !simpleName.isEmpty();
+        elements.put(simpleName, new MappedZipVDir(this, decode(nameOffset, subPrefixLength),
+            simpleName, i, low));
+        i = low;
+      }
+    }
+
+    return elements;
+  }
+
+  /**
+   * Checks the local header of an entry and returns the offset of its data. Local headers are
+   * spread over the whole archive, so they are only read when the entry is accessed, rather than
+   * when the central directory is loaded.
+   */
+  @Nonnegative
+  private int getDataOffset(@Nonnull MappedZipVFile file) throws java.util.zip.ZipException {
+    // Racy but idempotent, as String.hashCode()
+    int dataOffset = file.dataOffset;
+    if (dataOffset >= 0) {
+      return dataOffset;
+    }
+
+    long localOffset = getUnsignedInt(file.headerOffset + CENTRAL_HEADER_LOCAL_OFFSET);
+    if (localOffset + LOCAL_HEADER_SIZE > centralOffset
+        || getInt((int) localOffset) != LOCAL_HEADER_SIGNATURE) {
+      throw new java.util.zip.ZipException(
+          "Invalid local header for '" + file.getEntryName() + "'");
+    }
+
+    long offset = localOffset + LOCAL_HEADER_SIZE
+        + getUnsignedShort((int) localOffset + LOCAL_HEADER_NAME_LENGTH)
+        + getUnsignedShort((int) localOffset + LOCAL_HEADER_EXTRA_LENGTH);
+    if (offset + getUnsignedInt(file.headerOffset + CENTRAL_HEADER_COMPRESSED_SIZE)
+        > centralOffset) {
+      throw new java.util.zip.ZipException("Invalid data for '" + file.getEntryName() + "'");
+    }
+
+    dataOffset = (int) offset;
+    file.dataOffset = dataOffset;
+    return dataOffset;
+  }
+
+  @Nonnegative
+  private int findEndOfCentralDirectory() throws ZipException {
+    int limit = Math.max(0, buffer.limit() - END_SIZE - MAX_COMMENT_SIZE);
+    for (int offset = buffer.limit() - END_SIZE; offset >= limit; offset--) {
+      if (getInt(offset) == END_SIGNATURE) {
+        return offset;
+      }
+    }
+
+    throw error("End of central directory not found");
+  }
+
+  @Nonnull
+  private String getEntryName(@Nonnegative int headerOffset) {
+    return decode(headerOffset + CENTRAL_HEADER_SIZE,
+        getUnsignedShort(headerOffset + CENTRAL_HEADER_NAME_LENGTH));
+  }
+
+  @Nonnull
+  private String decode(@Nonnegative int offset, @Nonnegative int length) {
+    byte[] bytes = new byte[length];
+    ByteBuffer view = buffer.duplicate();
+    view.position(offset);
+    view.get(bytes);
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Nonnegative
+  private static int getEncodedLength(@Nonnull String name) {
+    return name.getBytes(StandardCharsets.UTF_8).length;
+  }
+
+  /**
+   * Compares the entry names of two headers byte per byte, which orders UTF-8 names as their code
+   * points, so that the names starting with a given prefix are contiguous.
+   */
+  private int compareEntryNames(@Nonnegative int header1, @Nonnegative int header2) {
+    int length1 = getUnsignedShort(header1 + CENTRAL_HEADER_NAME_LENGTH);
+    int length2 = getUnsignedShort(header2 + CENTRAL_HEADER_NAME_LENGTH);
+    int offset1 = header1 + CENTRAL_HEADER_SIZE;
+    int offset2 = header2 + CENTRAL_HEADER_SIZE;
+    int length = Math.min(length1, length2);
+    for (int i = 0; i < length; i++) {
+      int diff = (buffer.get(offset1 + i) & 0xFF) - (buffer.get(offset2 + i) & 0xFF);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+
+    return length1 - length2;
+  }
+
+  /**
+   * Returns whether the entry name of a header starts with the first bytes of the entry name of
+   * another header.
+   */
+  private boolean hasSameNamePrefix(@Nonnegative int header, @Nonnegative int prefixHeader,
+      @Nonnegative int prefixLength) {
+    if (getUnsignedShort(header + CENTRAL_HEADER_NAME_LENGTH) < prefixLength) {
+      return false;
+    }
+
+    int offset = header + CENTRAL_HEADER_SIZE;
+    int prefixOffset = prefixHeader + CENTRAL_HEADER_SIZE;
+    for (int i = 0; i < prefixLength; i++) {
+      if (buffer.get(offset + i) != buffer.get(prefixOffset + i)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Releases the mapping without waiting for the garbage collector, through the cleaner of the
+   * buffer, which is not part of the public API.
+   */
+  private static void unmap(@Nonnull MappedByteBuffer buffer) {
+    try {
+      try {
+        // Java 9 and later
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+        theUnsafe.setAccessible(true);
+        invokeCleaner.invoke(theUnsafe.get(null), buffer);
+      } catch (NoSuchMethodException e) {
+        // Java 8
+        Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+        cleanerMethod.setAccessible(true);
+        Object cleaner = cleanerMethod.invoke(buffer);
+        if (cleaner != null) {
+          cleaner.getClass().getMethod("clean").invoke(cleaner);
+        }
+      }
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // The mapping is released when the buffer is garbage collected
+      logger.log(Level.FINE, "Cannot unmap archive", e);
+    }
+  }
+
+  @Nonnull
+  private ByteBuffer getData(@Nonnull MappedZipVFile file) throws java.util.zip.ZipException {
+    int dataOffset = getDataOffset(file);
+    int compressedSize = getInt(file.headerOffset + CENTRAL_HEADER_COMPRESSED_SIZE);
+
+    ByteBuffer view = buffer.asReadOnlyBuffer();
+    view.position(dataOffset);
+    view.limit(dataOffset + compressedSize);
+
+    return view.slice();
+  }
+
+  private int getInt(@Nonnegative int offset) {
+    return buffer.getInt(offset);
+  }
+
+  private long getUnsignedInt(@Nonnegative int offset) {
+    return buffer.getInt(offset) & 0xFFFFFFFFL;
+  }
+
+  private int getUnsignedShort(@Nonnegative int offset) {
+    return buffer.getShort(offset) & 0xFFFF;
+  }
+
+  @Nonnull
+  private ZipException error(@Nonnull String message) {
+    return new ZipException(inputFile, new java.util.zip.ZipException(message));
+  }
+
+  /**
+   * {@link InflaterInputStream} on raw deflated data, which ends its {@link Inflater} when closed.
+   */
+  private static class EntryInflaterInputStream extends InflaterInputStream {
+    private boolean eof = false;
+    private boolean closed = false;
+
+    public EntryInflaterInputStream(@Nonnull InputStream in, @Nonnegative int size) {
+      super(in, new Inflater(/* nowrap = */ true), size);
+    }
+
+    @Override
+    protected void fill() throws IOException {
+      if (eof) {
+        throw new EOFException("Unexpected end of deflated data");
+      }
+
+      len = in.read(buf, 0, buf.length);
+      if (len == -1) {
+        // With 'nowrap', the inflater may need an extra dummy byte to finish
+        buf[0] = 0;
+        len = 1;
+        eof = true;
+      }
+      inf.setInput(buf, 0, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!closed) {
+        closed = true;
+        inf.end();
+        super.close();
+      }
+    }
+  }
+
+  /**
+   * {@link InputStream} of an entry whose local header is invalid, which reports the error when
+   * read.
+   */
+  private static class InvalidEntryInputStream extends InputStream {
+    @Nonnull
+    private final java.util.zip.ZipException error;
+
+    public InvalidEntryInputStream(@Nonnull java.util.zip.ZipException error) {
+      this.error = error;
+    }
+
+    @Override
+    public int read() throws IOException {
+      throw error;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      throw error;
+    }
+  }
+}
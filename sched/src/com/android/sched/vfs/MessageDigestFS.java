@@ -41,6 +41,7 @@ import java.io.InputStreamReader;
 import java.io.LineNumberReader;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
 import java.nio.file.attribute.FileTime;
 import java.security.DigestOutputStream;
 import java.util.ArrayList;
@@ -250,7 +251,17 @@ public class MessageDigestFS extends BaseVFS<MessageDigestVDir, MessageDigestVFi
 
   @Nonnull
   private String getDigestString(@Nonnull byte[] digestBytes) {
-    return mdFactory.getService().getAlgorithm() + '-' + String.valueOf(encode(digestBytes));
+    return getDigestString(mdFactory, digestBytes);
+  }
+
+  /**
+   * Formats a message digest the way digests are recorded by this {@link VFS}, that is the name of
+   * the algorithm followed by the digest in hexadecimal.
+   */
+  @Nonnull
+  public static String getDigestString(@Nonnull MessageDigestFactory factory,
+      @Nonnull byte[] digestBytes) {
+    return factory.getService().getAlgorithm() + '-' + String.valueOf(encode(digestBytes));
   }
 
   @Nonnull
@@ -361,6 +372,12 @@ public class MessageDigestFS extends BaseVFS<MessageDigestVDir, MessageDigestVFi
     return vfs.openRead(file.getWrappedFile());
   }
 
+  @Override
+  @CheckForNull
+  ByteBuffer getByteBuffer(@Nonnull MessageDigestVFile file) throws WrongPermissionException {
+    return vfs.getByteBuffer(file.getWrappedFile());
+  }
+
   @Override
   @Nonnull
   OutputStream openWrite(@Nonnull final MessageDigestVFile file) throws WrongPermissionException {
@@ -0,0 +1,524 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.vfs;
+
+import com.android.sched.util.config.HasKeyId;
+import com.android.sched.util.config.id.BooleanPropertyId;
+import com.android.sched.util.file.CannotChangePermissionException;
+import com.android.sched.util.file.CannotCloseException;
+import com.android.sched.util.file.CannotCreateFileException;
+import com.android.sched.util.file.Files;
+import com.android.sched.util.file.OutputZipFile;
+import com.android.sched.util.location.Location;
+import com.android.sched.util.location.ZipLocation;
+import com.android.sched.util.log.LoggerFactory;
+import com.android.sched.vfs.WriteZipFS.ZipVDir;
+import com.android.sched.vfs.WriteZipFS.ZipVFile;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link VFS} implementation backed by a zip archive that only supports writing, where entries
+ * can be written in parallel.
+ *
+ * <p>Each entry is deflated into its own buffer as it is written. The archive is assembled when
+ * the {@link VFS} is closed, with entries in the order their files were created, so that its
+ * content does not depend on the order of the writes. Written entries are kept until then, in
+ * memory, or in a temporary file once larger than {@link #SPILL_THRESHOLD}.
+ *
+ * <p>Zip outputs are written with this {@link VFS} only when {@link #PARALLEL_WRITE} is enabled,
+ * see {@link ZipOutputVFS}.
+ */
+@HasKeyId
+public class ParallelWriteZipFS extends BaseVFS<ZipVDir, ZipVFile> implements VFS {
+
+  @Nonnull
+  private static final Set<Capabilities> CAPABILITIES = Collections.unmodifiableSet(EnumSet.of(
+      Capabilities.WRITE, Capabilities.PARALLEL_WRITE, Capabilities.CASE_SENSITIVE));
+
+  @Nonnull
+  public static final BooleanPropertyId PARALLEL_WRITE = BooleanPropertyId.create(
+      "sched.vfs.zip.output.parallel",
+      "Write the entries of zip outputs in parallel, keeping them until the archive is closed")
+      .addDefaultValue(Boolean.FALSE);
+
+  /**
+   * Size of the deflated data of an entry above which it is moved from memory to a temporary file.
+   */
+  @Nonnegative
+  public static final int SPILL_THRESHOLD = 1024 * 1024;
+
+  @Nonnull
+  private static final Logger logger = LoggerFactory.getLogger();
+
+  /**
+   * A written entry, with its deflated data.
+   */
+  private static class CompressedEntry extends ZipArchive.Entry {
+    @Nonnull
+    private final SpillableBuffer data;
+
+    CompressedEntry(@Nonnull ZipEntry entry, long crc, @Nonnegative long size,
+        @Nonnull SpillableBuffer data) {
+      super(entry.getName().getBytes(StandardCharsets.UTF_8), ZipArchive.FLAG_UTF8,
+          ZipEntry.DEFLATED, ZipArchive.toDosTime(
+              entry.getTime() != -1 ? entry.getTime() : System.currentTimeMillis()),
+          crc, data.getSize(), size);
+      this.data = data;
+    }
+  }
+
+  /**
+   * Deflated data of an entry, kept in memory until it is larger than {@link #SPILL_THRESHOLD},
+   * then in a temporary file.
+   */
+  private static class SpillableBuffer extends OutputStream {
+    @CheckForNull
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+    @CheckForNull
+    private File file;
+    @CheckForNull
+    private OutputStream fileStream;
+    @Nonnegative
+    private long size = 0;
+
+    @Override
+    public void write(int b) throws IOException {
+      getStream(1).write(b);
+      size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      getStream(len).write(b, off, len);
+      size += len;
+    }
+
+    @Nonnull
+    private OutputStream getStream(@Nonnegative int len) throws IOException {
+      if (fileStream != null) {
+        return fileStream;
+      }
+
+      assert memory != null;
+      if (size + len <= SPILL_THRESHOLD) {
+        return memory;
+      }
+
+      try {
+        file = Files.createTempFile("zip-entry-");
+      } catch (CannotCreateFileException | CannotChangePermissionException e) {
+        throw new IOException(e.getMessage(), e);
+      }
+      OutputStream stream = new BufferedOutputStream(new FileOutputStream(file));
+      fileStream = stream;
+      memory.writeTo(stream);
+      memory = null;
+
+      return stream;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (fileStream != null) {
+        fileStream.close();
+      }
+    }
+
+    @Nonnegative
+    long getSize() {
+      return size;
+    }
+
+    void writeEntry(@Nonnull ZipArchive.Writer writer, @Nonnull ZipArchive.Entry entry)
+        throws IOException {
+      if (memory != null) {
+        writer.writeEntry(entry, memory);
+      } else {
+        assert file != null;
+        InputStream is = new FileInputStream(file);
+        try {
+          writer.writeEntry(entry, is);
+        } finally {
+          is.close();
+        }
+      }
+    }
+
+    void delete() {
+      memory = null;
+      if (file != null && !file.delete()) {
+        logger.log(Level.WARNING, "Cannot delete ''{0}''", file.getPath());
+      }
+    }
+  }
+
+  @Nonnull
+  private final ZipVDir root = new ZipVDir(this, new ZipEntry(""), "");
+  @Nonnull
+  private final OutputZipFile zipFile;
+  private final int level;
+  @Nonnull
+  private final AtomicInteger fileCount = new AtomicInteger();
+  @Nonnull
+  private final ConcurrentMap<String, Integer> creationIndexes =
+      new ConcurrentHashMap<String, Integer>();
+  @Nonnull
+  private final Map<Integer, CompressedEntry> entries =
+      new ConcurrentSkipListMap<Integer, CompressedEntry>();
+  @CheckForNull
+  private String infoString;
+
+  public ParallelWriteZipFS(@Nonnull OutputZipFile zipFile) {
+    this.zipFile = zipFile;
+    switch (zipFile.getCompression()) {
+      case COMPRESSED:
+        level = Deflater.DEFAULT_COMPRESSION;
+        break;
+      case UNCOMPRESSED:
+        level = Deflater.NO_COMPRESSION;
+        break;
+      default:
+        throw new AssertionError(zipFile.getCompression().name());
+    }
+  }
+
+  @Override
+  @Nonnull
+  public String getDescription() {
+    return "parallel zip archive writer";
+  }
+
+  @Override
+  @Nonnull
+  public Location getLocation() {
+    return zipFile.getLocation();
+  }
+
+  @Override
+  @Nonnull
+  public String getPath() {
+    return zipFile.getPath();
+  }
+
+  @Override
+  @Nonnull
+  public ZipVDir getRootDir() {
+    return root;
+  }
+
+  @Override
+  public synchronized void close() throws CannotCloseException {
+    if (!closed) {
+      File updateFile = null;
+      try {
+        // The archive replaces the zip file once complete, so that readers which have mapped the
+        // previous zip file are not affected
+        updateFile = zipFile.createUpdateFile();
+        OutputStream os = new BufferedOutputStream(new FileOutputStream(updateFile));
+        try {
+          ZipArchive.Writer writer = new ZipArchive.Writer(os, 0);
+          for (CompressedEntry entry : entries.values()) {
+            entry.data.writeEntry(writer, entry);
+          }
+          writer.writeDirectory(entries.values());
+        } finally {
+          os.close();
+        }
+        zipFile.replaceWith(updateFile);
+        updateFile = null;
+      } catch (IOException e) {
+        throw new CannotCloseException(this, e);
+      } finally {
+        if (updateFile != null && !updateFile.delete()) {
+          logger.log(Level.WARNING, "Cannot delete ''{0}''", updateFile.getPath());
+        }
+        for (CompressedEntry entry : entries.values()) {
+          entry.data.delete();
+        }
+        entries.clear();
+        closed = true;
+      }
+    }
+  }
+
+  //
+  // Stream
+  //
+
+  @Override
+  @Nonnull
+  InputStream openRead(@Nonnull ZipVFile file) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  @Nonnull
+  OutputStream openWrite(@Nonnull ZipVFile file) {
+    assert !isClosed();
+
+    return new ZipEntryOutputStream(file.getZipEntry());
+  }
+
+  @Override
+  @Nonnull
+  OutputStream openWrite(@Nonnull ZipVFile file, boolean append) {
+    if (append) {
+      throw new UnsupportedOperationException();
+    } else {
+      return openWrite(file);
+    }
+  }
+
+  //
+  // VElement
+  //
+
+  @Override
+  @Nonnull
+  ZipVDir getVDir(@Nonnull ZipVDir parent, @Nonnull String name) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  @Nonnull
+  ZipVFile getVFile(@Nonnull ZipVDir parent, @Nonnull String name) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  @Nonnull
+  ZipVDir createVDir(@Nonnull ZipVDir parent, @Nonnull String name) {
+    assert !isClosed();
+
+    return new ZipVDir(this, new ZipEntry(parent.getZipEntry().getName() + name + '/'), name);
+  }
+
+  @Override
+  @Nonnull
+  ZipVFile createVFile(@Nonnull ZipVDir parent, @Nonnull String name) {
+    assert !isClosed();
+
+    ZipVFile vFile = new ZipVFile(this, new ZipEntry(parent.getZipEntry().getName() + name), name);
+    creationIndexes.putIfAbsent(vFile.getZipEntry().getName(),
+        Integer.valueOf(fileCount.getAndIncrement()));
+
+    VFSStatCategory.ZIP_CREATED_ENTRIES.getCounterStat(getTracer(), infoString).incValue();
+
+    return vFile;
+  }
+
+  @Override
+  @Nonnull
+  void delete(@Nonnull ZipVFile file) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  @Nonnull
+  Collection<? extends BaseVElement> list(@Nonnull ZipVDir dir) {
+    return dir.list();
+  }
+
+  @Override
+  boolean isEmpty(@Nonnull ZipVDir dir) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  @Nonnull
+  FileTime getLastModified(@Nonnull ZipVFile file) {
+    throw new UnsupportedOperationException();
+  }
+
+  //
+  // Location
+  //
+
+  @Override
+  @Nonnull
+  Location getVFileLocation(@Nonnull ZipVFile file) {
+    return new ZipLocation(zipFile.getLocation(), file.getZipEntry());
+  }
+
+  @Override
+  @Nonnull
+  Location getVFileLocation(@Nonnull ZipVDir parent, @Nonnull String name) {
+    return new ZipLocation(zipFile.getLocation(),
+        new ZipEntry(parent.getZipEntry().getName() + name));
+  }
+
+  @Override
+  @Nonnull
+  Location getVDirLocation(@Nonnull ZipVDir dir) {
+    return new ZipLocation(zipFile.getLocation(), dir.getZipEntry());
+  }
+
+  @Override
+  @Nonnull
+  Location getVDirLocation(@Nonnull ZipVDir parent, @Nonnull String name) {
+    return new ZipLocation(zipFile.getLocation(),
+        new ZipEntry(parent.getZipEntry().getName() + name + '/'));
+  }
+
+  @Override
+  @Nonnull
+  Location getVFileLocation(@Nonnull ZipVDir parent, @Nonnull VPath path) {
+    return new ZipLocation(zipFile.getLocation(),
+        new ZipEntry(parent.getZipEntry().getName() + path.getPathAsString('/')));
+  }
+
+  @Override
+  @Nonnull
+  Location getVDirLocation(@Nonnull ZipVDir parent, @Nonnull VPath path) {
+    return new ZipLocation(zipFile.getLocation(),
+        new ZipEntry(parent.getZipEntry().getName() + path.getPathAsString('/') + '/'));
+  }
+
+  //
+  // Misc
+  //
+
+  @Override
+  public boolean needsSequentialWriting() {
+    return false;
+  }
+
+  @Override
+  @Nonnull
+  public Set<Capabilities> getCapabilities() {
+    return CAPABILITIES;
+  }
+
+  /**
+   * Deflates an entry into its own buffer, and records it in the archive when closed.
+   */
+  private class ZipEntryOutputStream extends OutputStream {
+    @Nonnull
+    private final ZipEntry zipEntry;
+    @Nonnull
+    private final CRC32 crc = new CRC32();
+    @Nonnull
+    private final Deflater deflater = new Deflater(level, /* nowrap = */ true);
+    @Nonnull
+    private final SpillableBuffer buffer = new SpillableBuffer();
+    @Nonnull
+    private final DeflaterOutputStream out = new DeflaterOutputStream(buffer, deflater);
+    @Nonnegative
+    private long size = 0;
+    private boolean isClosed = false;
+
+    ZipEntryOutputStream(@Nonnull ZipEntry zipEntry) {
+      this.zipEntry = zipEntry;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      crc.update(b);
+      size++;
+      out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      crc.update(b, off, len);
+      size += len;
+      out.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!isClosed) {
+        isClosed = true;
+        try {
+          out.finish();
+          buffer.close();
+        } catch (IOException e) {
+          buffer.delete();
+          throw e;
+        } finally {
+          deflater.end();
+        }
+        Integer index = creationIndexes.get(zipEntry.getName());
+        assert index != null;
+        CompressedEntry previous =
+            entries.put(index, new CompressedEntry(zipEntry, crc.getValue(), size, buffer));
+        if (previous != null) {
+          previous.data.delete();
+        }
+      }
+    }
+  }
+
+  @Override
+  @Nonnull
+  VPath getPathFromDir(@Nonnull ZipVDir parent, @Nonnull ZipVFile file) {
+    String fileEntryPath = file.getZipEntry().getName();
+    String parentEntryPath = parent.getZipEntry().getName();
+    assert fileEntryPath.contains(parentEntryPath);
+    String newPath = fileEntryPath.substring(fileEntryPath.indexOf(parentEntryPath));
+    return new VPath(newPath, '/');
+  }
+
+  @Override
+  @Nonnull
+  VPath getPathFromRoot(@Nonnull ZipVFile file) {
+    return getPathFromDir(root, file);
+  }
+
+  public void setInfoString(@CheckForNull String infoString) {
+    this.infoString = infoString;
+  }
+
+  @Override
+  public String getInfoString() {
+    return infoString;
+  }
+
+  @Override
+  public String toString() {
+    return "pwZipFS: " + getLocation().getDescription();
+  }
+}
@@ -27,6 +27,7 @@ import com.android.sched.util.location.Location;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.attribute.FileTime;
 import java.util.Collection;
 import java.util.Set;
@@ -87,6 +88,12 @@ public class PrefixedFS extends BaseVFS<BaseVDir, BaseVFile> implements VFS {
     return vfs.openRead(file);
   }
 
+  @Override
+  @CheckForNull
+  ByteBuffer getByteBuffer(@Nonnull BaseVFile file) throws WrongPermissionException {
+    return vfs.getByteBuffer(file);
+  }
+
   @Override
   @Nonnull
   OutputStream openWrite(@Nonnull BaseVFile file) throws WrongPermissionException {
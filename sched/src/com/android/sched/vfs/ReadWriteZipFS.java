@@ -50,6 +50,7 @@ import javax.annotation.Nonnull;
 
 /**
  * A {@link VFS} backed by a real filesystem directory, compressed into a zip archive when closed.
+ * The previous content of the archive is reused, see {@link UpdateWriteZipFS}.
  */
 public class ReadWriteZipFS extends BaseVFS<BaseVDir, BaseVFile> implements VFS {
 
@@ -79,7 +80,7 @@ public class ReadWriteZipFS extends BaseVFS<BaseVDir, BaseVFile> implements VFS
       // Directory is empty, so this cannot happen
       throw new AssertionError(e);
     }
-    WriteZipFS finalVFS = new WriteZipFS(file);
+    UpdateWriteZipFS finalVFS = new UpdateWriteZipFS(file);
     this.vfs = new VFSToVFSWrapper(workVFS, finalVFS);
   }
 
@@ -266,7 +267,7 @@ public class ReadWriteZipFS extends BaseVFS<BaseVDir, BaseVFile> implements VFS
   }
 
   public void setInfoString(@CheckForNull String infoString) {
-    ((WriteZipFS) vfs.getFinalVFS()).setInfoString(infoString);
+    ((UpdateWriteZipFS) vfs.getFinalVFS()).setInfoString(infoString);
   }
 
   @Override
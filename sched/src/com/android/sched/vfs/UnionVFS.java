@@ -34,6 +34,7 @@ import com.android.sched.vfs.UnionVFS.UnionVFile;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -355,6 +356,12 @@ public class UnionVFS extends BaseVFS<UnionVDir, UnionVFile> implements VFS {
     return file.getWrappedFile().getInputStream();
   }
 
+  @Override
+  @CheckForNull
+  ByteBuffer getByteBuffer(@Nonnull UnionVFile file) throws WrongPermissionException {
+    return file.getWrappedFile().getByteBuffer();
+  }
+
   @Override
   @Nonnull
   OutputStream openWrite(@Nonnull UnionVFile file) throws WrongPermissionException {
@@ -0,0 +1,605 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.vfs;
+
+import com.android.sched.util.config.HasKeyId;
+import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.config.id.BooleanPropertyId;
+import com.android.sched.util.file.CannotCloseException;
+import com.android.sched.util.file.OutputZipFile;
+import com.android.sched.util.location.Location;
+import com.android.sched.util.location.ZipLocation;
+import com.android.sched.util.log.LoggerFactory;
+import com.android.sched.vfs.WriteZipFS.ZipVDir;
+import com.android.sched.vfs.WriteZipFS.ZipVFile;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link VFS} implementation backed by a zip archive that only supports writing, and which
+ * reuses the previous content of the archive.
+ *
+ * <p>An entry written with the same content as in the previous archive is not compressed again.
+ * By default, it is copied as is to a new archive, written next to the previous one, which
+ * replaces it when this {@link VFS} is closed. When the archive ends up with the same entries and
+ * the same content, it is left as is, and only its modification time is updated.
+ *
+ * <p>With {@link #APPEND}, the archive is updated in place instead: kept entries stay where they
+ * are, and other entries are appended after the end of the archive, followed by a new central
+ * directory, so that replaced entries, entries not written again and the previous central
+ * directory are left unreferenced in the archive. The bytes of the archive are never overwritten
+ * nor truncated, so that readers which have mapped it are not affected. When the unreferenced
+ * bytes would exceed {@link #MAX_DEAD_RATIO} of the archive, the referenced entries are copied to a
+ * new archive, as by default.
+ *
+ * <p>A file which is not a zip archive that can be read is replaced by a new archive.
+ */
+@HasKeyId
+public class UpdateWriteZipFS extends BaseVFS<ZipVDir, ZipVFile> implements VFS {
+
+  @Nonnull
+  public static final BooleanPropertyId APPEND = BooleanPropertyId.create(
+      "sched.vfs.zip.update.append",
+      "Append the changed entries of a zip archive after its end instead of writing a new archive,"
+      + " readers of zip streams only seeing the entries of the first archive")
+      .addDefaultValue(Boolean.FALSE);
+
+  @Nonnull
+  private static final Logger logger = LoggerFactory.getLogger();
+
+  @Nonnull
+  private static final Set<Capabilities> CAPABILITIES = Collections.unmodifiableSet(
+      EnumSet.of(Capabilities.WRITE, Capabilities.CASE_SENSITIVE));
+
+  /**
+   * Fraction of the bytes of the archive that can be unreferenced before it is compacted.
+   */
+  private static final double MAX_DEAD_RATIO = 0.5;
+
+  @Nonnull
+  private final ZipVDir root = new ZipVDir(this, new ZipEntry(""), "");
+  @Nonnull
+  private final AtomicBoolean lastVFileOpen = new AtomicBoolean(false);
+  @Nonnull
+  private final OutputZipFile zipFile;
+  private final int level;
+  @CheckForNull
+  private String infoString;
+
+  /** Entries of the previous archive, by name */
+  @Nonnull
+  private final Map<String, ZipArchive.Entry> previousEntries =
+      new HashMap<String, ZipArchive.Entry>();
+  /** Entries of the archive being written, sorted by name */
+  @Nonnull
+  private final Map<String, ZipArchive.Entry> entries = new TreeMap<String, ZipArchive.Entry>();
+
+  /** Entries of the previous archive to copy to the new archive */
+  @Nonnull
+  private final Map<String, ZipArchive.Entry> keptEntries =
+      new HashMap<String, ZipArchive.Entry>();
+
+  /** The previous archive, also updated in place when appending to it */
+  @CheckForNull
+  private FileChannel channel;
+  /** Whether entries have been written, instead of being kept from the previous archive */
+  private boolean changed = false;
+  /** The file where a new archive is written, until it replaces the archive */
+  @CheckForNull
+  private File updateFile;
+  @CheckForNull
+  private OutputStream out;
+  @CheckForNull
+  private ZipArchive.Writer writer;
+
+  public UpdateWriteZipFS(@Nonnull OutputZipFile zipFile) {
+    this.zipFile = zipFile;
+    switch (zipFile.getCompression()) {
+      case COMPRESSED:
+        level = Deflater.DEFAULT_COMPRESSION;
+        break;
+      case UNCOMPRESSED:
+        level = Deflater.NO_COMPRESSION;
+        break;
+      default:
+        throw new AssertionError(zipFile.getCompression().name());
+    }
+  }
+
+  void notifyVFileClosed() {
+    boolean previousState = lastVFileOpen.getAndSet(false);
+    assert previousState;
+  }
+
+  boolean notifyVFileOpenAndReturnPreviousState() {
+    return lastVFileOpen.getAndSet(true);
+  }
+
+  @Override
+  @Nonnull
+  public String getDescription() {
+    return "zip archive writer updating in place";
+  }
+
+  @Override
+  @Nonnull
+  public Location getLocation() {
+    return zipFile.getLocation();
+  }
+
+  @Override
+  @Nonnull
+  public String getPath() {
+    return zipFile.getPath();
+  }
+
+  @Override
+  @Nonnull
+  public ZipVDir getRootDir() {
+    return root;
+  }
+
+  @Override
+  public synchronized void close() throws CannotCloseException {
+    if (!closed) {
+      try {
+        open();
+        boolean written;
+        try {
+          written = writeDirectory();
+        } finally {
+          closeArchive();
+        }
+        if (!written) {
+          zipFile.touch();
+        } else if (updateFile != null) {
+          zipFile.replaceWith(updateFile);
+          updateFile = null;
+        }
+      } catch (IOException e) {
+        throw new CannotCloseException(this, e);
+      } finally {
+        if (updateFile != null && !updateFile.delete()) {
+          logger.log(Level.WARNING, "Cannot delete ''{0}''", updateFile.getPath());
+        }
+      }
+      previousEntries.clear();
+      keptEntries.clear();
+      entries.clear();
+      closed = true;
+    }
+  }
+
+  /**
+   * Reads the previous archive and prepares writing entries, either after its end or to a new
+   * archive.
+   */
+  private synchronized void open() throws IOException {
+    if (out == null) {
+      FileChannel channel = zipFile.getUpdateChannel();
+      this.channel = channel;
+      long end = channel.size();
+      if (end > 0) {
+        try {
+          for (ZipArchive.Entry entry : ZipArchive.readDirectory(channel).entries) {
+            previousEntries.put(entry.getName(), entry);
+          }
+        } catch (ZipException e) {
+          logger.log(Level.INFO, "Replacing {0}: {1}",
+              new Object[] {getLocation().getDescription(), e.getMessage()});
+          previousEntries.clear();
+          closeArchive();
+          openUpdateFile();
+          return;
+        }
+        if (!ThreadConfig.get(APPEND).booleanValue()) {
+          openUpdateFile();
+          return;
+        }
+      }
+
+      channel.position(end);
+      out = new BufferedOutputStream(Channels.newOutputStream(channel));
+      writer = new ZipArchive.Writer(out, end);
+    }
+  }
+
+  /**
+   * Prepares writing a new archive, which replaces the archive when this {@link VFS} is closed.
+   */
+  private void openUpdateFile() throws IOException {
+    assert updateFile == null;
+
+    updateFile = zipFile.createUpdateFile();
+    out = new BufferedOutputStream(new FileOutputStream(updateFile));
+    writer = new ZipArchive.Writer(out, 0);
+  }
+
+  /**
+   * Writes the central directory, after the appended entries or in a new archive. The archive is
+   * left untouched if it already contains the written entries and only them.
+   *
+   * @return whether the central directory has been written
+   */
+  private boolean writeDirectory() throws IOException {
+    assert out != null;
+    assert writer != null;
+
+    if (!changed && !previousEntries.isEmpty()
+        && entries.size() + keptEntries.size() == previousEntries.size()) {
+      return false;
+    }
+
+    if (updateFile == null) {
+      assert channel != null;
+      assert keptEntries.isEmpty();
+      out.flush();
+      long end = writer.getOffset();
+      long live = 0;
+      for (ZipArchive.Entry entry : entries.values()) {
+        live += entry.length;
+      }
+      if (end - live > end * MAX_DEAD_RATIO) {
+        compact(channel);
+      }
+    } else if (!keptEntries.isEmpty()) {
+      assert channel != null;
+      for (Map.Entry<String, ZipArchive.Entry> entry : keptEntries.entrySet()) {
+        entries.put(entry.getKey(), writer.copyEntry(entry.getValue(), channel));
+      }
+      keptEntries.clear();
+    }
+
+    writer.writeDirectory(entries.values());
+    out.flush();
+    return true;
+  }
+
+  /**
+   * Copies the referenced entries as is to a new archive.
+   */
+  private void compact(@Nonnull FileChannel from) throws IOException {
+    openUpdateFile();
+    assert writer != null;
+
+    for (Map.Entry<String, ZipArchive.Entry> entry : entries.entrySet()) {
+      entry.setValue(writer.copyEntry(entry.getValue(), from));
+    }
+  }
+
+  private void closeArchive() throws IOException {
+    try {
+      if (out != null) {
+        out.close();
+      }
+    } finally {
+      if (channel != null) {
+        channel.close();
+        channel = null;
+      }
+    }
+  }
+
+  /**
+   * Records an entry, writing it unless the previous archive already contains it.
+   */
+  private synchronized void putEntry(@Nonnull ZipEntry zipEntry, long crc, @Nonnegative long size,
+      @Nonnull ByteArrayOutputStream data) throws IOException {
+    open();
+    assert writer != null;
+
+    String name = zipEntry.getName();
+    ZipArchive.Entry previousEntry = previousEntries.get(name);
+    if (previousEntry != null && previousEntry.crc == crc && previousEntry.size == size
+        && hasContent(previousEntry, data)) {
+      if (updateFile == null) {
+        entries.put(name, previousEntry);
+      } else {
+        keptEntries.put(name, previousEntry);
+      }
+      VFSStatCategory.ZIP_KEPT_ENTRIES.getCounterStat(getTracer(), infoString).incValue();
+      return;
+    }
+
+    Deflater deflater = new Deflater(level, /* nowrap = */ true);
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (DeflaterOutputStream dos = new DeflaterOutputStream(compressed, deflater)) {
+      data.writeTo(dos);
+    } finally {
+      deflater.end();
+    }
+
+    ZipArchive.Entry entry = new ZipArchive.Entry(name.getBytes(StandardCharsets.UTF_8),
+        ZipArchive.FLAG_UTF8, ZipEntry.DEFLATED, ZipArchive.toDosTime(
+            zipEntry.getTime() != -1 ? zipEntry.getTime() : System.currentTimeMillis()),
+        crc, compressed.size(), size);
+    writer.writeEntry(entry, compressed);
+    entries.put(name, entry);
+    keptEntries.remove(name);
+    changed = true;
+  }
+
+  /**
+   * Returns whether an entry of the previous archive has the given content. The content is
+   * compared as a whole, since equal CRC and size do not imply the same content.
+   */
+  private boolean hasContent(@Nonnull ZipArchive.Entry previousEntry,
+      @Nonnull ByteArrayOutputStream data) throws IOException {
+    assert channel != null;
+    byte[] previousContent;
+    try {
+      previousContent = ZipArchive.readContent(channel, previousEntry);
+    } catch (ZipException e) {
+      logger.log(Level.FINE, "Rewriting {0} of {1}: {2}", new Object[] {previousEntry.getName(),
+          getLocation().getDescription(), e.getMessage()});
+      return false;
+    }
+    return Arrays.equals(previousContent, data.toByteArray());
+  }
+
+  //
+  // Stream
+  //
+
+  @Override
+  @Nonnull
+  InputStream openRead(@Nonnull ZipVFile file) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  @Nonnull
+  synchronized OutputStream openWrite(@Nonnull ZipVFile file) {
+    assert !isClosed();
+
+    if (notifyVFileOpenAndReturnPreviousState()) {
+      throw new AssertionError(getLocation().getDescription()
+          + " cannot be written to because a previous stream has not been closed.");
+    }
+
+    return new ZipEntryOutputStream(file.getZipEntry());
+  }
+
+  @Override
+  @Nonnull
+  OutputStream openWrite(@Nonnull ZipVFile file, boolean append) {
+    if (append) {
+      throw new UnsupportedOperationException();
+    } else {
+      return openWrite(file);
+    }
+  }
+
+  //
+  // VElement
+  //
+
+  @Override
+  @Nonnull
+  ZipVDir getVDir(@Nonnull ZipVDir parent, @Nonnull String name) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  @Nonnull
+  ZipVFile getVFile(@Nonnull ZipVDir parent, @Nonnull String name) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  @Nonnull
+  ZipVDir createVDir(@Nonnull ZipVDir parent, @Nonnull String name) {
+    assert !isClosed();
+
+    return new ZipVDir(this, new ZipEntry(parent.getZipEntry().getName() + name + '/'), name);
+  }
+
+  @Override
+  @Nonnull
+  ZipVFile createVFile(@Nonnull ZipVDir parent, @Nonnull String name) {
+    assert !isClosed();
+
+    ZipVFile vFile = new ZipVFile(this, new ZipEntry(parent.getZipEntry().getName() + name), name);
+
+    VFSStatCategory.ZIP_CREATED_ENTRIES.getCounterStat(getTracer(), infoString).incValue();
+
+    return vFile;
+  }
+
+  @Override
+  @Nonnull
+  void delete(@Nonnull ZipVFile file) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  @Nonnull
+  Collection<? extends BaseVElement> list(@Nonnull ZipVDir dir) {
+    return dir.list();
+  }
+
+  @Override
+  boolean isEmpty(@Nonnull ZipVDir dir) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  @Nonnull
+  FileTime getLastModified(@Nonnull ZipVFile file) {
+    throw new UnsupportedOperationException();
+  }
+
+  //
+  // Location
+  //
+
+  @Override
+  @Nonnull
+  Location getVFileLocation(@Nonnull ZipVFile file) {
+    return new ZipLocation(zipFile.getLocation(), file.getZipEntry());
+  }
+
+  @Override
+  @Nonnull
+  Location getVFileLocation(@Nonnull ZipVDir parent, @Nonnull String name) {
+    return new ZipLocation(zipFile.getLocation(),
+        new ZipEntry(parent.getZipEntry().getName() + name));
+  }
+
+  @Override
+  @Nonnull
+  Location getVDirLocation(@Nonnull ZipVDir dir) {
+    return new ZipLocation(zipFile.getLocation(), dir.getZipEntry());
+  }
+
+  @Override
+  @Nonnull
+  Location getVDirLocation(@Nonnull ZipVDir parent, @Nonnull String name) {
+    return new ZipLocation(zipFile.getLocation(),
+        new ZipEntry(parent.getZipEntry().getName() + name + '/'));
+  }
+
+  @Override
+  @Nonnull
+  Location getVFileLocation(@Nonnull ZipVDir parent, @Nonnull VPath path) {
+    return new ZipLocation(zipFile.getLocation(),
+        new ZipEntry(parent.getZipEntry().getName() + path.getPathAsString('/')));
+  }
+
+  @Override
+  @Nonnull
+  Location getVDirLocation(@Nonnull ZipVDir parent, @Nonnull VPath path) {
+    return new ZipLocation(zipFile.getLocation(),
+        new ZipEntry(parent.getZipEntry().getName() + path.getPathAsString('/') + '/'));
+  }
+
+  //
+  // Misc
+  //
+
+  @Override
+  public boolean needsSequentialWriting() {
+    return true;
+  }
+
+  @Override
+  @Nonnull
+  public Set<Capabilities> getCapabilities() {
+    return CAPABILITIES;
+  }
+
+  /**
+   * Buffers the content of an entry, to compare it with the previous archive when closed.
+   */
+  private class ZipEntryOutputStream extends OutputStream {
+    @Nonnull
+    private final ZipEntry zipEntry;
+    @Nonnull
+    private final CRC32 crc = new CRC32();
+    @Nonnull
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private boolean isClosed = false;
+
+    ZipEntryOutputStream(@Nonnull ZipEntry zipEntry) {
+      this.zipEntry = zipEntry;
+    }
+
+    @Override
+    public void write(int b) {
+      crc.update(b);
+      buffer.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      crc.update(b, off, len);
+      buffer.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!isClosed) {
+        isClosed = true;
+        try {
+          putEntry(zipEntry, crc.getValue(), buffer.size(), buffer);
+        } finally {
+          notifyVFileClosed();
+        }
+      }
+    }
+  }
+
+  @Override
+  @Nonnull
+  VPath getPathFromDir(@Nonnull ZipVDir parent, @Nonnull ZipVFile file) {
+    String fileEntryPath = file.getZipEntry().getName();
+    String parentEntryPath = parent.getZipEntry().getName();
+    assert fileEntryPath.contains(parentEntryPath);
+    String newPath = fileEntryPath.substring(fileEntryPath.indexOf(parentEntryPath));
+    return new VPath(newPath, '/');
+  }
+
+  @Override
+  @Nonnull
+  VPath getPathFromRoot(@Nonnull ZipVFile file) {
+    return getPathFromDir(root, file);
+  }
+
+  public void setInfoString(@CheckForNull String infoString) {
+    this.infoString = infoString;
+  }
+
+  @Override
+  public String getInfoString() {
+    return infoString;
+  }
+
+  @Override
+  public String toString() {
+    return "uwZipFS: " + getLocation().getDescription();
+  }
+}
@@ -38,6 +38,8 @@ public enum VFSStatCategory {
   ZIP_READ("zip", "opened-for-reading-entries", "Zip entries opened for reading",
       DummyStat.COUNTER),
   ZIP_CREATED_ENTRIES("zip", "created-entries", "Created zip entries", DummyStat.COUNTER),
+  ZIP_KEPT_ENTRIES("zip", "kept-entries", "Zip entries kept from the previous archive",
+      DummyStat.COUNTER),
   DIR_READ("dir", "opened-for-reading-files", "Physical files opened for reading",
       DummyStat.COUNTER),
   DIR_WRITE("dir", "opened-for-writing-files", "Physical files opened for writing",
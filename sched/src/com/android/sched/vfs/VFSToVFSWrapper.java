@@ -32,6 +32,7 @@ import com.android.sched.util.stream.LocationByteStreamSucker;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.attribute.FileTime;
 import java.util.Collection;
 import java.util.Collections;
@@ -173,6 +174,12 @@ public class VFSToVFSWrapper extends BaseVFS<BaseVDir, BaseVFile> implements VFS
     return workVFS.openRead(file);
   }
 
+  @Override
+  @CheckForNull
+  ByteBuffer getByteBuffer(@Nonnull BaseVFile file) throws WrongPermissionException {
+    return workVFS.getByteBuffer(file);
+  }
+
   @Override
   @Nonnull
   OutputStream openWrite(@Nonnull BaseVFile file) throws WrongPermissionException {
@@ -24,6 +24,7 @@ import com.android.sched.util.file.CannotWriteException;
 import com.android.sched.util.file.WrongPermissionException;
 
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.attribute.FileTime;
 
 import javax.annotation.CheckForNull;
@@ -42,6 +43,15 @@ public interface VFile extends VElement, InputStreamProvider, OutputStreamProvid
   @CheckForNull
   String getDigest();
 
+  /**
+   * Returns the content of this file as a read-only buffer, possibly memory-mapped, when it can be
+   * read without being streamed. The content must not be modified while the buffer is used.
+   *
+   * @return the content, or null if it must be read from {@link #getInputStream()}
+   */
+  @CheckForNull
+  ByteBuffer getByteBuffer() throws WrongPermissionException;
+
   @Nonnull
   FileTime getLastModified() throws CannotGetModificationTimeException;
 
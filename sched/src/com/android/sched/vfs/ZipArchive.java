@@ -0,0 +1,601 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.vfs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Reads and writes the records of a zip archive, for the zip {@link VFS} implementations that
+ * write archives without a {@link java.util.zip.ZipOutputStream}.
+ */
+final class ZipArchive {
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+  private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+  private static final int END_SIGNATURE = 0x06054b50;
+  private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+  private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+  private static final int ZIP64_EXTRA_ID = 0x0001;
+
+  private static final int LOCAL_HEADER_SIZE = 30;
+  private static final int CENTRAL_HEADER_SIZE = 46;
+  private static final int END_SIZE = 22;
+  private static final int ZIP64_END_SIZE = 56;
+  private static final int ZIP64_LOCATOR_SIZE = 20;
+  private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+  private static final int VERSION = 20;
+  private static final int ZIP64_VERSION = 45;
+
+  /** Names are encoded in UTF-8 */
+  static final int FLAG_UTF8 = 0x0800;
+  /** Sizes and CRC follow the data, in a data descriptor */
+  private static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+
+  private static final long ZIP64_MAGIC_VALUE = 0xFFFFFFFFL;
+  private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+  private ZipArchive() {
+    // do not instantiate
+  }
+
+  /**
+   * What the central directory records about an entry.
+   */
+  static class Entry {
+    @Nonnull
+    final byte[] name;
+    final int flags;
+    final int method;
+    final long dosTime;
+    final long crc;
+    @Nonnegative
+    final long compressedSize;
+    @Nonnegative
+    final long size;
+
+    /** Offset of the local header in the archive, once written */
+    long offset = -1;
+    /** Length of the entry in the archive, from its local header to the end of its data */
+    @Nonnegative
+    long length = 0;
+
+    Entry(@Nonnull byte[] name, int flags, int method, long dosTime, long crc,
+        @Nonnegative long compressedSize, @Nonnegative long size) {
+      this.name = name;
+      this.flags = flags;
+      this.method = method;
+      this.dosTime = dosTime;
+      this.crc = crc;
+      this.compressedSize = compressedSize;
+      this.size = size;
+    }
+
+    @Nonnull
+    String getName() {
+      return new String(name, StandardCharsets.UTF_8);
+    }
+
+    boolean isZip64() {
+      return size >= ZIP64_MAGIC_VALUE || compressedSize >= ZIP64_MAGIC_VALUE;
+    }
+  }
+
+  /**
+   * Central directory of an existing archive.
+   */
+  static class Directory {
+    /** Entries, in the order of the central directory */
+    @Nonnull
+    final List<Entry> entries;
+    /** Offset of the central directory, which is also the end of the entries */
+    @Nonnegative
+    final long offset;
+
+    Directory(@Nonnull List<Entry> entries, @Nonnegative long offset) {
+      this.entries = entries;
+      this.offset = offset;
+    }
+  }
+
+  /**
+   * Reads the central directory of an archive, and the length of each entry from its local header.
+   *
+   * @throws ZipException if the archive is not a single-disk zip archive whose central directory
+   *     directly follows its entries
+   */
+  @Nonnull
+  static Directory readDirectory(@Nonnull FileChannel channel) throws IOException {
+    long fileSize = channel.size();
+    if (fileSize < END_SIZE) {
+      throw new ZipException("Not a zip archive");
+    }
+
+    int tailSize = (int) Math.min(fileSize, END_SIZE + MAX_COMMENT_SIZE);
+    ByteBuffer tail = read(channel, fileSize - tailSize, tailSize);
+    int end = -1;
+    for (int position = tailSize - END_SIZE; position >= 0; position--) {
+      if (tail.getInt(position) == END_SIGNATURE) {
+        end = position;
+        break;
+      }
+    }
+    if (end < 0) {
+      throw new ZipException("End of central directory not found");
+    }
+    long endOffset = fileSize - tailSize + end;
+
+    long count = tail.getShort(end + 10) & 0xFFFF;
+    long centralSize = tail.getInt(end + 12) & ZIP64_MAGIC_VALUE;
+    long centralOffset = tail.getInt(end + 16) & ZIP64_MAGIC_VALUE;
+    long centralEnd = endOffset;
+    if ((tail.getShort(end + 4) & 0xFFFF) != 0 || (tail.getShort(end + 6) & 0xFFFF) != 0) {
+      throw new ZipException("Multi-disk archives are not supported");
+    }
+    if (count == ZIP64_MAGIC_COUNT || centralSize == ZIP64_MAGIC_VALUE
+        || centralOffset == ZIP64_MAGIC_VALUE) {
+      if (endOffset < ZIP64_END_SIZE + ZIP64_LOCATOR_SIZE) {
+        throw new ZipException("Zip64 end of central directory not found");
+      }
+      ByteBuffer locator = read(channel, endOffset - ZIP64_LOCATOR_SIZE, ZIP64_LOCATOR_SIZE);
+      if (locator.getInt(0) != ZIP64_LOCATOR_SIGNATURE) {
+        throw new ZipException("Zip64 end of central directory not found");
+      }
+      long zip64EndOffset = locator.getLong(8);
+      if (zip64EndOffset + ZIP64_END_SIZE > endOffset - ZIP64_LOCATOR_SIZE) {
+        throw new ZipException("Invalid zip64 end of central directory");
+      }
+      ByteBuffer zip64End = read(channel, zip64EndOffset, ZIP64_END_SIZE);
+      if (zip64End.getInt(0) != ZIP64_END_SIGNATURE) {
+        throw new ZipException("Invalid zip64 end of central directory");
+      }
+      count = zip64End.getLong(32);
+      centralSize = zip64End.getLong(40);
+      centralOffset = zip64End.getLong(48);
+      centralEnd = zip64EndOffset;
+    }
+    if (centralOffset < 0 || centralSize < 0 || centralOffset + centralSize != centralEnd
+        || centralSize > Integer.MAX_VALUE) {
+      throw new ZipException("Central directory does not follow the entries");
+    }
+
+    ByteBuffer central = read(channel, centralOffset, (int) centralSize);
+    List<Entry> entries = new ArrayList<Entry>((int) Math.min(count, ZIP64_MAGIC_COUNT));
+    int position = 0;
+    for (long i = 0; i < count; i++) {
+      if (position + CENTRAL_HEADER_SIZE > centralSize
+          || central.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+        throw new ZipException("Invalid central directory header");
+      }
+      int nameLength = central.getShort(position + 28) & 0xFFFF;
+      int extraLength = central.getShort(position + 30) & 0xFFFF;
+      int commentLength = central.getShort(position + 32) & 0xFFFF;
+      int headerSize = CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+      if (position + headerSize > centralSize) {
+        throw new ZipException("Invalid central directory header");
+      }
+
+      long compressedSize = central.getInt(position + 20) & ZIP64_MAGIC_VALUE;
+      long size = central.getInt(position + 24) & ZIP64_MAGIC_VALUE;
+      long offset = central.getInt(position + 42) & ZIP64_MAGIC_VALUE;
+      int extra = position + CENTRAL_HEADER_SIZE + nameLength;
+      int extraEnd = extra + extraLength;
+      while (extra + 4 <= extraEnd) {
+        int id = central.getShort(extra) & 0xFFFF;
+        int dataSize = central.getShort(extra + 2) & 0xFFFF;
+        if (id == ZIP64_EXTRA_ID) {
+          int field = extra + 4;
+          int fieldEnd = Math.min(field + dataSize, extraEnd);
+          if (size == ZIP64_MAGIC_VALUE && field + 8 <= fieldEnd) {
+            size = central.getLong(field);
+            field += 8;
+          }
+          if (compressedSize == ZIP64_MAGIC_VALUE && field + 8 <= fieldEnd) {
+            compressedSize = central.getLong(field);
+            field += 8;
+          }
+          if (offset == ZIP64_MAGIC_VALUE && field + 8 <= fieldEnd) {
+            offset = central.getLong(field);
+          }
+        }
+        extra += 4 + dataSize;
+      }
+
+      byte[] name = new byte[nameLength];
+      central.position(position + CENTRAL_HEADER_SIZE);
+      central.get(name);
+      Entry entry = new Entry(name,
+          central.getShort(position + 8) & 0xFFFF,
+          central.getShort(position + 10) & 0xFFFF,
+          central.getInt(position + 12) & ZIP64_MAGIC_VALUE,
+          central.getInt(position + 16) & ZIP64_MAGIC_VALUE,
+          compressedSize, size);
+      entry.offset = offset;
+      entry.length = readLength(channel, entry, centralOffset);
+      entries.add(entry);
+
+      position += headerSize;
+    }
+
+    return new Directory(entries, centralOffset);
+  }
+
+  /**
+   * Returns the length of an entry, from its local header to the end of its data descriptor.
+   */
+  @Nonnegative
+  private static long readLength(@Nonnull FileChannel channel, @Nonnull Entry entry,
+      @Nonnegative long limit) throws IOException {
+    if (entry.offset < 0 || entry.offset + LOCAL_HEADER_SIZE > limit) {
+      throw new ZipException("Invalid local header offset");
+    }
+    ByteBuffer header = read(channel, entry.offset, LOCAL_HEADER_SIZE);
+    if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+      throw new ZipException("Invalid local header");
+    }
+    long length = LOCAL_HEADER_SIZE + (header.getShort(26) & 0xFFFF)
+        + (header.getShort(28) & 0xFFFF) + entry.compressedSize;
+    if ((entry.flags & FLAG_DATA_DESCRIPTOR) != 0) {
+      int descriptorSize = entry.isZip64() ? 20 : 12;
+      if (entry.offset + length + 4 <= limit
+          && read(channel, entry.offset + length, 4).getInt(0) == DATA_DESCRIPTOR_SIGNATURE) {
+        descriptorSize += 4;
+      }
+      length += descriptorSize;
+    }
+    if (entry.offset + length > limit) {
+      throw new ZipException("Entry overlaps the central directory");
+    }
+    return length;
+  }
+
+  /**
+   * Reads the uncompressed content of an entry of an archive.
+   *
+   * @throws ZipException if the entry is neither stored nor deflated, or if its content does not
+   *     have the size recorded in the central directory
+   */
+  @Nonnull
+  static byte[] readContent(@Nonnull FileChannel channel, @Nonnull Entry entry)
+      throws IOException {
+    if (entry.size > Integer.MAX_VALUE - 8 || entry.compressedSize > Integer.MAX_VALUE - 8) {
+      throw new ZipException("Entry too large");
+    }
+    ByteBuffer header = read(channel, entry.offset, LOCAL_HEADER_SIZE);
+    long dataOffset = entry.offset + LOCAL_HEADER_SIZE + (header.getShort(26) & 0xFFFF)
+        + (header.getShort(28) & 0xFFFF);
+    ByteBuffer data = read(channel, dataOffset, (int) entry.compressedSize);
+    switch (entry.method) {
+      case ZipEntry.STORED:
+        if (entry.compressedSize != entry.size) {
+          throw new ZipException("Invalid stored entry size");
+        }
+        return data.array();
+      case ZipEntry.DEFLATED:
+        // An extra byte is needed by the inflater without zlib header
+        byte[] input = new byte[(int) entry.compressedSize + 1];
+        data.get(input, 0, (int) entry.compressedSize);
+        byte[] content = new byte[(int) entry.size];
+        Inflater inflater = new Inflater(/* nowrap = */ true);
+        try {
+          inflater.setInput(input);
+          int length = 0;
+          while (length < content.length && !inflater.finished()) {
+            int inflated = inflater.inflate(content, length, content.length - length);
+            if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+              break;
+            }
+            length += inflated;
+          }
+          if (length != content.length
+              || (!inflater.finished() && inflater.inflate(new byte[1]) != 0)) {
+            throw new ZipException("Invalid deflated entry size");
+          }
+        } catch (DataFormatException e) {
+          throw new ZipException(e.getMessage());
+        } finally {
+          inflater.end();
+        }
+        return content;
+      default:
+        throw new ZipException("Unsupported compression method " + entry.method);
+    }
+  }
+
+  @Nonnull
+  private static ByteBuffer read(@Nonnull FileChannel channel, @Nonnegative long position,
+      @Nonnegative int size) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new EOFException();
+      }
+    }
+    buffer.clear();
+    return buffer;
+  }
+
+  /**
+   * Returns the date and time of the MS-DOS format used by zip archives.
+   */
+  static long toDosTime(long time) {
+    Calendar calendar = Calendar.getInstance();
+    calendar.setTimeInMillis(time);
+    int year = calendar.get(Calendar.YEAR);
+    if (year < 1980) {
+      return (1 << 21) | (1 << 16);
+    }
+    return ((year - 1980) << 25)
+        | ((calendar.get(Calendar.MONTH) + 1) << 21)
+        | (calendar.get(Calendar.DAY_OF_MONTH) << 16)
+        | (calendar.get(Calendar.HOUR_OF_DAY) << 11)
+        | (calendar.get(Calendar.MINUTE) << 5)
+        | (calendar.get(Calendar.SECOND) >> 1);
+  }
+
+  /**
+   * Writes entries in the zip format, using Zip64 extensions only when needed.
+   */
+  static class Writer {
+    @Nonnull
+    private final OutputStream out;
+    @Nonnegative
+    private long offset;
+    @Nonnull
+    private final byte[] buffer = new byte[8];
+
+    /**
+     * @param out the stream where to write
+     * @param offset the offset in the archive of the first byte written to the stream
+     */
+    Writer(@Nonnull OutputStream out, @Nonnegative long offset) {
+      this.out = out;
+      this.offset = offset;
+    }
+
+    @Nonnegative
+    long getOffset() {
+      return offset;
+    }
+
+    /**
+     * Writes an entry, with its local header followed by its data.
+     */
+    void writeEntry(@Nonnull Entry entry, @Nonnull ByteArrayOutputStream data)
+        throws IOException {
+      assert data.size() == entry.compressedSize;
+
+      writeLocalHeader(entry);
+      data.writeTo(out);
+      offset += data.size();
+      entry.length = offset - entry.offset;
+    }
+
+    /**
+     * Writes an entry, with its local header followed by its data read from the given stream.
+     */
+    void writeEntry(@Nonnull Entry entry, @Nonnull InputStream data) throws IOException {
+      writeLocalHeader(entry);
+
+      byte[] chunk = new byte[(int) Math.min(Math.max(entry.compressedSize, 1), COPY_BUFFER_SIZE)];
+      long copied = 0;
+      while (copied < entry.compressedSize) {
+        int read = data.read(chunk, 0, (int) Math.min(chunk.length, entry.compressedSize - copied));
+        if (read < 0) {
+          throw new EOFException();
+        }
+        out.write(chunk, 0, read);
+        copied += read;
+      }
+      offset += copied;
+      entry.length = offset - entry.offset;
+    }
+
+    private void writeLocalHeader(@Nonnull Entry entry) throws IOException {
+      assert (entry.flags & FLAG_DATA_DESCRIPTOR) == 0;
+
+      entry.offset = offset;
+      boolean zip64 = entry.isZip64();
+
+      writeInt(LOCAL_HEADER_SIGNATURE);
+      writeShort(zip64 ? ZIP64_VERSION : VERSION);
+      writeShort(entry.flags);
+      writeShort(entry.method);
+      writeInt(entry.dosTime);
+      writeInt(entry.crc);
+      if (zip64) {
+        writeInt(ZIP64_MAGIC_VALUE);
+        writeInt(ZIP64_MAGIC_VALUE);
+      } else {
+        writeInt(entry.compressedSize);
+        writeInt(entry.size);
+      }
+      writeShort(entry.name.length);
+      writeShort(zip64 ? 20 : 0);
+      writeBytes(entry.name);
+      if (zip64) {
+        writeShort(ZIP64_EXTRA_ID);
+        writeShort(16);
+        writeLong(entry.size);
+        writeLong(entry.compressedSize);
+      }
+    }
+
+    /**
+     * Copies an entry of another archive as is, from its local header to the end of its data.
+     *
+     * @return the entry in the archive being written
+     */
+    @Nonnull
+    Entry copyEntry(@Nonnull Entry entry, @Nonnull FileChannel from) throws IOException {
+      Entry copy = new Entry(entry.name, entry.flags, entry.method, entry.dosTime, entry.crc,
+          entry.compressedSize, entry.size);
+      copy.offset = offset;
+      copy.length = entry.length;
+
+      byte[] chunk = new byte[(int) Math.min(entry.length, COPY_BUFFER_SIZE)];
+      ByteBuffer buffer = ByteBuffer.wrap(chunk);
+      long copied = 0;
+      while (copied < entry.length) {
+        buffer.clear();
+        buffer.limit((int) Math.min(chunk.length, entry.length - copied));
+        while (buffer.hasRemaining()) {
+          if (from.read(buffer, entry.offset + copied + buffer.position()) < 0) {
+            throw new EOFException();
+          }
+        }
+        out.write(chunk, 0, buffer.limit());
+        copied += buffer.limit();
+      }
+      offset += entry.length;
+
+      return copy;
+    }
+
+    /**
+     * Writes the central directory and the end records, after the entries.
+     */
+    void writeDirectory(@Nonnull Collection<? extends Entry> entries) throws IOException {
+      long centralOffset = offset;
+      for (Entry entry : entries) {
+        writeCentralHeader(entry);
+      }
+      long centralSize = offset - centralOffset;
+
+      int count = entries.size();
+      if (count >= ZIP64_MAGIC_COUNT || centralOffset >= ZIP64_MAGIC_VALUE
+          || centralSize >= ZIP64_MAGIC_VALUE) {
+        long zip64EndOffset = offset;
+        writeInt(ZIP64_END_SIGNATURE);
+        writeLong(ZIP64_END_SIZE - 12); // size of the remaining of the record
+        writeShort(ZIP64_VERSION);
+        writeShort(ZIP64_VERSION);
+        writeInt(0); // number of this disk
+        writeInt(0); // disk of the central directory
+        writeLong(count);
+        writeLong(count);
+        writeLong(centralSize);
+        writeLong(centralOffset);
+
+        writeInt(ZIP64_LOCATOR_SIGNATURE);
+        writeInt(0); // disk of the zip64 end of central directory
+        writeLong(zip64EndOffset);
+        writeInt(1); // number of disks
+      }
+
+      writeInt(END_SIGNATURE);
+      writeShort(0); // number of this disk
+      writeShort(0); // disk of the central directory
+      writeShort(Math.min(count, ZIP64_MAGIC_COUNT));
+      writeShort(Math.min(count, ZIP64_MAGIC_COUNT));
+      writeInt(Math.min(centralSize, ZIP64_MAGIC_VALUE));
+      writeInt(Math.min(centralOffset, ZIP64_MAGIC_VALUE));
+      writeShort(0); // comment length
+    }
+
+    private void writeCentralHeader(@Nonnull Entry entry) throws IOException {
+      assert entry.offset >= 0;
+
+      boolean zip64Size = entry.size >= ZIP64_MAGIC_VALUE;
+      boolean zip64CompressedSize = entry.compressedSize >= ZIP64_MAGIC_VALUE;
+      boolean zip64Offset = entry.offset >= ZIP64_MAGIC_VALUE;
+      int extraLength = (zip64Size ? 8 : 0) + (zip64CompressedSize ? 8 : 0) + (zip64Offset ? 8 : 0);
+      boolean zip64 = extraLength > 0;
+
+      writeInt(CENTRAL_HEADER_SIGNATURE);
+      writeShort(zip64 ? ZIP64_VERSION : VERSION); // version made by
+      writeShort(zip64 ? ZIP64_VERSION : VERSION); // version needed to extract
+      writeShort(entry.flags);
+      writeShort(entry.method);
+      writeInt(entry.dosTime);
+      writeInt(entry.crc);
+      writeInt(Math.min(entry.compressedSize, ZIP64_MAGIC_VALUE));
+      writeInt(Math.min(entry.size, ZIP64_MAGIC_VALUE));
+      writeShort(entry.name.length);
+      writeShort(zip64 ? extraLength + 4 : 0);
+      writeShort(0); // comment length
+      writeShort(0); // disk number
+      writeShort(0); // internal attributes
+      writeInt(0); // external attributes
+      writeInt(Math.min(entry.offset, ZIP64_MAGIC_VALUE));
+      writeBytes(entry.name);
+      if (zip64) {
+        writeShort(ZIP64_EXTRA_ID);
+        writeShort(extraLength);
+        if (zip64Size) {
+          writeLong(entry.size);
+        }
+        if (zip64CompressedSize) {
+          writeLong(entry.compressedSize);
+        }
+        if (zip64Offset) {
+          writeLong(entry.offset);
+        }
+      }
+    }
+
+    private void writeShort(int value) throws IOException {
+      buffer[0] = (byte) value;
+      buffer[1] = (byte) (value >> 8);
+      out.write(buffer, 0, 2);
+      offset += 2;
+    }
+
+    private void writeInt(long value) throws IOException {
+      buffer[0] = (byte) value;
+      buffer[1] = (byte) (value >> 8);
+      buffer[2] = (byte) (value >> 16);
+      buffer[3] = (byte) (value >> 24);
+      out.write(buffer, 0, 4);
+      offset += 4;
+    }
+
+    private void writeLong(long value) throws IOException {
+      for (int i = 0; i < 8; i++) {
+        buffer[i] = (byte) (value >> (i * 8));
+      }
+      out.write(buffer, 0, 8);
+      offset += 8;
+    }
+
+    private void writeBytes(@Nonnull byte[] bytes) throws IOException {
+      out.write(bytes);
+      offset += bytes.length;
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.vfs;
+
+import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.file.CannotCloseException;
+import com.android.sched.util.file.OutputZipFile;
+import com.android.sched.util.location.Location;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * An {@link OutputVFS} backed by a zip archive, written by a {@link ParallelWriteZipFS} when
+ * {@link ParallelWriteZipFS#PARALLEL_WRITE} is enabled, and by a {@link WriteZipFS} otherwise.
+ * The writer is selected when the archive is first used, since the configuration is not
+ * available yet when the output is parsed.
+ */
+public class ZipOutputVFS extends AbstractVFS implements OutputVFS {
+  @Nonnull
+  private final OutputZipFile zipFile;
+
+  @CheckForNull
+  private final String infoString;
+
+  @CheckForNull
+  private OutputVFS vfs;
+
+  private boolean closed = false;
+
+  public ZipOutputVFS(@Nonnull OutputZipFile zipFile, @CheckForNull String infoString) {
+    this.zipFile = zipFile;
+    this.infoString = infoString;
+  }
+
+  @Nonnull
+  private synchronized OutputVFS getOutputVFS() {
+    assert !closed;
+
+    if (vfs == null) {
+      if (ThreadConfig.get(ParallelWriteZipFS.PARALLEL_WRITE).booleanValue()) {
+        ParallelWriteZipFS parallelVFS = new ParallelWriteZipFS(zipFile);
+        parallelVFS.setInfoString(infoString);
+        vfs = new GenericOutputVFS(parallelVFS);
+      } else {
+        WriteZipFS sequentialVFS = new WriteZipFS(zipFile);
+        sequentialVFS.setInfoString(infoString);
+        vfs = new GenericOutputVFS(sequentialVFS);
+      }
+    }
+
+    return vfs;
+  }
+
+  @Override
+  @Nonnull
+  public String getPath() {
+    return zipFile.getPath();
+  }
+
+  @Override
+  @Nonnull
+  public Location getLocation() {
+    return zipFile.getLocation();
+  }
+
+  @Override
+  @Nonnull
+  public OutputVDir getRootOutputVDir() {
+    return getOutputVFS().getRootOutputVDir();
+  }
+
+  @Override
+  public boolean needsSequentialWriting() {
+    return getOutputVFS().needsSequentialWriting();
+  }
+
+  @Override
+  public synchronized void close() throws CannotCloseException {
+    if (!closed) {
+      // An archive which was never used is left as is, like with a WriteZipFS
+      if (vfs != null) {
+        vfs.close();
+      }
+      closed = true;
+    }
+  }
+
+  @Override
+  public synchronized boolean isClosed() {
+    return closed;
+  }
+
+  @Override
+  @Nonnull
+  public VFS getVFS() {
+    return getOutputVFS().getVFS();
+  }
+
+  @Override
+  @Nonnull
+  public String toString() {
+    return "outputFS >> " + (vfs != null ? vfs.getVFS().toString() : zipFile.getPath());
+  }
+}
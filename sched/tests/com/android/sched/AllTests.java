@@ -28,6 +28,8 @@ com.android.sched.item.AllTests.class,
     com.android.sched.config.AllTests.class,
     com.android.sched.util.AllTests.class,
     com.android.sched.util.file.AllTests.class,
+    com.android.sched.util.log.AllTests.class,
+    com.android.sched.vfs.MappedReadZipFSTest.class,
     com.android.sched.vfs.VFSTest.class})
 public class AllTests {
 }
@@ -21,6 +21,6 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
-@SuiteClasses(value = {LoggerFactoryTest.class})
+@SuiteClasses(value = {LoggerFactoryTest.class, ProgressTracerTest.class})
 public class AllTests {
 }
\ No newline at end of file
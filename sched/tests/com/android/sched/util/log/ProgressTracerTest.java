@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.util.log;
+
+import com.android.sched.util.config.AsapConfigBuilder;
+import com.android.sched.util.config.ConfigurationError;
+import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.location.FileLocation;
+import com.android.sched.util.location.StringLocation;
+import com.android.sched.util.log.tracer.TracerEventType;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Test for {@link ProgressTracer}.
+ */
+public class ProgressTracerTest {
+
+  private static enum TestEventType implements EventType {
+    PHASE1("Phase 1"),
+    PHASE2("Phase 2"),
+    PHASE3("Phase 3");
+
+    @Nonnull
+    private final String name;
+
+    TestEventType(@Nonnull String name) {
+      this.name = name;
+    }
+
+    @Override
+    @Nonnull
+    public String getName() {
+      return name;
+    }
+  }
+
+  @After
+  public void tearDown() {
+    ThreadConfig.unsetConfig();
+  }
+
+  @Test
+  public void testPhases() throws Exception {
+    File progress = createTempFile();
+    Tracer tracer = createTracer(progress, "none");
+
+    Event phase1 = tracer.open(TestEventType.PHASE1);
+    Event phase2 = tracer.open(TestEventType.PHASE2);
+    // Over the depth
+    Event phase3 = tracer.open(TestEventType.PHASE3);
+    phase3.close();
+    phase2.close();
+    // Events without a type are not reported, but nest
+    Event named = tracer.open("named");
+    Event notReported = tracer.open(TestEventType.PHASE3);
+    notReported.close();
+    named.close();
+    Event notype = tracer.open(TracerEventType.NOTYPE);
+    notype.close();
+    phase1.close();
+
+    List<String> lines = readLines(progress);
+    Assert.assertEquals(4, lines.size());
+    Assert.assertEquals("start|Phase 1", lines.get(0));
+    Assert.assertEquals("start|Phase 2", lines.get(1));
+    Assert.assertTrue(lines.get(2).startsWith("end|Phase 2|"));
+    Assert.assertTrue(lines.get(3).startsWith("end|Phase 1|"));
+  }
+
+  @Test
+  public void testConcurrentPhase() throws Exception {
+    File progress = createTempFile();
+    final Tracer tracer = createTracer(progress, "none");
+
+    Event phase1 = tracer.open(TestEventType.PHASE1);
+    final Event[] events = new Event[2];
+    Thread thread = new ThreadWithTracer(new Runnable() {
+      @Override
+      public void run() {
+        // Same phase as the parent thread, then a phase over the depth carried to the thread
+        events[0] = tracer.open(TestEventType.PHASE1);
+        events[1] = tracer.open(TestEventType.PHASE2);
+        events[1].close();
+      }
+    });
+    thread.start();
+    thread.join();
+    Assert.assertEquals(1, readLines(progress).size());
+    phase1.close();
+    Assert.assertEquals(1, readLines(progress).size());
+    events[0].close();
+
+    List<String> lines = readLines(progress);
+    Assert.assertEquals(2, lines.size());
+    Assert.assertEquals("start|Phase 1", lines.get(0));
+    Assert.assertTrue(lines.get(1).startsWith("end|Phase 1|"));
+  }
+
+  @Test
+  public void testNotifyOutput() throws Exception {
+    File progress = createTempFile();
+    ProgressTracer tracer = (ProgressTracer) createTracer(progress, "none");
+
+    File output = new File("out", "classes.dex");
+    tracer.notifyOutput(new FileLocation(output));
+    tracer.notifyOutput(new StringLocation("not a file"));
+
+    List<String> lines = readLines(progress);
+    Assert.assertEquals(1, lines.size());
+    Assert.assertEquals("output|" + output.getPath(), lines.get(0));
+  }
+
+  @Test
+  public void testDelegate() throws Exception {
+    Tracer tracer = createTracer(createTempFile(), "none");
+    Assert.assertFalse(tracer.isTracing());
+    Assert.assertEquals(TracerEventType.NOEVENT, tracer.getCurrentEventType());
+
+    File progress = createTempFile();
+    File statistics = createTempFile();
+    ThreadConfig.setConfig(new AsapConfigBuilder(/* debug = */ false)
+        .setString(TracerFactory.TRACER, "progress")
+        .setString(ProgressTracer.STREAM, progress.getPath())
+        .setString(ProgressTracer.TRACER, "stat-only")
+        .setString(StatisticOnlyTracer.STREAM, statistics.getPath())
+        .build());
+    tracer = TracerFactory.getTracer();
+    Assert.assertTrue(tracer instanceof ProgressTracer);
+    Assert.assertTrue(tracer.isTracing());
+    Assert.assertEquals(TracerEventType.SINGLETON, tracer.getCurrentEventType());
+    Assert.assertEquals(TracerEventType.SINGLETON, tracer.getDynamicEventType("dynamic"));
+
+    Event phase1 = tracer.open(TestEventType.PHASE1);
+    Assert.assertEquals(TracerEventType.SINGLETON, phase1.getType());
+    phase1.close();
+
+    // Phases are still reported with the type of the events
+    List<String> lines = readLines(progress);
+    Assert.assertEquals(2, lines.size());
+    Assert.assertEquals("start|Phase 1", lines.get(0));
+  }
+
+  @Test
+  public void testProgressDelegate() throws Exception {
+    File progress = createTempFile();
+    try {
+      createTracer(progress, "progress");
+      Assert.fail();
+    } catch (RuntimeException e) {
+      // The tracer is instantiated by reflection
+      Assert.assertTrue(e.getCause() instanceof ConfigurationError);
+    }
+  }
+
+  @Nonnull
+  private static Tracer createTracer(@Nonnull File progress, @Nonnull String delegate)
+      throws Exception {
+    ThreadConfig.setConfig(new AsapConfigBuilder(/* debug = */ false)
+        .setString(TracerFactory.TRACER, "progress")
+        .setString(ProgressTracer.STREAM, progress.getPath())
+        .setString(ProgressTracer.DEPTH, "2")
+        .setString(ProgressTracer.TRACER, delegate)
+        .build());
+    Tracer tracer = TracerFactory.getTracer();
+    Assert.assertTrue(tracer instanceof ProgressTracer);
+    return tracer;
+  }
+
+  @Nonnull
+  private static File createTempFile() throws Exception {
+    File file = File.createTempFile("progress-tracer-test", ".txt");
+    file.deleteOnExit();
+    return file;
+  }
+
+  @Nonnull
+  private static List<String> readLines(@Nonnull File file) throws Exception {
+    List<String> lines = new ArrayList<String>();
+    for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+      Assert.assertTrue(line.startsWith(ProgressTracer.LINE_PREFIX));
+      lines.add(line.substring(ProgressTracer.LINE_PREFIX.length()));
+    }
+    return lines;
+  }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.vfs;
+
+import com.android.sched.util.config.AsapConfigBuilder;
+import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.file.FileOrDirectory.ChangePermission;
+import com.android.sched.util.file.InputFile;
+import com.android.sched.util.file.NoSuchFileException;
+import com.android.sched.util.file.NotDirectoryException;
+import com.android.sched.util.file.ZipException;
+import com.google.common.io.ByteStreams;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Tests for {@link MappedReadZipFS}.
+ */
+public class MappedReadZipFSTest {
+  @Nonnull
+  private static final byte[] STORED_CONTENT = "stored content".getBytes(StandardCharsets.UTF_8);
+
+  @Nonnull
+  private static final byte[] DEFLATED_CONTENT = createDeflatedContent();
+
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    ThreadConfig.setConfig(new AsapConfigBuilder(/* debug = */ false).build());
+    file = File.createTempFile("mapped", ".zip");
+  }
+
+  @After
+  public void tearDown() {
+    Assert.assertTrue(file.delete());
+    ThreadConfig.unsetConfig();
+  }
+
+  @Test
+  public void testStoredAndDeflatedEntries() throws Exception {
+    writeArchive();
+
+    MappedReadZipFS zipFS = new MappedReadZipFS(new InputFile(file.getPath(),
+        ChangePermission.NOCHANGE));
+    try {
+      BaseVDir dir = zipFS.getRootDir().getVDir("dir");
+      BaseVFile stored = dir.getVFile("stored.txt");
+      BaseVFile deflated = dir.getVDir("sub").getVFile("deflated.txt");
+
+      Assert.assertTrue(Arrays.equals(STORED_CONTENT, read(stored)));
+      Assert.assertTrue(Arrays.equals(DEFLATED_CONTENT, read(deflated)));
+
+      ByteBuffer slice = stored.getByteBuffer();
+      Assert.assertNotNull(slice);
+      Assert.assertTrue(slice.isReadOnly());
+      byte[] sliceContent = new byte[slice.remaining()];
+      slice.get(sliceContent);
+      Assert.assertTrue(Arrays.equals(STORED_CONTENT, sliceContent));
+      Assert.assertNull(deflated.getByteBuffer());
+
+      Assert.assertEquals(1, zipFS.getRootDir().list().size());
+    } finally {
+      zipFS.close();
+    }
+  }
+
+  @Test
+  public void testDirectories() throws Exception {
+    // Names around the separator in byte order, in an unsorted central directory
+    String[] names = new String[] {"a/b/c", "a0", "a-b", "\u00e9t\u00e9/x", "a/b.c", "a.c/x",
+        "a/b/d", "z", "a/b-c/d", "a/bc"};
+    ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(file));
+    try {
+      for (String name : names) {
+        zos.putNextEntry(new ZipEntry(name));
+        zos.write(name.getBytes(StandardCharsets.UTF_8));
+        zos.closeEntry();
+      }
+    } finally {
+      zos.close();
+    }
+
+    MappedReadZipFS zipFS = new MappedReadZipFS(new InputFile(file.getPath(),
+        ChangePermission.NOCHANGE));
+    try {
+      BaseVDir root = zipFS.getRootDir();
+      Assert.assertEquals(6, root.list().size());
+      Assert.assertEquals(4, root.getVDir("a").list().size());
+      Assert.assertEquals(2, root.getVDir("a").getVDir("b").list().size());
+      Assert.assertFalse(root.getVDir("a").getVDir("b-c").isEmpty());
+      for (String name : names) {
+        BaseVFile vFile = root.getVFile(new VPath(name, '/'));
+        Assert.assertEquals(name, new String(read(vFile), StandardCharsets.UTF_8));
+        Assert.assertEquals(name, vFile.getPathFromRoot().getPathAsString('/'));
+      }
+      try {
+        root.getVDir("a").getVDir("b").getVDir("c");
+        Assert.fail();
+      } catch (NotDirectoryException e) {
+        // expected
+      }
+      try {
+        root.getVDir("a").getVFile("c");
+        Assert.fail();
+      } catch (NoSuchFileException e) {
+        // expected
+      }
+    } finally {
+      zipFS.close();
+    }
+  }
+
+  @Test
+  public void testReferences() throws Exception {
+    writeArchive();
+
+    MappedReadZipFS zipFS = new MappedReadZipFS(new InputFile(file.getPath(),
+        ChangePermission.NOCHANGE));
+    Assert.assertTrue(zipFS.retain());
+    BaseVFile stored = zipFS.getRootDir().getVDir("dir").getVFile("stored.txt");
+
+    zipFS.close();
+    Assert.assertFalse(zipFS.isClosed());
+    Assert.assertTrue(Arrays.equals(STORED_CONTENT, read(stored)));
+
+    // The last reference unmaps the archive
+    zipFS.close();
+    Assert.assertTrue(zipFS.isClosed());
+    Assert.assertFalse(zipFS.retain());
+    zipFS.close();
+    Assert.assertTrue(zipFS.isClosed());
+  }
+
+  @Test
+  public void testZip64() throws Exception {
+    ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(file));
+    try {
+      // More than 0xFFFF entries forces a Zip64 end of central directory
+      for (int i = 0; i <= 0xFFFF; i++) {
+        zos.putNextEntry(new ZipEntry("e" + i));
+        zos.closeEntry();
+      }
+    } finally {
+      zos.close();
+    }
+
+    checkInvalid();
+  }
+
+  @Test
+  public void testCorruptLocalHeader() throws Exception {
+    writeArchive();
+    // Local header of 'dir/stored.txt'
+    corrupt(find(new byte[] {'P', 'K', 3, 4}, 1));
+
+    // Local headers are only checked when their entry is read
+    MappedReadZipFS zipFS = new MappedReadZipFS(new InputFile(file.getPath(),
+        ChangePermission.NOCHANGE));
+    try {
+      BaseVDir dir = zipFS.getRootDir().getVDir("dir");
+      BaseVFile stored = dir.getVFile("stored.txt");
+      BaseVFile deflated = dir.getVDir("sub").getVFile("deflated.txt");
+
+      Assert.assertTrue(Arrays.equals(DEFLATED_CONTENT, read(deflated)));
+      Assert.assertNull(stored.getByteBuffer());
+      try {
+        read(stored);
+        Assert.fail();
+      } catch (java.util.zip.ZipException e) {
+        // expected
+      }
+    } finally {
+      zipFS.close();
+    }
+  }
+
+  @Test
+  public void testCorruptCentralHeader() throws Exception {
+    writeArchive();
+    corrupt(find(new byte[] {'P', 'K', 1, 2}, 0));
+
+    checkInvalid();
+  }
+
+  @Test
+  public void testTruncatedArchive() throws Exception {
+    writeArchive();
+    byte[] content = Files.readAllBytes(file.toPath());
+    Files.write(file.toPath(), Arrays.copyOf(content, content.length - 10));
+
+    checkInvalid();
+  }
+
+  private void checkInvalid() throws Exception {
+    try {
+      new MappedReadZipFS(new InputFile(file.getPath(), ChangePermission.NOCHANGE)).close();
+      Assert.fail();
+    } catch (ZipException e) {
+      // expected
+    }
+  }
+
+  private void writeArchive() throws IOException {
+    ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(file));
+    try {
+      zos.putNextEntry(new ZipEntry("empty/"));
+      zos.closeEntry();
+
+      ZipEntry stored = new ZipEntry("dir/stored.txt");
+      CRC32 crc = new CRC32();
+      crc.update(STORED_CONTENT);
+      stored.setMethod(ZipEntry.STORED);
+      stored.setSize(STORED_CONTENT.length);
+      stored.setCrc(crc.getValue());
+      zos.putNextEntry(stored);
+      zos.write(STORED_CONTENT);
+      zos.closeEntry();
+
+      zos.putNextEntry(new ZipEntry("dir/sub/deflated.txt"));
+      zos.write(DEFLATED_CONTENT);
+      zos.closeEntry();
+    } finally {
+      zos.close();
+    }
+  }
+
+  /**
+   * Returns the offset of the given occurrence of a header signature in the archive.
+   */
+  private int find(@Nonnull byte[] signature, int occurrence) throws IOException {
+    byte[] content = Files.readAllBytes(file.toPath());
+    int found = 0;
+    for (int offset = 0; offset <= content.length - signature.length; offset++) {
+      if (Arrays.equals(signature, Arrays.copyOfRange(content, offset,
+          offset + signature.length)) && found++ == occurrence) {
+        return offset;
+      }
+    }
+
+    throw new AssertionError("Signature not found");
+  }
+
+  private void corrupt(int offset) throws IOException {
+    byte[] content = Files.readAllBytes(file.toPath());
+    content[offset] = 0;
+    Files.write(file.toPath(), content);
+  }
+
+  @Nonnull
+  private static byte[] read(@Nonnull BaseVFile file) throws Exception {
+    InputStream is = file.getInputStream();
+    try {
+      return ByteStreams.toByteArray(is);
+    } finally {
+      is.close();
+    }
+  }
+
+  @Nonnull
+  private static byte[] createDeflatedContent() {
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 10000; i++) {
+      content.append("line ").append(i).append('\n');
+    }
+
+    return content.toString().getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -30,6 +30,7 @@ import com.android.sched.util.file.FileOrDirectory.ChangePermission;
 import com.android.sched.util.file.FileOrDirectory.Existence;
 import com.android.sched.util.file.FileOrDirectory.Permission;
 import com.android.sched.util.file.FileUtils;
+import com.android.sched.util.file.InputFile;
 import com.android.sched.util.file.InputZipFile;
 import com.android.sched.util.file.NoSuchFileException;
 import com.android.sched.util.file.NotDirectoryException;
@@ -42,6 +43,7 @@ import com.android.sched.util.file.ZipException;
 import com.android.sched.util.location.DirectoryLocation;
 import com.android.sched.util.location.FileLocation;
 import com.android.sched.util.location.ZipLocation;
+import com.google.common.io.ByteStreams;
 
 import junit.framework.Assert;
 
@@ -50,14 +52,34 @@ import org.junit.Test;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.security.Provider;
 import java.security.Security;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
@@ -699,6 +721,163 @@ public class VFSTest {
     }
   }
 
+  @Test
+  public void testParallelWriteZipFS()
+      throws CannotCreateFileException, WrongPermissionException, CannotChangePermissionException,
+      NoSuchFileException, FileAlreadyExistsException, IOException, ZipException,
+      NotFileOrDirectoryException, CannotCloseException, NotFileException {
+    File file = null;
+    InputOutputVFS ioVFS1 = null;
+    InputVFS iVFS2 = null;
+    InputVFS iVFS3 = null;
+    try {
+      file = File.createTempFile("vfs", ".zip");
+      String path = file.getAbsolutePath();
+      ioVFS1 = new GenericInputOutputVFS(new ParallelWriteZipFS(new OutputZipFile(path, null,
+          Existence.MAY_EXIST, ChangePermission.NOCHANGE, Compression.COMPRESSED)));
+      testOutputVFS(ioVFS1);
+      ioVFS1.close();
+      iVFS2 = new GenericInputVFS(new ReadZipFS(new InputZipFile(path)));
+      testInputVFS(iVFS2);
+      checkZipLocations(iVFS2);
+      iVFS3 = new GenericInputVFS(
+          new MappedReadZipFS(new InputFile(path, ChangePermission.NOCHANGE)));
+      testInputVFS(iVFS3);
+    } finally {
+      if (ioVFS1 != null) {
+        ioVFS1.close();
+      }
+      if (iVFS2 != null) {
+        iVFS2.close();
+      }
+      if (iVFS3 != null) {
+        iVFS3.close();
+      }
+      if (file != null) {
+        Assert.assertTrue(file.delete());
+      }
+    }
+  }
+
+  @Test
+  public void testParallelWriteZipFSConcurrentWrites() throws Exception {
+    File file = null;
+    try {
+      file = File.createTempFile("vfs", ".zip");
+      String path = file.getAbsolutePath();
+      final OutputVFS outputVFS = new GenericOutputVFS(new ParallelWriteZipFS(
+          new OutputZipFile(path, null, Existence.MAY_EXIST, ChangePermission.NOCHANGE,
+              Compression.COMPRESSED)));
+      final int entryCount = 200;
+      final int largeEntryModulo = 50;
+      final byte[] largeContent = new byte[ParallelWriteZipFS.SPILL_THRESHOLD * 2];
+      new Random(0).nextBytes(largeContent);
+
+      // Files are created in order, then written in the reverse order, from several threads
+      final List<OutputVFile> files = new ArrayList<OutputVFile>(entryCount);
+      for (int i = 0; i < entryCount; i++) {
+        files.add(outputVFS.getRootOutputVDir().createOutputVFile(
+            new VPath("dir" + (i % 7) + "/file" + i, '/')));
+      }
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      try {
+        List<Future<Void>> futures = new ArrayList<Future<Void>>(entryCount);
+        for (int i = entryCount - 1; i >= 0; i--) {
+          final int index = i;
+          futures.add(executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+              OutputVFile outputFile = files.get(index);
+              if (index % largeEntryModulo == 0) {
+                OutputStream os = outputFile.getOutputStream();
+                try {
+                  os.write(largeContent);
+                } finally {
+                  os.close();
+                }
+              } else {
+                writeToFile(outputFile, "dir" + (index % 7) + "/file" + index);
+              }
+              return null;
+            }
+          }));
+        }
+        for (Future<Void> future : futures) {
+          future.get();
+        }
+      } finally {
+        executor.shutdown();
+      }
+      outputVFS.close();
+
+      ZipFile zipFile = new ZipFile(file);
+      try {
+        Assert.assertEquals(entryCount, zipFile.size());
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        for (int i = 0; i < entryCount; i++) {
+          ZipEntry entry = entries.nextElement();
+          Assert.assertEquals("dir" + (i % 7) + "/file" + i, entry.getName());
+          InputStream is = zipFile.getInputStream(entry);
+          try {
+            if (i % largeEntryModulo == 0) {
+              Assert.assertTrue(Arrays.equals(largeContent, ByteStreams.toByteArray(is)));
+            } else {
+              Assert.assertEquals(entry.getName(),
+                  new BufferedReader(new InputStreamReader(is)).readLine());
+            }
+          } finally {
+            is.close();
+          }
+        }
+      } finally {
+        zipFile.close();
+      }
+    } finally {
+      if (file != null) {
+        Assert.assertTrue(file.delete());
+      }
+    }
+  }
+
+  @Test
+  public void testZipOutputVFS() throws Exception {
+    File file = null;
+    try {
+      file = File.createTempFile("vfs", ".zip");
+      String path = file.getAbsolutePath();
+      checkZipOutputVFS(path, false, WriteZipFS.class);
+      ThreadConfig.setConfig(new AsapConfigBuilder(/* debug = */ false)
+          .set(ParallelWriteZipFS.PARALLEL_WRITE, Boolean.TRUE).build());
+      checkZipOutputVFS(path, true, ParallelWriteZipFS.class);
+    } finally {
+      if (file != null) {
+        Assert.assertTrue(file.delete());
+      }
+    }
+  }
+
+  private void checkZipOutputVFS(@Nonnull String path, boolean parallel,
+      @Nonnull Class<? extends VFS> expectedVFS) throws Exception {
+    OutputVFS outputVFS = new ZipOutputVFS(new OutputZipFile(path, null, Existence.MAY_EXIST,
+        ChangePermission.NOCHANGE, Compression.COMPRESSED), null);
+    try {
+      Assert.assertEquals(parallel, !outputVFS.needsSequentialWriting());
+      Assert.assertTrue(expectedVFS.isInstance(outputVFS.getVFS()));
+      writeToFile(outputVFS.getRootOutputVDir().createOutputVFile(new VPath("a/b", '/')), "ab");
+    } finally {
+      outputVFS.close();
+    }
+    Assert.assertTrue(outputVFS.isClosed());
+
+    InputVFS inputVFS = new GenericInputVFS(new ReadZipFS(new InputZipFile(path)));
+    try {
+      Assert.assertEquals("ab",
+          readFromFile(inputVFS.getRootInputVDir().getInputVFile(new VPath("a/b", '/'))));
+    } finally {
+      inputVFS.close();
+    }
+  }
+
   @SuppressWarnings("resource")
   @Test
   public void testUnionVFS() throws IOException, WrongPermissionException,
@@ -1079,6 +1258,265 @@ public class VFSTest {
     }
   }
 
+  @Test
+  public void testReadWriteZipFSUpdate() throws Exception {
+    File file = null;
+    MappedReadZipFS mappedVFS = null;
+    try {
+      file = File.createTempFile("vfs", ".zip");
+      byte[] large = new byte[64 * 1024];
+      new Random(0).nextBytes(large);
+      byte[] small1 = "small1".getBytes(StandardCharsets.UTF_8);
+      byte[] small2 = "small2".getBytes(StandardCharsets.UTF_8);
+
+      Map<String, byte[]> content = new HashMap<String, byte[]>();
+      content.put("dirA/large", large);
+      content.put("dirB/small", small1);
+      content.put("dirB/unchanged", small1);
+      writeWithReadWriteZipFS(file, content);
+      checkZipContent(file, content);
+      byte[] largeBefore = getRawEntry(file, "dirA/large");
+      Map<String, byte[]> previousContent = new HashMap<String, byte[]>(content);
+      mappedVFS = new MappedReadZipFS(new InputFile(file.getPath(), ChangePermission.NOCHANGE));
+
+      // a new archive is written, readable as a stream, where unchanged entries are copied as is
+      long lengthBefore = file.length();
+      content.put("dirB/small", small2);
+      writeWithReadWriteZipFS(file, content);
+      checkZipContent(file, content);
+      checkZipStreamContent(file, content);
+      Assert.assertEquals(lengthBefore, file.length());
+      Assert.assertTrue(Arrays.equals(largeBefore, getRawEntry(file, "dirA/large")));
+
+      // writing the same content leaves the archive as is, but updates its modification time
+      byte[] after = Files.readAllBytes(file.toPath());
+      long past = (System.currentTimeMillis() / 1000 - 3600) * 1000;
+      Assert.assertTrue(file.setLastModified(past));
+      writeWithReadWriteZipFS(file, content);
+      checkZipContent(file, content);
+      Assert.assertTrue(Arrays.equals(after, Files.readAllBytes(file.toPath())));
+      Assert.assertTrue(file.lastModified() > past);
+
+      // entries which are not written again are dropped
+      content.remove("dirA/large");
+      writeWithReadWriteZipFS(file, content);
+      checkZipContent(file, content);
+      checkZipStreamContent(file, content);
+
+      // a reader which mapped the previous archive is not affected
+      checkMappedContent(mappedVFS, previousContent);
+    } finally {
+      if (mappedVFS != null) {
+        mappedVFS.close();
+      }
+      if (file != null) {
+        Assert.assertTrue(file.delete());
+      }
+    }
+  }
+
+  @Test
+  public void testReadWriteZipFSUpdateWithSameCrc() throws Exception {
+    File file = null;
+    try {
+      file = File.createTempFile("vfs", ".zip");
+      byte[][] collision = createCrcCollision();
+
+      for (boolean append : new boolean[] {false, true}) {
+        ThreadConfig.setConfig(new AsapConfigBuilder(/* debug = */ false)
+            .set(UpdateWriteZipFS.APPEND, Boolean.valueOf(append)).build());
+        Map<String, byte[]> content = new HashMap<String, byte[]>();
+        content.put("dirA/file", collision[0]);
+        writeWithReadWriteZipFS(file, content);
+        checkZipContent(file, content);
+
+        // same CRC and size, but not the same content
+        content.put("dirA/file", collision[1]);
+        writeWithReadWriteZipFS(file, content);
+        checkZipContent(file, content);
+        Assert.assertTrue(file.delete());
+      }
+    } finally {
+      if (file != null && file.exists()) {
+        Assert.assertTrue(file.delete());
+      }
+    }
+  }
+
+  /**
+   * Returns two different contents with the same size and the same CRC32.
+   */
+  @Nonnull
+  private static byte[][] createCrcCollision() {
+    Random random = new Random(0);
+    Map<Long, byte[]> contents = new HashMap<Long, byte[]>();
+    CRC32 crc = new CRC32();
+    while (true) {
+      byte[] content = new byte[8];
+      random.nextBytes(content);
+      crc.reset();
+      crc.update(content);
+      byte[] previous = contents.put(Long.valueOf(crc.getValue()), content);
+      if (previous != null && !Arrays.equals(previous, content)) {
+        return new byte[][] {previous, content};
+      }
+    }
+  }
+
+  @Test
+  public void testReadWriteZipFSAppend() throws Exception {
+    ThreadConfig.setConfig(new AsapConfigBuilder(/* debug = */ false)
+        .set(UpdateWriteZipFS.APPEND, Boolean.TRUE).build());
+    File file = null;
+    MappedReadZipFS mappedVFS = null;
+    try {
+      file = File.createTempFile("vfs", ".zip");
+      byte[] large = new byte[64 * 1024];
+      new Random(0).nextBytes(large);
+      byte[] small1 = "small1".getBytes(StandardCharsets.UTF_8);
+      byte[] small2 = "small2".getBytes(StandardCharsets.UTF_8);
+
+      Map<String, byte[]> content = new HashMap<String, byte[]>();
+      content.put("dirA/large", large);
+      content.put("dirB/small", small1);
+      content.put("dirB/unchanged", small1);
+      writeWithReadWriteZipFS(file, content);
+      checkZipContent(file, content);
+      byte[] largeBefore = getRawEntry(file, "dirA/large");
+      Map<String, byte[]> previousContent = new HashMap<String, byte[]>(content);
+      mappedVFS = new MappedReadZipFS(new InputFile(file.getPath(), ChangePermission.NOCHANGE));
+
+      // only the changed entry and the central directory are appended, the unchanged entries are
+      // kept in place
+      byte[] before = Files.readAllBytes(file.toPath());
+      content.put("dirB/small", small2);
+      writeWithReadWriteZipFS(file, content);
+      checkZipContent(file, content);
+      byte[] after = Files.readAllBytes(file.toPath());
+      Assert.assertTrue(after.length > before.length);
+      Assert.assertTrue(after.length - before.length < 1024);
+      Assert.assertTrue(Arrays.equals(before, Arrays.copyOf(after, before.length)));
+      Assert.assertTrue(Arrays.equals(largeBefore, getRawEntry(file, "dirA/large")));
+
+      // writing the same content leaves the archive as is, but updates its modification time
+      long past = (System.currentTimeMillis() / 1000 - 3600) * 1000;
+      Assert.assertTrue(file.setLastModified(past));
+      writeWithReadWriteZipFS(file, content);
+      checkZipContent(file, content);
+      Assert.assertTrue(Arrays.equals(after, Files.readAllBytes(file.toPath())));
+      Assert.assertTrue(file.lastModified() > past);
+
+      // entries which are not written again are dropped, and the archive is compacted once most
+      // of it is unreferenced
+      content.remove("dirA/large");
+      writeWithReadWriteZipFS(file, content);
+      checkZipContent(file, content);
+      Assert.assertTrue(file.length() < 1024);
+
+      // a reader which mapped the previous archive is not affected
+      checkMappedContent(mappedVFS, previousContent);
+    } finally {
+      if (mappedVFS != null) {
+        mappedVFS.close();
+      }
+      if (file != null) {
+        Assert.assertTrue(file.delete());
+      }
+    }
+  }
+
+  private static void checkMappedContent(@Nonnull MappedReadZipFS mappedVFS,
+      @Nonnull Map<String, byte[]> content) throws Exception {
+    for (Map.Entry<String, byte[]> entry : content.entrySet()) {
+      String[] names = entry.getKey().split("/");
+      InputStream is = mappedVFS.getRootDir().getVDir(names[0]).getVFile(names[1])
+          .getInputStream();
+      try {
+        Assert.assertTrue(Arrays.equals(entry.getValue(), ByteStreams.toByteArray(is)));
+      } finally {
+        is.close();
+      }
+    }
+  }
+
+  private static void checkZipStreamContent(@Nonnull File file,
+      @Nonnull Map<String, byte[]> content) throws Exception {
+    Map<String, byte[]> read = new HashMap<String, byte[]>();
+    ZipInputStream zis = new ZipInputStream(new FileInputStream(file));
+    try {
+      ZipEntry entry;
+      while ((entry = zis.getNextEntry()) != null) {
+        read.put(entry.getName(), ByteStreams.toByteArray(zis));
+      }
+    } finally {
+      zis.close();
+    }
+    Assert.assertEquals(content.keySet(), read.keySet());
+    for (Map.Entry<String, byte[]> entry : content.entrySet()) {
+      Assert.assertTrue(Arrays.equals(entry.getValue(), read.get(entry.getKey())));
+    }
+  }
+
+  /**
+   * Returns the bytes of an entry of an archive, from its local header to the end of its data.
+   */
+  @Nonnull
+  private static byte[] getRawEntry(@Nonnull File file, @Nonnull String name) throws IOException {
+    byte[] archive = Files.readAllBytes(file.toPath());
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      for (ZipArchive.Entry entry : ZipArchive.readDirectory(channel).entries) {
+        if (entry.getName().equals(name)) {
+          return Arrays.copyOfRange(archive, (int) entry.offset,
+              (int) (entry.offset + entry.length));
+        }
+      }
+    }
+
+    throw new AssertionError(name + " not found");
+  }
+
+  private void writeWithReadWriteZipFS(@Nonnull File file, @Nonnull Map<String, byte[]> content)
+      throws Exception {
+    OutputVFS outputVFS = new GenericInputOutputVFS(new ReadWriteZipFS(
+        new OutputZipFile(file.getPath(), null, Existence.MAY_EXIST, ChangePermission.NOCHANGE,
+            Compression.COMPRESSED),
+        /* numGroups = */ 1, /* groupSize = */ 2, new MessageDigestFactory(getSha1Service()),
+        /* debug = */ false));
+    try {
+      for (Map.Entry<String, byte[]> entry : content.entrySet()) {
+        OutputStream os = outputVFS.getRootOutputVDir()
+            .createOutputVFile(new VPath(entry.getKey(), '/')).getOutputStream();
+        try {
+          os.write(entry.getValue());
+        } finally {
+          os.close();
+        }
+      }
+    } finally {
+      outputVFS.close();
+    }
+  }
+
+  private void checkZipContent(@Nonnull File file, @Nonnull Map<String, byte[]> content)
+      throws Exception {
+    ZipFile zipFile = new ZipFile(file);
+    try {
+      Assert.assertEquals(content.size(), zipFile.size());
+      for (Map.Entry<String, byte[]> entry : content.entrySet()) {
+        ZipEntry zipEntry = zipFile.getEntry(entry.getKey());
+        Assert.assertNotNull(zipEntry);
+        InputStream is = zipFile.getInputStream(zipEntry);
+        try {
+          Assert.assertTrue(Arrays.equals(entry.getValue(), ByteStreams.toByteArray(is)));
+        } finally {
+          is.close();
+        }
+      }
+    } finally {
+      zipFile.close();
+    }
+  }
+
   @Test
   public void testDeflateFSWithMessageDigestFS()
       throws CannotCreateFileException, WrongPermissionException, CannotChangePermissionException,
@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.server;
+
+import com.android.sched.util.log.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Queues compilations and admits them, in order, when the heap has room for them.
+ *
+ * <p>The heap footprint of a compilation is learned from past compilations, as the growth of the
+ * used heap over the heap of an idle server, shared by the running compilations. Until a
+ * footprint is known, compilations are admitted up to a static limit. A compilation is always
+ * admitted when none is running, and never more than the maximum number of services are running.
+ *
+ * <p>While compilations are running, the used heap is sampled periodically, so that the
+ * footprints include the growth of the heap during the compilations and not only at their
+ * admission, when the heap mostly holds the garbage of the previous ones.
+ *
+ * <p>All the state is guarded by the lock given at construction, which also guards the
+ * {@link ServerInfo} where statistics are updated.
+ */
+class AdmissionController {
+
+  @Nonnull
+  private static Logger logger = LoggerFactory.getLogger();
+
+  /**
+   * Delay between two checks of the heap by a queued compilation, since memory is freed by the
+   * garbage collector without notification.
+   */
+  private static final long POLL_DELAY_MS = 500;
+
+  private static final long DEFAULT_SAMPLE_PERIOD_MS = 100;
+
+  /**
+   * Weight of a new sample in the footprint estimate, as a divisor.
+   */
+  private static final int FOOTPRINT_SAMPLE_WEIGHT = 4;
+
+  private static final long UNKNOWN_FOOTPRINT = -1;
+
+  private static class Running {
+    /** Largest share of the heap growth observed while the compilation was running */
+    private long footprint = 0;
+  }
+
+  @Nonnull
+  private final Object lock;
+
+  @Nonnull
+  private final ServerInfo info;
+
+  @Nonnull
+  private final Deque<Long> queue = new ArrayDeque<>();
+
+  @Nonnull
+  private final Map<Long, Running> running = new HashMap<>();
+
+  @Nonnegative
+  private final long samplePeriod;
+
+  /** Samples the heap while compilations are running */
+  @CheckForNull
+  private Timer sampler;
+
+  @Nonnegative
+  private int maxServices = 1;
+
+  @Nonnegative
+  private int maxServicesWithoutFootprint = 1;
+
+  /** Used heap of the server when no compilation was running */
+  private long idleHeap = -1;
+
+  private long footprint = UNKNOWN_FOOTPRINT;
+
+  AdmissionController(@Nonnull Object lock, @Nonnull ServerInfo info) {
+    this(lock, info, DEFAULT_SAMPLE_PERIOD_MS);
+  }
+
+  AdmissionController(@Nonnull Object lock, @Nonnull ServerInfo info,
+      @Nonnegative long samplePeriod) {
+    this.lock = lock;
+    this.info = info;
+    this.samplePeriod = samplePeriod;
+  }
+
+  /**
+   * Sets the limits of running compilations.
+   *
+   * @param maxServices the maximum number of running compilations
+   * @param maxServicesWithoutFootprint the maximum number of running compilations while no
+   *     footprint has been learned
+   */
+  void setLimits(@Nonnegative int maxServices, @Nonnegative int maxServicesWithoutFootprint) {
+    synchronized (lock) {
+      this.maxServices = Math.max(1, maxServices);
+      this.maxServicesWithoutFootprint =
+          Math.max(1, Math.min(maxServicesWithoutFootprint, this.maxServices));
+      lock.notifyAll();
+    }
+  }
+
+  /**
+   * Waits until the compilation can run.
+   */
+  void admit(long taskId) throws InterruptedException {
+    synchronized (lock) {
+      Long id = Long.valueOf(taskId);
+      long start = System.currentTimeMillis();
+      queue.add(id);
+      info.queuedCurrent++;
+      if (info.queuedCurrent > info.queuedMax) {
+        info.queuedMax = info.queuedCurrent;
+      }
+
+      boolean waited = false;
+      try {
+        while (!(queue.peek().equals(id) && canAdmit(getUsedHeap()))) {
+          waited = true;
+          lock.wait(POLL_DELAY_MS);
+        }
+      } catch (InterruptedException e) {
+        queue.remove(id);
+        info.queuedCurrent--;
+        lock.notifyAll();
+        throw e;
+      }
+
+      queue.remove();
+      info.queuedCurrent--;
+      if (waited) {
+        long wait = System.currentTimeMillis() - start;
+        info.queuedTotal++;
+        info.waitTotal += wait;
+        if (wait > info.waitMax) {
+          info.waitMax = wait;
+        }
+        logger.log(Level.INFO, "Compilation #" + taskId + " admitted after " + wait + " ms");
+      }
+
+      running.put(id, new Running());
+      if (sampler == null) {
+        startSampler();
+      }
+      // Let the next queued compilation check whether it can be admitted too
+      lock.notifyAll();
+    }
+  }
+
+  /**
+   * Releases a compilation admitted by {@link #admit(long)}, learning its footprint.
+   */
+  void release(long taskId) {
+    synchronized (lock) {
+      Running compilation = running.remove(Long.valueOf(taskId));
+      assert compilation != null;
+      if (running.isEmpty()) {
+        stopSampler();
+      }
+      if (compilation.footprint > 0) {
+        if (footprint == UNKNOWN_FOOTPRINT) {
+          footprint = compilation.footprint;
+        } else {
+          footprint += (compilation.footprint - footprint) / FOOTPRINT_SAMPLE_WEIGHT;
+        }
+        info.footprintEstimate = footprint;
+      }
+      lock.notifyAll();
+    }
+  }
+
+  private boolean canAdmit(long usedHeap) {
+    observe(usedHeap);
+
+    int count = running.size();
+    if (count == 0) {
+      return true;
+    }
+    if (count >= maxServices) {
+      return false;
+    }
+    if (footprint == UNKNOWN_FOOTPRINT) {
+      return count < maxServicesWithoutFootprint;
+    }
+    return getMaxHeap() - usedHeap >= footprint;
+  }
+
+  private void startSampler() {
+    assert sampler == null;
+    Timer timer = new Timer("jack-server-heap-sampler", /* isDaemon = */ true);
+    timer.schedule(new TimerTask() {
+      @Override
+      public void run() {
+        synchronized (lock) {
+          if (!running.isEmpty()) {
+            observe(getUsedHeap());
+            // Queued compilations may fit now
+            lock.notifyAll();
+          }
+        }
+      }
+    }, samplePeriod, samplePeriod);
+    sampler = timer;
+  }
+
+  private void stopSampler() {
+    if (sampler != null) {
+      sampler.cancel();
+      sampler = null;
+    }
+  }
+
+  /**
+   * Records an observation of the used heap in the footprints of running compilations.
+   */
+  private void observe(long usedHeap) {
+    info.heapHeadroom = getMaxHeap() - usedHeap;
+    if (running.isEmpty()) {
+      idleHeap = usedHeap;
+    } else if (idleHeap >= 0) {
+      long share = (usedHeap - idleHeap) / running.size();
+      for (Running compilation : running.values()) {
+        if (share > compilation.footprint) {
+          compilation.footprint = share;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the used heap. It includes garbage not collected yet, which makes admission
+   * conservative until the next collection.
+   */
+  long getUsedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  long getMaxHeap() {
+    return Runtime.getRuntime().maxMemory();
+  }
+}
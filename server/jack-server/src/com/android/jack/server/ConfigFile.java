@@ -65,7 +65,7 @@ class ConfigFile extends Properties {
   @Nonnull
   private static Logger logger = LoggerFactory.getLogger();
 
-  static final int CURRENT_CONFIG_VERSION = 4;
+  static final int CURRENT_CONFIG_VERSION = 5;
 
   /**
    * Disabled value for delays returned by public methods of this class.
@@ -101,6 +101,10 @@ class ConfigFile extends Properties {
   @Nonnull
   private static final String SHUTDOWN_PROPERTY = "jack.server.shutdown";
   @Nonnull
+  private static final String LIBRARY_CACHE_SIZE_PROPERTY = "jack.server.library-cache.max-size";
+  @Nonnull
+  private static final String LIBRARY_CACHE_IDLE_PROPERTY = "jack.server.library-cache.idle";
+  @Nonnull
   private static final String CONFIG_VERSION_PROPERTY = "jack.server.config.version";
   @Nonnull
   private static final String CONFIG_FILE_NAME = "config.properties";
@@ -253,6 +257,24 @@ class ConfigFile extends Properties {
     return maxJarSize;
   }
 
+  public long getLibraryCacheSize() {
+    long size = getProperty(
+          ConfigFile.LIBRARY_CACHE_SIZE_PROPERTY, Long.valueOf(512 * 1024 * 1024),
+          new LongCodec())
+        .longValue();
+    if (size < 0) {
+      logger.log(Level.WARNING,
+          "Invalid config value for " + ConfigFile.LIBRARY_CACHE_SIZE_PROPERTY + ": " + size);
+      size = 0;
+    }
+    return size;
+  }
+
+  @Nonnegative
+  public int getLibraryCacheIdleDelay() {
+    return getDelay(ConfigFile.LIBRARY_CACHE_IDLE_PROPERTY, 15 * 60);
+  }
+
   public int getMaxServices() {
     return getProperty(ConfigFile.MAX_SERVICE_PROPERTY, Integer.valueOf(4),
         new IntCodec()).intValue();
@@ -430,6 +430,15 @@ public class JackHttpServer implements HasVersion {
   @Nonnull
   private static final String PEM_SERVER = "server.pem";
 
+  /**
+   * System properties configuring the library cache of the loaded Jacks.
+   */
+  @Nonnull
+  private static final String LIBRARY_CACHE_SIZE_PROPERTY = "jack.library.cache.max-size";
+
+  @Nonnull
+  private static final String LIBRARY_CACHE_IDLE_PROPERTY = "jack.library.cache.idle";
+
   private static final FileFilter JAR_FILTER = new FileFilter() {
     @Override
     public boolean accept(File pathname) {
@@ -472,6 +481,9 @@ public class JackHttpServer implements HasVersion {
   @Nonnull
   private final ServerInfo adminInfo = new ServerInfo();
 
+  @Nonnull
+  private final AdmissionController admission = new AdmissionController(lock, serviceInfo);
+
   private boolean shuttingDown;
 
   private Cache<VersionKey, Program<JackProvider>> installedJack = null;
@@ -729,16 +741,27 @@ public class JackHttpServer implements HasVersion {
     addServerMode(config.getTimeout(), ServerMode.SLEEP);
     addServerMode(config.getShutdownDelay(), ServerMode.SHUTDOWN);
 
+    // Read by Jack when it is loaded, cached libraries are shared by all the compilations run
+    // by one loaded Jack
+    System.setProperty(LIBRARY_CACHE_SIZE_PROPERTY, Long.toString(config.getLibraryCacheSize()));
+    System.setProperty(LIBRARY_CACHE_IDLE_PROPERTY,
+        Integer.toString(config.getLibraryCacheIdleDelay()));
+
+    // Services beyond the ones admitted to compile wait in the admission queue. Until the
+    // footprint of a compilation is known, admission is limited according to the heap size.
     maxServices = config.getMaxServices();
+    int maxServicesWithoutFootprint = maxServices;
     List<Pair<Integer, Long>> maxServicesByMem = config.getMaxServiceByMem();
     if (!maxServicesByMem.isEmpty()) {
       long maxMemory = Runtime.getRuntime().maxMemory();
       for (Pair<Integer, Long> pair : maxServicesByMem) {
         if (maxMemory < pair.getSecond().longValue()) {
-          maxServices = Math.min(pair.getFirst().intValue(), maxServices);
+          maxServicesWithoutFootprint =
+              Math.min(pair.getFirst().intValue(), maxServicesWithoutFootprint);
         }
       }
     }
+    admission.setLimits(maxServices, maxServicesWithoutFootprint);
 
     if (config.isModified() && config.getConfigVersion() < ConfigFile.CURRENT_CONFIG_VERSION) {
       config.store();
@@ -1114,6 +1137,8 @@ public class JackHttpServer implements HasVersion {
       logger.log(Level.INFO, "# total of compilations: " + serviceInfo.totalLocal);
       logger.log(Level.INFO, "# max of concurrent forward compilations: " + serviceInfo.maxForward);
       logger.log(Level.INFO, "# total of forward compilations: " + serviceInfo.totalForward);
+      logger.log(Level.INFO, "# total of queued compilations: " + serviceInfo.queuedTotal);
+      logger.log(Level.INFO, "# total of wait for admission: " + serviceInfo.waitTotal + " ms");
       try {
         conn.close();
         logger.log(Level.INFO, "Done");
@@ -1154,6 +1179,18 @@ public class JackHttpServer implements HasVersion {
     endingTask(serviceInfo);
   }
 
+  /**
+   * Waits until the heap has room for the compilation of a service task, then admits it. An
+   * admitted compilation must be released with {@link #releaseCompilation(long)}.
+   */
+  public void admitCompilation(long taskId) throws InterruptedException {
+    admission.admit(taskId);
+  }
+
+  public void releaseCompilation(long taskId) {
+    admission.release(taskId);
+  }
+
   public long startingAdministrativeTask() throws ServerClosedException {
     synchronized (lock) {
       if (shuttingDown) {
@@ -1217,6 +1254,8 @@ public class JackHttpServer implements HasVersion {
     synchronized (lock) {
       serviceInfo.maxForward = serviceInfo.currentForward;
       serviceInfo.maxLocal = serviceInfo.currentLocal;
+      serviceInfo.queuedMax = serviceInfo.queuedCurrent;
+      serviceInfo.waitMax = 0;
     }
   }
 
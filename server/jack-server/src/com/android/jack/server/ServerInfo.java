@@ -29,6 +29,16 @@ public class ServerInfo implements Cloneable {
   long totalForward = 0;
   int maxForward = 0;
 
+  int queuedCurrent = 0;
+  long queuedTotal = 0;
+  int queuedMax = 0;
+
+  long waitTotal = 0;
+  long waitMax = 0;
+
+  long footprintEstimate = -1;
+  long heapHeadroom = -1;
+
   public ServerInfo() {
   }
 
@@ -56,6 +66,46 @@ public class ServerInfo implements Cloneable {
     return maxForward;
   }
 
+  public int getQueuedCurrent() {
+    return queuedCurrent;
+  }
+
+  /**
+   * Returns the number of compilations that waited before being admitted.
+   */
+  public long getQueuedTotal() {
+    return queuedTotal;
+  }
+
+  public int getQueuedMax() {
+    return queuedMax;
+  }
+
+  /**
+   * Returns the total time in milliseconds spent by compilations waiting to be admitted.
+   */
+  public long getWaitTotal() {
+    return waitTotal;
+  }
+
+  public long getWaitMax() {
+    return waitMax;
+  }
+
+  /**
+   * Returns the estimated heap footprint of a compilation, or -1 if it is still unknown.
+   */
+  public long getFootprintEstimate() {
+    return footprintEstimate;
+  }
+
+  /**
+   * Returns the heap headroom observed at the last sample of the heap, or -1 if there was none.
+   */
+  public long getHeapHeadroom() {
+    return heapHeadroom;
+  }
+
   @Override
   public ServerInfo clone() {
     try {
@@ -36,7 +36,18 @@ import com.android.jack.server.type.CommandOut;
 import com.android.jack.server.type.CommandOutRaw;
 import com.android.sched.util.Version;
 import com.android.sched.util.codec.ParsingException;
+import com.android.sched.util.config.cli.TokenIterator;
+import com.android.sched.util.file.CannotChangePermissionException;
+import com.android.sched.util.file.CannotCreateFileException;
+import com.android.sched.util.file.CannotReadException;
+import com.android.sched.util.file.Files;
+import com.android.sched.util.file.NoSuchFileException;
+import com.android.sched.util.file.NotFileOrDirectoryException;
+import com.android.sched.util.file.WrongPermissionException;
+import com.android.sched.util.location.NoLocation;
 import com.android.sched.util.log.LoggerFactory;
+import com.android.sched.util.log.ProgressTracer;
+import com.android.sched.util.log.TracerFactory;
 
 import org.simpleframework.http.ContentType;
 import org.simpleframework.http.Part;
@@ -49,9 +60,12 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 /**
@@ -68,6 +82,22 @@ abstract class JackTask<T extends CommandOut> extends SynchronousServiceTask {
 
   private static final int JACK_STATUS_ERROR = 47;
 
+  @Nonnull
+  private static final String PROGRESS_TRACER = "progress";
+
+  @Nonnull
+  private static final String NO_TRACER = "none";
+
+  /** Tracer enabled by the "--tracer-dir" option of Jack */
+  @Nonnull
+  private static final String TRACER_DIR_TRACER = "html";
+
+  @Nonnull
+  private static final String TRACER_DIR_OPTION = "--tracer-dir";
+
+  @Nonnull
+  private static final String ARG_FILE_PREFIX = "@";
+
   @Override
   protected void handle(long taskId, @Nonnull Request request, @Nonnull Response response) {
 
@@ -79,6 +109,7 @@ abstract class JackTask<T extends CommandOut> extends SynchronousServiceTask {
     } else {
       outCharset = Charset.forName(charsetName);
     }
+    boolean progress = Boolean.parseBoolean(accept.getParameter("progress"));
 
     String cli;
     VersionFinder versionFinder;
@@ -130,7 +161,8 @@ abstract class JackTask<T extends CommandOut> extends SynchronousServiceTask {
         .toArray(new String[0]);
 
     logger.log(Level.INFO, "Compilation #" + taskId + ", command '" + cli
-        + "', pwd: '" + pwd.getPath() + "', required Jack: " + versionFinder.getDescription());
+        + "', pwd: '" + pwd.getPath() + "', required Jack: " + versionFinder.getDescription()
+        + (progress ? ", with progress" : ""));
 
     response.setContentType(CommandOutRaw.JACK_COMMAND_OUT_CONTENT_TYPE + "; version=1");
     int commandStatus = JACK_STATUS_ERROR;
@@ -144,6 +176,7 @@ abstract class JackTask<T extends CommandOut> extends SynchronousServiceTask {
       return;
     }
 
+    File progressFile = null;
     try {
       PrintStream err = commandOut.getErrPrintStream();
       long start = System.currentTimeMillis();
@@ -154,6 +187,27 @@ abstract class JackTask<T extends CommandOut> extends SynchronousServiceTask {
             + version.getVerboseVersion()
             + " (" + version.getReleaseCode() + "." + version.getSubReleaseCode() + ")");
 
+        PrintStream progressStream = progress ? getProgressPrintStream(commandOut) : null;
+        if (progressStream != null) {
+          try {
+            String[] expanded = expandArguments(command, pwd);
+            progressFile = Files.createTempFile("jackserver-progress-");
+            command = addProgressOptions(expanded, progressFile);
+          } catch (CannotCreateFileException | CannotChangePermissionException
+              | WrongPermissionException | NotFileOrDirectoryException | CannotReadException
+              | NoSuchFileException e) {
+            // Jack reports the invalid argument files itself
+            logger.log(Level.WARNING,
+                "Compilation #" + taskId + " runs without progress: " + e.getMessage(), e);
+          } catch (IllegalArgumentException e) {
+            logger.log(Level.WARNING,
+                "Compilation #" + taskId + " runs without progress: " + e.getMessage());
+          }
+        } else if (progress) {
+          logger.log(Level.WARNING, "Compilation #" + taskId
+              + " runs without progress: not supported by the content type of the response");
+        }
+
         Cli01CompilationTask jackTask;
         try {
           JackProvider jackProvider = jackServer.getProvider(program, assertion);
@@ -184,10 +238,31 @@ abstract class JackTask<T extends CommandOut> extends SynchronousServiceTask {
         }
 
 
-        start = System.currentTimeMillis();
-        commandStatus = jackTask.run();
+        ProgressForwarder forwarder = null;
+        if (progressFile != null) {
+          assert progressStream != null;
+          forwarder = new ProgressForwarder(progressFile, progressStream);
+          forwarder.start();
+        }
+        try {
+          jackServer.admitCompilation(taskId);
+          try {
+            start = System.currentTimeMillis();
+            commandStatus = jackTask.run();
+          } finally {
+            jackServer.releaseCompilation(taskId);
+          }
+        } finally {
+          if (forwarder != null) {
+            forwarder.finish();
+          }
+        }
       } catch (ConfigurationException e) {
         err.println("ERROR: Configuration: " + e.getMessage());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        logger.log(Level.WARNING, "Compilation #" + taskId + " interrupted while queued", e);
+        err.println("ERROR: Internal server error: compilation interrupted while queued");
       } catch (IllegalStateException e) {
         logger.log(Level.SEVERE, e.getMessage(), e);
         err.println("ERROR: Internal server error: " + e.getMessage() +
@@ -201,6 +276,9 @@ abstract class JackTask<T extends CommandOut> extends SynchronousServiceTask {
         logger.log(Level.INFO, "Compilation #" + taskId + " run in " + (stop - start) + " ms");
       }
     } finally {
+      if (progressFile != null && !progressFile.delete()) {
+        logger.log(Level.WARNING, "Failed to delete '" + progressFile.getPath() + "'");
+      }
       try {
         commandOut.close(commandStatus);
       } catch (IOException e) {
@@ -223,4 +301,94 @@ abstract class JackTask<T extends CommandOut> extends SynchronousServiceTask {
 
   protected abstract T createCommandOut(@Nonnull Response response, @Nonnull Charset outCharset)
       throws IOException;
+
+  /**
+   * Returns the stream receiving the progress lines of the compilation, when requested with the
+   * "progress" parameter of the accepted content type, or {@code null} if the response can not
+   * stream the progress.
+   */
+  @CheckForNull
+  protected PrintStream getProgressPrintStream(@Nonnull T commandOut) {
+    return null;
+  }
+
+  /**
+   * Expands the argument files of the command the way Jack does, so that no option defined in an
+   * argument file escapes {@link #addProgressOptions(String[], File)}.
+   */
+  @Nonnull
+  private static String[] expandArguments(@Nonnull String[] command, @Nonnull File pwd)
+      throws WrongPermissionException, NotFileOrDirectoryException, CannotReadException,
+      NoSuchFileException {
+    TokenIterator iterator = new TokenIterator(new NoLocation(), command).withFileRelativeTo(pwd);
+    List<String> expanded = new ArrayList<String>(command.length);
+    while (iterator.hasNext()) {
+      String arg = iterator.next();
+      if (arg.startsWith(ARG_FILE_PREFIX)) {
+        // Jack would read it as an argument file once given again on the command line
+        throw new IllegalArgumentException(
+            "Argument '" + arg + "' read from an argument file can not be forwarded");
+      }
+      expanded.add(arg);
+    }
+    return expanded.toArray(new String[expanded.size()]);
+  }
+
+  /**
+   * Makes Jack report its progress to the given file. The tracer configured by the command, with
+   * the last "-D" or the "--tracer-dir" option, keeps receiving the events through the progress
+   * tracer. The command must not contain argument files anymore.
+   */
+  @Nonnull
+  private static String[] addProgressOptions(@Nonnull String[] command,
+      @Nonnull File progressFile) {
+    String tracerPrefix = TracerFactory.TRACER.getName() + "=";
+    String streamPrefix = ProgressTracer.STREAM.getName() + "=";
+    String delegatePrefix = ProgressTracer.TRACER.getName() + "=";
+    String tracer = null;
+    String delegate = null;
+    List<String> options = new ArrayList<String>(command.length + 6);
+    options.add("-D");
+    options.add(tracerPrefix + PROGRESS_TRACER);
+    options.add("-D");
+    options.add(ProgressTracer.STREAM.getName() + "=" + progressFile.getPath() + "[UTF-8]");
+    options.add("-D");
+    int delegateIndex = options.size();
+    options.add(null);
+    for (int i = 0; i < command.length; i++) {
+      String arg = command[i];
+      String property;
+      if (arg.equals("-D") && i + 1 < command.length) {
+        property = command[i + 1];
+      } else if (arg.startsWith("-D")) {
+        property = arg.substring(2);
+      } else {
+        property = null;
+      }
+
+      // Every definition of the progress properties is removed, the last one being the used one
+      if (property != null && property.startsWith(tracerPrefix)) {
+        tracer = property.substring(tracerPrefix.length());
+      } else if (property != null && property.startsWith(delegatePrefix)) {
+        delegate = property.substring(delegatePrefix.length());
+      } else if (property == null || !property.startsWith(streamPrefix)) {
+        if (arg.equals(TRACER_DIR_OPTION) && tracer == null) {
+          tracer = TRACER_DIR_TRACER;
+        }
+        options.add(arg);
+        continue;
+      }
+      if (arg.equals("-D")) {
+        i++;
+      }
+    }
+    if (tracer != null && tracer.equals(PROGRESS_TRACER)) {
+      tracer = delegate;
+    }
+    if (tracer == null || tracer.equals(PROGRESS_TRACER)) {
+      tracer = NO_TRACER;
+    }
+    options.set(delegateIndex, ProgressTracer.TRACER.getName() + "=" + tracer);
+    return options.toArray(new String[options.size()]);
+  }
 }
\ No newline at end of file
@@ -24,6 +24,7 @@ import com.android.jack.server.type.CommandOutRaw;
 import org.simpleframework.http.Response;
 
 import java.io.IOException;
+import java.io.PrintStream;
 import java.nio.charset.Charset;
 
 import javax.annotation.Nonnull;
@@ -50,6 +51,12 @@ public class JackTaskRawOut extends JackTask<CommandOutRaw> {
     return new CommandOutRaw(response.getByteChannel(), Charset.defaultCharset(), outCharset);
   }
 
+  @Override
+  @Nonnull
+  protected PrintStream getProgressPrintStream(@Nonnull CommandOutRaw commandOut) {
+    return commandOut.getProgressPrintStream();
+  }
+
   @Override
   protected void installJackOutErr(Cli02Config jack, CommandOutRaw commandOut) {
     jack.setStandardError(commandOut.getErrPrintStream());
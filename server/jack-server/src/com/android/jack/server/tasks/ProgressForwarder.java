@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.server.tasks;
+
+import com.android.sched.util.log.LoggerFactory;
+import com.android.sched.util.log.ProgressTracer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Thread following the file where a compilation reports its progress, and forwarding its lines,
+ * without their {@link ProgressTracer#LINE_PREFIX}, while the compilation runs.
+ */
+class ProgressForwarder extends Thread {
+
+  @Nonnull
+  private static final Logger logger = LoggerFactory.getLogger();
+
+  private static final long POLL_DELAY_MS = 20;
+
+  @Nonnull
+  private final File file;
+
+  @Nonnull
+  private final PrintStream progress;
+
+  @Nonnull
+  private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+  private volatile boolean done = false;
+
+  ProgressForwarder(@Nonnull File file, @Nonnull PrintStream progress) {
+    super("Progress of " + file.getName());
+    this.file = file;
+    this.progress = progress;
+    setDaemon(true);
+  }
+
+  @Override
+  public void run() {
+    byte[] buffer = new byte[4096];
+    try {
+      InputStream is = new FileInputStream(file);
+      try {
+        boolean last = false;
+        while (!last) {
+          // Read 'done' before reading the file, so that the file is drained once done
+          last = done;
+          int read;
+          while ((read = is.read(buffer)) > 0) {
+            forward(buffer, read);
+          }
+          if (!last) {
+            Thread.sleep(POLL_DELAY_MS);
+          }
+        }
+      } finally {
+        is.close();
+      }
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Failed to read progress from '" + file.getPath() + "'", e);
+    } catch (InterruptedException e) {
+      logger.log(Level.WARNING, "Interrupted while reading progress from '" + file.getPath() + "'");
+    }
+  }
+
+  private void forward(@Nonnull byte[] buffer, int count) {
+    for (int i = 0; i < count; i++) {
+      byte b = buffer[i];
+      if (b == '\n') {
+        String string = new String(line.toByteArray(), StandardCharsets.UTF_8);
+        line.reset();
+        if (string.startsWith(ProgressTracer.LINE_PREFIX)) {
+          progress.println(string.substring(ProgressTracer.LINE_PREFIX.length()));
+        }
+      } else if (b != '\r') {
+        line.write(b);
+      }
+    }
+  }
+
+  /**
+   * Forwards the remaining lines and waits for the end of the thread.
+   */
+  void finish() {
+    done = true;
+    try {
+      join();
+    } catch (InterruptedException e) {
+      interrupt();
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -80,6 +80,20 @@ public class Stat extends SynchronousAdministrativeTask {
         println(printer, "server.forward: " + stat.getTotalForward());
         println(printer, "server.forward.max: " + stat.getMaxForward());
         println(printer, "server.forward.current: " + stat.getCurrentForward());
+        println(printer, "server.compilation.queued: " + stat.getQueuedTotal());
+        println(printer, "server.compilation.queued.max: " + stat.getQueuedMax());
+        println(printer, "server.compilation.queued.current: " + stat.getQueuedCurrent());
+        println(printer, "server.compilation.wait: "
+            + formatDuration(stat.getWaitTotal(), TimeUnit.MILLISECONDS));
+        println(printer, "server.compilation.wait.max: "
+            + formatDuration(stat.getWaitMax(), TimeUnit.MILLISECONDS));
+        if (stat.getFootprintEstimate() >= 0) {
+          println(printer, "server.compilation.footprint: "
+              + formatQuatity(stat.getFootprintEstimate()));
+        }
+        if (stat.getHeapHeadroom() >= 0) {
+          println(printer, "server.heap.headroom: " + formatQuatity(stat.getHeapHeadroom()));
+        }
 
         OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
         println(printer, "os.arch: " + os.getArch());
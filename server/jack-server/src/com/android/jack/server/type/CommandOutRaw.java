@@ -54,6 +54,8 @@ public class CommandOutRaw implements CommandOut {
   private static final String ERR_PREFIX = "E|";
   @Nonnull
   private static final String EXIT_PREFIX = "X|";
+  @Nonnull
+  private static final String PROGRESS_PREFIX = "P|";
 
   @Nonnull
   private static final String EOL = "\n";
@@ -65,6 +67,8 @@ public class CommandOutRaw implements CommandOut {
   @Nonnull
   private final PrintStream exit;
   @Nonnull
+  private final PrintStream progress;
+  @Nonnull
   private final OutputStream os;
 
   public CommandOutRaw(@Nonnull WritableByteChannel channel,
@@ -76,6 +80,8 @@ public class CommandOutRaw implements CommandOut {
       out = new CommantOutPrintStream(unclosable, inputBinaryCharset, outputCharset, OUT_PREFIX);
       err = new CommantOutPrintStream(unclosable, inputBinaryCharset, outputCharset, ERR_PREFIX);
       exit = new CommantOutPrintStream(unclosable, inputBinaryCharset, outputCharset, EXIT_PREFIX);
+      progress =
+          new CommantOutPrintStream(unclosable, inputBinaryCharset, outputCharset, PROGRESS_PREFIX);
     } catch (UnsupportedEncodingException e) {
       try {
         os.close();
@@ -97,10 +103,20 @@ public class CommandOutRaw implements CommandOut {
     return err;
   }
 
+  /**
+   * Returns the stream of the progress of the compilation, which is separate from the standard
+   * output and error of the compilation.
+   */
+  @Nonnull
+  public PrintStream getProgressPrintStream() {
+    return progress;
+  }
+
   @Override
   public void close(int exitCode) throws IOException {
     out.close();
     err.close();
+    progress.close();
     exit.println(exitCode);
     exit.close();
     os.close();
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.server;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Test for {@link AdmissionController}.
+ */
+public class AdmissionControllerTest {
+
+  private static final long SAMPLE_PERIOD_MS = 10;
+
+  private static final long TIMEOUT_MS = 10000;
+
+  private static final long MAX_HEAP = 1000;
+
+  /**
+   * Controller observing a heap set by the test.
+   */
+  private static class TestController extends AdmissionController {
+    private volatile long usedHeap;
+
+    TestController(@Nonnull Object lock, @Nonnull ServerInfo info, long usedHeap) {
+      super(lock, info, SAMPLE_PERIOD_MS);
+      this.usedHeap = usedHeap;
+    }
+
+    @Override
+    long getUsedHeap() {
+      return usedHeap;
+    }
+
+    @Override
+    long getMaxHeap() {
+      return MAX_HEAP;
+    }
+  }
+
+  @Test
+  public void testSampledFootprint() throws Exception {
+    Object lock = new Object();
+    ServerInfo info = new ServerInfo();
+    TestController controller = new TestController(lock, info, 100);
+    controller.setLimits(2, 1);
+
+    controller.admit(1);
+    controller.usedHeap = 700;
+    waitForHeadroom(lock, info, MAX_HEAP - 700);
+    // The garbage of the compilation is collected before its end
+    controller.usedHeap = 150;
+    waitForHeadroom(lock, info, MAX_HEAP - 150);
+    controller.release(1);
+
+    // The peak observed while running is the footprint
+    Assert.assertEquals(600, info.getFootprintEstimate());
+  }
+
+  @Test
+  public void testAdmissionAfterSample() throws Exception {
+    Object lock = new Object();
+    ServerInfo info = new ServerInfo();
+    final TestController controller = new TestController(lock, info, 100);
+    controller.setLimits(2, 1);
+
+    controller.admit(1);
+    controller.usedHeap = 400;
+    waitForHeadroom(lock, info, MAX_HEAP - 400);
+    controller.release(1);
+    Assert.assertEquals(300, info.getFootprintEstimate());
+
+    controller.usedHeap = 100;
+    controller.admit(2);
+    controller.usedHeap = 800;
+    Thread queued = new Thread() {
+      @Override
+      public void run() {
+        try {
+          controller.admit(3);
+        } catch (InterruptedException e) {
+          // The test fails on the join
+        }
+      }
+    };
+    queued.start();
+    waitForHeadroom(lock, info, MAX_HEAP - 800);
+    Assert.assertTrue(queued.isAlive());
+
+    // Heap freed while compilation #2 is still running
+    controller.usedHeap = 500;
+    queued.join(TIMEOUT_MS);
+    Assert.assertFalse(queued.isAlive());
+    controller.release(2);
+    controller.release(3);
+  }
+
+  private static void waitForHeadroom(@Nonnull Object lock, @Nonnull ServerInfo info,
+      long headroom) throws InterruptedException {
+    long end = System.currentTimeMillis() + TIMEOUT_MS;
+    while (true) {
+      synchronized (lock) {
+        if (info.getHeapHeadroom() == headroom) {
+          return;
+        }
+      }
+      Assert.assertTrue(System.currentTimeMillis() < end);
+      Thread.sleep(SAMPLE_PERIOD_MS);
+    }
+  }
+}